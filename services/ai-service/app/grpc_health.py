@@ -0,0 +1,80 @@
+"""
+Standard grpc.health.v1.Health service.
+
+The backend balances calls across ai-service replicas and watches this
+service to take NOT_SERVING replicas out of rotation.
+"""
+
+import asyncio
+import logging
+import sys
+from pathlib import Path
+from typing import AsyncIterator, Dict, Set
+
+import grpc
+from grpc import ServicerContext
+
+# Add proto directory to Python path
+sys.path.insert(0, str(Path(__file__).parent.parent / "proto"))
+import health_pb2
+import health_pb2_grpc
+
+logger = logging.getLogger(__name__)
+
+# Empty service name stands for the whole server
+SERVER = ""
+
+
+class HealthServicer(health_pb2_grpc.HealthServicer):
+    """Keeps serving status per service and pushes changes to watchers"""
+
+    def __init__(self):
+        self._statuses: Dict[str, int] = {}
+        self._watchers: Dict[str, Set[asyncio.Queue]] = {}
+
+    def set_status(self, service: str, status: int) -> None:
+        """Set serving status of a service and notify its watchers"""
+        self._statuses[service] = status
+        for queue in self._watchers.get(service, set()):
+            queue.put_nowait(status)
+        logger.info(
+            f"Health status of '{service or '<server>'}' is "
+            f"{health_pb2.HealthCheckResponse.ServingStatus.Name(status)}"
+        )
+
+    def set_all(self, status: int) -> None:
+        """Set the same serving status for every known service"""
+        for service in list(self._statuses):
+            self.set_status(service, status)
+
+    async def Check(
+            self,
+            request: health_pb2.HealthCheckRequest,
+            context: ServicerContext
+    ) -> health_pb2.HealthCheckResponse:
+        status = self._statuses.get(request.service)
+        if status is None:
+            await context.abort(grpc.StatusCode.NOT_FOUND, f"Unknown service: {request.service}")
+        return health_pb2.HealthCheckResponse(status=status)
+
+    async def Watch(
+            self,
+            request: health_pb2.HealthCheckRequest,
+            context: ServicerContext
+    ) -> AsyncIterator[health_pb2.HealthCheckResponse]:
+        queue: asyncio.Queue = asyncio.Queue()
+        watchers = self._watchers.setdefault(request.service, set())
+        watchers.add(queue)
+        try:
+            queue.put_nowait(self._statuses.get(
+                request.service,
+                health_pb2.HealthCheckResponse.SERVICE_UNKNOWN
+            ))
+            last = None
+            while True:
+                status = await queue.get()
+                if status != last:
+                    last = status
+                    yield health_pb2.HealthCheckResponse(status=status)
+        finally:
+            watchers.discard(queue)
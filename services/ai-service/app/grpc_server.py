@@ -4,10 +4,16 @@ gRPC server implementation for the Game Recommender Service.
 
 import asyncio
 import logging
-from typing import List
+from typing import Any, AsyncIterator, Dict, List
 
 import grpc
 from grpc import ServicerContext
+from app.profile_summary import (
+    PROFILE_SUMMARY_MISS_TRAILER,
+    ProfileSummaryMiss,
+    ProfileSummaryStore,
+    profile_summary_to_dict,
+)
 from app.services.registry import ServiceRegistry
 import sys
 from pathlib import Path
@@ -22,8 +28,9 @@ logger = logging.getLogger(__name__)
 class GameRecommenderServicer(reco_pb2_grpc.GameRecommenderServiceServicer):
     """gRPC servicer for game recommendations"""
     
-    def __init__(self, service_registry: ServiceRegistry):
+    def __init__(self, service_registry: ServiceRegistry, summary_store: ProfileSummaryStore | None = None):
         self.service_registry = service_registry
+        self.summary_store = summary_store or ProfileSummaryStore()
 
     async def RecommendGames(
             self,
@@ -36,36 +43,30 @@ class GameRecommenderServicer(reco_pb2_grpc.GameRecommenderServiceServicer):
             logger.info(f"User message: {request.userMessage}")
             logger.info(f"Selected tags: {request.selectedTags}")
 
+            steam_library, summary_cached = self._resolve_steam_library(request)
+
             # Get recommendations, reasoning from service registry with Steam library context
             recommendations, reasoning = await self.service_registry.get_recommendations_with_steam_library(
                 user_message=request.userMessage,
                 selected_tags=list(request.selectedTags),
-                steam_library=request.profileSummary,
+                steam_library=steam_library,
                 max_recommendations=request.maxResults
             )
 
             # Convert to gRPC format
-            grpc_recommendations = []
-            for rec in recommendations:
-                grpc_rec = reco_pb2.GameRecommendation(
-                    title=rec.get('title', ''),
-                    genre=rec.get('genre', ''),
-                    description=rec.get('description', ''),
-                    why_recommended=rec.get('why_recommended', ''),
-                    platforms=rec.get('platforms', []),
-                    rating=rec.get('rating', 0.0),
-                    release_year=rec.get('release_year', '')
-                )
-                grpc_recommendations.append(grpc_rec)
+            grpc_recommendations = [self._to_grpc_recommendation(rec) for rec in recommendations]
 
             return reco_pb2.RecommendationResponse(
                 success=True,
                 message=f"Generated {len(grpc_recommendations)} recommendations based on preferences and Steam library",
                 reasoning=reasoning,
                 recommendations=grpc_recommendations,
-                provider=self.service_registry.get_active_provider()
+                provider=self.service_registry.get_active_provider(),
+                profileSummaryCached=summary_cached
             )
 
+        except ProfileSummaryMiss as miss:
+            await self._abort_on_miss(context, miss)
         except Exception as e:
             logger.error(f"Error in RecommendGames: {e}")
             context.set_code(grpc.StatusCode.INTERNAL)
@@ -77,4 +78,96 @@ class GameRecommenderServicer(reco_pb2_grpc.GameRecommenderServiceServicer):
                 recommendations=[],
                 provider=""
             )
-        
+
+    async def StreamRecommendGames(
+            self,
+            request: reco_pb2.FullAiContextRequestProto,
+            context: ServicerContext
+    ) -> AsyncIterator[reco_pb2.RecommendationChunk]:
+        """Stream game recommendations: reasoning first, then each recommendation, then a summary"""
+        try:
+            logger.info("Received streaming recommendation request")
+            logger.info(f"User message: {request.userMessage}")
+            logger.info(f"Selected tags: {request.selectedTags}")
+
+            steam_library, summary_cached = self._resolve_steam_library(request)
+
+            # The provider answers with a single JSON document, so chunks are sent as soon as it is parsed
+            recommendations, reasoning = await self.service_registry.get_recommendations_with_steam_library(
+                user_message=request.userMessage,
+                selected_tags=list(request.selectedTags),
+                steam_library=steam_library,
+                max_recommendations=request.maxResults
+            )
+
+            if reasoning:
+                yield reco_pb2.RecommendationChunk(reasoning=reasoning)
+            for rec in recommendations:
+                yield reco_pb2.RecommendationChunk(recommendation=self._to_grpc_recommendation(rec))
+
+            yield reco_pb2.RecommendationChunk(summary=reco_pb2.RecommendationSummary(
+                success=True,
+                message=f"Generated {len(recommendations)} recommendations based on preferences and Steam library",
+                provider=self.service_registry.get_active_provider(),
+                profileSummaryCached=summary_cached
+            ))
+
+        except ProfileSummaryMiss as miss:
+            await self._abort_on_miss(context, miss)
+        except Exception as e:
+            logger.error(f"Error in StreamRecommendGames: {e}")
+            # Fail the call with a status only, as RecommendGames does on the wire;
+            # a success=False summary would race the status and hide it from the client
+            await context.abort(grpc.StatusCode.INTERNAL, str(e))
+
+    def _resolve_steam_library(
+            self,
+            request: reco_pb2.FullAiContextRequestProto
+    ) -> tuple[Dict[str, Any] | str, bool]:
+        """
+        Profile summary from the request body or, when only its hash was sent, from the store.
+
+        Returns the library and whether it is now held under request.profileSummaryHash,
+        which the backend needs to start sending the hash alone.
+        """
+        steam_library = self._steam_library(request)
+        summary_hash = request.profileSummaryHash
+        if not summary_hash:
+            return steam_library, False
+        if steam_library:
+            self.summary_store.put(summary_hash, steam_library)
+            return steam_library, True
+        cached = self.summary_store.get(summary_hash)
+        if cached is None:
+            raise ProfileSummaryMiss(summary_hash)
+        return cached, True
+
+    @staticmethod
+    async def _abort_on_miss(context: ServicerContext, miss: ProfileSummaryMiss) -> None:
+        """Ask the backend to resend the profile summary body"""
+        logger.info(f"Profile summary {miss.summary_hash} is not cached, requesting the body")
+        await context.abort(
+            grpc.StatusCode.FAILED_PRECONDITION,
+            str(miss),
+            trailing_metadata=((PROFILE_SUMMARY_MISS_TRAILER, miss.summary_hash),)
+        )
+
+    @staticmethod
+    def _steam_library(request: reco_pb2.FullAiContextRequestProto) -> Dict[str, Any] | str:
+        """Typed profile summary when the backend sent one, otherwise the legacy JSON string"""
+        if request.HasField("structuredProfileSummary"):
+            return profile_summary_to_dict(request.structuredProfileSummary)
+        return request.profileSummary
+
+    @staticmethod
+    def _to_grpc_recommendation(rec: Dict[str, Any]) -> reco_pb2.GameRecommendation:
+        """Convert a provider recommendation dict to its gRPC message"""
+        return reco_pb2.GameRecommendation(
+            title=rec.get('title', ''),
+            genre=rec.get('genre', ''),
+            description=rec.get('description', ''),
+            why_recommended=rec.get('why_recommended', ''),
+            platforms=rec.get('platforms', []),
+            rating=rec.get('rating', 0.0),
+            release_year=rec.get('release_year', '')
+        )
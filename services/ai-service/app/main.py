@@ -20,8 +20,10 @@ from dotenv import load_dotenv
 # Load environment variables from .env file
 load_dotenv()
 
+from app.grpc_health import SERVER, HealthServicer
 from app.grpc_server import GameRecommenderServicer
 from app.http_api import create_app
+from app.profile_summary import DEFAULT_PROFILE_SUMMARY_CACHE_SIZE, ProfileSummaryStore
 from app.services.registry import ServiceRegistry
 
 # Configure logging
@@ -35,10 +37,12 @@ logger = logging.getLogger(__name__)
 GRPC_PORT = int(os.getenv('GRPC_PORT', '9090'))
 HTTP_PORT = int(os.getenv('HTTP_PORT', '8000'))
 GRPC_HOST = os.getenv('GRPC_HOST', '[::]')
+PROFILE_SUMMARY_CACHE_SIZE = int(os.getenv('PROFILE_SUMMARY_CACHE_SIZE', str(DEFAULT_PROFILE_SUMMARY_CACHE_SIZE)))
 
 class AIService:
     def __init__(self):
         self.grpc_server = None
+        self.health_servicer = HealthServicer()
         self.service_registry = ServiceRegistry()
         
     async def start_grpc_server(self):
@@ -47,21 +51,31 @@ class AIService:
             self.grpc_server = aio.server()
             
             # Add the servicer
-            servicer = GameRecommenderServicer(self.service_registry)
+            servicer = GameRecommenderServicer(
+                self.service_registry,
+                ProfileSummaryStore(PROFILE_SUMMARY_CACHE_SIZE)
+            )
             
             # Import gRPC generated code
             import sys
             from pathlib import Path
             sys.path.insert(0, str(Path(__file__).parent.parent / "proto"))
+            import health_pb2
+            import health_pb2_grpc
+            import reco_pb2
             import reco_pb2_grpc
             
             reco_pb2_grpc.add_GameRecommenderServiceServicer_to_server(servicer, self.grpc_server)
+            health_pb2_grpc.add_HealthServicer_to_server(self.health_servicer, self.grpc_server)
             
             # Bind to port
             listen_addr = f'{GRPC_HOST}:{GRPC_PORT}'
             self.grpc_server.add_insecure_port(listen_addr)
             
             await self.grpc_server.start()
+            recommender_service = reco_pb2.DESCRIPTOR.services_by_name['GameRecommenderService'].full_name
+            for service in (SERVER, recommender_service):
+                self.health_servicer.set_status(service, health_pb2.HealthCheckResponse.SERVING)
             logger.info(f"gRPC server started on {listen_addr}")
             
         except Exception as e:
@@ -73,6 +87,9 @@ class AIService:
         logger.info("Stopping AI Service...")
         
         if self.grpc_server:
+            # Report NOT_SERVING first so clients stop routing new calls here during the grace period
+            import health_pb2
+            self.health_servicer.set_all(health_pb2.HealthCheckResponse.NOT_SERVING)
             await self.grpc_server.stop(grace=5)
             logger.info("gRPC server stopped")
             
@@ -0,0 +1,79 @@
+"""
+Conversion of the typed ProfileSummaryProto into the library dict used for prompts.
+
+The backend sends either a JSON string in ``profileSummary`` or, in PROTO mode,
+a ``structuredProfileSummary`` message. Both end up in the same "full" dict
+format, so prompt formatting does not depend on the transport.
+"""
+
+from collections import OrderedDict
+from typing import Any, Dict, List, Optional
+
+# Trailer set on FAILED_PRECONDITION when the request carried only an unknown profileSummaryHash
+PROFILE_SUMMARY_MISS_TRAILER = "x-profile-summary-miss"
+
+DEFAULT_PROFILE_SUMMARY_CACHE_SIZE = 1000
+
+
+def profile_summary_to_dict(summary: Any) -> Dict[str, Any]:
+    """Expand ProfileSummaryProto (shared games table + index lists) to the full library dict"""
+    games = [
+        {
+            "name": game.name,
+            "playtimeHours": game.playtimeHours,
+            "recentPlaytimeHours": game.recentPlaytimeHours,
+        }
+        for game in summary.games
+    ]
+
+    def resolve(indexes: List[int]) -> List[Dict[str, Any]]:
+        return [games[i] for i in indexes if 0 <= i < len(games)]
+
+    return {
+        "totalGamesOwned": summary.totalGamesOwned,
+        "totalPlaytimeHours": summary.totalPlaytimeHours,
+        "recentlyPlayed": resolve(summary.recentlyPlayed),
+        "topByPlaytime": resolve(summary.topByPlaytime),
+        "allGamesPlayed": resolve(summary.allGamesPlayed),
+        "risingPlaytime": [
+            {"name": game.name, "gainedHours": game.gainedHours}
+            for game in summary.risingPlaytime
+        ],
+    }
+
+
+class ProfileSummaryMiss(Exception):
+    """The request referenced a profile summary hash this replica does not hold"""
+
+    def __init__(self, summary_hash: str):
+        super().__init__(f"Unknown profile summary hash {summary_hash}")
+        self.summary_hash = summary_hash
+
+
+class ProfileSummaryStore:
+    """
+    Bounded LRU of decoded profile summaries keyed by their content hash.
+
+    The backend sends a summary body once per hash and afterwards only the hash,
+    so repeated turns of a chat do not carry the same multi-KB library again.
+    Entries are per replica and lost on restart; a miss makes the backend resend the body.
+    """
+
+    def __init__(self, max_entries: int = DEFAULT_PROFILE_SUMMARY_CACHE_SIZE):
+        self.max_entries = max(1, max_entries)
+        self._entries: "OrderedDict[str, Dict[str, Any] | str]" = OrderedDict()
+
+    def put(self, summary_hash: str, library: Dict[str, Any] | str) -> None:
+        self._entries[summary_hash] = library
+        self._entries.move_to_end(summary_hash)
+        while len(self._entries) > self.max_entries:
+            self._entries.popitem(last=False)
+
+    def get(self, summary_hash: str) -> Optional[Dict[str, Any] | str]:
+        library = self._entries.get(summary_hash)
+        if library is not None:
+            self._entries.move_to_end(summary_hash)
+        return library
+
+    def __len__(self) -> int:
+        return len(self._entries)
@@ -224,6 +224,25 @@ class DeepSeekService(BaseAIService):
             logger.error(f"Error getting recommendations from DeepSeek: {e}")
             return self._get_mock_recommendations(max_recommendations)
 
+    def _expand_compact_library(self, steam_library_json: Dict[str, Any]) -> Dict[str, Any]:
+        """Expand backend "compact-v1" summary (shared games table + index lists) to the full format."""
+        if steam_library_json.get("format") != "compact-v1":
+            return steam_library_json
+
+        fields = steam_library_json.get("fields") or ["name", "playtimeHours", "recentPlaytimeHours"]
+        games = [dict(zip(fields, row)) for row in steam_library_json.get("games") or []]
+
+        def resolve(key: str) -> List[Dict[str, Any]]:
+            return [games[i] for i in steam_library_json.get(key) or [] if 0 <= i < len(games)]
+
+        return {
+            "totalGamesOwned": steam_library_json.get("totalGamesOwned"),
+            "totalPlaytimeHours": steam_library_json.get("totalPlaytimeHours"),
+            "recentlyPlayed": resolve("recentlyPlayed"),
+            "topByPlaytime": resolve("topByPlaytime"),
+            "allGamesPlayed": resolve("allGamesPlayed"),
+        }
+
     def _format_library_data(self, steam_library_json: Dict[str, Any]) -> str:
         recently_played = steam_library_json.get("recentlyPlayed") or []
         top_by_playtime = steam_library_json.get("topByPlaytime") or []
@@ -256,17 +275,19 @@ class DeepSeekService(BaseAIService):
 
         return "\n".join(lines)
 
-    def _build_library_prompt_block(self, steam_library: str | None) -> str:
+    def _build_library_prompt_block(self, steam_library: str | Dict[str, Any] | None) -> str:
 
         if not steam_library:
             logger.info("Steam library is null, skipping library sections in prompt")
             return ""
 
-        steam_library_json = json.loads(steam_library)
+        # Typed summaries arrive already decoded; only the legacy string needs parsing
+        steam_library_json = steam_library if isinstance(steam_library, dict) else json.loads(steam_library)
         if not isinstance(steam_library_json, dict):
             logger.info("Steam library is malformed, skipping library sections in prompt")
             return ""
 
+        steam_library_json = self._expand_compact_library(steam_library_json)
         logger.info("Steam library data available, adding to prompt")
         return (
             f"\n  {self._format_library_data(steam_library_json)}"
@@ -280,7 +301,7 @@ class DeepSeekService(BaseAIService):
             self,
             user_message: str,
             selected_tags: List[str],
-            steam_library: str | None,
+            steam_library: str | Dict[str, Any] | None,
             max_recommendations: int = 5
     ) -> tuple[List[Dict[str, Any]], str]:
         """Get recommendations based on user preferences and Steam library"""
@@ -0,0 +1,69 @@
+#!/usr/bin/env python3
+"""
+Tests for Steam library prompt formatting (full and compact summary formats).
+"""
+
+import json
+from types import SimpleNamespace
+
+from app.profile_summary import profile_summary_to_dict
+from app.services.deepseek_service import DeepSeekService
+
+
+FULL_LIBRARY = {
+    "totalGamesOwned": 3,
+    "totalPlaytimeHours": 60,
+    "topByPlaytime": [{"name": "Portal 2", "playtimeHours": 10, "recentPlaytimeHours": 0}],
+    "recentlyPlayed": [{"name": "Hades", "playtimeHours": 50, "recentPlaytimeHours": 2}],
+    "allGamesPlayed": [
+        {"name": "Hades", "playtimeHours": 50, "recentPlaytimeHours": 2},
+        {"name": "Portal 2", "playtimeHours": 10, "recentPlaytimeHours": 0},
+    ],
+}
+
+COMPACT_LIBRARY = {
+    "format": "compact-v1",
+    "fields": ["name", "playtimeHours", "recentPlaytimeHours"],
+    "games": [["Hades", 50, 2], ["Portal 2", 10, 0]],
+    "recentlyPlayed": [0],
+    "topByPlaytime": [1],
+    "allGamesPlayed": [0, 1],
+    "totalGamesOwned": 3,
+    "totalPlaytimeHours": 60,
+}
+
+
+def test_compact_library_produces_same_prompt_block_as_full():
+    service = DeepSeekService(api_key="test")
+
+    full_block = service._build_library_prompt_block(json.dumps(FULL_LIBRARY))
+    compact_block = service._build_library_prompt_block(json.dumps(COMPACT_LIBRARY))
+
+    assert compact_block == full_block
+    assert "Hades (2 hours in last 2 weeks)" in compact_block
+
+
+def test_full_library_is_passed_through_unchanged():
+    service = DeepSeekService(api_key="test")
+
+    assert service._expand_compact_library(FULL_LIBRARY) is FULL_LIBRARY
+
+
+def test_structured_summary_produces_same_prompt_block_as_full():
+    service = DeepSeekService(api_key="test")
+    structured = SimpleNamespace(
+        games=[
+            SimpleNamespace(name="Hades", playtimeHours=50, recentPlaytimeHours=2),
+            SimpleNamespace(name="Portal 2", playtimeHours=10, recentPlaytimeHours=0),
+        ],
+        recentlyPlayed=[0],
+        topByPlaytime=[1],
+        allGamesPlayed=[0, 1],
+        totalGamesOwned=3,
+        totalPlaytimeHours=60,
+        risingPlaytime=[],
+    )
+
+    structured_block = service._build_library_prompt_block(profile_summary_to_dict(structured))
+
+    assert structured_block == service._build_library_prompt_block(json.dumps(FULL_LIBRARY))
@@ -0,0 +1,22 @@
+from app.profile_summary import ProfileSummaryStore
+
+
+def test_store_returns_library_by_hash():
+    store = ProfileSummaryStore(max_entries=2)
+    store.put("a", {"totalGamesOwned": 1})
+
+    assert store.get("a") == {"totalGamesOwned": 1}
+    assert store.get("missing") is None
+
+
+def test_store_evicts_least_recently_used():
+    store = ProfileSummaryStore(max_entries=2)
+    store.put("a", "library-a")
+    store.put("b", "library-b")
+    store.get("a")
+    store.put("c", "library-c")
+
+    assert len(store) == 2
+    assert store.get("b") is None
+    assert store.get("a") == "library-a"
+    assert store.get("c") == "library-c"
@@ -0,0 +1,386 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.perevalov.gamerecommenderai.client.props.AiConcurrencyLimiterProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.security.RequestIdentity;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивное ограничение параллельных вызовов AI сервиса.
+ * <p>
+ * Лимит пересчитывается по RTT завершившихся вызовов (gradient): пока RTT не превышает
+ * долгосрочный средний больше чем в {@code rttTolerance} раз, лимит растёт на {@code sqrt(limit)},
+ * иначе снижается пропорционально отношению RTT. Таймаут или недоступность AI сервиса — исходный gRPC
+ * статус {@code DEADLINE_EXCEEDED} или {@code UNAVAILABLE} — снижают лимит в {@code backoffRatio} раз.
+ * Отказ открытого circuit breaker тоже приходит как {@link ErrorType#AI_SERVICE_UNAVAILABLE}, но вызова
+ * AI не было, поэтому лимит он не трогает. Лимит не растёт,
+ * пока занято меньше половины мест, — иначе он уползёт вверх при низкой нагрузке.
+ * <p>
+ * Запросы сверх лимита ждут в очереди своей роли ({@link RequestIdentity#role()} из реактивного контекста;
+ * без identity — гость). Внутри очереди порядок FIFO, освободившиеся места делятся между непустыми
+ * очередями пропорционально весам ролей (smooth weighted round-robin), поэтому всплеск гостевого
+ * трафика не вытесняет вошедших пользователей. У каждой роли свой размер очереди и
+ * {@code queueTimeout}; при переполнении очереди или истечении ожидания запрос сразу получает
+ * {@link ErrorType#AI_SERVICE_OVERLOADED}, не доходя до circuit breaker.
+ */
+@Slf4j
+@Component
+public class AiConcurrencyLimiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final AiConcurrencyLimiterProps props;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler timer;
+    private final LongSupplier nanoClock;
+    private final Map<UserRole, RoleQueue> queues = new EnumMap<>(UserRole.class);
+
+    private final Object lock = new Object();
+    private volatile double limit;
+    private volatile int inFlight;
+    private int queued;
+    private double longRttNanos;
+
+    @Autowired
+    public AiConcurrencyLimiter(AiConcurrencyLimiterProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Schedulers.parallel(), System::nanoTime);
+    }
+
+    AiConcurrencyLimiter(AiConcurrencyLimiterProps props,
+                         MeterRegistry meterRegistry,
+                         Scheduler timer,
+                         LongSupplier nanoClock) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.timer = timer;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(props.minLimit(), Math.min(props.maxLimit(), props.initialLimit()));
+        for (UserRole role : UserRole.values()) {
+            queues.put(role, new RoleQueue(role, props.forRole(role)));
+        }
+
+        Gauge.builder(GrpcAiMetricsConstant.AI_LIMITER_LIMIT, this, AiConcurrencyLimiter::currentLimit)
+                .register(meterRegistry);
+        Gauge.builder(GrpcAiMetricsConstant.AI_LIMITER_IN_FLIGHT, this, limiter -> limiter.inFlight)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет вызов, заняв место в лимите; место освобождается при завершении или отмене вызова.
+     *
+     * @param call вызов AI сервиса
+     * @return результат вызова либо {@link ErrorType#AI_SERVICE_OVERLOADED}, если место не получено
+     */
+    public <T> Mono<T> limit(Mono<T> call) {
+        if (!props.enabled()) {
+            return call;
+        }
+        return Mono.usingWhen(
+                acquire(),
+                permit -> call,
+                permit -> Mono.fromRunnable(() -> permit.release(null)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(error)),
+                permit -> Mono.fromRunnable(permit::cancel));
+    }
+
+    /**
+     * Потоковый вариант {@link #limit(Mono)}: место занято до завершения потока.
+     *
+     * @param call потоковый вызов AI сервиса
+     * @return поток вызова либо {@link ErrorType#AI_SERVICE_OVERLOADED}, если место не получено
+     */
+    public <T> Flux<T> limit(Flux<T> call) {
+        if (!props.enabled()) {
+            return call;
+        }
+        return Flux.usingWhen(
+                acquire(),
+                permit -> call,
+                permit -> Mono.fromRunnable(() -> permit.release(null)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(error)),
+                permit -> Mono.fromRunnable(permit::cancel));
+    }
+
+    /**
+     * Текущий лимит параллельных вызовов.
+     */
+    public int currentLimit() {
+        return (int) limit;
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.deferContextual(ctx -> acquire(queues.get(
+                ctx.getOrDefault(RequestIdentity.class, RequestIdentity.anonymous()).role())));
+    }
+
+    private Mono<Permit> acquire(RoleQueue queue) {
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(queue, sink, nanoClock.getAsLong());
+                    sink.onCancel(() -> cancelWaiting(waiter));
+
+                    Permit granted = null;
+                    boolean enqueued = false;
+                    synchronized (lock) {
+                        if (waiter.state != WAITING) {
+                            return;
+                        }
+                        if (queued == 0 && inFlight < currentLimit()) {
+                            waiter.state = GRANTED;
+                            granted = grant();
+                        } else if (queue.waiters.size() < queue.settings.maxQueueSize()) {
+                            queue.waiters.addLast(waiter);
+                            queued++;
+                            enqueued = true;
+                        }
+                    }
+
+                    if (granted != null) {
+                        sink.success(granted);
+                    } else if (enqueued) {
+                        waiter.timeout = timer.schedule(() -> expire(waiter),
+                                queue.settings.queueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+                    } else {
+                        reject(queue, sink, GrpcAiMetricsConstant.REASON_QUEUE_FULL, "queue is full");
+                    }
+                })
+                // Место, выданное уже отменённому запросу, возвращается сразу.
+                .doOnDiscard(Permit.class, Permit::cancel);
+    }
+
+    /**
+     * Занимает место; вызывается под {@link #lock}.
+     */
+    private Permit grant() {
+        inFlight++;
+        return new Permit(nanoClock.getAsLong(), inFlight);
+    }
+
+    private void cancelWaiting(Waiter waiter) {
+        synchronized (lock) {
+            if (waiter.state == WAITING) {
+                waiter.state = CANCELLED;
+                remove(waiter);
+            }
+        }
+        waiter.disposeTimeout();
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (lock) {
+            if (waiter.state != WAITING) {
+                return;
+            }
+            waiter.state = CANCELLED;
+            remove(waiter);
+        }
+        waiter.queue.queueWait.record(Duration.ofNanos(nanoClock.getAsLong() - waiter.enqueuedAt));
+        reject(waiter.queue, waiter.sink, GrpcAiMetricsConstant.REASON_QUEUE_TIMEOUT, "queue timeout exceeded");
+    }
+
+    /**
+     * Убирает ожидающего из очереди; вызывается под {@link #lock}.
+     */
+    private void remove(Waiter waiter) {
+        if (waiter.queue.waiters.remove(waiter)) {
+            queued--;
+        }
+    }
+
+    private void reject(RoleQueue queue, MonoSink<Permit> sink, String reason, String message) {
+        meterRegistry.counter(
+                GrpcAiMetricsConstant.AI_LIMITER_REJECTED_TOTAL,
+                GrpcAiMetricsConstant.TAG_REASON, reason,
+                GrpcAiMetricsConstant.TAG_ROLE, queue.tag
+        ).increment();
+        log.warn("Rejecting AI call: {}, role={}, limit={}, inFlight={}",
+                message, queue.tag, currentLimit(), inFlight);
+        sink.error(new GameRecommenderException(ErrorType.AI_SERVICE_OVERLOADED, message));
+    }
+
+    /**
+     * Освобождает место, пересчитывает лимит и отдаёт освободившиеся места ожидающим.
+     *
+     * @param rttNanos        длительность вызова; {@code < 0}, если вызов не даёт замера (отмена, ошибка клиента)
+     * @param dropped         завершился ли вызов таймаутом или недоступностью AI сервиса
+     * @param inFlightAtStart сколько вызовов выполнялось в момент старта этого
+     */
+    private void onRelease(long rttNanos, boolean dropped, int inFlightAtStart) {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (lock) {
+            inFlight--;
+            if (dropped) {
+                limit = Math.max(props.minLimit(), limit * props.backoffRatio());
+            } else if (rttNanos > 0) {
+                updateLimit(rttNanos, inFlightAtStart);
+            }
+            while (queued > 0 && inFlight < currentLimit()) {
+                Waiter waiter = nextWaiter();
+                waiter.state = GRANTED;
+                waiter.permit = grant();
+                ready.add(waiter);
+            }
+        }
+
+        long now = nanoClock.getAsLong();
+        for (Waiter waiter : ready) {
+            waiter.disposeTimeout();
+            waiter.queue.queueWait.record(Duration.ofNanos(now - waiter.enqueuedAt));
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    /**
+     * Smooth weighted round-robin по непустым очередям: каждая набирает кредит по своему весу,
+     * место получает очередь с наибольшим кредитом и отдаёт сумму весов. Опустевшая очередь
+     * обнуляет кредит, чтобы не копить приоритет, пока ей нечего отдавать. Вызывается под {@link #lock}.
+     */
+    private Waiter nextWaiter() {
+        RoleQueue next = null;
+        long totalWeight = 0;
+        for (RoleQueue queue : queues.values()) {
+            if (queue.waiters.isEmpty()) {
+                continue;
+            }
+            queue.credit += queue.settings.weight();
+            totalWeight += queue.settings.weight();
+            if (next == null || queue.credit > next.credit) {
+                next = queue;
+            }
+        }
+        next.credit -= totalWeight;
+        Waiter waiter = next.waiters.pollFirst();
+        if (next.waiters.isEmpty()) {
+            next.credit = 0;
+        }
+        queued--;
+        return waiter;
+    }
+
+    /**
+     * Gradient: сравнивает RTT вызова с долгосрочным средним; вызывается под {@link #lock}.
+     */
+    private void updateLimit(long rttNanos, int inFlightAtStart) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2.0 / (props.longWindow() + 1);
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, props.rttTolerance() * longRttNanos / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && inFlightAtStart * 2 < limit) {
+            return;
+        }
+        double smoothed = limit * (1 - props.smoothing()) + target * props.smoothing();
+        limit = Math.max(props.minLimit(), Math.min(props.maxLimit(), smoothed));
+    }
+
+    /**
+     * Перегрузку AI сервиса определяет gRPC статус в цепочке причин, а не тип ошибки после маппинга:
+     * {@link Status#fromThrowable} для отказа circuit breaker и прочих локальных ошибок даёт {@code UNKNOWN}.
+     */
+    private static boolean isDrop(Throwable error) {
+        Status.Code code = Status.fromThrowable(error).getCode();
+        return code == Status.Code.DEADLINE_EXCEEDED || code == Status.Code.UNAVAILABLE;
+    }
+
+    private final class RoleQueue {
+        private final String tag;
+        private final AiConcurrencyLimiterProps.RoleQueue settings;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final Timer queueWait;
+        private long credit;
+
+        private RoleQueue(UserRole role, AiConcurrencyLimiterProps.RoleQueue settings) {
+            this.tag = role.name().toLowerCase(Locale.ROOT);
+            this.settings = settings;
+            this.queueWait = Timer.builder(GrpcAiMetricsConstant.AI_LIMITER_QUEUE_WAIT)
+                    .tag(GrpcAiMetricsConstant.TAG_ROLE, tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder(GrpcAiMetricsConstant.AI_LIMITER_QUEUE_SIZE, this, RoleQueue::size)
+                    .tag(GrpcAiMetricsConstant.TAG_ROLE, tag)
+                    .register(meterRegistry);
+        }
+
+        private int size() {
+            synchronized (lock) {
+                return waiters.size();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final RoleQueue queue;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedAt;
+        private int state = WAITING;
+        private Permit permit;
+        private volatile Disposable timeout;
+
+        private Waiter(RoleQueue queue, MonoSink<Permit> sink, long enqueuedAt) {
+            this.queue = queue;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        private void disposeTimeout() {
+            Disposable scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+        }
+    }
+
+    private final class Permit {
+        private final long startedAt;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startedAt, int inFlightAtStart) {
+            this.startedAt = startedAt;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        private void release(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                long rtt = error == null ? nanoClock.getAsLong() - startedAt : -1;
+                onRelease(rtt, error != null && isDrop(error), inFlightAtStart);
+            }
+        }
+
+        private void cancel() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(-1, false, inFlightAtStart);
+            }
+        }
+    }
+}
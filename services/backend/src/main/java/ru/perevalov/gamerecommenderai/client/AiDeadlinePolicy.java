@@ -0,0 +1,202 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.client.props.AiDeadlineProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.filter.RequestBudget;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивный deadline вызовов AI сервиса.
+ * <p>
+ * Для каждого провайдера AI ({@code provider} в ответе) хранится окно латентности последних {@code window}
+ * вызовов; deadline — перцентиль {@code percentile} этого окна, умноженный на {@code headroom} и зажатый
+ * в {@code [minDeadline, maxDeadline]}. Берётся окно провайдера, ответившего последним: провайдер выбирает
+ * AI сервис, и заранее он неизвестен. Пока вызовов провайдера меньше {@code minSamples}, deadline равен
+ * {@code maxDeadline}. Вызов, упавший по deadline, попадает в окно со временем до ошибки — иначе при
+ * замедлении провайдера окно видело бы только быстрые вызовы и deadline не рос бы.
+ * <p>
+ * Если цепочка запущена из HTTP запроса, deadline не превышает оставшийся {@link RequestBudget}.
+ * Истечение такого deadline — {@link ErrorType#AI_REQUEST_BUDGET_EXHAUSTED}, а не ошибка AI сервиса: оно
+ * не повторяется, не учитывается circuit breaker и считается в {@code ai_deadline_outcome_total} отдельно
+ * от {@code deadline_exceeded}.
+ */
+@Slf4j
+@Component
+public class AiDeadlinePolicy {
+
+    static final String UNKNOWN_PROVIDER = "unknown";
+
+    private final AiDeadlineProps props;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final Counter deadlineExceeded;
+    private final Counter budgetExhausted;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private volatile String activeProvider = UNKNOWN_PROVIDER;
+
+    @Autowired
+    public AiDeadlinePolicy(AiDeadlineProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, System::nanoTime);
+    }
+
+    AiDeadlinePolicy(AiDeadlineProps props, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.deadlineExceeded = meterRegistry.counter(GrpcAiMetricsConstant.AI_DEADLINE_OUTCOME_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_DEADLINE_EXCEEDED);
+        this.budgetExhausted = meterRegistry.counter(GrpcAiMetricsConstant.AI_DEADLINE_OUTCOME_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_BUDGET_EXHAUSTED);
+    }
+
+    /**
+     * Deadline для очередной попытки вызова.
+     *
+     * @return deadline попытки либо {@link ErrorType#AI_REQUEST_BUDGET_EXHAUSTED}, если от бюджета запроса
+     * осталось меньше {@code minBudget}
+     */
+    public Mono<Deadline> next() {
+        return Mono.deferContextual(context -> {
+            Duration adaptive = currentDeadline();
+            Optional<RequestBudget> budget = RequestBudget.from(context);
+            if (budget.isEmpty()) {
+                return Mono.just(new Deadline(adaptive, false));
+            }
+            Duration remaining = budget.get().remaining(nanoClock.getAsLong());
+            if (remaining.compareTo(props.minBudget()) < 0) {
+                budgetExhausted.increment();
+                log.warn("Request budget exhausted before AI call, remaining {} ms", remaining.toMillis());
+                return Mono.error(new GameRecommenderException(ErrorType.AI_REQUEST_BUDGET_EXHAUSTED));
+            }
+            return Mono.just(remaining.compareTo(adaptive) < 0
+                    ? new Deadline(remaining, true)
+                    : new Deadline(adaptive, false));
+        });
+    }
+
+    /**
+     * Засекает латентность унарной попытки и разбирает истечение её deadline.
+     *
+     * @param deadline   deadline, с которым отправлена попытка
+     * @param call       попытка вызова
+     * @param providerOf провайдер из ответа
+     * @return попытка с учётом латентности
+     */
+    public <T> Mono<T> track(Deadline deadline, Mono<T> call, Function<T, String> providerOf) {
+        return trackStream(deadline, call.flux(), providerOf).singleOrEmpty();
+    }
+
+    /**
+     * Засекает латентность потоковой попытки до завершения потока и разбирает истечение её deadline.
+     *
+     * @param deadline   deadline, с которым отправлена попытка
+     * @param call       попытка вызова
+     * @param providerOf провайдер из элемента потока; {@code null} или пустая строка, если элемент его не несёт
+     * @return попытка с учётом латентности
+     */
+    public <T> Flux<T> trackStream(Deadline deadline, Flux<T> call, Function<T, String> providerOf) {
+        return Flux.defer(() -> {
+            long startedAt = nanoClock.getAsLong();
+            AtomicReference<String> provider = new AtomicReference<>(activeProvider);
+            return call.doOnNext(value -> {
+                        String reported = providerOf.apply(value);
+                        if (reported != null && !reported.isBlank()) {
+                            provider.set(reported);
+                        }
+                    })
+                    .doOnComplete(() -> record(provider.get(), nanoClock.getAsLong() - startedAt))
+                    .onErrorMap(AiDeadlinePolicy::isDeadlineExceeded,
+                            error -> onDeadlineExceeded(deadline, provider.get(), nanoClock.getAsLong() - startedAt, error));
+        });
+    }
+
+    /**
+     * Текущий адаптивный deadline без учёта бюджета запроса.
+     */
+    public Duration currentDeadline() {
+        LatencyWindow window = windows.get(activeProvider);
+        return Duration.ofNanos(window != null ? window.deadlineNanos : props.maxDeadline().toNanos());
+    }
+
+    private Throwable onDeadlineExceeded(Deadline deadline, String provider, long elapsedNanos, Throwable error) {
+        if (deadline.budgetBound()) {
+            budgetExhausted.increment();
+            return new GameRecommenderException(ErrorType.AI_REQUEST_BUDGET_EXHAUSTED);
+        }
+        deadlineExceeded.increment();
+        record(provider, elapsedNanos);
+        return error;
+    }
+
+    private void record(String provider, long latencyNanos) {
+        if (!props.enabled()) {
+            return;
+        }
+        activeProvider = provider;
+        windows.computeIfAbsent(provider, this::newWindow).record(latencyNanos);
+    }
+
+    private LatencyWindow newWindow(String provider) {
+        LatencyWindow window = new LatencyWindow();
+        Gauge.builder(GrpcAiMetricsConstant.AI_DEADLINE, window, w -> w.deadlineNanos / 1e9)
+                .tag(GrpcAiMetricsConstant.TAG_PROVIDER, provider)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return window;
+    }
+
+    private static boolean isDeadlineExceeded(Throwable error) {
+        return Status.fromThrowable(Exceptions.unwrap(error)).getCode() == Status.Code.DEADLINE_EXCEEDED;
+    }
+
+    /**
+     * Deadline попытки.
+     *
+     * @param timeout      сколько ждать ответа
+     * @param budgetBound  deadline ограничен бюджетом HTTP запроса, а не латентностью провайдера
+     */
+    public record Deadline(Duration timeout, boolean budgetBound) {
+    }
+
+    private final class LatencyWindow {
+
+        private final long[] samples = new long[props.window()];
+        private int sampleCount;
+        private int nextSample;
+        private volatile long deadlineNanos = props.maxDeadline().toNanos();
+
+        private synchronized void record(long latencyNanos) {
+            samples[nextSample] = latencyNanos;
+            nextSample = (nextSample + 1) % samples.length;
+            sampleCount = Math.min(sampleCount + 1, samples.length);
+            if (sampleCount < props.minSamples()) {
+                return;
+            }
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(props.percentile() * sorted.length) - 1;
+            long target = (long) (sorted[Math.max(0, index)] * props.headroom());
+            deadlineNanos = Math.max(props.minDeadline().toNanos(), Math.min(props.maxDeadline().toNanos(), target));
+        }
+    }
+}
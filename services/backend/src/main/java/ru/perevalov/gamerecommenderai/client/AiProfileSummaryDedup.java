@@ -0,0 +1,158 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.client.props.AiProfileSummaryDedupProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.grpc.FullAiContextRequestProto;
+import ru.perevalov.gamerecommenderai.util.ContentHash;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Дедупликация profile summary в запросах к AI сервису по hash содержимого.
+ * <p>
+ * Summary одного пользователя одинаков на всех шагах чата, а у больших библиотек занимает килобайты.
+ * Запрос всегда несёт {@code profileSummaryHash}; AI сервис кладёт тело в свой LRU и подтверждает это
+ * флагом {@code profileSummaryCached} в ответе. Подтверждённые hash-и запоминаются, и дальше запрос уходит
+ * без тела. Если AI сервис hash не знает (другая реплика, рестарт, вытеснение из LRU), он отвечает
+ * {@code FAILED_PRECONDITION} с trailer {@value #MISS_TRAILER_NAME} — тогда та же попытка сразу
+ * повторяется с телом. Без подтверждения тело не убирается, поэтому AI сервис без поддержки протокола
+ * продолжает получать summary целиком.
+ */
+@Slf4j
+@Component
+public class AiProfileSummaryDedup {
+
+    static final String MISS_TRAILER_NAME = "x-profile-summary-miss";
+    static final Metadata.Key<String> MISS_TRAILER = Metadata.Key.of(MISS_TRAILER_NAME, Metadata.ASCII_STRING_MARSHALLER);
+
+    private final AiProfileSummaryDedupProps props;
+    private final Cache<String, Boolean> acknowledged;
+    private final Counter hashOnly;
+    private final Counter full;
+    private final Counter miss;
+    private final Counter bytesSaved;
+
+    @Autowired
+    public AiProfileSummaryDedup(AiProfileSummaryDedupProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Ticker.systemTicker());
+    }
+
+    AiProfileSummaryDedup(AiProfileSummaryDedupProps props, MeterRegistry meterRegistry, Ticker ticker) {
+        this.props = props;
+        this.acknowledged = Caffeine.newBuilder()
+                .maximumSize(props.maxEntries())
+                .expireAfterAccess(props.ttl())
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .build();
+        this.hashOnly = outcomeCounter(meterRegistry, GrpcAiMetricsConstant.OUTCOME_HASH_ONLY);
+        this.full = outcomeCounter(meterRegistry, GrpcAiMetricsConstant.OUTCOME_FULL);
+        this.miss = outcomeCounter(meterRegistry, GrpcAiMetricsConstant.OUTCOME_MISS);
+        this.bytesSaved = Counter.builder(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_BYTES_SAVED_TOTAL)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Унарный вызов с дедупликацией summary.
+     *
+     * @param request       запрос с телом summary
+     * @param call          попытка вызова
+     * @param acknowledgeOf подтвердил ли AI сервис, что сохранил summary
+     * @return ответ AI сервиса
+     */
+    public <T> Mono<T> send(FullAiContextRequestProto request,
+                            Function<FullAiContextRequestProto, Mono<T>> call,
+                            Predicate<T> acknowledgeOf) {
+        return sendStream(request, call.andThen(Mono::flux), acknowledgeOf).singleOrEmpty();
+    }
+
+    /**
+     * Потоковый вызов с дедупликацией summary. AI сервис сообщает о промахе до первого чанка,
+     * поэтому повтор с телом не дублирует части ответа.
+     *
+     * @param request       запрос с телом summary
+     * @param call          попытка вызова
+     * @param acknowledgeOf подтверждает ли элемент потока, что AI сервис сохранил summary
+     * @return поток ответа AI сервиса
+     */
+    public <T> Flux<T> sendStream(FullAiContextRequestProto request,
+                                  Function<FullAiContextRequestProto, Flux<T>> call,
+                                  Predicate<T> acknowledgeOf) {
+        int bodySize = bodySize(request);
+        if (!props.enabled() || bodySize == 0) {
+            return call.apply(request);
+        }
+        String hash = hashOf(request);
+        FullAiContextRequestProto withBody = request.toBuilder().setProfileSummaryHash(hash).build();
+        if (acknowledged.getIfPresent(hash) == null) {
+            full.increment();
+            return withAcknowledge(call.apply(withBody), hash, acknowledgeOf);
+        }
+        FullAiContextRequestProto hashOnlyRequest = withBody.toBuilder()
+                .clearProfileSummary()
+                .clearStructuredProfileSummary()
+                .build();
+        return Flux.defer(() -> {
+                    hashOnly.increment();
+                    bytesSaved.increment(bodySize);
+                    return call.apply(hashOnlyRequest);
+                })
+                .onErrorResume(AiProfileSummaryDedup::isMiss, error -> {
+                    miss.increment();
+                    acknowledged.invalidate(hash);
+                    log.debug("AI service does not hold profile summary {}, resending the body", hash);
+                    return withAcknowledge(call.apply(withBody), hash, acknowledgeOf);
+                });
+    }
+
+    private <T> Flux<T> withAcknowledge(Flux<T> response, String hash, Predicate<T> acknowledgeOf) {
+        return response.doOnNext(value -> {
+            if (acknowledgeOf.test(value)) {
+                acknowledged.put(hash, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static int bodySize(FullAiContextRequestProto request) {
+        return request.getProfileSummaryBytes().size()
+                + (request.hasStructuredProfileSummary() ? request.getStructuredProfileSummary().getSerializedSize() : 0);
+    }
+
+    /**
+     * Hash того же содержимого, что и ключ {@code RecommendationCache}: proto либо JSON-строка.
+     */
+    private static String hashOf(FullAiContextRequestProto request) {
+        return request.hasStructuredProfileSummary()
+                ? ContentHash.sha256(request.getStructuredProfileSummary().toByteArray())
+                : ContentHash.sha256(request.getProfileSummaryBytes().toByteArray());
+    }
+
+    private static boolean isMiss(Throwable error) {
+        Throwable cause = Exceptions.unwrap(error);
+        if (Status.fromThrowable(cause).getCode() != Status.Code.FAILED_PRECONDITION) {
+            return false;
+        }
+        Metadata trailers = Status.trailersFromThrowable(cause);
+        return trailers != null && trailers.containsKey(MISS_TRAILER);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.counter(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_DEDUP_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME, outcome);
+    }
+}
@@ -0,0 +1,195 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.perevalov.gamerecommenderai.client.props.AiHedgingProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedged-запросы к AI сервису: если первая попытка не ответила за перцентиль {@code percentile}
+ * времени до первого ответа, отправляется вторая; берётся та, что ответит первой, вторая отменяется.
+ * <p>
+ * Перцентиль считается по последним {@code window} вызовам. Попытка, отменённая из-за выигравшего hedge,
+ * тоже попадает в окно — со временем до отмены, иначе медленные вызовы выпадали бы из статистики.
+ * Вторая попытка уходит через тот же канал, и балансировщик отправляет её на менее загруженную реплику,
+ * то есть не туда, где висит первая.
+ * <p>
+ * Число вторых попыток ограничено бюджетом: каждый вызов пополняет его на {@code budgetRatio},
+ * вторая попытка тратит единицу, запас не больше {@code maxBurst}. Если первая попытка упала
+ * до отправки второй, ошибка отдаётся сразу, без hedge — повтор остаётся за retry клиента.
+ */
+@Slf4j
+@Component
+public class AiRequestHedger {
+
+    private final AiHedgingProps props;
+    private final Scheduler timer;
+    private final LongSupplier nanoClock;
+    private final Counter fired;
+    private final Counter won;
+    private final Counter budgetExhausted;
+
+    private final Object lock = new Object();
+    private final long[] samples;
+    private int sampleCount;
+    private int nextSample;
+    private double budget;
+    private volatile long delayNanos;
+
+    @Autowired
+    public AiRequestHedger(AiHedgingProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Schedulers.parallel(), System::nanoTime);
+    }
+
+    AiRequestHedger(AiHedgingProps props, MeterRegistry meterRegistry, Scheduler timer, LongSupplier nanoClock) {
+        this.props = props;
+        this.timer = timer;
+        this.nanoClock = nanoClock;
+        this.samples = new long[props.window()];
+        this.delayNanos = props.initialDelay().toNanos();
+        this.fired = meterRegistry.counter(GrpcAiMetricsConstant.AI_HEDGE_FIRED_TOTAL);
+        this.won = meterRegistry.counter(GrpcAiMetricsConstant.AI_HEDGE_WON_TOTAL);
+        this.budgetExhausted = meterRegistry.counter(GrpcAiMetricsConstant.AI_HEDGE_BUDGET_EXHAUSTED_TOTAL);
+        Gauge.builder(GrpcAiMetricsConstant.AI_HEDGE_DELAY, this, hedger -> hedger.delayNanos / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет унарный вызов с hedge.
+     *
+     * @param attempt создаёт новую попытку вызова; вызывается один или два раза
+     * @return ответ выигравшей попытки
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> attempt) {
+        return hedgeStream(() -> attempt.get().flux()).singleOrEmpty();
+    }
+
+    /**
+     * Выполняет потоковый вызов с hedge по первому элементу: поток, первым отдавший элемент,
+     * выигрывает целиком, второй отменяется.
+     *
+     * @param attempt создаёт новую попытку вызова; вызывается один или два раза
+     * @return поток выигравшей попытки
+     */
+    public <T> Flux<T> hedgeStream(Supplier<Flux<T>> attempt) {
+        if (!props.enabled()) {
+            return attempt.get();
+        }
+        return Flux.defer(() -> {
+            deposit();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            AtomicBoolean hedged = new AtomicBoolean();
+            Flux<T> primary = primary(attempt.get(), hedged)
+                    .doOnError(error -> primaryFailed.tryEmitValue(true));
+            Flux<T> backup = Mono.delay(Duration.ofNanos(delayNanos), timer)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> withdraw())
+                    .flatMapMany(tick -> {
+                        hedged.set(true);
+                        fired.increment();
+                        log.debug("Hedging AI call after {} ms", Duration.ofNanos(delayNanos).toMillis());
+                        AtomicBoolean first = new AtomicBoolean();
+                        return attempt.get().doOnNext(value -> {
+                            if (first.compareAndSet(false, true)) {
+                                won.increment();
+                            }
+                        });
+                    });
+            return Flux.firstWithValue(primary, backup)
+                    .onErrorMap(NoSuchElementException.class, AiRequestHedger::unwrap);
+        });
+    }
+
+    /**
+     * Текущая задержка второй попытки.
+     */
+    public Duration currentDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Засекает время первой попытки до первого элемента либо до отмены, если выиграл hedge.
+     * Отмена без hedge (клиент ушёл) в окно не попадает — она ничего не говорит о латентности.
+     */
+    private <T> Flux<T> primary(Flux<T> call, AtomicBoolean hedged) {
+        return Flux.defer(() -> {
+            long startedAt = nanoClock.getAsLong();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    record(nanoClock.getAsLong() - startedAt);
+                }
+            };
+            return call.doOnNext(value -> record.run())
+                    .doOnCancel(() -> {
+                        if (hedged.get()) {
+                            record.run();
+                        }
+                    });
+        });
+    }
+
+    private void record(long latencyNanos) {
+        synchronized (lock) {
+            samples[nextSample] = latencyNanos;
+            nextSample = (nextSample + 1) % samples.length;
+            sampleCount = Math.min(sampleCount + 1, samples.length);
+            if (sampleCount < props.minSamples()) {
+                return;
+            }
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(props.percentile() * sorted.length) - 1;
+            delayNanos = Math.max(props.minDelay().toNanos(), sorted[Math.max(0, index)]);
+        }
+    }
+
+    private void deposit() {
+        synchronized (lock) {
+            budget = Math.min(props.maxBurst(), budget + props.budgetRatio());
+        }
+    }
+
+    private boolean withdraw() {
+        synchronized (lock) {
+            if (budget >= 1) {
+                budget -= 1;
+                return true;
+            }
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    /**
+     * {@code firstWithValue} заворачивает ошибки попыток в {@link NoSuchElementException};
+     * наружу отдаётся ошибка первой упавшей попытки, чтобы её разобрал {@code GrpcErrorMapper}.
+     */
+    private static Throwable unwrap(NoSuchElementException error) {
+        if (error.getCause() == null) {
+            return error;
+        }
+        return Exceptions.unwrapMultiple(error.getCause()).stream()
+                .filter(cause -> !(cause instanceof NoSuchElementException))
+                .findFirst()
+                .orElse(error);
+    }
+}
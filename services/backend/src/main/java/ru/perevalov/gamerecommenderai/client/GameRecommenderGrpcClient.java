@@ -2,22 +2,29 @@ package ru.perevalov.gamerecommenderai.client;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
 import ru.perevalov.gamerecommenderai.client.props.AiGrpcClientProps;
 import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.grpc.FullAiContextRequestProto;
 import ru.perevalov.gamerecommenderai.grpc.ReactorGameRecommenderServiceGrpc;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationChunk;
 import ru.perevalov.gamerecommenderai.grpc.RecommendationResponse;
 import ru.perevalov.gamerecommenderai.mapper.GrpcErrorMapper;
 import ru.perevalov.gamerecommenderai.mapper.GrpcMapper;
+import ru.perevalov.gamerecommenderai.service.ProfileSummaryBuilder;
 
 /**
  * gRPC client for AI service using Spring Boot Starters
@@ -32,6 +39,11 @@ public class GameRecommenderGrpcClient {
     private final CircuitBreaker grpcAiCircuitBreaker;
     private final MeterRegistry meterRegistry;
     private final AiGrpcClientProps aiGrpcClientProps;
+    private final AiConcurrencyLimiter aiConcurrencyLimiter;
+    private final AiRequestHedger aiRequestHedger;
+    private final AiDeadlinePolicy aiDeadlinePolicy;
+    private final AiProfileSummaryDedup aiProfileSummaryDedup;
+    private final ProfileSummaryBuilder profileSummaryBuilder;
 
     @GrpcClient("ai-service")
     private ReactorGameRecommenderServiceGrpc.ReactorGameRecommenderServiceStub gameRecommenderServiceStub;
@@ -40,13 +52,7 @@ public class GameRecommenderGrpcClient {
      * Реактивная версия получения game-recommendations
      */
     public Mono<RecommendationResponse> getGameRecommendations(Mono<AiContextRequest> aiContextRequest) {
-        ReactorGameRecommenderServiceGrpc.ReactorGameRecommenderServiceStub stubWithDeadline =
-                gameRecommenderServiceStub.withDeadlineAfter(
-                        aiGrpcClientProps.deadlineSeconds(),
-                        TimeUnit.SECONDS
-                );
-
-        return Mono.defer(() -> {
+        return aiConcurrencyLimiter.limit(Mono.defer(() -> {
             Timer.Sample latencySample = Timer.start(meterRegistry);
 
             return aiContextRequest.doOnNext(req -> log.info(
@@ -54,53 +60,159 @@ public class GameRecommenderGrpcClient {
                                            req.getUserMessage()
                                    ))
                     .map(mapper::toProto)
-                    .flatMap(stubWithDeadline::recommendGames)
-                    .retryWhen(Retry.fixedDelay(
-                                    aiGrpcClientProps.retryMaxAttempts(),
-                                    java.time.Duration.ofMillis(aiGrpcClientProps.retryBackoffMs())
-                            )
-                            .filter(grpcErrorMapper::isRetryableGrpcError)
-                            .doBeforeRetry(r -> {
-                                meterRegistry.counter(GrpcAiMetricsConstant.AI_RETRY_TOTAL).increment();
-                                log.warn(
-                                        "Retrying gRPC request after transient error, attempt {}",
-                                        r.totalRetries() + 1
-                                );
-                            }))
+                    .doOnNext(this::recordProfileSummarySize)
+                    .flatMap(request -> aiRequestHedger.hedge(() -> aiProfileSummaryDedup.send(
+                            request, this::recommendGames, RecommendationResponse::getProfileSummaryCached)))
+                    .retryWhen(retrySpec(grpcErrorMapper::isRetryableGrpcError))
                     .transformDeferred(CircuitBreakerOperator.of(grpcAiCircuitBreaker))
-                    .onErrorMap(error -> {
-                        if (grpcErrorMapper.isCircuitBreakerOpen(error)) {
-                            meterRegistry.counter(GrpcAiMetricsConstant.AI_CB_OPEN_TOTAL).increment();
-                        }
-                        return grpcErrorMapper.mapGrpcError(error);
-                    })
+                    .onErrorMap(this::mapError)
                     .doOnSuccess(response -> {
                         stopLatency(latencySample, GrpcAiMetricsConstant.OUTCOME_SUCCESS);
                         log.info("Received recommendation response: response={}", response.getSuccess());
                     })
-                    .doOnError(error -> {
-                        String failureReason = grpcErrorMapper.resolveFailureReason(error);
-                        meterRegistry.counter(
-                                GrpcAiMetricsConstant.AI_FAILURES_TOTAL,
-                                GrpcAiMetricsConstant.TAG_REASON,
-                                failureReason
-                        ).increment();
-                        stopLatency(latencySample, GrpcAiMetricsConstant.OUTCOME_ERROR);
-                        log.error(
-                                "Error getting recommendations from gRPC service, fallback_reason={}",
-                                failureReason,
-                                error
-                        );
-                    });
-        });
+                    .doOnError(error -> recordFailure(latencySample, error));
+        }));
+    }
+
+    /**
+     * Потоковая версия получения game-recommendations через {@code StreamRecommendGames}:
+     * reasoning-чанки, затем рекомендации по одной, последним — summary.
+     * <p>
+     * Адаптивный deadline, ограничение параллельности, hedge, circuit breaker и метрики те же, что у
+     * {@link #getGameRecommendations}; латентность пишется по завершении потока, время до первого чанка —
+     * в {@code ai_service_first_chunk_latency}. Повтор при транзиентной ошибке выполняется только до первого
+     * чанка, чтобы подписчик не получил части ответа дважды; hedge гонит попытки до первого чанка по той же причине.
+     */
+    public Flux<RecommendationChunk> streamGameRecommendations(Mono<AiContextRequest> aiContextRequest) {
+        return aiConcurrencyLimiter.limit(Flux.defer(() -> {
+            Timer.Sample latencySample = Timer.start(meterRegistry);
+            AtomicBoolean received = new AtomicBoolean();
+
+            return aiContextRequest.doOnNext(req -> log.info(
+                                           "Sending streaming recommendation request: message={}",
+                                           req.getUserMessage()
+                                   ))
+                    .map(mapper::toProto)
+                    .doOnNext(this::recordProfileSummarySize)
+                    .flatMapMany(request -> aiRequestHedger.hedgeStream(() -> aiProfileSummaryDedup.sendStream(
+                            request, this::streamRecommendGames, GameRecommenderGrpcClient::acknowledgesProfileSummary)))
+                    .doOnNext(chunk -> {
+                        if (received.compareAndSet(false, true)) {
+                            latencySample.stop(meterRegistry.timer(
+                                    GrpcAiMetricsConstant.AI_SERVICE_FIRST_CHUNK_LATENCY,
+                                    GrpcAiMetricsConstant.TAG_SUMMARY_MODE,
+                                    summaryModeTag()
+                            ));
+                        }
+                    })
+                    .retryWhen(retrySpec(error -> !received.get() && grpcErrorMapper.isRetryableGrpcError(error)))
+                    .transformDeferred(CircuitBreakerOperator.of(grpcAiCircuitBreaker))
+                    .onErrorMap(this::mapError)
+                    .doOnComplete(() -> {
+                        stopLatency(latencySample, GrpcAiMetricsConstant.OUTCOME_SUCCESS);
+                        log.info("Received streamed recommendation response");
+                    })
+                    .doOnError(error -> recordFailure(latencySample, error));
+        }));
+    }
+
+    /**
+     * Одна попытка унарного вызова со своим deadline от {@link AiDeadlinePolicy}. Deadline берётся на каждую
+     * попытку — повтор и hedge получают полный срок, но не больше остатка бюджета HTTP запроса.
+     * Отсчёт начинается после получения места в {@link AiConcurrencyLimiter}, так что ожидание в очереди
+     * не съедает время ответа AI сервиса, но тратит бюджет запроса. Повторная отправка тела summary после
+     * промаха {@link AiProfileSummaryDedup} — тоже отдельная попытка со своим deadline.
+     */
+    private Mono<RecommendationResponse> recommendGames(FullAiContextRequestProto request) {
+        return aiDeadlinePolicy.next().flatMap(deadline -> aiDeadlinePolicy.track(
+                deadline,
+                stubWithDeadline(deadline).recommendGames(request),
+                RecommendationResponse::getProvider
+        ));
+    }
+
+    /**
+     * Одна попытка потокового вызова; deadline распространяется на весь поток.
+     */
+    private Flux<RecommendationChunk> streamRecommendGames(FullAiContextRequestProto request) {
+        return aiDeadlinePolicy.next().flatMapMany(deadline -> aiDeadlinePolicy.trackStream(
+                deadline,
+                stubWithDeadline(deadline).streamRecommendGames(request),
+                chunk -> chunk.hasSummary() ? chunk.getSummary().getProvider() : null
+        ));
+    }
+
+    private static boolean acknowledgesProfileSummary(RecommendationChunk chunk) {
+        return chunk.hasSummary() && chunk.getSummary().getProfileSummaryCached();
+    }
+
+    private ReactorGameRecommenderServiceGrpc.ReactorGameRecommenderServiceStub stubWithDeadline(
+            AiDeadlinePolicy.Deadline deadline) {
+        return gameRecommenderServiceStub.withDeadlineAfter(deadline.timeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Retry retrySpec(Predicate<Throwable> retryable) {
+        return Retry.fixedDelay(
+                        aiGrpcClientProps.retryMaxAttempts(),
+                        java.time.Duration.ofMillis(aiGrpcClientProps.retryBackoffMs())
+                )
+                .filter(retryable)
+                .doBeforeRetry(r -> {
+                    meterRegistry.counter(GrpcAiMetricsConstant.AI_RETRY_TOTAL).increment();
+                    log.warn(
+                            "Retrying gRPC request after transient error, attempt {}",
+                            r.totalRetries() + 1
+                    );
+                });
+    }
+
+    private Throwable mapError(Throwable error) {
+        if (grpcErrorMapper.isCircuitBreakerOpen(error)) {
+            meterRegistry.counter(GrpcAiMetricsConstant.AI_CB_OPEN_TOTAL).increment();
+        }
+        return grpcErrorMapper.mapGrpcError(error);
+    }
+
+    private void recordFailure(Timer.Sample latencySample, Throwable error) {
+        String failureReason = grpcErrorMapper.resolveFailureReason(error);
+        meterRegistry.counter(
+                GrpcAiMetricsConstant.AI_FAILURES_TOTAL,
+                GrpcAiMetricsConstant.TAG_REASON,
+                failureReason
+        ).increment();
+        stopLatency(latencySample, GrpcAiMetricsConstant.OUTCOME_ERROR);
+        log.error(
+                "Error getting recommendations from gRPC service, fallback_reason={}",
+                failureReason,
+                error
+        );
     }
 
     private void stopLatency(Timer.Sample latencySample, String outcome) {
         latencySample.stop(meterRegistry.timer(
                 GrpcAiMetricsConstant.AI_SERVICE_LATENCY,
                 GrpcAiMetricsConstant.TAG_OUTCOME,
-                outcome
+                outcome,
+                GrpcAiMetricsConstant.TAG_SUMMARY_MODE,
+                summaryModeTag()
         ));
     }
 
+    /**
+     * Размер profile summary в запросе — вместе с латентностью по тегу {@code summary_mode}
+     * позволяет сравнить режимы summary по соотношению размера промпта и времени ответа.
+     */
+    private void recordProfileSummarySize(FullAiContextRequestProto request) {
+        DistributionSummary.builder(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_BYTES)
+                .baseUnit("bytes")
+                .tag(GrpcAiMetricsConstant.TAG_SUMMARY_MODE, summaryModeTag())
+                .register(meterRegistry)
+                .record(request.getProfileSummaryBytes().size()
+                        + (request.hasStructuredProfileSummary() ? request.getStructuredProfileSummary().getSerializedSize() : 0));
+    }
+
+    private String summaryModeTag() {
+        return profileSummaryBuilder.summaryMode().name().toLowerCase();
+    }
+
 }
@@ -0,0 +1,125 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
+import ru.perevalov.gamerecommenderai.constant.SteamApiConstant;
+import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Агрегатор запросов GetPlayerSummaries.
+ * <p>
+ * Запросы отдельных пользователей накапливаются в течение короткого окна
+ * ({@code steam.user.player-summaries-batch.window}) или до заполнения пачки
+ * ({@code steam.user.player-summaries-batch.max-size}, не более 100 — лимит Steam API),
+ * после чего уходят в Steam одним запросом через {@link SteamUserClient#fetchPlayerSummaries(java.util.Collection)}.
+ * Каждый вызывающий получает свой {@link Mono} с ответом, в котором оставлен только его игрок;
+ * ошибка запроса пачки доставляется всем её участникам.
+ * <p>
+ * Пачки отправляются из собственной подписки агрегатора, поэтому контекст вызывающего до них
+ * не доходит; агрегатор предназначен для фоновых задач и всегда использует
+ * {@link SteamRequestLane#BACKGROUND}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SteamPlayerSummaryBatcher {
+
+    private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+
+    private final SteamUserClient steamUserClient;
+
+    @Value("${steam.user.player-summaries-batch.window:PT0.2S}")
+    private Duration batchWindow;
+
+    @Value("${steam.user.player-summaries-batch.max-size:100}")
+    private int batchMaxSize;
+
+    private final Sinks.Many<PendingRequest> pending = Sinks.many().unicast().onBackpressureBuffer();
+
+    @PostConstruct
+    void init() {
+        int maxSize = Math.min(batchMaxSize, SteamApiConstant.PLAYER_SUMMARIES_MAX_STEAM_IDS);
+        pending.asFlux()
+                .bufferTimeout(maxSize, batchWindow)
+                .flatMap(this::dispatch)
+                .subscribe();
+    }
+
+    /**
+     * Завершает приём запросов; уже накопленная пачка отправляется в Steam.
+     */
+    @PreDestroy
+    void shutdown() {
+        pending.tryEmitComplete();
+    }
+
+    /**
+     * Ставит steamId в ближайшую пачку и ждёт её ответа.
+     *
+     * @param steamId Steam ID пользователя
+     * @return {@link SteamPlayerResponse}, содержащий только этого игрока,
+     * либо пустой список игроков, если Steam его не вернул
+     */
+    public Mono<SteamPlayerResponse> fetchPlayerSummary(String steamId) {
+        return Mono.defer(() -> {
+            Sinks.One<SteamPlayerResponse> result = Sinks.one();
+            pending.emitNext(new PendingRequest(steamId, result), Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+            return result.asMono();
+        });
+    }
+
+    private Mono<Void> dispatch(List<PendingRequest> batch) {
+        List<String> steamIds = batch.stream()
+                .map(PendingRequest::steamId)
+                .distinct()
+                .toList();
+        log.info("Fetching player summaries batch: size={}, requests={}", steamIds.size(), batch.size());
+
+        return steamUserClient.fetchPlayerSummaries(steamIds)
+                .doOnNext(response -> complete(batch, response))
+                .switchIfEmpty(Mono.fromRunnable(() -> complete(batch, null)))
+                .then()
+                .contextWrite(SteamRequestLane.background())
+                .onErrorResume(error -> {
+                    batch.forEach(request -> request.result().tryEmitError(error));
+                    return Mono.empty();
+                });
+    }
+
+    private void complete(List<PendingRequest> batch, SteamPlayerResponse response) {
+        Map<String, SteamPlayerResponse.Player> playersBySteamId = new HashMap<>();
+        if (response != null && response.getResponse() != null && response.getResponse().getPlayers() != null) {
+            for (SteamPlayerResponse.Player player : response.getResponse().getPlayers()) {
+                playersBySteamId.put(player.getSteamId(), player);
+            }
+        }
+
+        for (PendingRequest request : batch) {
+            SteamPlayerResponse.Player player = playersBySteamId.get(request.steamId());
+            request.result().tryEmitValue(singlePlayerResponse(player));
+        }
+    }
+
+    private SteamPlayerResponse singlePlayerResponse(SteamPlayerResponse.Player player) {
+        SteamPlayerResponse.Response inner = new SteamPlayerResponse.Response();
+        inner.setPlayers(player != null ? List.of(player) : List.of());
+        SteamPlayerResponse response = new SteamPlayerResponse();
+        response.setResponse(inner);
+        return response;
+    }
+
+    private record PendingRequest(String steamId, Sinks.One<SteamPlayerResponse> result) {
+    }
+}
@@ -1,6 +1,7 @@
 package ru.perevalov.gamerecommenderai.client;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.Map;
 import javax.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -91,6 +92,30 @@ public class SteamUserClient {
                              ));
     }
 
+    /**
+     * Получает информацию о нескольких пользователях одним запросом.
+     * <p>
+     * Steam принимает до {@value SteamApiConstant#PLAYER_SUMMARIES_MAX_STEAM_IDS} steamids через запятую,
+     * поэтому пачка расходует один токен rate limit вместо одного на каждого пользователя.
+     * Порядок игроков в ответе не гарантирован, приватные и несуществующие профили в нём отсутствуют.
+     *
+     * @param steamIds
+     *         Steam ID пользователей, не более {@value SteamApiConstant#PLAYER_SUMMARIES_MAX_STEAM_IDS}
+     *
+     * @return {@link SteamPlayerResponse} со всеми найденными игроками
+     *
+     * @throws IllegalArgumentException
+     *         если список пуст или превышает лимит Steam API
+     */
+    public Mono<SteamPlayerResponse> fetchPlayerSummaries(Collection<String> steamIds) {
+        if (steamIds.isEmpty() || steamIds.size() > SteamApiConstant.PLAYER_SUMMARIES_MAX_STEAM_IDS) {
+            return Mono.error(new IllegalArgumentException(
+                    "steamIds size must be between 1 and " + SteamApiConstant.PLAYER_SUMMARIES_MAX_STEAM_IDS
+                            + ": " + steamIds.size()));
+        }
+        return fetchPlayerSummaries(String.join(SteamApiConstant.STEAM_IDS_DELIMITER, steamIds));
+    }
+
     /**
      * Получает список игр, принадлежащих пользователю.
      *
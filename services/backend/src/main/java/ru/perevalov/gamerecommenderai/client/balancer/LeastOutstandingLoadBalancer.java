@@ -0,0 +1,238 @@
+package ru.perevalov.gamerecommenderai.client.balancer;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Балансировка power-of-two-choices по числу незавершённых вызовов.
+ * <p>
+ * На каждый вызов берутся две случайные READY-реплики, вызов уходит на ту, у которой меньше
+ * незавершённых вызовов. В отличие от round-robin медленная реплика копит незавершённые вызовы
+ * и сама получает меньше трафика; в отличие от полного least-request не нужен проход по всем репликам.
+ * <p>
+ * Реплика выходит из ротации, как только её subchannel перестаёт быть READY — в том числе когда
+ * health-check ({@code HealthCheckingLoadBalancerUtil}) получает NOT_SERVING. Все методы, кроме
+ * picker-а, вызываются в synchronization context канала.
+ */
+@Slf4j
+final class LeastOutstandingLoadBalancer extends LoadBalancer {
+
+    private final Helper helper;
+    private final MeterRegistry meterRegistry;
+    private final Map<EquivalentAddressGroup, Endpoint> endpoints = new LinkedHashMap<>();
+
+    LeastOutstandingLoadBalancer(Helper helper, MeterRegistry meterRegistry) {
+        this.helper = helper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        List<EquivalentAddressGroup> servers = resolvedAddresses.getAddresses();
+        if (servers.isEmpty()) {
+            Status unavailable = Status.UNAVAILABLE
+                    .withDescription("Name resolver returned no AI service addresses: " + resolvedAddresses);
+            handleNameResolutionError(unavailable);
+            return unavailable;
+        }
+
+        Set<EquivalentAddressGroup> latest = new HashSet<>();
+        for (EquivalentAddressGroup server : servers) {
+            // Атрибуты адреса меняются между резолвами, реплику определяет только список адресов.
+            EquivalentAddressGroup key = new EquivalentAddressGroup(server.getAddresses());
+            latest.add(key);
+            Endpoint existing = endpoints.get(key);
+            if (existing != null) {
+                existing.subchannel.updateAddresses(List.of(server));
+                continue;
+            }
+            Subchannel subchannel = helper.createSubchannel(CreateSubchannelArgs.newBuilder()
+                    .setAddresses(server)
+                    .build());
+            Endpoint endpoint = new Endpoint(key, subchannel, describe(key));
+            endpoints.put(key, endpoint);
+            subchannel.start(state -> onStateChange(endpoint, state));
+            subchannel.requestConnection();
+        }
+
+        endpoints.values().removeIf(endpoint -> {
+            if (latest.contains(endpoint.key)) {
+                return false;
+            }
+            log.info("AI endpoint {} removed by name resolver", endpoint.name);
+            endpoint.shutdown();
+            return true;
+        });
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        if (endpoints.values().stream().noneMatch(Endpoint::isReady)) {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE,
+                    new FixedResultPicker(PickResult.withError(error)));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        endpoints.values().forEach(Endpoint::shutdown);
+        endpoints.clear();
+    }
+
+    private void onStateChange(Endpoint endpoint, ConnectivityStateInfo stateInfo) {
+        if (endpoints.get(endpoint.key) != endpoint) {
+            return;
+        }
+        ConnectivityState state = stateInfo.getState();
+        if (state == ConnectivityState.TRANSIENT_FAILURE || state == ConnectivityState.IDLE) {
+            helper.refreshNameResolution();
+        }
+        if (state == ConnectivityState.IDLE) {
+            endpoint.subchannel.requestConnection();
+        }
+        if (endpoint.isReady() && state != ConnectivityState.READY) {
+            log.warn("AI endpoint {} left rotation: {}", endpoint.name, stateInfo);
+        } else if (!endpoint.isReady() && state == ConnectivityState.READY) {
+            log.info("AI endpoint {} joined rotation", endpoint.name);
+        }
+        endpoint.state = stateInfo;
+        updateBalancingState();
+    }
+
+    private void updateBalancingState() {
+        List<Endpoint> ready = endpoints.values().stream().filter(Endpoint::isReady).toList();
+        if (!ready.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.READY, new Picker(ready));
+            return;
+        }
+        boolean connecting = endpoints.values().stream()
+                .map(endpoint -> endpoint.state.getState())
+                .anyMatch(state -> state == ConnectivityState.CONNECTING || state == ConnectivityState.IDLE);
+        if (connecting) {
+            helper.updateBalancingState(ConnectivityState.CONNECTING,
+                    new FixedResultPicker(PickResult.withNoResult()));
+            return;
+        }
+        String failures = endpoints.values().stream()
+                .map(endpoint -> endpoint.name + ": " + endpoint.state.getStatus())
+                .collect(Collectors.joining("; "));
+        helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new FixedResultPicker(PickResult.withError(
+                Status.UNAVAILABLE.withDescription("No healthy AI service endpoints: " + failures))));
+    }
+
+    private static String describe(EquivalentAddressGroup addresses) {
+        SocketAddress address = addresses.getAddresses().get(0);
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return address.toString();
+    }
+
+    /**
+     * Выбирает менее загруженную из двух случайных READY-реплик.
+     */
+    static final class Picker extends SubchannelPicker {
+        private final List<Endpoint> ready;
+
+        Picker(List<Endpoint> ready) {
+            this.ready = ready;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            Endpoint chosen = ready.get(0);
+            if (ready.size() > 1) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int first = random.nextInt(ready.size());
+                int second = random.nextInt(ready.size() - 1);
+                if (second >= first) {
+                    second++;
+                }
+                Endpoint a = ready.get(first);
+                Endpoint b = ready.get(second);
+                chosen = a.outstanding.get() <= b.outstanding.get() ? a : b;
+            }
+            return PickResult.withSubchannel(chosen.subchannel, chosen.tracerFactory);
+        }
+    }
+
+    /**
+     * Реплика: subchannel, последнее состояние и счётчик незавершённых вызовов.
+     */
+    final class Endpoint {
+        private final EquivalentAddressGroup key;
+        private final Subchannel subchannel;
+        private final String name;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Gauge inFlightGauge;
+        private final ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                return new CallTracer();
+            }
+        };
+        private ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(ConnectivityState.IDLE);
+
+        private Endpoint(EquivalentAddressGroup key, Subchannel subchannel, String name) {
+            this.key = key;
+            this.subchannel = subchannel;
+            this.name = name;
+            this.inFlightGauge = Gauge.builder(GrpcAiMetricsConstant.AI_ENDPOINT_IN_FLIGHT, outstanding, AtomicInteger::get)
+                    .tag(GrpcAiMetricsConstant.TAG_ENDPOINT, name)
+                    .register(meterRegistry);
+        }
+
+        private boolean isReady() {
+            return state.getState() == ConnectivityState.READY;
+        }
+
+        private void shutdown() {
+            subchannel.shutdown();
+            meterRegistry.remove(inFlightGauge);
+        }
+
+        /**
+         * Считает вызов незавершённым от создания стрима до его закрытия и пишет латентность реплики.
+         */
+        private final class CallTracer extends ClientStreamTracer {
+            private final long startedAt = System.nanoTime();
+
+            private CallTracer() {
+                outstanding.incrementAndGet();
+            }
+
+            @Override
+            public void streamClosed(Status status) {
+                outstanding.decrementAndGet();
+                meterRegistry.timer(
+                        GrpcAiMetricsConstant.AI_ENDPOINT_LATENCY,
+                        GrpcAiMetricsConstant.TAG_ENDPOINT, name,
+                        GrpcAiMetricsConstant.TAG_STATUS, status.getCode().name()
+                ).record(Duration.ofNanos(System.nanoTime() - startedAt));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.perevalov.gamerecommenderai.client.balancer;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.protobuf.services.HealthCheckingLoadBalancerUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Провайдер политики {@value #POLICY_NAME} для {@code loadBalancingConfig} в service config канала.
+ * <p>
+ * Балансировщик оборачивается в health-checking: если в service config есть {@code healthCheckConfig},
+ * каждая реплика опрашивается через {@code grpc.health.v1.Health/Watch}, и NOT_SERVING выводит её из ротации.
+ */
+public class LeastOutstandingLoadBalancerProvider extends LoadBalancerProvider {
+
+    public static final String POLICY_NAME = "least_outstanding_p2c";
+
+    private final MeterRegistry meterRegistry;
+
+    public LeastOutstandingLoadBalancerProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return HealthCheckingLoadBalancerUtil.newHealthCheckingLoadBalancer(new LoadBalancer.Factory() {
+            @Override
+            public LoadBalancer newLoadBalancer(LoadBalancer.Helper healthCheckingHelper) {
+                return new LeastOutstandingLoadBalancer(healthCheckingHelper, meterRegistry);
+            }
+        }, helper);
+    }
+}
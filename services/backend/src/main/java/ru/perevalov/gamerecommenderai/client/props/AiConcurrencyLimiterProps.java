@@ -0,0 +1,60 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+
+import java.time.Duration;
+
+/**
+ * Настройки адаптивного ограничения параллельных вызовов AI сервиса.
+ *
+ * @param enabled         включено ли ограничение; если нет, вызовы идут без очереди
+ * @param initialLimit    лимит параллельных вызовов при старте
+ * @param minLimit        нижняя граница лимита
+ * @param maxLimit        верхняя граница лимита
+ * @param rttTolerance    во сколько раз RTT может превысить долгосрочный средний, прежде чем лимит начнёт снижаться
+ * @param smoothing       доля нового значения лимита при пересчёте (0..1]
+ * @param backoffRatio    во сколько раз снижается лимит после таймаута или недоступности AI сервиса
+ * @param longWindow      число вызовов, по которому усредняется долгосрочный RTT
+ * @param user            очередь вошедших пользователей
+ * @param guest           очередь гостей
+ */
+@ConfigurationProperties(prefix = "grpc.ai-limiter")
+@Validated
+public record AiConcurrencyLimiterProps(
+        boolean enabled,
+        @Min(1) int initialLimit,
+        @Min(1) int minLimit,
+        @Min(1) int maxLimit,
+        @DecimalMin("1.0") double rttTolerance,
+        @DecimalMin(value = "0.0", inclusive = false) @DecimalMax("1.0") double smoothing,
+        @DecimalMin(value = "0.0", inclusive = false) @DecimalMax("1.0") double backoffRatio,
+        @Min(1) int longWindow,
+        @Valid @NotNull RoleQueue user,
+        @Valid @NotNull RoleQueue guest
+) {
+
+    public RoleQueue forRole(UserRole role) {
+        return role == UserRole.USER ? user : guest;
+    }
+
+    /**
+     * Очередь ожидания свободного места для одной роли.
+     *
+     * @param weight       вес роли: освободившиеся места делятся между непустыми очередями пропорционально весам
+     * @param maxQueueSize сколько запросов роли может ждать свободного места; сверх этого — отказ сразу
+     * @param queueTimeout сколько запрос роли может ждать в очереди
+     */
+    public record RoleQueue(
+            @Min(1) int weight,
+            @Min(0) int maxQueueSize,
+            @NotNull Duration queueTimeout
+    ) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки адаптивного deadline вызовов AI сервиса.
+ *
+ * @param enabled     считать ли deadline по наблюдаемой латентности; если нет — всегда {@code maxDeadline}
+ * @param percentile  перцентиль латентности провайдера, от которого считается deadline
+ * @param headroom    во сколько раз deadline больше перцентиля
+ * @param window      по скольким последним вызовам провайдера считается перцентиль
+ * @param minSamples  сколько вызовов провайдера нужно, прежде чем deadline станет меньше {@code maxDeadline}
+ * @param minDeadline нижняя граница deadline
+ * @param maxDeadline верхняя граница deadline
+ * @param minBudget   если от бюджета HTTP запроса осталось меньше, вызов не отправляется
+ */
+@ConfigurationProperties(prefix = "grpc.ai-deadline")
+@Validated
+public record AiDeadlineProps(
+        boolean enabled,
+        @DecimalMin(value = "0.5") @DecimalMax(value = "1.0", inclusive = false) double percentile,
+        @DecimalMin("1.0") double headroom,
+        @Min(1) int window,
+        @Min(1) int minSamples,
+        @NotNull Duration minDeadline,
+        @NotNull Duration maxDeadline,
+        @NotNull Duration minBudget
+) {
+}
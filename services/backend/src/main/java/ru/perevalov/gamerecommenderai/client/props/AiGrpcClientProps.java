@@ -7,7 +7,6 @@ import org.springframework.validation.annotation.Validated;
 @ConfigurationProperties(prefix = "grpc.ai-client")
 @Validated
 public record AiGrpcClientProps(
-        @Min(0) int deadlineSeconds,
         @Min(0) int retryMaxAttempts,
         @Min(0) long retryBackoffMs
 ) {
@@ -0,0 +1,36 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки hedged-запросов к AI сервису.
+ *
+ * @param enabled      отправлять ли вторую попытку, если первая долго не отвечает
+ * @param percentile   перцентиль времени до первого ответа, после которого отправляется вторая попытка
+ * @param window       по скольким последним вызовам считается перцентиль
+ * @param minSamples   сколько вызовов нужно, прежде чем перцентиль начнёт использоваться вместо {@code initialDelay}
+ * @param initialDelay задержка второй попытки, пока вызовов меньше {@code minSamples}
+ * @param minDelay     нижняя граница задержки второй попытки
+ * @param budgetRatio  доля вторых попыток от числа вызовов, например 0.05 — не больше 5% дополнительной нагрузки
+ * @param maxBurst     сколько вторых попыток можно отправить подряд из накопленного бюджета
+ */
+@ConfigurationProperties(prefix = "grpc.ai-hedging")
+@Validated
+public record AiHedgingProps(
+        boolean enabled,
+        @DecimalMin(value = "0.5") @DecimalMax(value = "1.0", inclusive = false) double percentile,
+        @Min(1) int window,
+        @Min(1) int minSamples,
+        @NotNull Duration initialDelay,
+        @NotNull Duration minDelay,
+        @DecimalMin(value = "0.0", inclusive = false) @DecimalMax("1.0") double budgetRatio,
+        @Min(1) int maxBurst
+) {
+}
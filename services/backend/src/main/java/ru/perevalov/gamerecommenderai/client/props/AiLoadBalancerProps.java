@@ -0,0 +1,24 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Настройки клиентской балансировки между репликами AI сервиса.
+ * <p>
+ * Список реплик задаётся адресом канала {@code grpc.client.ai-service.address}: {@code static://host1:9090,host2:9090}
+ * либо {@code dns:///ai-service:9090}.
+ *
+ * @param enabled           включена ли балансировка power-of-two-choices; если нет, канал работает с {@code pick_first}
+ * @param healthCheck       проверять ли реплики через {@code grpc.health.v1.Health/Watch} и выводить из ротации NOT_SERVING
+ * @param healthServiceName имя сервиса в health-запросе; пустая строка — состояние сервера целиком
+ */
+@ConfigurationProperties(prefix = "grpc.ai-balancer")
+@Validated
+public record AiLoadBalancerProps(
+        boolean enabled,
+        boolean healthCheck,
+        @NotNull String healthServiceName
+) {
+}
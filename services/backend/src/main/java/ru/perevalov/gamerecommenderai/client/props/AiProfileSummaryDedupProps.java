@@ -0,0 +1,24 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки дедупликации profile summary в запросах к AI сервису.
+ *
+ * @param enabled    отправлять ли вместо уже принятого AI сервисом summary только его hash
+ * @param maxEntries сколько hash-ей, подтверждённых AI сервисом, помнить
+ * @param ttl        сколько помнить hash без обращений; стоит держать не дольше, чем summary живёт в LRU AI сервиса
+ */
+@ConfigurationProperties(prefix = "grpc.ai-profile-summary-dedup")
+@Validated
+public record AiProfileSummaryDedupProps(
+        boolean enabled,
+        @Min(1) int maxEntries,
+        @NotNull Duration ttl
+) {
+}
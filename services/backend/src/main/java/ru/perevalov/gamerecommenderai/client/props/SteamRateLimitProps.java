@@ -0,0 +1,26 @@
+package ru.perevalov.gamerecommenderai.client.props;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки приоритетного доступа к общей корзине токенов Steam API.
+ *
+ * @param interactiveReservedShare доля ёмкости и скорости пополнения корзины, недоступная фоновому трафику
+ * @param interactiveMaxWait       время ожидания токена интерактивным запросом по умолчанию,
+ *                                 если вызывающий не задал свой дедлайн; {@code PT0S} — прежний fail-fast
+ * @param backgroundMaxWait        максимальное время ожидания токена в очереди фоновой полосы
+ */
+@ConfigurationProperties(prefix = "steam.rate-limit")
+@Validated
+public record SteamRateLimitProps(
+        @DecimalMin("0.0") @DecimalMax("1.0") double interactiveReservedShare,
+        @NotNull Duration interactiveMaxWait,
+        @NotNull Duration backgroundMaxWait
+) {
+}
@@ -0,0 +1,251 @@
+package ru.perevalov.gamerecommenderai.client.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+import ru.perevalov.gamerecommenderai.client.props.SteamRateLimitProps;
+import ru.perevalov.gamerecommenderai.constant.SteamRateLimitMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Приоритетный допуск запросов к Steam Web API через общую распределённую корзину токенов.
+ * <p>
+ * Интерактивные запросы берут токен только из общей корзины {@code apiBucket}. Фоновые запросы
+ * сначала получают токен своей полосы из {@code backgroundApiBucket}, ёмкость и скорость которой
+ * меньше общей на {@code steam.rate-limit.interactive-reserved-share}, и только затем — токен
+ * общей корзины. Поэтому фоновый всплеск не может выбрать зарезервированную долю. Если токен общей
+ * корзины получить не удалось (дедлайн, ошибка, отмена), уже взятый токен фоновой полосы возвращается.
+ * <p>
+ * Фоновая полоса одна на все фоновые задачи: синхронизация библиотек, каталог и прочие задачи делят
+ * её квоту без отдельных весов, порядок между ними задаёт только общая очередь полосы.
+ * <p>
+ * Вместо немедленной ошибки запрос ждёт токен: по {@code nanosToWaitForRefill} из ответа корзины
+ * планируется повторная попытка через {@link Mono#delay(Duration)}. Ожидание ограничено дедлайном —
+ * заданным вызывающим через {@link #maxWait(Duration)} либо значением по умолчанию для полосы.
+ * Если корзина сообщает, что дедлайн заведомо не успеть, запрос сразу завершается ошибкой
+ * {@link ErrorType#STEAM_API_RATE_LIMIT_EXCEEDED}. Внутри полосы запросы обслуживаются по очереди (FIFO).
+ * <p>
+ * Пока в полосе нет ожидающих, запрос забирает токен напрямую, без очереди: одновременные запросы
+ * не ждут ответов Redis друг для друга. В очередь встаёт только запрос, которому токена не хватило,
+ * и все последующие, пока очередь не опустеет.
+ */
+@Slf4j
+@Component
+public class SteamApiRateLimiter {
+
+    private static final String MAX_WAIT_CONTEXT_KEY = SteamApiRateLimiter.class.getName() + ".maxWait";
+
+    private final AsyncBucketProxy apiBucket;
+    private final AsyncBucketProxy backgroundApiBucket;
+    private final SteamRateLimitProps props;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<SteamRequestLane, LaneQueue> queues = new EnumMap<>(SteamRequestLane.class);
+
+    public SteamApiRateLimiter(@Qualifier("apiBucket") AsyncBucketProxy apiBucket,
+                               @Qualifier("backgroundApiBucket") AsyncBucketProxy backgroundApiBucket,
+                               SteamRateLimitProps props,
+                               MeterRegistry meterRegistry) {
+        this.apiBucket = apiBucket;
+        this.backgroundApiBucket = backgroundApiBucket;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+
+        for (SteamRequestLane lane : SteamRequestLane.values()) {
+            LaneQueue queue = new LaneQueue();
+            queues.put(lane, queue);
+            Gauge.builder(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_QUEUE_DEPTH, queue.depth, AtomicInteger::get)
+                    .tag(SteamRateLimitMetricsConstant.TAG_LANE, lane.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Контекст для {@code contextWrite}, задающий максимальное время ожидания токена для цепочки.
+     *
+     * @param maxWait сколько вызывающий готов ждать токен; {@link Duration#ZERO} — не ждать вовсе
+     * @return контекст с дедлайном ожидания
+     */
+    public static Context maxWait(Duration maxWait) {
+        return Context.of(MAX_WAIT_CONTEXT_KEY, maxWait);
+    }
+
+    /**
+     * Максимальное время ожидания токена для цепочки с этим контекстом.
+     *
+     * @param context контекст подписчика
+     * @return значение из {@link #maxWait(Duration)} либо значение по умолчанию для полосы
+     */
+    public Duration maxWaitOf(ContextView context) {
+        return context.getOrDefault(MAX_WAIT_CONTEXT_KEY, defaultMaxWait(SteamRequestLane.from(context)));
+    }
+
+    /**
+     * Получает токен для одного запроса к Steam API согласно полосе и дедлайну из контекста подписчика.
+     *
+     * Ответ корзины приходит на потоке ввода-вывода Lettuce, поэтому сигнал о получении токена
+     * переносится на {@link Schedulers#parallel()}: последующий запрос и разбор ответа Steam
+     * не должны выполняться на event loop Redis.
+     *
+     * @return пустой {@link Mono}, завершающийся после получения токена, либо ошибка
+     * {@link ErrorType#STEAM_API_RATE_LIMIT_EXCEEDED}, если токен не успеть получить до дедлайна
+     */
+    public Mono<Void> acquire() {
+        return Mono.deferContextual(context -> {
+            SteamRequestLane lane = SteamRequestLane.from(context);
+            Duration maxWait = maxWaitOf(context);
+            long startNanos = System.nanoTime();
+            long deadlineNanos = startNanos + maxWait.toNanos();
+
+            return admit(lane, deadlineNanos, bucketsOf(lane))
+                    .doOnSuccess(ignored -> {
+                        recordWait(lane, startNanos);
+                        count(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_ADMITTED_TOTAL, lane);
+                    })
+                    .doOnError(error -> count(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_REJECTED_TOTAL, lane))
+                    // Один переход на запрос к Steam: постановка задачи в очередь потока parallel(), без
+                    // создания потоков. Он дешевле, чем запрос к Steam и разбор его ответа на event loop Redis,
+                    // где они задерживали бы ответы корзин для всех остальных запросов.
+                    .publishOn(Schedulers.parallel());
+        });
+    }
+
+    /**
+     * Забирает токены из корзин по порядку. Пока в полосе никто не ждёт, токен берётся сразу;
+     * в очередь запрос встаёт с первой корзины, которая токен не отдала.
+     */
+    private Mono<Void> admit(SteamRequestLane lane, long deadlineNanos, List<AsyncBucketProxy> buckets) {
+        if (buckets.isEmpty()) {
+            return Mono.empty();
+        }
+        if (queues.get(lane).depth.get() > 0) {
+            return enqueue(lane, deadlineNanos, buckets);
+        }
+        return consume(buckets.get(0))
+                .flatMap(probe -> probe.isConsumed()
+                        ? refundOnFailure(buckets.get(0), admit(lane, deadlineNanos, buckets.subList(1, buckets.size())))
+                        : enqueue(lane, deadlineNanos, buckets));
+    }
+
+    /**
+     * Ставит запрос в очередь полосы: следующий ожидающий начинает забирать токены
+     * только после того, как предыдущий получил их, отменился или завершился ошибкой.
+     */
+    private Mono<Void> enqueue(SteamRequestLane lane, long deadlineNanos, List<AsyncBucketProxy> buckets) {
+        LaneQueue queue = queues.get(lane);
+        Sinks.Empty<Void> turn = Sinks.empty();
+        Mono<Void> previous = queue.tail.getAndSet(turn.asMono());
+        queue.depth.incrementAndGet();
+
+        return previous.onErrorResume(error -> Mono.empty())
+                .timeout(remaining(deadlineNanos), Mono.error(() -> rateLimitExceeded(lane, 0L)))
+                .then(Mono.defer(() -> awaitTokens(lane, deadlineNanos, buckets)))
+                .doFinally(signal -> {
+                    queue.depth.decrementAndGet();
+                    turn.tryEmitEmpty();
+                });
+    }
+
+    private Mono<Void> awaitTokens(SteamRequestLane lane, long deadlineNanos, List<AsyncBucketProxy> buckets) {
+        if (buckets.isEmpty()) {
+            return Mono.empty();
+        }
+        AsyncBucketProxy bucket = buckets.get(0);
+        return awaitToken(lane, bucket, deadlineNanos)
+                .then(Mono.defer(() -> refundOnFailure(bucket,
+                        awaitTokens(lane, deadlineNanos, buckets.subList(1, buckets.size())))));
+    }
+
+    /**
+     * Возвращает в корзину уже взятый токен, если следующие токены получить не удалось:
+     * иначе фоновая полоса теряла бы квоту на каждом запросе, упёршемся в общую корзину.
+     */
+    private Mono<Void> refundOnFailure(AsyncBucketProxy bucket, Mono<Void> next) {
+        return next.doOnError(error -> refund(bucket))
+                .doOnCancel(() -> refund(bucket));
+    }
+
+    private void refund(AsyncBucketProxy bucket) {
+        bucket.addTokens(1).whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.warn("Failed to return Steam rate limit token to bucket", error);
+            }
+        });
+    }
+
+    private Mono<Void> awaitToken(SteamRequestLane lane, AsyncBucketProxy bucket, long deadlineNanos) {
+        return consume(bucket)
+                .flatMap(probe -> {
+                    if (probe.isConsumed()) {
+                        log.debug("Steam request allowed. lane={}, remaining tokens: {}",
+                                lane.tag(), probe.getRemainingTokens());
+                        return Mono.<Void>empty();
+                    }
+                    long waitNanos = probe.getNanosToWaitForRefill();
+                    if (System.nanoTime() + waitNanos > deadlineNanos) {
+                        long waitSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos);
+                        log.warn("Steam API rate limit exceeded. lane={}, wait {} seconds exceeds deadline",
+                                lane.tag(), waitSeconds);
+                        return Mono.error(rateLimitExceeded(lane, waitSeconds));
+                    }
+                    return Mono.delay(Duration.ofNanos(waitNanos))
+                            .then(Mono.defer(() -> awaitToken(lane, bucket, deadlineNanos)));
+                });
+    }
+
+    private Mono<ConsumptionProbe> consume(AsyncBucketProxy bucket) {
+        return Mono.fromFuture(() -> bucket.tryConsumeAndReturnRemaining(1));
+    }
+
+    private List<AsyncBucketProxy> bucketsOf(SteamRequestLane lane) {
+        return lane == SteamRequestLane.BACKGROUND ? List.of(backgroundApiBucket, apiBucket) : List.of(apiBucket);
+    }
+
+    private Duration defaultMaxWait(SteamRequestLane lane) {
+        return lane == SteamRequestLane.BACKGROUND ? props.backgroundMaxWait() : props.interactiveMaxWait();
+    }
+
+    private static Duration remaining(long deadlineNanos) {
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    private GameRecommenderException rateLimitExceeded(SteamRequestLane lane, long waitSeconds) {
+        return new GameRecommenderException(ErrorType.STEAM_API_RATE_LIMIT_EXCEEDED, lane.tag(), waitSeconds);
+    }
+
+    private void recordWait(SteamRequestLane lane, long startNanos) {
+        Timer.builder(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_WAIT)
+                .tag(SteamRateLimitMetricsConstant.TAG_LANE, lane.tag())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(String name, SteamRequestLane lane) {
+        meterRegistry.counter(name, SteamRateLimitMetricsConstant.TAG_LANE, lane.tag()).increment();
+    }
+
+    private static final class LaneQueue {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicReference<Mono<Void>> tail = new AtomicReference<>(Mono.empty());
+    }
+}
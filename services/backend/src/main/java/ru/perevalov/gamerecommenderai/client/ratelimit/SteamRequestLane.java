@@ -0,0 +1,55 @@
+package ru.perevalov.gamerecommenderai.client.ratelimit;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Полоса приоритета запроса к Steam Web API в общей корзине токенов.
+ * <p>
+ * Полоса передаётся через Reactor {@link Context}: фоновые задачи оборачивают свою цепочку
+ * в {@link #background()}, всё остальное по умолчанию считается интерактивным трафиком.
+ */
+public enum SteamRequestLane {
+
+    /**
+     * Запросы, которые ждёт пользователь (загрузка библиотеки при рекомендациях).
+     * Имеют зарезервированную долю корзины.
+     */
+    INTERACTIVE,
+
+    /**
+     * Фоновые задачи (синхронизация после входа и плановое обновление данных пользователей). Используют только свою долю
+     * корзины и при нехватке токенов ждут в очереди, а не получают ошибку.
+     */
+    BACKGROUND;
+
+    private static final String CONTEXT_KEY = SteamRequestLane.class.getName();
+
+    /**
+     * Возвращает полосу, указанную в контексте подписчика.
+     *
+     * @param context контекст Reactor
+     * @return полоса из контекста либо {@link #INTERACTIVE}
+     */
+    public static SteamRequestLane from(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, INTERACTIVE);
+    }
+
+    /**
+     * Контекст для {@code contextWrite}, помечающий цепочку как фоновую.
+     *
+     * @return контекст с полосой {@link #BACKGROUND}
+     */
+    public static Context background() {
+        return Context.of(CONTEXT_KEY, BACKGROUND);
+    }
+
+    /**
+     * Значение тега {@code lane} в метриках.
+     *
+     * @return имя полосы в нижнем регистре
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
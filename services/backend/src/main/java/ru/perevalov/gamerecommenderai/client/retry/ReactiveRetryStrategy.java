@@ -6,6 +6,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.util.retry.Retry;
 import reactor.util.retry.RetryBackoffSpec;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 
 @Slf4j
 @Component
@@ -34,7 +36,8 @@ public class ReactiveRetryStrategy {
     }
 
     public RetryBackoffSpec doFixedDelayRetry(int retryAttempts, long retryDelaySeconds){
-        return Retry.fixedDelay(retryAttempts, Duration.ofSeconds(retryDelaySeconds));
+        return Retry.fixedDelay(retryAttempts, Duration.ofSeconds(retryDelaySeconds))
+                    .filter(throwable -> !isRateLimitExceeded(throwable));
     }
 
     /**
@@ -46,10 +49,21 @@ public class ReactiveRetryStrategy {
      * @return true if the request should be retried
      */
     private boolean shouldRetry(Throwable throwable) {
+        if (isRateLimitExceeded(throwable)) {
+            return false;
+        }
         if (throwable instanceof WebClientResponseException e) {
             return e.getStatusCode().is5xxServerError();
         }
         return true;
     }
 
+    /**
+     * The rate limiter has already waited for tokens up to the caller's deadline;
+     * retrying would only spend more tokens.
+     */
+    private boolean isRateLimitExceeded(Throwable throwable) {
+        return throwable instanceof GameRecommenderException e
+                && e.getErrorType() == ErrorType.STEAM_API_RATE_LIMIT_EXCEEDED;
+    }
 }
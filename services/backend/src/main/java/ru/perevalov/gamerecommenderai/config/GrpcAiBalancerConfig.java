@@ -0,0 +1,66 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import io.grpc.LoadBalancerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.perevalov.gamerecommenderai.client.balancer.LeastOutstandingLoadBalancerProvider;
+import ru.perevalov.gamerecommenderai.client.props.AiLoadBalancerProps;
+
+/**
+ * Клиентская балансировка канала {@code ai-service} между репликами AI сервиса.
+ * <p>
+ * Регистрирует политику {@link LeastOutstandingLoadBalancerProvider#POLICY_NAME} в реестре gRPC и задаёт её
+ * вместе с {@code healthCheckConfig} как service config канала по умолчанию.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class GrpcAiBalancerConfig {
+
+    static final String AI_SERVICE_CHANNEL = "ai-service";
+
+    private final AiLoadBalancerProps props;
+    private final MeterRegistry meterRegistry;
+
+    private LeastOutstandingLoadBalancerProvider provider;
+
+    @PostConstruct
+    void registerPolicy() {
+        if (props.enabled()) {
+            provider = new LeastOutstandingLoadBalancerProvider(meterRegistry);
+            LoadBalancerRegistry.getDefaultRegistry().register(provider);
+        }
+    }
+
+    @PreDestroy
+    void deregisterPolicy() {
+        if (provider != null) {
+            LoadBalancerRegistry.getDefaultRegistry().deregister(provider);
+        }
+    }
+
+    @Bean
+    public GrpcChannelConfigurer aiServiceBalancingConfigurer() {
+        return (builder, name) -> {
+            if (props.enabled() && AI_SERVICE_CHANNEL.equals(name)) {
+                builder.defaultServiceConfig(serviceConfig());
+            }
+        };
+    }
+
+    private Map<String, Object> serviceConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put("loadBalancingConfig", List.of(Map.of(LeastOutstandingLoadBalancerProvider.POLICY_NAME, Map.of())));
+        if (props.healthCheck()) {
+            config.put("healthCheckConfig", Map.of("serviceName", props.healthServiceName()));
+        }
+        return config;
+    }
+}
@@ -2,9 +2,13 @@ package ru.perevalov.gamerecommenderai.config;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import java.time.Duration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 
 @Configuration
 public class GrpcAiResilienceConfig {
@@ -19,8 +23,25 @@ public class GrpcAiResilienceConfig {
                 .permittedNumberOfCallsInHalfOpenState(props.permittedCallsInHalfOpen())
                 .slowCallDurationThreshold(Duration.ofSeconds(props.slowCallDurationThreshold()))
                 .slowCallRateThreshold(props.slowCallRateThreshold())
+                .ignoreException(error -> isBudgetExhausted(error) || isUnimplemented(error))
                 .build();
 
         return CircuitBreaker.of(props.name(), config);
     }
+
+    /**
+     * Исчерпанный бюджет HTTP запроса — не сбой AI сервиса и не должен открывать circuit breaker.
+     */
+    private static boolean isBudgetExhausted(Throwable error) {
+        return error instanceof GameRecommenderException ex
+                && ex.getErrorType() == ErrorType.AI_REQUEST_BUDGET_EXHAUSTED;
+    }
+
+    /**
+     * Метод, не реализованный AI сервисом (старая версия без {@code StreamRecommendGames}), — тоже не сбой:
+     * вызывающий переходит на унарный вызов, а circuit breaker не должен открыться и закрыть его.
+     */
+    private static boolean isUnimplemented(Throwable error) {
+        return error instanceof StatusRuntimeException ex && ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED;
+    }
 }
@@ -0,0 +1,24 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки метрик recommendation pipeline.
+ *
+ * @param slo                  границы SLO-бакетов гистограммы {@code pipeline_duration}
+ * @param slowRequestThreshold начиная с какой длительности запрос логируется с разбивкой по шагам
+ * @param serverTimingHeader   отдавать ли разбивку по шагам в заголовке {@code Server-Timing} ответа /proceed
+ */
+@ConfigurationProperties(prefix = "app.recommender.pipeline.metrics")
+@Validated
+public record PipelineMetricsProps(
+        @NotNull List<Duration> slo,
+        @NotNull Duration slowRequestThreshold,
+        boolean serverTimingHeader
+) {
+}
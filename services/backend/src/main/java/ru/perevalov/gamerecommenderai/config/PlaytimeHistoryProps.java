@@ -0,0 +1,21 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала прироста времени игры {@code user_playtime_history}.
+ *
+ * @param retention    сколько хранить записи журнала
+ * @param compactAfter через сколько записи отдельных синхронизаций сжимаются в одну запись за сутки
+ */
+@ConfigurationProperties(prefix = "app.playtime-history")
+@Validated
+public record PlaytimeHistoryProps(
+        @NotNull Duration retention,
+        @NotNull Duration compactAfter
+) {
+}
@@ -0,0 +1,37 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша результатов AI-рекомендаций.
+ *
+ * @param enabled включён ли кэш; если нет, каждый запрос идёт в AI сервис
+ * @param user    уровень для запросов с profile summary: ключ включает hash summary
+ * @param guest   общий уровень для запросов без profile summary (гости и пользователи без библиотеки)
+ */
+@ConfigurationProperties(prefix = "app.recommender.recommendation-cache")
+@Validated
+public record RecommendationCacheProps(
+        boolean enabled,
+        @NotNull @Valid Tier user,
+        @NotNull @Valid Tier guest
+) {
+
+    /**
+     * Настройки одного уровня кэша.
+     *
+     * @param maxSize максимальное количество ответов; 0 — уровень отключён
+     * @param ttl     сколько ответ хранится с момента получения
+     */
+    public record Tier(
+            @Min(0) long maxSize,
+            @NotNull Duration ttl
+    ) {
+    }
+}
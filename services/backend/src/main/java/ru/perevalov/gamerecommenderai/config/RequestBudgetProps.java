@@ -0,0 +1,24 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Бюджет времени входящего HTTP запроса.
+ *
+ * @param defaultBudget бюджет запроса, если клиент не передал свой
+ * @param maxBudget     верхняя граница бюджета из заголовка
+ * @param header        заголовок, в котором клиент передаёт бюджет в миллисекундах
+ */
+@ConfigurationProperties(prefix = "app.request-budget")
+@Validated
+public record RequestBudgetProps(
+        @NotNull Duration defaultBudget,
+        @NotNull Duration maxBudget,
+        @NotBlank String header
+) {
+}
@@ -0,0 +1,41 @@
+package ru.perevalov.gamerecommenderai.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки очереди фоновой синхронизации пользовательских данных со Steam.
+ *
+ * @param concurrency     сколько задач синхронизации выполняется одновременно
+ * @param capacity        максимальное количество ожидающих задач
+ * @param overflowPolicy  что делать с новой задачей, если очередь заполнена
+ * @param shutdownTimeout сколько ждать выполнения оставшихся задач при остановке приложения
+ */
+@ConfigurationProperties(prefix = "app.user-sync.queue")
+@Validated
+public record UserSyncQueueProps(
+        @Min(1) int concurrency,
+        @Min(1) int capacity,
+        @NotNull OverflowPolicy overflowPolicy,
+        @NotNull Duration shutdownTimeout
+) {
+
+    /**
+     * Политика переполнения очереди.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Новая задача отбрасывается.
+         */
+        DROP_NEW,
+        /**
+         * Новая задача вытесняет самую позднюю ожидающую задачу с более низким приоритетом;
+         * если такой нет — отбрасывается.
+         */
+        EVICT_LOWER_PRIORITY
+    }
+}
@@ -1,7 +1,5 @@
 package ru.perevalov.gamerecommenderai.config;
 
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.ConsumptionProbe;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -11,10 +9,8 @@ import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.perevalov.gamerecommenderai.client.props.SteamUserProps;
-
-import java.util.concurrent.TimeUnit;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamApiRateLimiter;
 
 /**
  * Класс конфигурации для настройки WebClient с ограничением запросов и логированием.
@@ -29,11 +25,11 @@ import java.util.concurrent.TimeUnit;
 public class WebClientConfig {
 
     @Bean
-    public WebClient steamWebClient(Bucket apiBucket, SteamUserProps props) {
+    public WebClient steamWebClient(SteamApiRateLimiter steamApiRateLimiter, SteamUserProps props) {
         return WebClient.builder()
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader("X-API-Key", props.apiKey())
-                .filter(rateLimiterFilter(apiBucket))
+                .filter(rateLimiterFilter(steamApiRateLimiter))
                 .filter(loggingFilter())
                 .build();
     }
@@ -41,31 +37,18 @@ public class WebClientConfig {
     /**
      * Создает фильтр для ограничения запросов на основе корзины токенов.
      * <p>
-     * Фильтр проверяет доступность токенов перед выполнением запроса.
-     * Если токены доступны - запрос выполняется, если нет - возвращается ошибка 429.
+     * Фильтр получает токен у {@link SteamApiRateLimiter} перед выполнением запроса.
+     * Запрос без свободного токена ждёт его в очереди своей полосы не дольше дедлайна: заданного
+     * вызывающим через {@link SteamApiRateLimiter#maxWait(java.time.Duration)}, а без него — значения по умолчанию
+     * для полосы (для интерактивных запросов — {@code steam.rate-limit.interactive-max-wait}).
+     * Ошибку 429 запрос получает, только если токен не успеть получить до дедлайна.
      * </p>
      *
-     * @param bucket корзина токенов для проверки ограничений
+     * @param rateLimiter приоритетный допуск к корзине токенов Steam API
      * @return фильтр ограничения запросов
      */
-    private ExchangeFilterFunction rateLimiterFilter(Bucket bucket) {
-        return (request, next) -> {
-            return Mono.fromCallable(() -> bucket.tryConsumeAndReturnRemaining(1))
-                    // Distributed buckets use blocking Redis calls under the hood; offload from event loop.
-                    .subscribeOn(Schedulers.boundedElastic())
-                    .flatMap(probe -> {
-                        if (probe.isConsumed()) {
-                            log.debug("Request allowed. Remaining tokens: {}", probe.getRemainingTokens());
-                            return next.exchange(request);
-                        }
-
-                        long waitSeconds = TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill());
-                        log.warn("Steam API rate limit exceeded. Wait {} seconds", waitSeconds);
-                        return Mono.error(new RuntimeException(
-                                "Steam API rate limit exceeded. Try again in " + waitSeconds + " seconds"
-                        ));
-                    });
-        };
+    private ExchangeFilterFunction rateLimiterFilter(SteamApiRateLimiter rateLimiter) {
+        return (request, next) -> rateLimiter.acquire().then(Mono.defer(() -> next.exchange(request)));
     }
 
     private ExchangeFilterFunction loggingFilter() {
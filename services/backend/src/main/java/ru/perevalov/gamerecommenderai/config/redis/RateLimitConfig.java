@@ -1,7 +1,7 @@
 package ru.perevalov.gamerecommenderai.config.redis;
 
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.redis.lettuce.Bucket4jLettuce;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
@@ -9,9 +9,9 @@ import io.lettuce.core.api.StatefulRedisConnection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.perevalov.gamerecommenderai.client.props.SteamRateLimitProps;
 
 import java.nio.charset.StandardCharsets;
-import java.util.function.Supplier;
 
 /**
  * Класс конфигурации для настройки распределенного ограничения запросов с использованием Bucket4j и Redis.
@@ -23,15 +23,21 @@ import java.util.function.Supplier;
  * <p>Конфигурация создает:
  * <ul>
  *   <li>{@link LettuceBasedProxyManager} - менеджер для распределенных корзин</li>
- *   <li>{@link Bucket} - корзину токенов для ограничения запросов</li>
+ *   <li>{@link AsyncBucketProxy} - корзину токенов для ограничения запросов</li>
+ *   <li>{@link AsyncBucketProxy} - корзину фоновой полосы с долей общей ёмкости для фоновых задач</li>
  * </ul>
+ * Корзины работают через асинхронный API Lettuce: проверка лимита не блокирует поток
+ * и не требует переключения на {@code boundedElastic}.
  * </p>
  */
 @Configuration
 @RequiredArgsConstructor
 public class RateLimitConfig {
 
+    private static final String BACKGROUND_BUCKET_KEY_SUFFIX = ":background";
+
     private final RedisProps redisProps;
+    private final SteamRateLimitProps steamRateLimitProps;
 
     /**
      * Создает менеджер для управления распределенными корзинами ограничений в Redis.
@@ -62,19 +68,49 @@ public class RateLimitConfig {
      * @return корзина токенов для ограничения запросов
      */
     @Bean
-    public Bucket apiBucket(LettuceBasedProxyManager<byte[]> proxyManager) {
-        Supplier<BucketConfiguration> configSupplier = () -> BucketConfiguration.builder()
-                .addLimit(limit -> limit.capacity(redisProps.capacity())
+    public AsyncBucketProxy apiBucket(LettuceBasedProxyManager<byte[]> proxyManager) {
+        return buildBucket(proxyManager, redisProps.bucketKey(), redisProps.capacity(), redisProps.tokensPerRefill());
+    }
+
+    /**
+     * Создает распределенную корзину фоновой полосы Steam API.
+     * <p>
+     * Ёмкость и скорость пополнения составляют {@code 1 - interactiveReservedShare} от общей корзины
+     * (но не меньше одного токена). Фоновый запрос расходует токен и этой корзины, и общей,
+     * поэтому оставшаяся доля общей корзины всегда доступна интерактивным запросам.
+     * </p>
+     *
+     * @param proxyManager менеджер для создания распределенных корзин
+     * @return корзина токенов фоновой полосы
+     */
+    @Bean
+    public AsyncBucketProxy backgroundApiBucket(LettuceBasedProxyManager<byte[]> proxyManager) {
+        double backgroundShare = 1.0 - steamRateLimitProps.interactiveReservedShare();
+        return buildBucket(
+                proxyManager,
+                redisProps.bucketKey() + BACKGROUND_BUCKET_KEY_SUFFIX,
+                Math.max(1L, Math.round(redisProps.capacity() * backgroundShare)),
+                Math.max(1L, Math.round(redisProps.tokensPerRefill() * backgroundShare))
+        );
+    }
+
+    private AsyncBucketProxy buildBucket(LettuceBasedProxyManager<byte[]> proxyManager,
+                                         String key,
+                                         long capacity,
+                                         long tokensPerRefill) {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(limit -> limit.capacity(capacity)
                         .refillGreedy(
-                                redisProps.tokensPerRefill(),
+                                tokensPerRefill,
                                 redisProps.refillDuration()
                         ))
                 .build();
 
-        return proxyManager.builder()
+        return proxyManager.asAsync()
+                .builder()
                 .build(
-                        redisProps.bucketKey().getBytes(StandardCharsets.UTF_8),
-                        configSupplier
+                        key.getBytes(StandardCharsets.UTF_8),
+                        configuration
                 );
     }
 }
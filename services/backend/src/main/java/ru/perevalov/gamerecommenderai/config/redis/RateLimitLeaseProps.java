@@ -0,0 +1,45 @@
+package ru.perevalov.gamerecommenderai.config.redis;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки аренды токенов пользовательских лимитов из Redis в память узла.
+ * <p>
+ * Размер аренды для корзины ёмкостью {@code C} — {@code min(maxLeaseTokens, floor(C * maxLeaseShare))}.
+ * Он же задаёт допустимую погрешность: каждый узел удерживает по ключу не больше {@code размер - 1}
+ * неиспользованных токенов, и не дольше {@code leaseTtl}. Если размер аренды меньше двух,
+ * запрос идёт в Redis напрямую.
+ *
+ * @param enabled       включает аренду; при {@code false} каждый запрос проверяется в Redis
+ * @param maxLeaseShare максимальная доля ёмкости корзины, которую узел забирает за одну аренду
+ * @param maxLeaseTokens максимальное количество токенов в одной аренде
+ * @param leaseTtl      через сколько неиспользованные токены аренды возвращаются в Redis
+ * @param maxKeys       максимальное количество ключей с активной арендой на узле
+ */
+@ConfigurationProperties(prefix = "performance.rate-limiter.lease")
+@Validated
+public record RateLimitLeaseProps(
+        boolean enabled,
+        @DecimalMin("0.0") @DecimalMax("1.0") double maxLeaseShare,
+        @Min(1) long maxLeaseTokens,
+        @NotNull Duration leaseTtl,
+        @Min(1) long maxKeys
+) {
+
+    /**
+     * Рассчитывает размер аренды для корзины заданной ёмкости.
+     *
+     * @param capacity ёмкость корзины
+     * @return количество токенов, запрашиваемых из Redis за одну аренду
+     */
+    public long leaseSize(long capacity) {
+        return Math.min(maxLeaseTokens, (long) Math.floor(capacity * maxLeaseShare));
+    }
+}
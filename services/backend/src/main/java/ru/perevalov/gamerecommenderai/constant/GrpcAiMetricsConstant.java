@@ -10,11 +10,41 @@ public final class GrpcAiMetricsConstant {
     public static final String AI_CB_OPEN_TOTAL = "ai_cb_open_total";
     public static final String AI_FAILURES_TOTAL = "ai_failures_total";
     public static final String AI_SERVICE_LATENCY = "ai_service_latency";
+    public static final String AI_SERVICE_FIRST_CHUNK_LATENCY = "ai_service_first_chunk_latency";
+    public static final String AI_PROFILE_SUMMARY_BYTES = "ai_profile_summary_bytes";
+    public static final String AI_LIMITER_LIMIT = "ai_limiter_limit";
+    public static final String AI_LIMITER_IN_FLIGHT = "ai_limiter_in_flight";
+    public static final String AI_LIMITER_QUEUE_SIZE = "ai_limiter_queue_size";
+    public static final String AI_LIMITER_QUEUE_WAIT = "ai_limiter_queue_wait";
+    public static final String AI_LIMITER_REJECTED_TOTAL = "ai_limiter_rejected_total";
+    public static final String AI_HEDGE_FIRED_TOTAL = "ai_hedge_fired_total";
+    public static final String AI_HEDGE_WON_TOTAL = "ai_hedge_won_total";
+    public static final String AI_HEDGE_BUDGET_EXHAUSTED_TOTAL = "ai_hedge_budget_exhausted_total";
+    public static final String AI_HEDGE_DELAY = "ai_hedge_delay";
+    public static final String AI_ENDPOINT_IN_FLIGHT = "ai_endpoint_in_flight";
+    public static final String AI_ENDPOINT_LATENCY = "ai_endpoint_latency";
+    public static final String AI_DEADLINE = "ai_deadline";
+    public static final String AI_DEADLINE_OUTCOME_TOTAL = "ai_deadline_outcome_total";
+    public static final String AI_PROFILE_SUMMARY_DEDUP_TOTAL = "ai_profile_summary_dedup_total";
+    public static final String AI_PROFILE_SUMMARY_BYTES_SAVED_TOTAL = "ai_profile_summary_bytes_saved_total";
 
     public static final String TAG_REASON = "reason";
+    public static final String TAG_ROLE = "role";
+    public static final String TAG_ENDPOINT = "endpoint";
+    public static final String TAG_STATUS = "status";
+    public static final String TAG_PROVIDER = "provider";
     public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_SUMMARY_MODE = "summary_mode";
 
     public static final String OUTCOME_SUCCESS = "success";
     public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_DEADLINE_EXCEEDED = "deadline_exceeded";
+    public static final String OUTCOME_BUDGET_EXHAUSTED = "budget_exhausted";
+    public static final String OUTCOME_HASH_ONLY = "hash_only";
+    public static final String OUTCOME_FULL = "full";
+    public static final String OUTCOME_MISS = "miss";
+
+    public static final String REASON_QUEUE_FULL = "queue_full";
+    public static final String REASON_QUEUE_TIMEOUT = "queue_timeout";
 }
 
@@ -0,0 +1,21 @@
+package ru.perevalov.gamerecommenderai.constant;
+
+public final class PipelineMetricsConstant {
+
+    public PipelineMetricsConstant() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static final String PIPELINE_DURATION = "pipeline_duration";
+    public static final String PIPELINE_STEP_DURATION = "pipeline_step_duration";
+
+    public static final String TAG_STEP = "step";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_DUPLICATE = "duplicate";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_EMPTY = "empty";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_SKIPPED = "skipped";
+    public static final String OUTCOME_CANCELLED = "cancelled";
+}
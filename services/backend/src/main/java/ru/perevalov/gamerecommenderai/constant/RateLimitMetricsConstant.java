@@ -0,0 +1,15 @@
+package ru.perevalov.gamerecommenderai.constant;
+
+public final class RateLimitMetricsConstant {
+
+    public RateLimitMetricsConstant() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static final String RATE_LIMIT_LEASE_CHECKS_TOTAL = "rate_limit_lease_checks_total";
+    public static final String RATE_LIMIT_LEASE_RETURNED_TOKENS_TOTAL = "rate_limit_lease_returned_tokens_total";
+
+    public static final String TAG_SOURCE = "source";
+    public static final String SOURCE_LOCAL = "local";
+    public static final String SOURCE_REDIS = "redis";
+}
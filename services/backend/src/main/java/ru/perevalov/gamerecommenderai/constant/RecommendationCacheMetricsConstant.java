@@ -0,0 +1,22 @@
+package ru.perevalov.gamerecommenderai.constant;
+
+public final class RecommendationCacheMetricsConstant {
+
+    public RecommendationCacheMetricsConstant() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static final String RECOMMENDATION_CACHE_REQUESTS_TOTAL = "recommendation_cache_requests_total";
+    public static final String RECOMMENDATION_CACHE_SAVED_LATENCY = "recommendation_cache_saved_latency";
+    public static final String RECOMMENDATION_CACHE_SIZE = "recommendation_cache_size";
+
+    public static final String TAG_TIER = "tier";
+    public static final String TAG_RESULT = "result";
+
+    public static final String TIER_USER = "user";
+    public static final String TIER_GUEST = "guest";
+
+    public static final String RESULT_HIT = "hit";
+    public static final String RESULT_MISS = "miss";
+    public static final String RESULT_COALESCED = "coalesced";
+}
@@ -13,4 +13,10 @@ public final class SteamApiConstant {
     public static final String APP_IDS = "appids";
     public static final String SUCCESS = "/success";
     public static final String DATA = "data";
+
+    /**
+     * Максимальное количество steamids в одном запросе GetPlayerSummaries.
+     */
+    public static final int PLAYER_SUMMARIES_MAX_STEAM_IDS = 100;
+    public static final String STEAM_IDS_DELIMITER = ",";
 }
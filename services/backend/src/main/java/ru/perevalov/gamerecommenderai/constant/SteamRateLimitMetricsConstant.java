@@ -0,0 +1,15 @@
+package ru.perevalov.gamerecommenderai.constant;
+
+public final class SteamRateLimitMetricsConstant {
+
+    public SteamRateLimitMetricsConstant() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static final String STEAM_RATE_LIMIT_ADMITTED_TOTAL = "steam_rate_limit_admitted_total";
+    public static final String STEAM_RATE_LIMIT_REJECTED_TOTAL = "steam_rate_limit_rejected_total";
+    public static final String STEAM_RATE_LIMIT_QUEUE_DEPTH = "steam_rate_limit_queue_depth";
+    public static final String STEAM_RATE_LIMIT_WAIT = "steam_rate_limit_wait";
+
+    public static final String TAG_LANE = "lane";
+}
@@ -0,0 +1,22 @@
+package ru.perevalov.gamerecommenderai.constant;
+
+public final class UserSyncMetricsConstant {
+
+    public UserSyncMetricsConstant() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static final String USER_SYNC_QUEUE_DEPTH = "user_sync_queue_depth";
+    public static final String USER_SYNC_QUEUE_RUNNING = "user_sync_queue_running";
+    public static final String USER_SYNC_QUEUE_JOBS_TOTAL = "user_sync_queue_jobs_total";
+    public static final String USER_SYNC_QUEUE_WAIT = "user_sync_queue_wait";
+    public static final String USER_SYNC_JOB_DURATION = "user_sync_job_duration";
+
+    public static final String TAG_PRIORITY = "priority";
+    public static final String TAG_OUTCOME = "outcome";
+
+    public static final String OUTCOME_ACCEPTED = "accepted";
+    public static final String OUTCOME_MERGED = "merged";
+    public static final String OUTCOME_DROPPED = "dropped";
+    public static final String OUTCOME_EVICTED = "evicted";
+}
@@ -2,17 +2,22 @@ package ru.perevalov.gamerecommenderai.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.config.PipelineMetricsProps;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
 import ru.perevalov.gamerecommenderai.dto.chat.ProceedResponse;
+import ru.perevalov.gamerecommenderai.dto.chat.ProceedStreamEvent;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineOrchestrator;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineStreamer;
 
 /**
  * Контроллер получения игровых рекомендаций.
@@ -27,15 +32,20 @@ import ru.perevalov.gamerecommenderai.pipeline.PipelineOrchestrator;
 public class GameRecommendationController {
 
     private static final String CLIENT_REQUEST_ID_HEADER = "X-Client-Request-Id";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
 
     private final PipelineOrchestrator orchestrator;
+    private final PipelineStreamer streamer;
+    private final PipelineMetricsProps pipelineMetricsProps;
 
     /**
      * Обрабатывает шаг диалога и делегирует бизнес-логику recommendation pipeline.
      *
      * @param reqMono поток запроса клиента
      * @param clientRequestIdHeader идентификатор запроса клиента для идемпотентности
-     * @return HTTP-ответ с chatId и сообщениями текущего хода
+     * @return HTTP-ответ с chatId и сообщениями текущего хода; при включённом
+     * {@code app.recommender.pipeline.metrics.server-timing-header} — с разбивкой
+     * времени по шагам pipeline в заголовке {@code Server-Timing}
      */
     @PostMapping("/proceed")
     public Mono<ResponseEntity<ProceedResponse>> getRecommendations(
@@ -43,9 +53,39 @@ public class GameRecommendationController {
             @RequestHeader(value = CLIENT_REQUEST_ID_HEADER, required = false) String clientRequestIdHeader
     ) {
         return reqMono
-                .flatMap(req -> orchestrator.handle(new PipelineContext(req, clientRequestIdHeader)))
-                .doOnNext(resp -> log.info("Returning /proceed response with {} messages",
-                        resp.getMessages() != null ? resp.getMessages().size() : 0))
-                .map(ResponseEntity::ok);
+                .flatMap(req -> {
+                    PipelineContext context = new PipelineContext(req, clientRequestIdHeader);
+                    return orchestrator.handle(context)
+                            .doOnNext(resp -> log.info("Returning /proceed response with {} messages",
+                                    resp.getMessages() != null ? resp.getMessages().size() : 0))
+                            .map(resp -> toResponseEntity(context, resp));
+                });
+    }
+
+    /**
+     * Потоковый вариант {@code /proceed}: сразу отдаёт {@code status}, затем reasoning и
+     * карточки игр по мере готовности, последним событием — тот же {@link ProceedResponse}.
+     * Формат — SSE или NDJSON, по заголовку {@code Accept}.
+     *
+     * @param reqMono поток запроса клиента
+     * @param clientRequestIdHeader идентификатор запроса клиента для идемпотентности
+     * @return поток {@link ProceedStreamEvent}, см. {@code contracts/docs/api-contract.md} §1.1
+     */
+    @PostMapping(value = "/proceed/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProceedStreamEvent> streamRecommendations(
+            @RequestBody Mono<GameRecommendationRequest> reqMono,
+            @RequestHeader(value = CLIENT_REQUEST_ID_HEADER, required = false) String clientRequestIdHeader
+    ) {
+        return reqMono.flatMapMany(req -> streamer.stream(new PipelineContext(req, clientRequestIdHeader)));
+    }
+
+    private ResponseEntity<ProceedResponse> toResponseEntity(PipelineContext context, ProceedResponse response) {
+        if (!pipelineMetricsProps.serverTimingHeader() || context.getTimings() == null) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok()
+                .header(SERVER_TIMING_HEADER, context.getTimings().serverTiming())
+                .body(response);
     }
 }
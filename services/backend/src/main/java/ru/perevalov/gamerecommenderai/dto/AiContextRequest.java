@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.perevalov.gamerecommenderai.grpc.ProfileSummaryProto;
 
 import java.util.List;
 @Builder
@@ -14,6 +15,7 @@ public class AiContextRequest {
     private String userMessage;
     private String[] selectedTags;
     private String profileSummary;
+    private ProfileSummaryProto structuredProfileSummary;
 
     private String chatId;
     private String agentId;
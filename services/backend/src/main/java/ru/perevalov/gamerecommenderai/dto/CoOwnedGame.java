@@ -0,0 +1,10 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+/**
+ * Игра, которая есть у владельцев другой игры.
+ *
+ * @param appId  appid игры
+ * @param owners сколько владельцев исходной игры владеют и этой
+ */
+public record CoOwnedGame(long appId, long owners) {
+}
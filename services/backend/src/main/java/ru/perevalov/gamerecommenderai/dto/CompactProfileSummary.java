@@ -0,0 +1,46 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Компактное представление {@link ProfileSummary} для режима {@link ProfileSummaryMode#COMPACT}.
+ * <p>
+ * Игры, попавшие сразу в несколько списков, хранятся один раз в {@code games}
+ * как позиционные массивы в порядке {@link #FIELDS}; списки {@code recentlyPlayed},
+ * {@code topByPlaytime} и {@code allGamesPlayed} содержат индексы в {@code games}.
+ * {@code risingPlaytime} — позиционные массивы в порядке {@link #RISING_FIELDS}.
+ */
+@Data
+@JsonPropertyOrder({"format", "fields", "games", "recentlyPlayed", "topByPlaytime", "allGamesPlayed",
+        "totalGamesOwned", "totalPlaytimeHours", "risingPlaytime"})
+public class CompactProfileSummary {
+
+    public static final String FORMAT = "compact-v1";
+
+    public static final List<String> FIELDS = List.of("name", "playtimeHours", "recentPlaytimeHours");
+
+    public static final List<String> RISING_FIELDS = List.of("name", "gainedHours");
+
+    private String format = FORMAT;
+
+    private List<String> fields = FIELDS;
+
+    private List<List<Object>> games;
+
+    private List<Integer> recentlyPlayed;
+
+    private List<Integer> topByPlaytime;
+
+    private List<Integer> allGamesPlayed;
+
+    private Integer totalGamesOwned;
+
+    private Integer totalPlaytimeHours;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<List<Object>> risingPlaytime;
+}
@@ -0,0 +1,23 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Часть потокового ответа AI: заполнено ровно одно поле.
+ * <p>
+ * {@code reasoning} — очередной фрагмент объяснения (фрагменты склеиваются по порядку),
+ * {@code recommendation} — очередная рекомендация, {@code response} — итоговый ответ,
+ * собранный из всех предыдущих частей; он всегда приходит последним.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameRecommendationChunk {
+    private String reasoning;
+    private GameRecommendation recommendation;
+    private GameRecommendationResponse response;
+}
@@ -1,5 +1,6 @@
 package ru.perevalov.gamerecommenderai.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.List;
@@ -17,6 +18,9 @@ public class ProfileSummary {
 
     private List<GameEntry> allGamesPlayed;
 
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<RisingEntry> risingPlaytime;
+
     @Data
     public static class GameEntry {
 
@@ -26,4 +30,12 @@ public class ProfileSummary {
 
         private Integer recentPlaytimeHours;
     }
+
+    @Data
+    public static class RisingEntry {
+
+        private String name;
+
+        private Integer gainedHours;
+    }
 }
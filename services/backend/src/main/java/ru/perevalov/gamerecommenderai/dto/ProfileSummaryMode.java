@@ -0,0 +1,24 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+/**
+ * Формат представления {@link ProfileSummary}, передаваемого в ai-service.
+ */
+public enum ProfileSummaryMode {
+
+    /**
+     * Исходный формат: три списка объектов {@code {name, playtimeHours, recentPlaytimeHours}}.
+     */
+    FULL,
+
+    /**
+     * Компактный формат {@link CompactProfileSummary}: каждая игра встречается один раз
+     * в позиционном виде, списки содержат только индексы.
+     */
+    COMPACT,
+
+    /**
+     * Типизированный {@code ProfileSummaryProto} в поле {@code structuredProfileSummary} вместо JSON-строки:
+     * собирается из снапшота без Jackson, ai-service не разбирает JSON.
+     */
+    PROTO
+}
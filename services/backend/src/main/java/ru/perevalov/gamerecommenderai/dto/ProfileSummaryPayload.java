@@ -0,0 +1,31 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+import ru.perevalov.gamerecommenderai.grpc.ProfileSummaryProto;
+
+/**
+ * Profile summary в том виде, в котором он уходит в ai-service: JSON-строка для
+ * {@link ProfileSummaryMode#FULL} и {@link ProfileSummaryMode#COMPACT} либо {@link ProfileSummaryProto}
+ * для {@link ProfileSummaryMode#PROTO}.
+ *
+ * @param json  JSON-строка summary; пустая, если summary передаётся как proto
+ * @param proto типизированный summary либо {@code null}
+ */
+public record ProfileSummaryPayload(String json, ProfileSummaryProto proto) {
+
+    public static final ProfileSummaryPayload EMPTY = new ProfileSummaryPayload("", null);
+
+    public static ProfileSummaryPayload ofJson(String json) {
+        return new ProfileSummaryPayload(json, null);
+    }
+
+    public static ProfileSummaryPayload ofProto(ProfileSummaryProto proto) {
+        return new ProfileSummaryPayload("", proto);
+    }
+
+    /**
+     * @return {@code true}, если summary нет ни в одном из видов
+     */
+    public boolean isEmpty() {
+        return proto == null && (json == null || json.isBlank());
+    }
+}
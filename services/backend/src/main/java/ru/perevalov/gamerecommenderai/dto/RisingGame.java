@@ -0,0 +1,10 @@
+package ru.perevalov.gamerecommenderai.dto;
+
+/**
+ * Игра, время игры в которой выросло за окно {@code app.recommender.prompt.rising-playtime.window}.
+ *
+ * @param appId   appid игры
+ * @param minutes прирост времени игры за окно, в минутах
+ */
+public record RisingGame(long appId, int minutes) {
+}
@@ -0,0 +1,42 @@
+package ru.perevalov.gamerecommenderai.dto.chat;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
+
+/**
+ * Событие потоковой выдачи POST /api/v1/games/proceed/stream (SSE или NDJSON).
+ *
+ * <p>Контракт зафиксирован в {@code contracts/docs/api-contract.md} §1.1. Поле
+ * {@code event} определяет, какое из остальных полей заполнено:
+ * <ul>
+ *     <li>{@code status} — {@code meta} с {@code type=status};</li>
+ *     <li>{@code item} — готовый элемент {@code payload.items[]} (reasoning или карточка игры);</li>
+ *     <li>{@code response} — итоговый {@link ProceedResponse}, тот же, что отдаёт {@code /proceed};</li>
+ *     <li>{@code error} — {@code meta} с {@code type=error}, если ход завершился ошибкой.</li>
+ * </ul>
+ * {@code response} и {@code error} — последние события потока.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProceedStreamEvent {
+    public static final String STATUS = "status";
+    public static final String ITEM = "item";
+    public static final String RESPONSE = "response";
+    public static final String ERROR = "error";
+
+    private String event;
+    private UUID chatId;
+    private JsonNode meta;
+    private MessageItemDto item;
+    private ProceedResponse response;
+}
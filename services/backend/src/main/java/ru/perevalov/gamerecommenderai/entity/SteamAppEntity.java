@@ -21,4 +21,11 @@ public class SteamAppEntity {
     @Column("name")
     private String name;
 
+    /**
+     * Битовая маска жанров: разряд {@code n} выставлен, если у игры есть жанр с {@code steam_genres.bit = n}.
+     * {@code null}, пока детали игры ни разу не запрашивались из Steam Store API.
+     */
+    @Column("genre_mask")
+    private Long genreMask;
+
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package ru.perevalov.gamerecommenderai.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("steam_genres")
+public class SteamGenreEntity {
+
+    @Id
+    private Short bit;
+
+    @Column("steam_genre_id")
+    private String steamGenreId;
+
+    @Column("description")
+    private String description;
+
+}
@@ -64,4 +64,22 @@ public class UserGameStats extends BaseEntity {
     @Column("owned_games_snapshot")
     private OwnedGamesSnapshot ownedGamesSnapshot;
 
+    @Column("snapshot_hash")
+    private String snapshotHash;
+
+    @Column("profile_summary")
+    private String profileSummary;
+
+    @Column("profile_summary_version")
+    private String profileSummaryVersion;
+
+    @Column("genre_playtime_minutes")
+    private Integer[] genrePlaytimeMinutes;
+
+    @Column("genre_game_counts")
+    private Integer[] genreGameCounts;
+
+    @Column("genre_index_version")
+    private Long genreIndexVersion;
+
 }
\ No newline at end of file
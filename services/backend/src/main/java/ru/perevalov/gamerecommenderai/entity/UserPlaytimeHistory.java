@@ -0,0 +1,40 @@
+package ru.perevalov.gamerecommenderai.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Прирост времени игры пользователя за период между двумя синхронизациями
+ * (после компакции — за сутки). Формат массивов описан в {@link ru.perevalov.gamerecommenderai.util.PlaytimeDeltas}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Table("user_playtime_history")
+public class UserPlaytimeHistory extends BaseEntity {
+
+    @Column("user_id")
+    private UUID userId;
+
+    @Column("period_start")
+    private LocalDateTime periodStart;
+
+    @Column("period_end")
+    private LocalDateTime periodEnd;
+
+    @Column("compacted")
+    private boolean compacted;
+
+    @Column("appid_deltas")
+    private Long[] appidDeltas;
+
+    @Column("playtime_deltas")
+    private Integer[] playtimeDeltas;
+
+}
@@ -11,16 +11,21 @@ import lombok.Getter;
 public enum ErrorType {
     ACCESS_TOKEN_EXPIRED("Access token expired", HttpStatus.UNAUTHORIZED),
     ACCESS_TOKEN_INVALID("Access token invalid", HttpStatus.UNAUTHORIZED),
+    AI_REQUEST_BUDGET_EXHAUSTED("Request time budget ran out before AI service answered. Please try later.", HttpStatus.GATEWAY_TIMEOUT),
     AI_SERVICE_ERROR("Error accessing AI service", HttpStatus.INTERNAL_SERVER_ERROR),
+    AI_SERVICE_OVERLOADED("AI service is overloaded: %s. Please try later.", HttpStatus.SERVICE_UNAVAILABLE),
     AI_SERVICE_RATE_LIMIT("Rate limit exceeded for AI service. Please try later.", HttpStatus.TOO_MANY_REQUESTS),
     AI_SERVICE_RECOMMENDATION_ERROR("Failed to get recommendations from AI service for preferences: %s", HttpStatus.SERVICE_UNAVAILABLE),
     AI_SERVICE_UNAUTHORIZED("Authorization error in AI service. Please check your API key.", HttpStatus.UNAUTHORIZED),
     AI_SERVICE_UNAVAILABLE("AI service is temporarily unavailable. Please try later.", HttpStatus.INTERNAL_SERVER_ERROR),
+    AI_STREAMING_UNSUPPORTED("AI service does not support streaming recommendations", HttpStatus.NOT_IMPLEMENTED),
     API_RATE_LIMIT_EXCEEDED("Rate limit exceeded. Please try later.", HttpStatus.TOO_MANY_REQUESTS),
     AUTH_REFRESH_TOKEN_INVALID("Refresh token invalid", HttpStatus.UNAUTHORIZED),
     CHAT_NOT_FOUND("Chat not found. chatId=%s", HttpStatus.NOT_FOUND),
     CHATTING_WITH_AI_ERROR("Error chatting with AI via gRPC service: Failed to chat with AI service. ", HttpStatus.SERVICE_UNAVAILABLE),
     DATABASE_BATCH_INSERT_ERROR("Failed to insert Steam apps batch into database", HttpStatus.INTERNAL_SERVER_ERROR),
+    DATABASE_GENRES_UPDATE_ERROR("Failed to update genres of Steam app. appId=%s", HttpStatus.INTERNAL_SERVER_ERROR),
+    STEAM_GENRES_LIMIT_EXCEEDED("All %s genre bits are taken, genre %s does not fit into genre_mask", HttpStatus.INTERNAL_SERVER_ERROR),
     DEFAULT_INTERNAL_SERVER_ERROR("An internal error occurred. Please try again later.", HttpStatus.INTERNAL_SERVER_ERROR),
     FETCH_STORE_GAMES_ERROR("Error occurred during fetch and store games execution", HttpStatus.INTERNAL_SERVER_ERROR),
     GRPC_AI_ERROR("Error from AI service: %s", HttpStatus.INTERNAL_SERVER_ERROR),
@@ -45,6 +50,7 @@ public enum ErrorType {
     STEAM_API_FETCH_GAMES_LIST_ERROR("Failed to fetch games list from Steam API by uri=%s", HttpStatus.SERVICE_UNAVAILABLE),
     STEAM_API_FETCH_OWNED_GAMES_ERROR("Failed to fetch owned games from Steam API. steamId=%s", HttpStatus.SERVICE_UNAVAILABLE),
     STEAM_API_PLAYER_SUMMARY_ERROR("Failed to fetch player summary from Steam API. steamId=%s", HttpStatus.SERVICE_UNAVAILABLE),
+    STEAM_API_RATE_LIMIT_EXCEEDED("Steam API rate limit exceeded for lane=%s. Try again in %s seconds", HttpStatus.TOO_MANY_REQUESTS),
     STEAM_APP_DETAILS_MAPPING_ERROR("Failed to map app details for appid %s.", HttpStatus.INTERNAL_SERVER_ERROR),
     STEAM_APP_DETAILS_NOT_FOUND("App details for appid %s were not found.", HttpStatus.NOT_FOUND),
     STEAM_DATA_IN_APP_DETAILS_NOT_FOUND("Data in appDetails for appid %s were not found.", HttpStatus.NOT_FOUND),
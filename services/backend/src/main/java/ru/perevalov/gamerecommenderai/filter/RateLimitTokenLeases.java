@@ -0,0 +1,200 @@
+package ru.perevalov.gamerecommenderai.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.config.redis.RateLimitLeaseProps;
+import ru.perevalov.gamerecommenderai.constant.RateLimitMetricsConstant;
+
+/**
+ * Гибридный лимитер: арендует у распределённой корзины в Redis небольшой блок токенов
+ * и обслуживает из него последующие проверки того же ключа в памяти узла.
+ * <p>
+ * Арендованные токены уже списаны в Redis, поэтому глобальный лимит не превышается.
+ * Погрешность — только в обратную сторону: пока токены лежат в аренде одного узла,
+ * другие узлы их не видят. Неиспользованный остаток возвращается в корзину через
+ * {@code addTokens} по истечении {@link RateLimitLeaseProps#leaseTtl()}, при вытеснении ключа
+ * и при остановке приложения; если вернуть не удалось, токены просто сгорают.
+ */
+@Slf4j
+@Component
+public class RateLimitTokenLeases {
+
+    /**
+     * Меньший блок не экономит обращений к Redis: один токен из него сразу тратит сам запрос.
+     */
+    private static final long MIN_LEASE_SIZE = 2;
+
+    private final RateLimitLeaseProps props;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Lease> leases;
+
+    @Autowired
+    public RateLimitTokenLeases(RateLimitLeaseProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Ticker.systemTicker());
+    }
+
+    RateLimitTokenLeases(RateLimitLeaseProps props, MeterRegistry meterRegistry, Ticker ticker) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(props.maxKeys())
+                .expireAfterWrite(props.leaseTtl())
+                .ticker(ticker)
+                .scheduler(Scheduler.systemScheduler())
+                .executor(Runnable::run)
+                .<String, Lease>removalListener((key, lease, cause) -> {
+                    if (lease != null) {
+                        release(key, lease);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Работает ли аренда для корзины такой ёмкости: аренда включена и блок
+     * {@code min(max-lease-tokens, capacity * max-lease-share)} не меньше двух токенов.
+     * Иначе каждая проверка идёт в Redis.
+     *
+     * @param capacity ёмкость корзины
+     * @return {@code true}, если проверки этой корзины могут обслуживаться из аренды
+     */
+    public boolean leases(long capacity) {
+        return props.enabled() && props.leaseSize(capacity) >= MIN_LEASE_SIZE;
+    }
+
+    /**
+     * Списывает один токен: из локальной аренды ключа, а если она пуста — из корзины в Redis,
+     * забирая заодно новый блок токенов про запас.
+     *
+     * @param key      ключ корзины
+     * @param bucket   прокси распределённой корзины этого ключа
+     * @param capacity ёмкость корзины, по которой рассчитывается размер аренды
+     * @return результат списания; у локально обслуженных запросов {@code remainingTokens} —
+     * оценка по последнему ответу Redis
+     */
+    public Mono<ConsumptionProbe> tryConsume(String key, AsyncBucketProxy bucket, long capacity) {
+        if (!leases(capacity)) {
+            return Mono.fromFuture(() -> bucket.tryConsumeAndReturnRemaining(1));
+        }
+        long leaseSize = props.leaseSize(capacity);
+
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            long left = lease.tryTake();
+            if (left >= 0) {
+                count(RateLimitMetricsConstant.SOURCE_LOCAL);
+                return Mono.just(ConsumptionProbe.consumed(left + lease.remoteRemaining, 0L));
+            }
+        }
+
+        count(RateLimitMetricsConstant.SOURCE_REDIS);
+        return Mono.fromFuture(() -> bucket.asVerbose().tryConsumeAsMuchAsPossible(leaseSize))
+                .flatMap(result -> {
+                    long leased = result.getValue();
+                    if (leased == 0) {
+                        // Токенов нет: повторяем запрос ради времени ожидания для Retry-After.
+                        return Mono.fromFuture(() -> bucket.tryConsumeAndReturnRemaining(1));
+                    }
+                    long remoteRemaining = result.getDiagnostics().getAvailableTokens();
+                    if (leased > 1) {
+                        store(key, bucket, leased - 1, remoteRemaining);
+                    }
+                    return Mono.just(ConsumptionProbe.consumed(leased - 1 + remoteRemaining, 0L));
+                });
+    }
+
+    public boolean isEnabled() {
+        return props.enabled();
+    }
+
+    /**
+     * Возвращает в Redis неиспользованные токены всех аренд.
+     */
+    @PreDestroy
+    public void releaseAll() {
+        leases.invalidateAll();
+        leases.cleanUp();
+    }
+
+    private void store(String key, AsyncBucketProxy bucket, long tokens, long remoteRemaining) {
+        leases.asMap().compute(key, (ignored, existing) -> {
+            if (existing != null && existing.add(tokens, remoteRemaining)) {
+                return existing;
+            }
+            return new Lease(bucket, tokens, remoteRemaining);
+        });
+    }
+
+    private void release(String key, Lease lease) {
+        long unused = lease.close();
+        if (unused <= 0) {
+            return;
+        }
+        meterRegistry.counter(RateLimitMetricsConstant.RATE_LIMIT_LEASE_RETURNED_TOKENS_TOTAL).increment(unused);
+        lease.bucket.addTokens(unused).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to return {} leased rate limit tokens, they expire instead. key={}", unused, key, ex);
+            }
+        });
+    }
+
+    private void count(String source) {
+        meterRegistry.counter(RateLimitMetricsConstant.RATE_LIMIT_LEASE_CHECKS_TOTAL,
+                RateLimitMetricsConstant.TAG_SOURCE, source).increment();
+    }
+
+    /**
+     * Арендованный блок токенов. {@code tokens == -1} — аренда закрыта и токены возвращены.
+     */
+    private static final class Lease {
+        private final AsyncBucketProxy bucket;
+        private final AtomicLong tokens;
+        private volatile long remoteRemaining;
+
+        private Lease(AsyncBucketProxy bucket, long tokens, long remoteRemaining) {
+            this.bucket = bucket;
+            this.tokens = new AtomicLong(tokens);
+            this.remoteRemaining = remoteRemaining;
+        }
+
+        private long tryTake() {
+            while (true) {
+                long current = tokens.get();
+                if (current <= 0) {
+                    return -1L;
+                }
+                if (tokens.compareAndSet(current, current - 1)) {
+                    return current - 1;
+                }
+            }
+        }
+
+        private boolean add(long added, long remoteRemaining) {
+            while (true) {
+                long current = tokens.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (tokens.compareAndSet(current, current + added)) {
+                    this.remoteRemaining = remoteRemaining;
+                    return true;
+                }
+            }
+        }
+
+        private long close() {
+            return Math.max(0L, tokens.getAndSet(-1L));
+        }
+    }
+}
@@ -2,12 +2,16 @@ package ru.perevalov.gamerecommenderai.filter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import jakarta.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
@@ -25,14 +29,27 @@ import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.security.RequestIdentity;
 import ru.perevalov.gamerecommenderai.security.model.UserRole;
 
+/**
+ * Ограничивает частоту запросов к {@code /api/v1/*} по ролям с помощью распределённых корзин Bucket4j в Redis.
+ * <p>
+ * Проверка лимита выполняется через асинхронный API Lettuce ({@link AsyncProxyManager}),
+ * поэтому запрос не переключается на {@code boundedElastic} и не блокирует поток event loop.
+ * Ответ Redis приходит на потоке ввода-вывода Lettuce, поэтому остальная цепочка фильтров
+ * продолжается на {@link Schedulers#parallel()}, а не на event loop Redis.
+ * {@link BucketConfiguration} для каждой роли создаётся один раз при старте.
+ * При включённой аренде токенов ({@link RateLimitTokenLeases}) большинство проверок
+ * обслуживается из памяти узла без обращения к Redis.
+ */
 @Slf4j
 @Component
 @Order(0)
 public class RateLimitWebFilter implements WebFilter {
     private static final Duration REFILL_PERIOD = Duration.ofHours(1);
 
-    private final LettuceBasedProxyManager<byte[]> proxyManager;
+    private final AsyncProxyManager<byte[]> proxyManager;
     private final ObjectMapper objectMapper;
+    private final RateLimitTokenLeases tokenLeases;
+    private final Map<UserRole, BucketConfiguration> configurations = new EnumMap<>(UserRole.class);
 
     @Value("${performance.rate-limiter.role.limit.of-hour.GUEST_USER:5}")
     private long guestLimitPerHour;
@@ -41,9 +58,25 @@ public class RateLimitWebFilter implements WebFilter {
     private long userLimitPerHour;
 
     public RateLimitWebFilter(LettuceBasedProxyManager<byte[]> proxyManager,
-                              ObjectMapper objectMapper) {
-        this.proxyManager = proxyManager;
+                              ObjectMapper objectMapper,
+                              RateLimitTokenLeases tokenLeases) {
+        this.proxyManager = proxyManager.asAsync();
         this.objectMapper = objectMapper;
+        this.tokenLeases = tokenLeases;
+    }
+
+    @PostConstruct
+    void init() {
+        for (UserRole role : UserRole.values()) {
+            configurations.put(role, buildConfiguration(role));
+        }
+        boolean leasesAnyRole = configurations.values().stream()
+                .anyMatch(configuration -> tokenLeases.leases(capacityOf(configuration)));
+        if (tokenLeases.isEnabled() && !leasesAnyRole) {
+            log.warn("Rate limit token leasing is enabled but never applies: role limits guest={}, user={} per hour "
+                            + "give leases below 2 tokens, so every check goes to Redis",
+                    guestLimitPerHour, userLimitPerHour);
+        }
     }
 
     @Override
@@ -58,14 +91,18 @@ public class RateLimitWebFilter implements WebFilter {
         }
 
         String key = buildKey(exchange, identity);
-        BucketConfiguration configuration = buildConfiguration(identity.role());
+        BucketConfiguration configuration = configurations.getOrDefault(identity.role(), configurations.get(UserRole.GUEST));
 
-        return Mono.fromCallable(() -> {
-                    Bucket bucket = proxyManager.builder()
-                            .build(key.getBytes(StandardCharsets.UTF_8), () -> configuration);
-                    return bucket.tryConsumeAndReturnRemaining(1);
+        return Mono.defer(() -> {
+                    AsyncBucketProxy bucket = proxyManager.builder()
+                            .build(key.getBytes(StandardCharsets.UTF_8), configuration);
+                    return tokenLeases.tryConsume(key, bucket, capacityOf(configuration));
                 })
-                .subscribeOn(Schedulers.boundedElastic())
+                // Ответ корзины приходит на event loop Lettuce, а дальше выполняется вся цепочка фильтров
+                // и контроллер. Переход на parallel() — постановка задачи в очередь уже запущенного потока,
+                // без создания потоков и блокировок, в отличие от прежнего boundedElastic; без него
+                // обработка запроса занимала бы один из немногих потоков ввода-вывода Redis.
+                .publishOn(Schedulers.parallel())
                 .flatMap(probe -> handleProbe(exchange, chain, probe))
                 .onErrorResume(ex -> {
                     log.warn("Rate limiter failed (Redis issue). Allowing request (fail-open). key={}, path={}",
@@ -116,6 +153,10 @@ public class RateLimitWebFilter implements WebFilter {
                 .build();
     }
 
+    private long capacityOf(BucketConfiguration configuration) {
+        return configuration.getBandwidths()[0].getCapacity();
+    }
+
     private String buildKey(ServerWebExchange exchange, RequestIdentity identity) {
         if (identity.role() == UserRole.USER) {
             if (identity.steamId() != null) {
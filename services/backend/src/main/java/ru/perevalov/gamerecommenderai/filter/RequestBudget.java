@@ -0,0 +1,56 @@
+package ru.perevalov.gamerecommenderai.filter;
+
+import java.time.Duration;
+import java.util.Optional;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Момент, к которому входящий запрос должен быть обработан, по часам {@link System#nanoTime()}.
+ * <p>
+ * Кладётся в Reactor {@link Context} фильтром {@link RequestBudgetWebFilter}; исходящие вызовы
+ * ограничивают свой deadline оставшимся временем.
+ *
+ * @param deadlineNanos значение {@link System#nanoTime()}, после которого бюджет исчерпан
+ */
+public record RequestBudget(long deadlineNanos) {
+
+    /**
+     * Бюджет, отсчитываемый с текущего момента.
+     *
+     * @param budget сколько времени есть у запроса
+     * @return бюджет запроса
+     */
+    public static RequestBudget startingNow(Duration budget) {
+        return new RequestBudget(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Возвращает бюджет из контекста подписчика.
+     *
+     * @param context контекст Reactor
+     * @return бюджет либо пусто, если цепочка запущена не из HTTP запроса
+     */
+    public static Optional<RequestBudget> from(ContextView context) {
+        return context.getOrEmpty(RequestBudget.class);
+    }
+
+    /**
+     * Контекст для {@code contextWrite} с этим бюджетом.
+     *
+     * @return контекст с бюджетом
+     */
+    public Context asContext() {
+        return Context.of(RequestBudget.class, this);
+    }
+
+    /**
+     * Оставшееся время.
+     *
+     * @param nowNanos текущее значение {@link System#nanoTime()}
+     * @return оставшееся время; отрицательное, если бюджет уже исчерпан
+     */
+    public Duration remaining(long nowNanos) {
+        return Duration.ofNanos(deadlineNanos - nowNanos);
+    }
+}
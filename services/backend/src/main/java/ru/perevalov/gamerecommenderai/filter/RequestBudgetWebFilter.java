@@ -0,0 +1,50 @@
+package ru.perevalov.gamerecommenderai.filter;
+
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.config.RequestBudgetProps;
+
+/**
+ * WebFilter, задающий бюджет времени запроса и кладущий его в Reactor context как {@link RequestBudget}.
+ * <p>
+ * Клиент может передать свой бюджет в миллисекундах в заголовке {@code app.request-budget.header};
+ * он ограничивается сверху {@code maxBudget}. Без заголовка используется {@code defaultBudget}.
+ */
+@Slf4j
+@Component
+@Order(-80)
+@RequiredArgsConstructor
+public class RequestBudgetWebFilter implements WebFilter {
+
+    private final RequestBudgetProps props;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RequestBudget budget = RequestBudget.startingNow(resolveBudget(exchange));
+        return chain.filter(exchange).contextWrite(budget.asContext());
+    }
+
+    private Duration resolveBudget(ServerWebExchange exchange) {
+        String header = exchange.getRequest().getHeaders().getFirst(props.header());
+        if (header == null || header.isBlank()) {
+            return props.defaultBudget();
+        }
+        try {
+            long millis = Long.parseLong(header.trim());
+            if (millis > 0) {
+                Duration requested = Duration.ofMillis(millis);
+                return requested.compareTo(props.maxBudget()) < 0 ? requested : props.maxBudget();
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed {} header: {}", props.header(), header);
+        }
+        return props.defaultBudget();
+    }
+}
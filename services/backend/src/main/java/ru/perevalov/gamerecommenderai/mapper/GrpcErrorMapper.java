@@ -18,6 +18,10 @@ public class GrpcErrorMapper {
                 || code == Status.Code.DEADLINE_EXCEEDED;
     }
 
+    /**
+     * Переводит ошибку вызова AI сервиса в {@link GameRecommenderException}; исходная ошибка остаётся
+     * причиной ({@link Throwable#getCause()}), чтобы по ней можно было узнать исходный gRPC статус.
+     */
     public Throwable mapGrpcError(Throwable error) {
         Throwable unwrapped = unwrap(error);
 
@@ -25,15 +29,24 @@ public class GrpcErrorMapper {
             return unwrapped;
         }
         if (unwrapped instanceof CallNotPermittedException || isFallbackUnavailableGrpcError(unwrapped)) {
-            return new GameRecommenderException(ErrorType.AI_SERVICE_UNAVAILABLE);
+            return causedBy(new GameRecommenderException(ErrorType.AI_SERVICE_UNAVAILABLE), unwrapped);
         }
 
         Status.Code statusCode = resolveStatusCode(unwrapped);
+        if (statusCode == Status.Code.UNIMPLEMENTED) {
+            return causedBy(new GameRecommenderException(ErrorType.AI_STREAMING_UNSUPPORTED), unwrapped);
+        }
         if (statusCode != null) {
-            return new GameRecommenderException(ErrorType.GRPC_COMMUNICATION_ERROR, statusCode);
+            return causedBy(new GameRecommenderException(ErrorType.GRPC_COMMUNICATION_ERROR, statusCode), unwrapped);
         }
 
-        return new GameRecommenderException(ErrorType.GRPC_COMMUNICATION_ERROR, unwrapped.getMessage());
+        return causedBy(new GameRecommenderException(ErrorType.GRPC_COMMUNICATION_ERROR, unwrapped.getMessage()),
+                unwrapped);
+    }
+
+    private static GameRecommenderException causedBy(GameRecommenderException mapped, Throwable cause) {
+        mapped.initCause(cause);
+        return mapped;
     }
 
     private Status.Code resolveStatusCode(Throwable error) {
@@ -36,6 +36,10 @@ public class GrpcMapper {
             builder.setProfileSummary(dto.getProfileSummary());
         }
 
+        if (dto.getStructuredProfileSummary() != null) {
+            builder.setStructuredProfileSummary(dto.getStructuredProfileSummary());
+        }
+
         if (dto.getChatId() != null) {
             builder.setChatId(dto.getChatId());
         }
@@ -2,6 +2,7 @@ package ru.perevalov.gamerecommenderai.mapper;
 
 import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamAppResponseDto;
 import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
 
@@ -15,6 +16,7 @@ public interface SteamAppMapper {
     /**
      * Converts a {@link SteamAppResponseDto.AppList.App} to a {@link SteamAppEntity}.
      */
+    @Mapping(target = "genreMask", ignore = true)
     SteamAppEntity toEntity(SteamAppResponseDto.AppList.App app);
 
     /**
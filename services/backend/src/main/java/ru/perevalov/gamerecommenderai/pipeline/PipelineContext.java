@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.Setter;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
 import ru.perevalov.gamerecommenderai.dto.chat.ProceedResponse;
 import ru.perevalov.gamerecommenderai.entity.ChatMessage;
 import ru.perevalov.gamerecommenderai.security.RequestIdentity;
@@ -29,6 +30,7 @@ public class PipelineContext {
     private UUID chatId;
     private boolean duplicate;
     private UUID userMessageId;
+    private ProfileSummaryPayload profileSummary;
     private UUID assistantMessageId;
     private GameRecommendationResponse response;
     private String errorMessage;
@@ -48,6 +50,16 @@ public class PipelineContext {
      */
     private ProceedResponse proceedResponse;
 
+    /**
+     * Тайминги шагов этого запроса, заполняются {@code PipelineOrchestrator}-ом.
+     */
+    private PipelineTimings timings;
+
+    /**
+     * Получатель промежуточных результатов для потоковой выдачи /proceed.
+     */
+    private PipelineProgress progress = PipelineProgress.NONE;
+
     /**
      * Создает контекст обработки запроса.
      *
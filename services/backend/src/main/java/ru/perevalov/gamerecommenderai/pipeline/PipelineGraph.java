@@ -0,0 +1,126 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Неизменяемый граф зависимостей шагов pipeline, построенный по слотам контекста.
+ * <p>
+ * Шаги хранятся в топологическом порядке: зависимости шага всегда имеют меньший индекс.
+ */
+final class PipelineGraph {
+    private final List<PipelineStep> steps;
+    private final List<String> names;
+    private final int[][] dependencies;
+
+    private PipelineGraph(List<PipelineStep> steps, int[][] dependencies) {
+        this.steps = List.copyOf(steps);
+        this.names = steps.stream().map(PipelineStep::name).toList();
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Строит граф по объявленным слотам шагов.
+     *
+     * @param ordered шаги, отсортированные по {@link PipelineStepOrder}; из готовых одновременно
+     *                шагов раньше идёт тот, что раньше в этом списке
+     * @return граф шагов
+     * @throws IllegalStateException если слот заполняют два шага, слот никто не заполняет
+     *                               или зависимости образуют цикл
+     */
+    static PipelineGraph build(List<PipelineStep> ordered) {
+        int size = ordered.size();
+        Map<PipelineSlot, Integer> producers = new EnumMap<>(PipelineSlot.class);
+        for (int i = 0; i < size; i++) {
+            for (PipelineSlot slot : ordered.get(i).produces()) {
+                Integer previous = producers.putIfAbsent(slot, i);
+                if (previous != null) {
+                    throw new IllegalStateException("Pipeline slot " + slot + " is produced by both "
+                            + ordered.get(previous).name() + " and " + ordered.get(i).name());
+                }
+            }
+        }
+
+        List<TreeSet<Integer>> requiredSteps = new ArrayList<>(size);
+        List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TreeSet<Integer> required = new TreeSet<>();
+            for (PipelineSlot slot : ordered.get(i).requires()) {
+                Integer producer = producers.get(slot);
+                if (producer == null) {
+                    throw new IllegalStateException("Pipeline slot " + slot + " required by "
+                            + ordered.get(i).name() + " is not produced by any step");
+                }
+                if (producer != i) {
+                    required.add(producer);
+                }
+            }
+            requiredSteps.add(required);
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            for (int producer : requiredSteps.get(i)) {
+                dependents.get(producer).add(i);
+            }
+        }
+
+        int[] position = new int[size];
+        int[] pending = new int[size];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            pending[i] = requiredSteps.get(i).size();
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        List<PipelineStep> sorted = new ArrayList<>(size);
+        while (!ready.isEmpty()) {
+            int next = ready.poll();
+            position[next] = sorted.size();
+            sorted.add(ordered.get(next));
+            for (int dependent : dependents.get(next)) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (sorted.size() != size) {
+            List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (pending[i] > 0) {
+                    cyclic.add(ordered.get(i).name());
+                }
+            }
+            throw new IllegalStateException("Pipeline steps have cyclic dependencies: " + cyclic);
+        }
+
+        int[][] dependencies = new int[size][];
+        for (int i = 0; i < size; i++) {
+            dependencies[position[i]] = requiredSteps.get(i).stream()
+                    .mapToInt(producer -> position[producer])
+                    .sorted()
+                    .toArray();
+        }
+        return new PipelineGraph(sorted, dependencies);
+    }
+
+    int size() {
+        return steps.size();
+    }
+
+    PipelineStep step(int index) {
+        return steps.get(index);
+    }
+
+    String name(int index) {
+        return names.get(index);
+    }
+
+    int[] dependencies(int index) {
+        return dependencies[index];
+    }
+}
@@ -1,32 +1,62 @@
 package ru.perevalov.gamerecommenderai.pipeline;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.annotation.PostConstruct;
 
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.perevalov.gamerecommenderai.config.PipelineMetricsProps;
+import ru.perevalov.gamerecommenderai.constant.PipelineMetricsConstant;
 import ru.perevalov.gamerecommenderai.dto.chat.ProceedResponse;
 import ru.perevalov.gamerecommenderai.pipeline.step.ResponseStep;
 
 /**
  * Оркестратор обработки запроса через recommendation pipeline.
+ * <p>
+ * Шаги объявляют читаемые и заполняемые слоты контекста ({@link PipelineSlot}), по ним при старте
+ * строится граф зависимостей. Шаг запускается, как только завершились все шаги, от которых он
+ * зависит, поэтому независимые шаги (например, сборка profile summary и запись сообщения
+ * пользователя) выполняются параллельно. Семантика ошибок прежняя: ошибка любого шага завершает
+ * pipeline ошибкой, шаг, вернувший пустой {@link Mono}, завершает pipeline пустым результатом,
+ * а после soft-failure AI выполняется только {@link ResponseStep}.
+ * <p>
+ * Длительность каждого шага пишется в таймер {@code pipeline_step_duration} (теги шага, исхода и
+ * признака дубля), длительность всего pipeline — в {@code pipeline_duration} с SLO-бакетами.
+ * Запросы дольше {@code app.recommender.pipeline.metrics.slow-request-threshold} логируются
+ * с разбивкой по шагам и критическим путём.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PipelineOrchestrator {
     private final List<PipelineStep> steps;
+    private final MeterRegistry meterRegistry;
+    private final PipelineMetricsProps metricsProps;
+
+    private PipelineGraph graph;
+    private Duration[] slo;
 
     /**
-     * Сортирует шаги один раз после создания бина.
+     * Сортирует шаги и строит граф зависимостей один раз после создания бина.
      */
     @PostConstruct
     void init() {
         steps.sort(Comparator.comparingInt(this::resolveOrder));
+        graph = PipelineGraph.build(steps);
+        slo = metricsProps.slo().toArray(Duration[]::new);
     }
 
     /**
@@ -36,13 +66,124 @@ public class PipelineOrchestrator {
      * @return итоговый ответ recommendation pipeline
      */
     public Mono<ProceedResponse> handle(PipelineContext context) {
-        Mono<PipelineContext> chain = Mono.just(context);
-        for (PipelineStep step : steps) {
-            chain = chain.flatMap(current -> shouldSkip(current, step)
-                    ? Mono.just(current)
-                    : step.handle(current));
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            PipelineTimings timings = new PipelineTimings(graph, started);
+            context.setTimings(timings);
+
+            // Каждый узел кэширован: шаг выполняется один раз, сколько бы зависимых шагов его ни ждали.
+            // cache() не отменяет источник при отписке, поэтому выполняющиеся шаги прерываются
+            // отдельным сигналом, когда pipeline завершился ошибкой или был отменён.
+            Sinks.Empty<Void> stop = Sinks.empty();
+            List<Mono<Boolean>> nodes = new ArrayList<>(graph.size());
+            for (int i = 0; i < graph.size(); i++) {
+                int index = i;
+                nodes.add(awaitDependencies(nodes, graph.dependencies(index))
+                        .flatMap(completed -> completed ? run(context, index) : Mono.just(false))
+                        .takeUntilOther(stop.asMono())
+                        .cache());
+            }
+
+            return Flux.merge(nodes)
+                    .all(Boolean::booleanValue)
+                    .filter(Boolean::booleanValue)
+                    .map(completed -> context.getProceedResponse())
+                    .doOnSuccess(response -> finish(context, started, response != null
+                            ? PipelineMetricsConstant.OUTCOME_SUCCESS
+                            : PipelineMetricsConstant.OUTCOME_EMPTY))
+                    .doOnError(e -> finish(context, started, PipelineMetricsConstant.OUTCOME_ERROR))
+                    .doOnCancel(() -> finish(context, started, PipelineMetricsConstant.OUTCOME_CANCELLED))
+                    .doFinally(signal -> stop.tryEmitEmpty());
+        });
+    }
+
+    /**
+     * Ждёт завершения шагов-зависимостей.
+     *
+     * @param nodes        узлы уже созданных шагов
+     * @param dependencies индексы шагов-зависимостей
+     * @return {@code true}, если все зависимости вернули контекст
+     */
+    private Mono<Boolean> awaitDependencies(List<Mono<Boolean>> nodes, int[] dependencies) {
+        if (dependencies.length == 0) {
+            return Mono.just(true);
+        }
+        if (dependencies.length == 1) {
+            return nodes.get(dependencies[0]);
+        }
+        List<Mono<Boolean>> required = new ArrayList<>(dependencies.length);
+        for (int dependency : dependencies) {
+            required.add(nodes.get(dependency));
+        }
+        return Flux.merge(required).all(Boolean::booleanValue);
+    }
+
+    /**
+     * Выполняет шаг или пропускает его после soft-failure AI.
+     *
+     * @param context контекст обработки
+     * @param index   индекс шага в графе
+     * @return {@code true}, если шаг вернул контекст или был пропущен
+     */
+    private Mono<Boolean> run(PipelineContext context, int index) {
+        return Mono.defer(() -> {
+            PipelineStep step = graph.step(index);
+            long started = System.nanoTime();
+            context.getTimings().started(index, started);
+            if (shouldSkip(context, step)) {
+                context.getTimings().finished(index, started, true);
+                recordStep(step, context, PipelineMetricsConstant.OUTCOME_SKIPPED, 0);
+                return Mono.just(true);
+            }
+            return Mono.defer(() -> step.handle(context))
+                    .hasElement()
+                    .doOnSuccess(completed -> finishStep(step, index, context, started, completed
+                            ? PipelineMetricsConstant.OUTCOME_SUCCESS
+                            : PipelineMetricsConstant.OUTCOME_EMPTY))
+                    .doOnError(e -> finishStep(step, index, context, started, PipelineMetricsConstant.OUTCOME_ERROR))
+                    .doOnCancel(() -> recordStep(step, context, PipelineMetricsConstant.OUTCOME_CANCELLED,
+                            System.nanoTime() - started));
+        });
+    }
+
+    /**
+     * Фиксирует завершение шага в таймингах запроса и метриках.
+     */
+    private void finishStep(PipelineStep step, int index, PipelineContext context, long started, String outcome) {
+        long finished = System.nanoTime();
+        context.getTimings().finished(index, finished, false);
+        recordStep(step, context, outcome, finished - started);
+    }
+
+    private void recordStep(PipelineStep step, PipelineContext context, String outcome, long nanos) {
+        Timer.builder(PipelineMetricsConstant.PIPELINE_STEP_DURATION)
+                .tag(PipelineMetricsConstant.TAG_STEP, step.name())
+                .tag(PipelineMetricsConstant.TAG_OUTCOME, outcome)
+                .tag(PipelineMetricsConstant.TAG_DUPLICATE, String.valueOf(context.isDuplicate()))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Пишет длительность всего pipeline и логирует медленные запросы.
+     */
+    private void finish(PipelineContext context, long started, String outcome) {
+        long nanos = System.nanoTime() - started;
+        Timer.builder(PipelineMetricsConstant.PIPELINE_DURATION)
+                .tag(PipelineMetricsConstant.TAG_OUTCOME, outcome)
+                .tag(PipelineMetricsConstant.TAG_DUPLICATE, String.valueOf(context.isDuplicate()))
+                .serviceLevelObjectives(slo)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        PipelineTimings timings = context.getTimings();
+        if (nanos >= metricsProps.slowRequestThreshold().toNanos()) {
+            log.warn("Slow pipeline ({}, {}ms): steps [{}], critical path [{}]", outcome,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), timings.describeSteps(), timings.describeCriticalPath());
+        } else if (log.isDebugEnabled()) {
+            log.debug("Pipeline {} critical path: {}", outcome, timings.describeCriticalPath());
         }
-        return chain.map(PipelineContext::getProceedResponse);
     }
 
     /**
@@ -0,0 +1,39 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
+
+/**
+ * Получатель промежуточных результатов pipeline для потоковой выдачи /proceed.
+ * <p>
+ * Шаги сообщают о прогрессе по мере выполнения; итоговый ответ по-прежнему собирает
+ * {@code ResponseStep}. Методы могут вызываться из разных потоков.
+ */
+public interface PipelineProgress {
+
+    /**
+     * Получатель по умолчанию: промежуточные результаты никуда не отправляются.
+     */
+    PipelineProgress NONE = new PipelineProgress() {
+        @Override
+        public void status(String state) {
+        }
+
+        @Override
+        public void item(MessageItemDto item) {
+        }
+    };
+
+    /**
+     * Сообщает о смене состояния обработки, например {@code "searching"}.
+     *
+     * @param state состояние для {@code meta.type=status}
+     */
+    void status(String state);
+
+    /**
+     * Передаёт готовый элемент ответа ассистента: reasoning-блок или карточку игры.
+     *
+     * @param item элемент {@code payload.items[]}
+     */
+    void item(MessageItemDto item);
+}
@@ -0,0 +1,42 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+/**
+ * Группа полей {@link PipelineContext}, которую шаг pipeline читает или заполняет.
+ * <p>
+ * Шаги объявляют слоты через {@link PipelineStep#requires()} и {@link PipelineStep#produces()},
+ * по ним {@link PipelineOrchestrator} строит граф зависимостей.
+ */
+public enum PipelineSlot {
+    /**
+     * {@code clientRequestId}, {@code requestedChatId}, {@code tags}, {@code requestIdentity}, {@code userContext}.
+     */
+    REQUEST_CONTEXT,
+    /**
+     * {@code chatId} и признак {@code duplicate}.
+     */
+    CHAT,
+    /**
+     * {@code userMessageId} сохранённого сообщения пользователя.
+     */
+    USER_MESSAGE,
+    /**
+     * {@code profileSummary} для AI-контекста.
+     */
+    PROFILE_SUMMARY,
+    /**
+     * {@code response} и {@code errorMessage}; при дубле — переиспользованное сообщение ассистента.
+     */
+    AI_RESPONSE,
+    /**
+     * {@code assistantMessageId} и {@code assistantMessages}.
+     */
+    ASSISTANT_MESSAGE,
+    /**
+     * Обновлённое время активности чата.
+     */
+    CHAT_ACTIVITY,
+    /**
+     * Итоговый {@code proceedResponse}.
+     */
+    PROCEED_RESPONSE
+}
@@ -1,5 +1,7 @@
 package ru.perevalov.gamerecommenderai.pipeline;
 
+import java.util.Set;
+
 import reactor.core.publisher.Mono;
 
 /**
@@ -13,4 +15,33 @@ public interface PipelineStep {
      * @return обновленный контекст
      */
     Mono<PipelineContext> handle(PipelineContext context);
+
+    /**
+     * Возвращает слоты контекста, которые шаг читает.
+     * Шаг запускается только после шагов, заполняющих эти слоты.
+     *
+     * @return читаемые слоты
+     */
+    default Set<PipelineSlot> requires() {
+        return Set.of();
+    }
+
+    /**
+     * Возвращает слоты контекста, которые шаг заполняет.
+     * Каждый слот заполняет ровно один шаг.
+     *
+     * @return заполняемые слоты
+     */
+    default Set<PipelineSlot> produces() {
+        return Set.of();
+    }
+
+    /**
+     * Возвращает имя шага для логов и таймингов.
+     *
+     * @return имя шага
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
 }
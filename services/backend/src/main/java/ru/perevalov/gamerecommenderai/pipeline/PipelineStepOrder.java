@@ -1,11 +1,15 @@
 package ru.perevalov.gamerecommenderai.pipeline;
 
 /**
- * Константы порядка выполнения шагов recommendation pipeline.
+ * Константы порядка шагов recommendation pipeline.
+ * <p>
+ * Фактический порядок задают зависимости шагов ({@link PipelineStep#requires()}); порядок из
+ * этих констант определяет очередность запуска шагов, готовых одновременно.
  */
 public final class PipelineStepOrder {
     public static final int CONTEXT_RESOLVER = 100;
     public static final int CHAT_RESOLVER = 200;
+    public static final int PROFILE_SUMMARY = 250;
     public static final int PERSIST_USER_MESSAGE = 300;
     public static final int AI_CALL = 400;
     public static final int PERSIST_ASSISTANT = 500;
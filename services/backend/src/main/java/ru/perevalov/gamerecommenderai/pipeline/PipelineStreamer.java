@@ -0,0 +1,120 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.perevalov.gamerecommenderai.dto.chat.ProceedStreamEvent;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.message.MessageMetaFactory;
+import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
+
+/**
+ * Потоковая выдача recommendation pipeline для {@code /proceed/stream}.
+ *
+ * <p>Первым событием сразу уходит {@code status=accepted}, затем — промежуточные
+ * результаты шагов через {@link PipelineProgress}, последним — итоговый
+ * {@code ProceedResponse} либо {@code error}. Сам pipeline не меняется: сообщения
+ * сохраняются теми же шагами, что и для {@code /proceed}, а отмена подписки клиентом
+ * отменяет pipeline.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PipelineStreamer {
+    private static final String STATUS_ACCEPTED = "accepted";
+    private static final Sinks.EmitFailureHandler RETRY_CONCURRENT_EMIT =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final PipelineOrchestrator orchestrator;
+    private final MessageMetaFactory metaFactory;
+
+    /**
+     * Запускает pipeline для контекста и отдаёт его события по мере появления.
+     *
+     * @param context контекст запроса; его {@code progress} будет заменён
+     * @return поток событий, завершается после {@code response} или {@code error}
+     */
+    public Flux<ProceedStreamEvent> stream(PipelineContext context) {
+        Sinks.Many<ProceedStreamEvent> events = Sinks.many().unicast().onBackpressureBuffer();
+        context.setProgress(new SinkProgress(context, events));
+
+        // defer: pipeline стартует только после подписки на events, иначе ранние status потеряют порядок
+        Mono<ProceedStreamEvent> pipeline = Mono.defer(() -> orchestrator.handle(context))
+                .map(response -> ProceedStreamEvent.builder()
+                        .event(ProceedStreamEvent.RESPONSE)
+                        .chatId(response.getChatId())
+                        .response(response)
+                        .build())
+                .onErrorResume(ex -> Mono.just(toErrorEvent(context, ex)))
+                .doFinally(signal -> events.tryEmitComplete());
+
+        ProceedStreamEvent accepted = ProceedStreamEvent.builder()
+                .event(ProceedStreamEvent.STATUS)
+                .meta(metaFactory.status(STATUS_ACCEPTED))
+                .build();
+        return Flux.concat(
+                Mono.just(accepted),
+                Flux.merge(events.asFlux(), pipeline));
+    }
+
+    private ProceedStreamEvent toErrorEvent(PipelineContext context, Throwable ex) {
+        ErrorType errorType = ex instanceof GameRecommenderException gre
+                ? gre.getErrorType()
+                : ErrorType.DEFAULT_INTERNAL_SERVER_ERROR;
+        String message = ex instanceof GameRecommenderException
+                ? ex.getMessage()
+                : errorType.getDescription();
+        if (errorType.getStatus().is5xxServerError()) {
+            log.error("Streaming /proceed failed", ex);
+        } else {
+            log.warn("Streaming /proceed rejected: {}", ex.getMessage());
+        }
+        boolean retryable = errorType.getStatus().is5xxServerError()
+                || errorType.getStatus() == HttpStatus.TOO_MANY_REQUESTS;
+        return ProceedStreamEvent.builder()
+                .event(ProceedStreamEvent.ERROR)
+                .chatId(context.getChatId())
+                .meta(metaFactory.error(errorType.name(), message, retryable))
+                .build();
+    }
+
+    private final class SinkProgress implements PipelineProgress {
+        private final PipelineContext context;
+        private final Sinks.Many<ProceedStreamEvent> events;
+
+        private SinkProgress(PipelineContext context, Sinks.Many<ProceedStreamEvent> events) {
+            this.context = context;
+            this.events = events;
+        }
+
+        @Override
+        public void status(String state) {
+            emit(ProceedStreamEvent.builder()
+                    .event(ProceedStreamEvent.STATUS)
+                    .chatId(context.getChatId())
+                    .meta(metaFactory.status(state))
+                    .build());
+        }
+
+        @Override
+        public void item(MessageItemDto item) {
+            emit(ProceedStreamEvent.builder()
+                    .event(ProceedStreamEvent.ITEM)
+                    .chatId(context.getChatId())
+                    .item(item)
+                    .build());
+        }
+
+        private void emit(ProceedStreamEvent event) {
+            events.emitNext(event, RETRY_CONCURRENT_EMIT);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тайминги шагов одного прохода pipeline и его критический путь.
+ * <p>
+ * Критический путь восстанавливается от шага, завершившегося последним: на каждом шаге
+ * берётся зависимость, завершившаяся позже остальных, — именно её ждал шаг.
+ * Шаги, до которых выполнение не дошло, в критический путь не попадают.
+ */
+public final class PipelineTimings {
+
+    /**
+     * Время выполнения шага на критическом пути.
+     *
+     * @param step    имя шага
+     * @param nanos   длительность шага
+     * @param skipped шаг пропущен после soft-failure
+     */
+    public record StepTiming(String step, long nanos, boolean skipped) {
+    }
+
+    private final PipelineGraph graph;
+    private final long startedNanos;
+    private final long[] stepStartedNanos;
+    private final long[] stepFinishedNanos;
+    private final boolean[] finished;
+    private final boolean[] skipped;
+
+    PipelineTimings(PipelineGraph graph, long startedNanos) {
+        this.graph = graph;
+        this.startedNanos = startedNanos;
+        this.stepStartedNanos = new long[graph.size()];
+        this.stepFinishedNanos = new long[graph.size()];
+        this.finished = new boolean[graph.size()];
+        this.skipped = new boolean[graph.size()];
+    }
+
+    synchronized void started(int index, long nanos) {
+        stepStartedNanos[index] = nanos;
+    }
+
+    synchronized void finished(int index, long nanos, boolean wasSkipped) {
+        stepFinishedNanos[index] = nanos;
+        finished[index] = true;
+        skipped[index] = wasSkipped;
+    }
+
+    /**
+     * Возвращает шаги критического пути в порядке выполнения.
+     *
+     * @return шаги критического пути; пустой список, если ни один шаг не завершился
+     */
+    public synchronized List<StepTiming> criticalPath() {
+        int last = -1;
+        for (int i = 0; i < graph.size(); i++) {
+            if (finished[i] && (last < 0 || stepFinishedNanos[i] > stepFinishedNanos[last])) {
+                last = i;
+            }
+        }
+
+        List<StepTiming> path = new ArrayList<>();
+        while (last >= 0) {
+            path.add(new StepTiming(graph.name(last), stepFinishedNanos[last] - stepStartedNanos[last], skipped[last]));
+            int previous = -1;
+            for (int dependency : graph.dependencies(last)) {
+                if (finished[dependency]
+                        && (previous < 0 || stepFinishedNanos[dependency] > stepFinishedNanos[previous])) {
+                    previous = dependency;
+                }
+            }
+            last = previous;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Возвращает время от начала pipeline до завершения последнего шага.
+     *
+     * @return длительность в наносекундах; {@code 0}, если ни один шаг не завершился
+     */
+    public synchronized long totalNanos() {
+        long total = 0;
+        for (int i = 0; i < graph.size(); i++) {
+            if (finished[i]) {
+                total = Math.max(total, stepFinishedNanos[i] - startedNanos);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Форматирует критический путь для лога, например
+     * {@code "total=812ms ContextResolverStep=4ms > ChatResolverStep=11ms > AiCallStep=790ms"}.
+     *
+     * @return строка с критическим путём
+     */
+    public String describeCriticalPath() {
+        StringBuilder description = new StringBuilder("total=").append(millis(totalNanos())).append("ms");
+        String separator = " ";
+        for (StepTiming timing : criticalPath()) {
+            description.append(separator).append(timing.step()).append('=');
+            description.append(timing.skipped() ? "skipped" : millis(timing.nanos()) + "ms");
+            separator = " > ";
+        }
+        return description.toString();
+    }
+
+    /**
+     * Форматирует длительности всех завершившихся шагов в порядке графа для лога, например
+     * {@code "ContextResolverStep=4ms ChatResolverStep=11ms ProfileSummaryStep=6ms ..."}.
+     *
+     * @return строка с разбивкой по шагам
+     */
+    public synchronized String describeSteps() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < graph.size(); i++) {
+            if (!finished[i]) {
+                continue;
+            }
+            if (!description.isEmpty()) {
+                description.append(' ');
+            }
+            description.append(graph.name(i)).append('=');
+            description.append(skipped[i] ? "skipped" : millis(stepFinishedNanos[i] - stepStartedNanos[i]) + "ms");
+        }
+        return description.toString();
+    }
+
+    /**
+     * Форматирует разбивку по шагам как значение заголовка {@code Server-Timing}, например
+     * {@code "ContextResolverStep;dur=4.1, ChatResolverStep;dur=11.0, total;dur=812.5"}.
+     * Пропущенные шаги не выводятся.
+     *
+     * @return значение заголовка
+     */
+    public synchronized String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < graph.size(); i++) {
+            if (finished[i] && !skipped[i]) {
+                header.append(graph.name(i)).append(";dur=")
+                        .append(fractionalMillis(stepFinishedNanos[i] - stepStartedNanos[i]))
+                        .append(", ");
+            }
+        }
+        return header.append("total;dur=").append(fractionalMillis(totalNanos())).toString();
+    }
+
+    private static String fractionalMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
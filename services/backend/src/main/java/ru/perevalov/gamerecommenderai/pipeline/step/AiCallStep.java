@@ -1,18 +1,26 @@
 package ru.perevalov.gamerecommenderai.pipeline.step;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationChunk;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSupport;
 import ru.perevalov.gamerecommenderai.service.ChatMessageService;
 import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
 
@@ -29,12 +37,27 @@ import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
  * {@link GameRecommendationResponse} лежал внутри {@code meta.payload.extra}.
  * Этот костыль удалён: сохранённого сообщения вместе с {@code meta} достаточно,
  * legacy DTO нам больше не нужен в pipeline после persist.
+ *
+ * <p>Ответ AI запрашивается потоком; если AI сервис не реализует {@code StreamRecommendGames}
+ * ({@code UNIMPLEMENTED}), шаг повторяет запрос унарным {@code RecommendGames}.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class AiCallStep implements PipelineStep, Ordered {
+    private static final String STATUS_SEARCHING = "searching";
+    /**
+     * Ошибки AI, после которых pipeline продолжается с retryable-ответом {@code AI_UNAVAILABLE}.
+     */
+    private static final Set<ErrorType> SOFT_FAILURES = Set.of(
+            ErrorType.GRPC_AI_ERROR,
+            ErrorType.AI_SERVICE_OVERLOADED,
+            ErrorType.AI_REQUEST_BUDGET_EXHAUSTED
+    );
+
     private final GameRecommenderService gameRecommenderService;
     private final ChatMessageService chatMessageService;
+    private final PipelineSupport support;
 
     @Override
     public Mono<PipelineContext> handle(PipelineContext context) {
@@ -50,16 +73,34 @@ public class AiCallStep implements PipelineStep, Ordered {
         return PipelineStepOrder.AI_CALL;
     }
 
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.CHAT, PipelineSlot.USER_MESSAGE, PipelineSlot.PROFILE_SUMMARY);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.AI_RESPONSE);
+    }
+
     private Mono<PipelineContext> callAi(PipelineContext context) {
-        return gameRecommenderService.getGameRecommendationsWithContext(
-                        context.getRequest(),
-                        context.getChatId().toString())
-                .map(response -> {
-                    context.setResponse(response);
+        return Mono.defer(() -> {
+                    context.getProgress().status(STATUS_SEARCHING);
+                    StreamedItems streamed = new StreamedItems(context);
+                    return gameRecommenderService.streamGameRecommendationsWithContext(
+                                    context.getRequest(),
+                                    context.getChatId().toString(),
+                                    context.getProfileSummary())
+                            .onErrorResume(AiCallStep::isStreamingUnsupported, ex -> recommendUnary(context))
+                            .doOnNext(streamed::accept)
+                            .last();
+                })
+                .map(chunk -> {
+                    context.setResponse(chunk.getResponse());
                     return context;
                 })
                 .onErrorResume(GameRecommenderException.class, ex -> {
-                    if (ex.getErrorType() == ErrorType.GRPC_AI_ERROR) {
+                    if (SOFT_FAILURES.contains(ex.getErrorType())) {
                         GameRecommendationResponse response = GameRecommendationResponse.builder()
                                 .success(false)
                                 .errorMessage(ex.getMessage())
@@ -73,6 +114,71 @@ public class AiCallStep implements PipelineStep, Ordered {
                 });
     }
 
+    /**
+     * Унарный {@code RecommendGames} для AI сервиса без {@code StreamRecommendGames}: готовый ответ
+     * раскладывается на те же части, что пришли бы потоком, чтобы выдача и persist не различали пути.
+     */
+    private Flux<GameRecommendationChunk> recommendUnary(PipelineContext context) {
+        log.warn("AI service does not implement streaming, falling back to unary call. chatId={}",
+                context.getChatId());
+        return gameRecommenderService.getGameRecommendationsWithContext(
+                        context.getRequest(),
+                        context.getChatId().toString(),
+                        context.getProfileSummary())
+                .flatMapMany(response -> Flux.concat(
+                        Mono.justOrEmpty(response.getReasoning())
+                                .map(reasoning -> GameRecommendationChunk.builder().reasoning(reasoning).build()),
+                        Flux.fromIterable(response.getRecommendations() != null
+                                        ? response.getRecommendations()
+                                        : List.of())
+                                .map(recommendation -> GameRecommendationChunk.builder()
+                                        .recommendation(recommendation)
+                                        .build()),
+                        Mono.just(GameRecommendationChunk.builder().response(response).build())));
+    }
+
+    private static boolean isStreamingUnsupported(Throwable error) {
+        return error instanceof GameRecommenderException ex
+                && ex.getErrorType() == ErrorType.AI_STREAMING_UNSUPPORTED;
+    }
+
+    /**
+     * Отдаёт части ответа AI в потоковую выдачу в том же порядке, в каком их сохранит
+     * {@code PersistAssistantStep}: reasoning копится до первой рекомендации (или до конца
+     * потока) и уходит одним элементом, карточки — каждая сразу по приходу.
+     */
+    private final class StreamedItems {
+        private final PipelineContext context;
+        private final StringBuilder reasoning = new StringBuilder();
+        private boolean reasoningPublished;
+
+        private StreamedItems(PipelineContext context) {
+            this.context = context;
+        }
+
+        private void accept(GameRecommendationChunk chunk) {
+            if (chunk.getReasoning() != null) {
+                reasoning.append(chunk.getReasoning());
+            } else if (chunk.getRecommendation() != null) {
+                publishReasoning();
+                publish(support.buildItems(null, List.of(chunk.getRecommendation())));
+            } else if (chunk.getResponse() != null) {
+                publishReasoning();
+            }
+        }
+
+        private void publishReasoning() {
+            if (!reasoningPublished) {
+                reasoningPublished = true;
+                publish(support.buildItems(reasoning.toString(), List.of()));
+            }
+        }
+
+        private void publish(List<MessageItemDto> items) {
+            items.forEach(context.getProgress()::item);
+        }
+    }
+
     /**
      * При дубле кладёт сохранённое ASSISTANT-сообщение в контекст и помечает,
      * что persist-шаг пропускать (через {@code assistantMessageId}).
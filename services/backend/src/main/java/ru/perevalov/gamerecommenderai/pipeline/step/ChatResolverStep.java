@@ -1,5 +1,6 @@
 package ru.perevalov.gamerecommenderai.pipeline.step;
 
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.core.Ordered;
@@ -9,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.entity.ChatMessage;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
 import ru.perevalov.gamerecommenderai.service.ChatMessageService;
@@ -55,6 +57,16 @@ public class ChatResolverStep implements PipelineStep, Ordered {
         return PipelineStepOrder.CHAT_RESOLVER;
     }
 
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.REQUEST_CONTEXT);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.CHAT);
+    }
+
     /**
      * Помечает запрос как дубликат и переносит найденный chatId в контекст.
      *
@@ -1,5 +1,6 @@
 package ru.perevalov.gamerecommenderai.pipeline.step;
 
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.core.Ordered;
@@ -12,6 +13,7 @@ import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineSupport;
@@ -79,6 +81,11 @@ public class ContextResolverStep implements PipelineStep, Ordered {
         return PipelineStepOrder.CONTEXT_RESOLVER;
     }
 
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.REQUEST_CONTEXT);
+    }
+
     /**
      * Определяет итоговый clientRequestId с приоритетом:
      * request body -> заголовок {@code X-Client-Request-Id} -> сгенерированный UUID.
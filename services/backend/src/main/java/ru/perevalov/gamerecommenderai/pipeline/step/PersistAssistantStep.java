@@ -1,6 +1,7 @@
 package ru.perevalov.gamerecommenderai.pipeline.step;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,7 @@ import ru.perevalov.gamerecommenderai.message.dto.MessageCardsPayloadDto;
 import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
 import ru.perevalov.gamerecommenderai.message.dto.MessageReplyPayloadDto;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineSupport;
@@ -77,4 +79,14 @@ public class PersistAssistantStep implements PipelineStep, Ordered {
     public int getOrder() {
         return PipelineStepOrder.PERSIST_ASSISTANT;
     }
+
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.CHAT, PipelineSlot.AI_RESPONSE);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.ASSISTANT_MESSAGE);
+    }
 }
@@ -1,11 +1,14 @@
 package ru.perevalov.gamerecommenderai.pipeline.step;
 
+import java.util.Set;
+
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
 import ru.perevalov.gamerecommenderai.service.ChatMessageService;
@@ -50,4 +53,14 @@ public class PersistUserMessageStep implements PipelineStep, Ordered {
     public int getOrder() {
         return PipelineStepOrder.PERSIST_USER_MESSAGE;
     }
+
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.REQUEST_CONTEXT, PipelineSlot.CHAT);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.USER_MESSAGE);
+    }
 }
@@ -0,0 +1,55 @@
+package ru.perevalov.gamerecommenderai.pipeline.step;
+
+import java.util.Set;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
+import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
+
+/**
+ * Шаг загрузки profile summary пользователя для AI-контекста.
+ *
+ * <p>Выполняется после определения чата, параллельно с записью сообщения пользователя: summary
+ * (чтение БД, а при его отсутствии — GetOwnedGames) не загружается для запросов к чужому чату и для
+ * повторов уже обработанного запроса, ответ на которые берётся из истории. Ошибки загрузки не прерывают
+ * pipeline: AI-запрос уходит с пустым summary.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProfileSummaryStep implements PipelineStep, Ordered {
+    private final GameRecommenderService gameRecommenderService;
+
+    @Override
+    public Mono<PipelineContext> handle(PipelineContext context) {
+        if (context.isDuplicate()) {
+            return Mono.just(context);
+        }
+        return gameRecommenderService.getProfileSummary(context.getRequest())
+                .map(profileSummary -> {
+                    context.setProfileSummary(profileSummary);
+                    return context;
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return PipelineStepOrder.PROFILE_SUMMARY;
+    }
+
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.REQUEST_CONTEXT, PipelineSlot.CHAT);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.PROFILE_SUMMARY);
+    }
+}
@@ -2,6 +2,7 @@ package ru.perevalov.gamerecommenderai.pipeline.step;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.core.Ordered;
@@ -18,6 +19,7 @@ import ru.perevalov.gamerecommenderai.entity.enums.MessageRole;
 import ru.perevalov.gamerecommenderai.mapper.ChatMapper;
 import ru.perevalov.gamerecommenderai.message.MessageMetaFactory;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStep;
 import ru.perevalov.gamerecommenderai.pipeline.PipelineStepOrder;
 
@@ -59,6 +61,17 @@ public class ResponseStep implements PipelineStep, Ordered {
         return PipelineStepOrder.RESPONSE;
     }
 
+    @Override
+    public Set<PipelineSlot> requires() {
+        return Set.of(PipelineSlot.CHAT, PipelineSlot.AI_RESPONSE,
+                PipelineSlot.ASSISTANT_MESSAGE, PipelineSlot.CHAT_ACTIVITY);
+    }
+
+    @Override
+    public Set<PipelineSlot> produces() {
+        return Set.of(PipelineSlot.PROCEED_RESPONSE);
+    }
+
     private List<ChatMessageDto> buildMessages(PipelineContext context) {
         if (context.getErrorMessage() != null) {
             return List.of(buildErrorMessage(context));
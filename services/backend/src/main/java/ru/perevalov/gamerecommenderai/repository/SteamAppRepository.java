@@ -36,4 +36,11 @@ public interface SteamAppRepository extends ReactiveCrudRepository<SteamAppEntit
     Flux<SteamAppEntity> searchByNameLike(@Param("pattern") String pattern,
                                           @Param("query") String query,
                                           @Param("limit") int limit);
+
+    /**
+     * Игры с известными жанрами, отсортированные по appid — источник для
+     * {@link ru.perevalov.gamerecommenderai.service.SteamAppGenreIndex}.
+     */
+    @Query("SELECT * FROM game_recommender.steam_apps WHERE genre_mask IS NOT NULL ORDER BY appid")
+    Flux<SteamAppEntity> findAllWithGenreMask();
 }
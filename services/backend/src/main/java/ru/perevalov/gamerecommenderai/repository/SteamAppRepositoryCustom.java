@@ -2,10 +2,20 @@ package ru.perevalov.gamerecommenderai.repository;
 
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
 
 import java.util.List;
 
 public interface SteamAppRepositoryCustom {
     Mono<Void> batchInsert(List<SteamAppEntity> entities);
 
+    /**
+     * Регистрирует жанры в {@code steam_genres} (новым жанрам выдаётся следующий свободный бит)
+     * и пересчитывает {@code genre_mask} игры.
+     *
+     * @param appId  appid игры
+     * @param genres жанры из Steam Store API; {@code bit} не используется
+     */
+    Mono<Void> updateGenres(Long appId, List<SteamGenreEntity> genres);
+
 }
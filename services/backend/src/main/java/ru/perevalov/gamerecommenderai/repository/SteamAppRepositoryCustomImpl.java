@@ -8,6 +8,7 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 
@@ -18,6 +19,15 @@ import java.util.List;
 @Transactional
 @RequiredArgsConstructor
 public class SteamAppRepositoryCustomImpl implements SteamAppRepositoryCustom {
+    /**
+     * Разрядов в {@code steam_apps.genre_mask} (BIGINT).
+     */
+    static final int MAX_GENRES = 64;
+    /**
+     * Ключ advisory-блокировки выдачи разрядов жанров.
+     */
+    private static final long GENRE_BITS_LOCK_KEY = 0x73746d67656e7265L;
+
     private final DatabaseClient databaseClient;
 
     @Override
@@ -48,4 +58,69 @@ public class SteamAppRepositoryCustomImpl implements SteamAppRepositoryCustom {
                     throw new GameRecommenderException(ErrorType.DATABASE_BATCH_INSERT_ERROR, exception);
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Сохраняет жанры приложения и пересчитывает его {@code genre_mask}.
+     * <p>
+     * Новый жанр получает следующий свободный разряд {@code MAX(bit) + 1}. Выбор разряда и вставка выполняются
+     * под транзакционной advisory-блокировкой: иначе два параллельных запроса с новыми жанрами выбрали бы один
+     * и тот же разряд. Уже известные жанры обновляются без блокировки. Если все {@value #MAX_GENRES} разрядов
+     * заняты, возвращается {@link ErrorType#STEAM_GENRES_LIMIT_EXCEEDED}, а маска приложения не меняется.
+     */
+    @Override
+    public Mono<Void> updateGenres(Long appId, List<SteamGenreEntity> genres) {
+        String updateGenreSql = """
+                    UPDATE game_recommender.steam_genres SET description = $2 WHERE steam_genre_id = $1
+                """;
+        String lockGenreBitsSql = "SELECT pg_advisory_xact_lock($1)";
+        String insertGenreSql = """
+                    INSERT INTO game_recommender.steam_genres (bit, steam_genre_id, description)
+                    SELECT COALESCE(MAX(bit) + 1, 0), $1, $2 FROM game_recommender.steam_genres
+                    HAVING COALESCE(MAX(bit) + 1, 0) < $3
+                    ON CONFLICT (steam_genre_id) DO UPDATE SET description = EXCLUDED.description
+                """;
+        String updateMaskSql = """
+                    UPDATE game_recommender.steam_apps
+                    SET genre_mask = (SELECT COALESCE(bit_or(1::BIGINT << bit), 0)
+                                      FROM game_recommender.steam_genres
+                                      WHERE steam_genre_id = ANY($2))
+                    WHERE appid = $1
+                """;
+
+        String[] genreIds = genres.stream().map(SteamGenreEntity::getSteamGenreId).toArray(String[]::new);
+
+        return Flux.fromIterable(genres)
+                .concatMap(genre -> databaseClient.sql(updateGenreSql)
+                        .bind(0, genre.getSteamGenreId())
+                        .bind(1, genre.getDescription())
+                        .fetch()
+                        .rowsUpdated()
+                        .filter(updated -> updated == 0)
+                        .flatMap(missing -> databaseClient.sql(lockGenreBitsSql)
+                                .bind(0, GENRE_BITS_LOCK_KEY)
+                                .fetch()
+                                .rowsUpdated()
+                                .then(databaseClient.sql(insertGenreSql)
+                                        .bind(0, genre.getSteamGenreId())
+                                        .bind(1, genre.getDescription())
+                                        .bind(2, MAX_GENRES)
+                                        .fetch()
+                                        .rowsUpdated()))
+                        .filter(inserted -> inserted == 0)
+                        .flatMap(full -> {
+                            log.error("No free genre bit for genre {} of app {}", genre.getSteamGenreId(), appId);
+                            return Mono.error(new GameRecommenderException(
+                                    ErrorType.STEAM_GENRES_LIMIT_EXCEEDED, MAX_GENRES, genre.getSteamGenreId()));
+                        }))
+                .then(databaseClient.sql(updateMaskSql)
+                        .bind(0, appId)
+                        .bind(1, genreIds)
+                        .fetch()
+                        .rowsUpdated())
+                .then()
+                .onErrorMap(exception -> !(exception instanceof GameRecommenderException), exception -> {
+                    log.error("Error updating genres of app {}", appId, exception);
+                    return new GameRecommenderException(ErrorType.DATABASE_GENRES_UPDATE_ERROR, appId);
+                });
+    }
+}
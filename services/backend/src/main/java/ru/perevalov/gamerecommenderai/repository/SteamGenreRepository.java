@@ -0,0 +1,9 @@
+package ru.perevalov.gamerecommenderai.repository;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
+
+@Repository
+public interface SteamGenreRepository extends ReactiveCrudRepository<SteamGenreEntity, Short> {
+}
@@ -0,0 +1,45 @@
+package ru.perevalov.gamerecommenderai.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.CoOwnedGame;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Нормализованная библиотека пользователей {@code user_owned_games}.
+ */
+public interface UserOwnedGamesRepository {
+
+    /**
+     * Приводит библиотеку пользователя в таблице к переданному списку игр.
+     * <p>
+     * Разница считается в БД: новые и изменившиеся игры записываются одним
+     * {@code INSERT ... SELECT FROM unnest(...)}, строки без изменений не трогаются,
+     * исчезнувшие из библиотеки игры удаляются одним {@code DELETE}.
+     *
+     * @param userId id пользователя
+     * @param games  игры из свежего снапшота
+     * @return {@link Mono}, завершающийся после записи
+     */
+    Mono<Void> replaceOwnedGames(UUID userId, List<OwnedGamesSnapshot.Game> games);
+
+    /**
+     * Считает владельцев игры среди зарегистрированных пользователей.
+     *
+     * @param appId appid игры
+     * @return количество владельцев
+     */
+    Mono<Long> countOwners(long appId);
+
+    /**
+     * Возвращает игры, которые чаще всего есть у владельцев {@code appId}.
+     *
+     * @param appId appid игры
+     * @param limit максимальное количество игр
+     * @return игры по убыванию числа общих владельцев
+     */
+    Flux<CoOwnedGame> findCoOwned(long appId, int limit);
+}
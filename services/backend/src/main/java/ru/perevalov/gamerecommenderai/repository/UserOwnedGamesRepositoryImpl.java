@@ -0,0 +1,117 @@
+package ru.perevalov.gamerecommenderai.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.CoOwnedGame;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@Transactional
+@RequiredArgsConstructor
+public class UserOwnedGamesRepositoryImpl implements UserOwnedGamesRepository {
+
+    private final DatabaseClient databaseClient;
+
+    private static final String UPSERT_CHANGED_GAMES = """
+            INSERT INTO game_recommender.user_owned_games AS owned
+                (user_id, appid, playtime_forever, playtime_2weeks, last_played)
+            SELECT :userId, game.appid, game.playtime_forever, game.playtime_2weeks, game.last_played
+            FROM unnest(:appIds, :playtimeForever, :playtime2weeks, :lastPlayed)
+                AS game (appid, playtime_forever, playtime_2weeks, last_played)
+            ON CONFLICT (user_id, appid) DO UPDATE
+                SET playtime_forever = EXCLUDED.playtime_forever,
+                    playtime_2weeks  = EXCLUDED.playtime_2weeks,
+                    last_played      = EXCLUDED.last_played
+                WHERE (owned.playtime_forever, owned.playtime_2weeks, owned.last_played)
+                      IS DISTINCT FROM (EXCLUDED.playtime_forever, EXCLUDED.playtime_2weeks, EXCLUDED.last_played)
+            """;
+
+    private static final String DELETE_REMOVED_GAMES = """
+            DELETE FROM game_recommender.user_owned_games
+            WHERE user_id = :userId AND appid <> ALL(:appIds)
+            """;
+
+    private static final String COUNT_OWNERS = """
+            SELECT count(*) AS owners FROM game_recommender.user_owned_games WHERE appid = :appId
+            """;
+
+    private static final String CO_OWNED_GAMES = """
+            SELECT other.appid, count(*) AS owners
+            FROM game_recommender.user_owned_games owner
+            JOIN game_recommender.user_owned_games other
+                ON other.user_id = owner.user_id AND other.appid <> owner.appid
+            WHERE owner.appid = :appId
+            GROUP BY other.appid
+            ORDER BY owners DESC, other.appid
+            LIMIT :limit
+            """;
+
+    @Override
+    public Mono<Void> replaceOwnedGames(UUID userId, List<OwnedGamesSnapshot.Game> games) {
+        // Дубликаты appid сломали бы ON CONFLICT, порядок по appid одинаков для всех транзакций.
+        List<OwnedGamesSnapshot.Game> sorted = games.stream()
+                .filter(game -> game.getAppId() != null)
+                .sorted(Comparator.comparingLong(OwnedGamesSnapshot.Game::getAppId))
+                .toList();
+        Long[] appIds = new Long[sorted.size()];
+        Integer[] playtimeForever = new Integer[sorted.size()];
+        Integer[] playtime2weeks = new Integer[sorted.size()];
+        Integer[] lastPlayed = new Integer[sorted.size()];
+        int size = 0;
+        for (OwnedGamesSnapshot.Game game : sorted) {
+            if (size > 0 && appIds[size - 1].equals(game.getAppId())) {
+                continue;
+            }
+            appIds[size] = game.getAppId();
+            playtimeForever[size] = zeroIfNull(game.getPlaytimeForever());
+            playtime2weeks[size] = zeroIfNull(game.getPlaytime2weeks());
+            lastPlayed[size++] = game.getRtimeLastPlayed();
+        }
+        Long[] boundAppIds = Arrays.copyOf(appIds, size);
+
+        Mono<Long> upsert = databaseClient.sql(UPSERT_CHANGED_GAMES)
+                .bind("userId", userId)
+                .bind("appIds", boundAppIds)
+                .bind("playtimeForever", Arrays.copyOf(playtimeForever, size))
+                .bind("playtime2weeks", Arrays.copyOf(playtime2weeks, size))
+                .bind("lastPlayed", Arrays.copyOf(lastPlayed, size))
+                .fetch()
+                .rowsUpdated();
+        Mono<Long> delete = databaseClient.sql(DELETE_REMOVED_GAMES)
+                .bind("userId", userId)
+                .bind("appIds", boundAppIds)
+                .fetch()
+                .rowsUpdated();
+        return upsert.then(delete).then();
+    }
+
+    @Override
+    public Mono<Long> countOwners(long appId) {
+        return databaseClient.sql(COUNT_OWNERS)
+                .bind("appId", appId)
+                .map(row -> row.get("owners", Long.class))
+                .one();
+    }
+
+    @Override
+    public Flux<CoOwnedGame> findCoOwned(long appId, int limit) {
+        return databaseClient.sql(CO_OWNED_GAMES)
+                .bind("appId", appId)
+                .bind("limit", limit)
+                .map(row -> new CoOwnedGame(row.get("appid", Long.class), row.get("owners", Long.class)))
+                .all();
+    }
+
+    private static int zeroIfNull(Integer value) {
+        return value != null ? value : 0;
+    }
+}
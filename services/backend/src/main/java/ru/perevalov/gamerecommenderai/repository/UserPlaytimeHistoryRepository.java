@@ -0,0 +1,50 @@
+package ru.perevalov.gamerecommenderai.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.entity.UserPlaytimeHistory;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface UserPlaytimeHistoryRepository extends ReactiveCrudRepository<UserPlaytimeHistory, UUID> {
+
+    /**
+     * Записи пользователя, период которых закончился позже {@code since}.
+     * Использует индекс {@code idx_user_playtime_history_user_period_end}.
+     */
+    @Query("""
+            SELECT * FROM game_recommender.user_playtime_history
+            WHERE user_id = :userId AND period_end > :since
+            """)
+    Flux<UserPlaytimeHistory> findByUserIdAndPeriodEndAfter(@Param("userId") UUID userId,
+                                                            @Param("since") LocalDateTime since);
+
+    /**
+     * Несжатые записи, период которых закончился раньше {@code before}, сгруппированные
+     * по пользователю и упорядоченные по времени — вход задачи компакции.
+     */
+    @Query("""
+            SELECT * FROM game_recommender.user_playtime_history
+            WHERE compacted = FALSE AND period_end < :before
+            ORDER BY user_id, period_end
+            """)
+    Flux<UserPlaytimeHistory> findUncompactedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Удаляет записи по id одним запросом — строки, слитые компакцией в запись за сутки.
+     */
+    @Modifying
+    @Query("DELETE FROM game_recommender.user_playtime_history WHERE id = ANY(:ids)")
+    Mono<Long> deleteByIdIn(@Param("ids") UUID[] ids);
+
+    @Modifying
+    @Query("DELETE FROM game_recommender.user_playtime_history WHERE period_end < :before")
+    Mono<Long> deleteByPeriodEndBefore(@Param("before") LocalDateTime before);
+}
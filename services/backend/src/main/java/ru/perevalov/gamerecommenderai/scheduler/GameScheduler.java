@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.service.GameService;
+import ru.perevalov.gamerecommenderai.service.SteamAppGenreIndex;
 
 import java.time.LocalDateTime;
 
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class GameScheduler {
     private final GameService gameService;
+    private final SteamAppGenreIndex steamAppGenreIndex;
 
     @Scheduled(cron = "${app.scheduler.update-steam-apps.cron}")
     public void updateGames() {
@@ -27,4 +29,13 @@ public class GameScheduler {
             throw new GameRecommenderException(ErrorType.SCHEDULER_UPDATE_EXECUTION_ERROR);
         }
     }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.scheduler.refresh-genre-index.interval}")
+    public void refreshGenreIndex() {
+        try {
+            steamAppGenreIndex.refresh().block();
+        } catch (Exception e) {
+            log.error("Genre index refresh failed, keeping the previous snapshot", e);
+        }
+    }
 }
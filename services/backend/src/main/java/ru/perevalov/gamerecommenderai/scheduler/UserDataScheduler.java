@@ -4,9 +4,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
+import ru.perevalov.gamerecommenderai.config.UserSyncQueueProps;
+import ru.perevalov.gamerecommenderai.constant.SteamApiConstant;
+import ru.perevalov.gamerecommenderai.entity.User;
 import ru.perevalov.gamerecommenderai.security.model.UserRole;
 import ru.perevalov.gamerecommenderai.repository.UserRepository;
+import ru.perevalov.gamerecommenderai.service.PlaytimeHistoryService;
 import ru.perevalov.gamerecommenderai.service.SteamUserDataService;
+import ru.perevalov.gamerecommenderai.service.UserSyncQueue;
 
 import java.time.LocalDateTime;
 
@@ -17,20 +25,35 @@ public class UserDataScheduler {
 
     private final UserRepository userRepository;
     private final SteamUserDataService steamUserDataService;
+    private final UserSyncQueue userSyncQueue;
+    private final UserSyncQueueProps userSyncQueueProps;
+    private final PlaytimeHistoryService playtimeHistoryService;
 
     /**
      * Periodically refresh Steam profile and game stats for users already linked to Steam.
      * <p>
      * Runs in background and is meant to keep DB + cache in sync with Steam changes.
+     * Profiles are refreshed first with enough concurrency to fill GetPlayerSummaries batches
+     * (up to 100 steamids per Steam request), then owned games are refreshed one user per request
+     * through {@link UserSyncQueue} with scheduled priority, so post-login syncs overtake them.
+     * No more jobs are submitted than the queue runs at once, so the refresh never floods the queue.
+     * Steam calls run in the background rate-limit lane, so they wait for tokens instead of
+     * competing with interactive requests for the reserved share of the bucket.
      */
     @Scheduled(cron = "${app.scheduler.update-user-data.cron}")
     public void refreshUserData() {
         log.info("Scheduled user data refresh triggered at {}", LocalDateTime.now());
         try {
-            userRepository.findAll()
+            Flux<User> users = userRepository.findAll()
                     .filter(user -> user.getRole() == UserRole.USER && user.getSteamId() != null)
-                    // Keep concurrency low because Steam API has strict rate limits.
-                    .flatMap(steamUserDataService::syncUserData, 2)
+                    .cache();
+
+            users.flatMap(steamUserDataService::refreshSteamProfile, SteamApiConstant.PLAYER_SUMMARIES_MAX_STEAM_IDS)
+                    .then()
+                    .contextWrite(SteamRequestLane.background())
+                    .thenMany(users.flatMap(user -> Mono.defer(
+                                    () -> userSyncQueue.submit(user, UserSyncQueue.Priority.SCHEDULED)),
+                            userSyncQueueProps.concurrency()))
                     .then()
                     .block();
             log.info("Scheduled user data refresh completed successfully");
@@ -38,5 +61,17 @@ public class UserDataScheduler {
             log.error("Scheduled user data refresh failed due to an error", e);
         }
     }
-}
 
+    /**
+     * Applies retention and daily compaction to the playtime history journal.
+     */
+    @Scheduled(cron = "${app.scheduler.compact-playtime-history.cron}")
+    public void compactPlaytimeHistory() {
+        log.info("Scheduled playtime history compaction triggered at {}", LocalDateTime.now());
+        try {
+            playtimeHistoryService.compact(LocalDateTime.now()).block();
+        } catch (Exception e) {
+            log.error("Scheduled playtime history compaction failed due to an error", e);
+        }
+    }
+}
@@ -11,7 +11,6 @@ import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.perevalov.gamerecommenderai.dto.AccessTokenResponse;
 import ru.perevalov.gamerecommenderai.dto.OpenIdResponse;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
@@ -19,8 +18,8 @@ import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.security.CookieService;
 import ru.perevalov.gamerecommenderai.security.TokenService;
 import ru.perevalov.gamerecommenderai.service.ChatsService;
-import ru.perevalov.gamerecommenderai.service.SteamUserDataService;
 import ru.perevalov.gamerecommenderai.service.UserService;
+import ru.perevalov.gamerecommenderai.service.UserSyncQueue;
 
 /**
  * Handler ответа OpenID при аутентификации через Steam.
@@ -33,7 +32,7 @@ public class SteamOpenIdResponseHandler {
     private final UserService userService;
     private final TokenService tokenService;
     private final CookieService cookieService;
-    private final SteamUserDataService steamUserDataService;
+    private final UserSyncQueue userSyncQueue;
     private final ChatsService chatsService;
     private final MeterRegistry meterRegistry;
 
@@ -65,14 +64,7 @@ public class SteamOpenIdResponseHandler {
                     return tokenService.linkSteamIdToToken(refreshToken, steamId, exchange)
                             .flatMap(tokens -> bindGuestChats(sessionId, user.getId())
                                     .thenReturn(tokens))
-                            .doOnNext(tokens ->
-                                    Mono.defer(() -> steamUserDataService.syncUserData(user))
-                                            .subscribeOn(Schedulers.boundedElastic())
-                                            .subscribe(
-                                                    unused -> { },
-                                                    err -> log.error("User data sync failed for user={}", user.getId(), err)
-                                            )
-                            );
+                            .doOnNext(tokens -> userSyncQueue.submit(user, UserSyncQueue.Priority.LOGIN));
                 })
                 .doOnSuccess(resp -> meterRegistry.counter("steam_auth_success").increment())
                 .doOnError(err -> meterRegistry
@@ -2,6 +2,7 @@ package ru.perevalov.gamerecommenderai.service;
 
 
 import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,7 +20,7 @@ public class AiContextBuilder {
     private List<String> excludeGenres;
     private int maxResults;
     private final int defaultMaxResults;
-    private String profileSummary;
+    private ProfileSummaryPayload profileSummary;
 
     public AiContextBuilder(String defaultLanguage, int defaultMaxResults) {
         this.defaultLanguage = defaultLanguage;
@@ -28,7 +29,7 @@ public class AiContextBuilder {
 
     public AiContextBuilder userMessage(String val) { this.userMessage = val; return this; }
     public AiContextBuilder selectedTags(String[] val) { this.selectedTags = val; return this; }
-    public AiContextBuilder profileSummary(String val) {this.profileSummary = val; return this;}
+    public AiContextBuilder profileSummary(ProfileSummaryPayload val) {this.profileSummary = val; return this;}
     public AiContextBuilder chatId(String val) { this.chatId = val; return this; }
     public AiContextBuilder agentId(String val) { this.agentId = val; return this; }
     public AiContextBuilder reqId(String val) { this.requestId = val; return this; }
@@ -50,7 +51,8 @@ public class AiContextBuilder {
         req.setUserMessage(this.userMessage != null ? this.userMessage : "");
         req.setSelectedTags(this.selectedTags != null ? this.selectedTags : new String[0]);
 
-        req.setProfileSummary(this.profileSummary != null ? profileSummary : "");
+        req.setProfileSummary(this.profileSummary != null && profileSummary.json() != null ? profileSummary.json() : "");
+        req.setStructuredProfileSummary(this.profileSummary != null ? profileSummary.proto() : null);
 
         req.setRequestId(this.requestId != null ? this.requestId : UUID.randomUUID().toString());
         req.setCorrelationId(this.correlationId != null ? this.correlationId : UUID.randomUUID().toString());
@@ -0,0 +1,217 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Считает любимый жанр пользователя по библиотеке игр и индексу жанров {@link SteamAppGenreIndex}.
+ * <p>
+ * Для каждой игры маска жанров берётся из индекса, разряды маски обходятся через
+ * {@link Long#numberOfTrailingZeros(long)}, а минуты и число игр копятся в {@code int[]} по номеру разряда.
+ * Векторы сохраняются в {@code user_game_stats} вместе с версией жанров библиотеки
+ * ({@link SteamAppGenreIndex.Snapshot#versionOf(long[])}): она учитывает таблицу жанров и маски только
+ * игр этой библиотеки, поэтому жанры, появившиеся у чужих игр, её не меняют. Если при следующей
+ * синхронизации набор игр и эта версия не изменились, векторы обновляются только по дельтам
+ * времени игры, без пересчёта счётчиков.
+ * <p>
+ * Жанры известны только для игр, по которым уже вызывался {@code GetSteamAppDetails} (их запрашивает
+ * AI-инструмент), а игры без жанров в векторы не попадают. Поэтому любимый жанр считается по небольшой
+ * и смещённой в сторону популярных у AI игр части библиотеки, а не по всей библиотеке.
+ * <p>
+ * Любимый жанр — жанр с наибольшим временем игры; при равенстве — с большим числом игр,
+ * затем с меньшим номером разряда.
+ */
+@Component
+@RequiredArgsConstructor
+public class FavoriteGenreAggregator {
+
+    private static final int MINUTES_IN_HOUR = 60;
+
+    private final SteamAppGenreIndex genreIndex;
+
+    /**
+     * Заполняет векторы по жанрам и поля {@code favoriteGenre*} в {@code stats}.
+     *
+     * @param stats    новые stats с заполненным {@code ownedGamesSnapshot}
+     * @param previous ранее сохранённые stats того же пользователя, ещё со старым снапшотом;
+     *                 {@code null}, если их нет
+     */
+    public void aggregate(UserGameStats stats, UserGameStats previous) {
+        SteamAppGenreIndex.Snapshot index = genreIndex.current();
+        int genreCount = index.genreCount();
+        if (genreCount == 0) {
+            clear(stats);
+            return;
+        }
+
+        List<Game> games = getNotNullGameList(stats.getOwnedGamesSnapshot());
+        int[] minutes = null;
+        int[] counts = null;
+        if (hasReusableVectors(previous, index, games)) {
+            minutes = toInts(previous.getGenrePlaytimeMinutes());
+            counts = toInts(previous.getGenreGameCounts());
+            if (!applyPlaytimeDeltas(index, games, getNotNullGameList(previous.getOwnedGamesSnapshot()), minutes)) {
+                minutes = null;
+            }
+        }
+        if (minutes == null) {
+            minutes = new int[genreCount];
+            counts = new int[genreCount];
+            for (Game game : games) {
+                if (game.getAppId() != null) {
+                    addToGenres(index.maskOf(game.getAppId()), playtime(game), minutes, counts);
+                }
+            }
+        }
+
+        stats.setGenrePlaytimeMinutes(toIntegers(minutes));
+        stats.setGenreGameCounts(toIntegers(counts));
+        stats.setGenreIndexVersion(index.versionOf(appIds(games)));
+
+        int favorite = favorite(minutes, counts);
+        if (favorite < 0 || index.genreName(favorite) == null) {
+            stats.setFavoriteGenre(null);
+            stats.setFavoriteGenreCount(null);
+            stats.setFavoriteGenreHours(null);
+            return;
+        }
+        stats.setFavoriteGenre(index.genreName(favorite));
+        stats.setFavoriteGenreCount(counts[favorite]);
+        stats.setFavoriteGenreHours(minutes[favorite] / MINUTES_IN_HOUR);
+    }
+
+    /**
+     * Версия сравнивается по appid новой библиотеки: дельты применяются, только если набор игр тот же,
+     * а для того же набора версия совпадает, лишь когда не изменились маски этих игр.
+     */
+    private boolean hasReusableVectors(UserGameStats previous, SteamAppGenreIndex.Snapshot index, List<Game> games) {
+        return previous != null
+                && previous.getGenreIndexVersion() != null
+                && previous.getGenreIndexVersion() == index.versionOf(appIds(games))
+                && previous.getGenrePlaytimeMinutes() != null
+                && previous.getGenreGameCounts() != null
+                && previous.getGenrePlaytimeMinutes().length == index.genreCount()
+                && previous.getGenreGameCounts().length == index.genreCount();
+    }
+
+    /**
+     * Добавляет в {@code minutes} разницу времени игры между снапшотами.
+     *
+     * @return {@code false}, если набор игр изменился и нужен полный пересчёт
+     */
+    private boolean applyPlaytimeDeltas(SteamAppGenreIndex.Snapshot index,
+                                        List<Game> games,
+                                        List<Game> previousGames,
+                                        int[] minutes) {
+        if (games.size() != previousGames.size()) {
+            return false;
+        }
+
+        Integer[] order = new Integer[previousGames.size()];
+        for (int i = 0; i < order.length; i++) {
+            if (previousGames.get(i).getAppId() == null) {
+                return false;
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> previousGames.get(i).getAppId()));
+
+        long[] previousAppIds = new long[order.length];
+        int[] previousPlaytime = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Game game = previousGames.get(order[i]);
+            previousAppIds[i] = game.getAppId();
+            previousPlaytime[i] = playtime(game);
+        }
+
+        for (Game game : games) {
+            if (game.getAppId() == null) {
+                return false;
+            }
+            int previousIndex = Arrays.binarySearch(previousAppIds, game.getAppId());
+            if (previousIndex < 0) {
+                return false;
+            }
+            int delta = playtime(game) - previousPlaytime[previousIndex];
+            if (delta != 0) {
+                addToGenres(index.maskOf(game.getAppId()), delta, minutes, null);
+            }
+        }
+        return true;
+    }
+
+    private long[] appIds(List<Game> games) {
+        return games.stream()
+                .map(Game::getAppId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private void addToGenres(long mask, int playtime, int[] minutes, int[] counts) {
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            minutes[bit] += playtime;
+            if (counts != null) {
+                counts[bit]++;
+            }
+            mask &= mask - 1;
+        }
+    }
+
+    private int favorite(int[] minutes, int[] counts) {
+        int favorite = -1;
+        for (int bit = 0; bit < minutes.length; bit++) {
+            if (counts[bit] == 0) {
+                continue;
+            }
+            if (favorite < 0
+                    || minutes[bit] > minutes[favorite]
+                    || minutes[bit] == minutes[favorite] && counts[bit] > counts[favorite]) {
+                favorite = bit;
+            }
+        }
+        return favorite;
+    }
+
+    private void clear(UserGameStats stats) {
+        stats.setGenrePlaytimeMinutes(null);
+        stats.setGenreGameCounts(null);
+        stats.setGenreIndexVersion(null);
+        stats.setFavoriteGenre(null);
+        stats.setFavoriteGenreCount(null);
+        stats.setFavoriteGenreHours(null);
+    }
+
+    private int playtime(Game game) {
+        return game.getPlaytimeForever() != null ? game.getPlaytimeForever() : 0;
+    }
+
+    private int[] toInts(Integer[] values) {
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] != null ? values[i] : 0;
+        }
+        return result;
+    }
+
+    private Integer[] toIntegers(int[] values) {
+        return Arrays.stream(values).boxed().toArray(Integer[]::new);
+    }
+
+    private List<Game> getNotNullGameList(OwnedGamesSnapshot snapshot) {
+        if (snapshot == null || snapshot.getResponse() == null || snapshot.getResponse().getGames() == null) {
+            return Collections.emptyList();
+        }
+        return snapshot.getResponse().getGames();
+    }
+}
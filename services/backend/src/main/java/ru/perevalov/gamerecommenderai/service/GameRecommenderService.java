@@ -1,24 +1,29 @@
 package ru.perevalov.gamerecommenderai.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.client.GameRecommenderGrpcClient;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamApiRateLimiter;
 import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationChunk;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
 import ru.perevalov.gamerecommenderai.entity.UserGameStats;
-import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.filter.RequestIdWebFilter;
 import ru.perevalov.gamerecommenderai.grpc.GameRecommendation;
 import ru.perevalov.gamerecommenderai.grpc.RecommendationResponse;
-import ru.perevalov.gamerecommenderai.mapper.OwnedGamesSnapshotMapper;
 import ru.perevalov.gamerecommenderai.repository.UserGameStatsRepository;
 import ru.perevalov.gamerecommenderai.security.UserPrincipalUtil;
 import ru.perevalov.gamerecommenderai.security.model.UserRole;
@@ -32,12 +37,15 @@ import ru.perevalov.gamerecommenderai.security.model.UserRole;
 public class GameRecommenderService {
 
     private final GameRecommenderGrpcClient grpcClient;
-    private final SteamService steamClient;
     private final UserPrincipalUtil userPrincipalUtil;
     private final AiContextBuilderFactory builderFactory;
-    private final ProfileSummaryBuilder profileSummaryBuilder;
+    private final ProfileSummaryService profileSummaryService;
     private final UserGameStatsRepository userGameStatsRepository;
-    private final OwnedGamesSnapshotMapper ownedGamesSnapshotMapper;
+    private final SteamUserDataService steamUserDataService;
+    private final RecommendationCache recommendationCache;
+
+    @Value("${app.recommender.steam-fallback.rate-limit-max-wait:PT1S}")
+    private Duration steamFallbackRateLimitMaxWait;
 
     /**
      * Получает рекомендации с учетом контекста чата.
@@ -50,9 +58,100 @@ public class GameRecommenderService {
             GameRecommendationRequest request,
             String chatId
     ) {
-        return buildAiContextRequest(request, chatId)
-                .flatMap(aiContextRequest -> grpcClient.getGameRecommendations(Mono.just(aiContextRequest)))
-                .flatMap(this::processGrpcResponse);
+        return getProfileSummary(request)
+                .flatMap(profileSummary -> getGameRecommendationsWithContext(request, chatId, profileSummary));
+    }
+
+    /**
+     * Получает рекомендации с учетом контекста чата и заранее загруженного profile summary.
+     * Повторяющиеся запросы обслуживаются из {@link RecommendationCache}.
+     *
+     * @param request входной запрос на рекомендации
+     * @param chatId идентификатор чата для передачи в AI-контекст
+     * @param profileSummary profile summary из {@link #getProfileSummary}
+     * @return ответ с рекомендациями
+     */
+    public Mono<GameRecommendationResponse> getGameRecommendationsWithContext(
+            GameRecommendationRequest request,
+            String chatId,
+            ProfileSummaryPayload profileSummary
+    ) {
+        return buildAiContextRequest(request, chatId, profileSummary)
+                .flatMap(aiContextRequest -> recommendationCache.get(aiContextRequest, () ->
+                        grpcClient.getGameRecommendations(Mono.just(aiContextRequest))
+                                .flatMap(this::processGrpcResponse)));
+    }
+
+    /**
+     * Получает рекомендации потоком через {@code StreamRecommendGames}: части ответа отдаются
+     * по мере поступления от AI сервиса, последней — собранный {@link GameRecommendationResponse}.
+     * При попадании в {@link RecommendationCache} все части отдаются сразу.
+     *
+     * @param request входной запрос на рекомендации
+     * @param chatId идентификатор чата для передачи в AI-контекст
+     * @param profileSummary profile summary из {@link #getProfileSummary}
+     * @return поток частей ответа; ошибка {@link ErrorType#GRPC_AI_ERROR}, если AI сервис
+     * сообщил о неудаче или поток оборвался без итогового summary
+     */
+    public Flux<GameRecommendationChunk> streamGameRecommendationsWithContext(
+            GameRecommendationRequest request,
+            String chatId,
+            ProfileSummaryPayload profileSummary
+    ) {
+        return buildAiContextRequest(request, chatId, profileSummary)
+                .flatMapMany(aiContextRequest -> recommendationCache.stream(aiContextRequest, () -> Flux.defer(() -> {
+                    StringBuilder reasoning = new StringBuilder();
+                    List<ru.perevalov.gamerecommenderai.dto.GameRecommendation> recommendations = new ArrayList<>();
+                    AtomicBoolean summarized = new AtomicBoolean();
+
+                    return grpcClient.streamGameRecommendations(Mono.just(aiContextRequest))
+                            .<GameRecommendationChunk>handle((chunk, sink) -> {
+                                switch (chunk.getChunkCase()) {
+                                    case REASONING -> {
+                                        reasoning.append(chunk.getReasoning());
+                                        sink.next(GameRecommendationChunk.builder()
+                                                .reasoning(chunk.getReasoning())
+                                                .build());
+                                    }
+                                    case RECOMMENDATION -> {
+                                        var recommendation = mapGrpcToDto(chunk.getRecommendation());
+                                        recommendations.add(recommendation);
+                                        sink.next(GameRecommendationChunk.builder()
+                                                .recommendation(recommendation)
+                                                .build());
+                                    }
+                                    case SUMMARY -> {
+                                        summarized.set(true);
+                                        if (!chunk.getSummary().getSuccess()) {
+                                            sink.error(new GameRecommenderException(
+                                                    ErrorType.GRPC_AI_ERROR, chunk.getSummary().getMessage()));
+                                            return;
+                                        }
+                                        log.info("Received {} streamed recommendations from gRPC service",
+                                                recommendations.size());
+                                        sink.next(GameRecommendationChunk.builder()
+                                                .response(buildResponse(reasoning.toString(), recommendations))
+                                                .build());
+                                    }
+                                    case CHUNK_NOT_SET -> log.warn("Skipping empty recommendation chunk");
+                                }
+                            })
+                            .concatWith(Mono.defer(() -> summarized.get()
+                                    ? Mono.empty()
+                                    : Mono.error(new GameRecommenderException(
+                                            ErrorType.GRPC_AI_ERROR, "stream ended without summary"))));
+                })));
+    }
+
+    /**
+     * Загружает profile summary пользователя из запроса или security context.
+     *
+     * @param request входной запрос клиента
+     * @return profile summary; {@link ProfileSummaryPayload#EMPTY}, если summary недоступен
+     */
+    public Mono<ProfileSummaryPayload> getProfileSummary(GameRecommendationRequest request) {
+        return loadProfileSummary(request.getSteamId())
+                .defaultIfEmpty(ProfileSummaryPayload.EMPTY);
     }
 
     /**
@@ -70,46 +169,51 @@ public class GameRecommenderService {
      *
      * @param request входной запрос клиента
      * @param chatId идентификатор чата
+     * @param profileSummary profile summary
      * @return собранный AI-контекст
      */
-    private Mono<AiContextRequest> buildAiContextRequest(GameRecommendationRequest request, String chatId) {
-        return getProfileSummaryJson(request.getSteamId())
-                .defaultIfEmpty("")
-                .flatMap(profileSummary -> Mono.deferContextual(ctxView -> {
-                    // Серверный request id должен приходить из Reactor Context, если он там уже есть.
-                    String serverRequestId = ctxView.getOrDefault(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY, null);
+    private Mono<AiContextRequest> buildAiContextRequest(GameRecommendationRequest request,
+                                                         String chatId,
+                                                         ProfileSummaryPayload profileSummary) {
+        return Mono.deferContextual(ctxView -> {
+            // Серверный request id должен приходить из Reactor Context, если он там уже есть.
+            String serverRequestId = ctxView.getOrDefault(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY, null);
 
-                    return Mono.just(builderFactory.create()
-                            .userMessage(request.getContent())
-                            .selectedTags(request.getTags())
-                            .profileSummary(profileSummary)
-                            .reqId(serverRequestId)
-                            .corrId(serverRequestId)
-                            .language(null)
-                            .maxResults(0)
-                            .chatId(chatId)
-                            .agentId(null)
-                            .excludeGenres(null)
-                            .build());
-                }));
+            return Mono.just(builderFactory.create()
+                    .userMessage(request.getContent())
+                    .selectedTags(request.getTags())
+                    .profileSummary(profileSummary != null ? profileSummary : ProfileSummaryPayload.EMPTY)
+                    .reqId(serverRequestId)
+                    .corrId(serverRequestId)
+                    .language(null)
+                    .maxResults(0)
+                    .chatId(chatId)
+                    .agentId(null)
+                    .excludeGenres(null)
+                    .build());
+        });
     }
 
     /**
-     * Формирует JSON со структурированным summary библиотеки пользователя.
+     * Возвращает структурированный summary библиотеки пользователя.
+     * <p>
+     * Summary предрассчитывается при синхронизации пользователя, поэтому здесь он, как правило,
+     * берётся из in-memory кэша или из {@code user_game_stats} без повторной сборки.
      *
      * @param steamIdFromRequest steamId из запроса, если он передан
-     * @return JSON-строка с profile summary либо пустой {@link Mono}
+     * @return profile summary либо пустой {@link Mono}
      */
-    private Mono<String> getProfileSummaryJson(String steamIdFromRequest) {
+    private Mono<ProfileSummaryPayload> loadProfileSummary(String steamIdFromRequest) {
         return getSteamIdOrEmpty(steamIdFromRequest)
                 .onErrorResume(e -> {
                     log.error("Error getting steamId", e);
                     return Mono.empty();
                 })
                 .flatMap(steamId ->
-                        getSnapshotFromDbOrEmpty(steamId)
-                                .switchIfEmpty(Mono.defer(() -> getSnapshotFromSteamOrEmpty(steamId)))
-                                .flatMap(snapshot -> profileSummaryBuilder.buildJson(snapshot, steamId))
+                        getStatsFromDbOrEmpty(steamId)
+                                .flatMap(profileSummaryService::getSummary)
+                                .switchIfEmpty(Mono.defer(() -> getStatsFromSteamOrEmpty(steamId)
+                                        .flatMap(profileSummaryService::getSummary)))
                                 .onErrorResume(e -> {
                                     log.error("Error getting profile summary for steamId={}", steamId, e);
                                     return Mono.empty();
@@ -147,14 +251,14 @@ public class GameRecommenderService {
     }
 
     /**
-     * Читает снапшот игр пользователя из базы данных.
+     * Читает статистику пользователя со снапшотом игр из базы данных.
      *
      * @param steamId steamId пользователя
-     * @return снапшот библиотеки либо пустой {@link Mono}
+     * @return статистика с непустым снапшотом библиотеки либо пустой {@link Mono}
      */
-    private Mono<OwnedGamesSnapshot> getSnapshotFromDbOrEmpty(Long steamId) {
+    private Mono<UserGameStats> getStatsFromDbOrEmpty(Long steamId) {
         return userGameStatsRepository.findBySteamId(steamId)
-                .mapNotNull(UserGameStats::getOwnedGamesSnapshot)
+                .filter(stats -> stats.getOwnedGamesSnapshot() != null)
                 .onErrorResume(e -> {
                     log.error("Error retrieving snapshot from database for steamId={}", steamId, e);
                     return Mono.empty();
@@ -162,14 +266,21 @@ public class GameRecommenderService {
     }
 
     /**
-     * Загружает снапшот игр пользователя из Steam API как fallback.
+     * Загружает статистику пользователя из Steam API как fallback и сохраняет её в
+     * {@code user_game_stats} и кэш, чтобы следующий запрос не ходил в Steam повторно.
+     * <p>
+     * Если уже идёт загрузка библиотеки этого steamId (фоновая синхронизация после логина
+     * или другой запрос), запрос присоединяется к ней вместо второго {@code GetOwnedGames},
+     * но ждёт её не дольше {@code app.recommender.steam-fallback.rate-limit-max-wait} и затем
+     * загружает библиотеку сам. Запрос выполняется на горячем пути {@code /proceed}, поэтому
+     * и ожидание токена Steam API ограничено тем же значением.
      *
      * @param steamId steamId пользователя
-     * @return снапшот библиотеки либо пустой {@link Mono}
+     * @return статистика со снапшотом библиотеки либо пустой {@link Mono}
      */
-    private Mono<OwnedGamesSnapshot> getSnapshotFromSteamOrEmpty(Long steamId) {
-        return steamClient.getOwnedGames(steamId.toString(), true, true)
-                .map(ownedGamesSnapshotMapper::toSnapshot)
+    private Mono<UserGameStats> getStatsFromSteamOrEmpty(Long steamId) {
+        return steamUserDataService.fetchUserGameStats(steamId)
+                .contextWrite(SteamApiRateLimiter.maxWait(steamFallbackRateLimitMaxWait))
                 .onErrorResume(e -> {
                     log.error("Error retrieving snapshot from Steam API for steamId={}", steamId, e);
                     return Mono.empty();
@@ -214,7 +325,7 @@ public class GameRecommenderService {
                         log.info("Reasoning: {}", grpcResponse.getReasoning());
                     }
                 })
-                .map(recommendations -> buildResponse(grpcResponse, recommendations));
+                .map(recommendations -> buildResponse(grpcResponse.getReasoning(), recommendations));
     }
 
     /**
@@ -232,18 +343,19 @@ public class GameRecommenderService {
     /**
      * Строит итоговый ответ приложения из списка рекомендаций.
      *
+     * @param reasoning объяснение подбора от AI
      * @param recommendations список рекомендаций
      * @return ответ приложения
      */
     private GameRecommendationResponse buildResponse(
-            RecommendationResponse grpcResponse,
+            String reasoning,
             List<ru.perevalov.gamerecommenderai.dto.GameRecommendation> recommendations) {
         // recommendation = поле для будущего summary от LLM (если когда-нибудь
         // начнёт отдавать). Хардкод "Received N recommendations" удалён —
         // это был плейсхолдер, который оседал в content сообщения.
         return GameRecommendationResponse.builder()
                 .recommendation(null)
-                .reasoning(grpcResponse.getReasoning())
+                .reasoning(reasoning)
                 .success(true)
                 .recommendations(recommendations)
                 .build();
@@ -11,7 +11,9 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import ru.perevalov.gamerecommenderai.client.SteamApiClient;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamAppResponseDto;
+import ru.perevalov.gamerecommenderai.dto.steam.SteamGameDetailsResponseDto;
 import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.mapper.SteamAppMapper;
@@ -125,6 +127,37 @@ public class GameService {
                                                  ErrorType.FETCH_STORE_GAMES_ERROR, e));
     }
 
+    /**
+     * Сохраняет жанры игры из уже полученного ответа Steam Store API appdetails.
+     * <p>
+     * Жанров нет в GetOwnedGames, поэтому {@link FavoriteGenreAggregator} берёт их из
+     * {@code steam_apps.genre_mask}, которая пополняется здесь попутно с запросами tools API,
+     * без отдельных обращений к Steam. Ошибка записи только логируется.
+     *
+     * @param details ответ {@code SteamStoreClient.fetchGameDetails}
+     * @return {@link Mono}, завершающийся после записи
+     */
+    public Mono<Void> saveGenres(SteamGameDetailsResponseDto details) {
+        SteamGameDetailsResponseDto.SteamGameDataResponseDto data = details.steamGameDataResponseDto();
+        if (data == null || data.steamAppid() <= 0) {
+            return Mono.empty();
+        }
+        List<SteamGenreEntity> genres = data.genres() == null
+                ? List.of()
+                : data.genres().stream()
+                      .filter(genre -> genre.id() != null && genre.description() != null)
+                      .map(genre -> SteamGenreEntity.builder()
+                                                    .steamGenreId(genre.id())
+                                                    .description(genre.description())
+                                                    .build())
+                      .toList();
+        return steamAppRepository.updateGenres((long) data.steamAppid(), genres)
+                                 .onErrorResume(e -> {
+                                     log.warn("Failed to save genres for appId={}: {}", data.steamAppid(), e.getMessage());
+                                     return Mono.empty();
+                                 });
+    }
+
     /**
      * Updates games by fetching from Steam API {@link <a href="https://developer.valvesoftware.com/wiki/Steam_Web_API#GetAppList">...</a>},
      * saves to cache and DB asynchronously, then clears in-memory map to free memory.
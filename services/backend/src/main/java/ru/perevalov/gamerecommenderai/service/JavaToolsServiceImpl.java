@@ -27,7 +27,8 @@ import ru.perevalov.gamerecommenderai.mapper.GrpcMapper;
  * <p>
  * Публикуемые методы:
  * <ul>
- *   <li>{@code GetSteamAppDetails} — детали игры по appId из Steam Store API.</li>
+ *   <li>{@code GetSteamAppDetails} — детали игры по appId из Steam Store API; жанры игры
+ *       попутно сохраняются в {@code steam_apps.genre_mask}.</li>
  *   <li>{@code SearchGames} — fuzzy-поиск по имени поверх {@code pg_trgm} индекса
  *       (см. {@link ru.perevalov.gamerecommenderai.repository.SteamAppRepository#searchByNameLike}).</li>
  *   <li>{@code GetSimilarGames} — зарезервирован, сейчас возвращает
@@ -87,6 +88,7 @@ public class JavaToolsServiceImpl extends ReactorJavaToolsServiceGrpc.JavaToolsS
         return requestMono
                 .doOnNext(req -> log.info("gRPC GetSteamAppDetails[{}] appId={}", requestId, req.getAppId()))
                 .flatMap(req -> steamStoreClient.fetchGameDetails(String.valueOf(req.getAppId()))
+                                                .flatMap(dto -> gameService.saveGenres(dto).thenReturn(dto))
                                                 .flatMap(dto -> Mono.justOrEmpty(mapper.toSteamAppResponse(dto))))
                 .switchIfEmpty(Mono.error(() -> Status.NOT_FOUND
                         .withDescription("Steam app details not found or empty payload")
@@ -0,0 +1,175 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.config.PlaytimeHistoryProps;
+import ru.perevalov.gamerecommenderai.dto.RisingGame;
+import ru.perevalov.gamerecommenderai.entity.UserPlaytimeHistory;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+import ru.perevalov.gamerecommenderai.repository.UserPlaytimeHistoryRepository;
+import ru.perevalov.gamerecommenderai.util.PlaytimeDeltas;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Журнал прироста времени игры {@code user_playtime_history}.
+ * <p>
+ * При каждой синхронизации библиотеки, в которой время игры выросло, добавляется одна строка
+ * с приростом по играм ({@link PlaytimeDeltas}). Строки не изменяются, кроме как задачей
+ * компакции {@link #compact(LocalDateTime)}: записи старше {@code compact-after} сливаются в одну
+ * на пользователя за сутки, записи старше {@code retention} удаляются.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaytimeHistoryService {
+
+    private final UserPlaytimeHistoryRepository userPlaytimeHistoryRepository;
+    private final PlaytimeHistoryProps props;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Записывает прирост времени игры между предыдущей и новой синхронизацией.
+     * <p>
+     * Первая синхронизация пользователя ничего не пишет: неизвестно, когда наиграно время.
+     * Ошибка записи не прерывает синхронизацию и только логируется.
+     *
+     * @param userId         id пользователя
+     * @param previousSyncAt время предыдущей синхронизации
+     * @param previous       снапшот предыдущей синхронизации; {@code null}, если её не было
+     * @param current        новый снапшот
+     * @return {@link Mono}, завершающийся после записи
+     */
+    public Mono<Void> recordSync(UUID userId,
+                                 LocalDateTime previousSyncAt,
+                                 OwnedGamesSnapshot previous,
+                                 OwnedGamesSnapshot current) {
+        if (previous == null || current == null) {
+            return Mono.empty();
+        }
+        PlaytimeDeltas deltas = PlaytimeDeltas.between(gamesOf(previous), gamesOf(current));
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UserPlaytimeHistory history = new UserPlaytimeHistory();
+        history.setUserId(userId);
+        history.setPeriodStart(previousSyncAt != null ? previousSyncAt : now);
+        history.setPeriodEnd(now);
+        history.setAppidDeltas(deltas.encodedAppIds());
+        history.setPlaytimeDeltas(deltas.boxedMinutes());
+
+        return userPlaytimeHistoryRepository.save(history)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to record playtime history for userId={}", userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Возвращает игры с наибольшим приростом времени игры за последние {@code window}.
+     * <p>
+     * Читает только строки пользователя за окно по индексу {@code (user_id, period_end)};
+     * сжатая строка учитывается целиком, если её сутки попадают в окно хотя бы частично.
+     *
+     * @param userId id пользователя; для {@code null} результат пуст
+     * @param window окно
+     * @param limit  максимальное количество игр
+     * @return игры по убыванию прироста
+     */
+    public Mono<List<RisingGame>> findRisingGames(UUID userId, Duration window, int limit) {
+        if (userId == null || limit <= 0) {
+            return Mono.just(List.of());
+        }
+        return userPlaytimeHistoryRepository.findByUserIdAndPeriodEndAfter(userId, LocalDateTime.now().minus(window))
+                .map(this::deltasOf)
+                .reduce(PlaytimeDeltas.EMPTY, PlaytimeDeltas::plus)
+                .map(total -> {
+                    int[] top = total.topIndexes(limit);
+                    List<RisingGame> rising = new ArrayList<>(top.length);
+                    for (int index : top) {
+                        rising.add(new RisingGame(total.appIdAt(index), total.minutesAt(index)));
+                    }
+                    return rising;
+                });
+    }
+
+    /**
+     * Удаляет записи старше {@code retention} и сжимает записи старше {@code compact-after}
+     * в одну запись на пользователя за сутки.
+     * <p>
+     * Граница компакции округляется вниз до начала суток: сутки сжимаются только целиком, иначе
+     * поздние записи тех же суток после следующего запуска остались бы рядом со сжатой строкой.
+     * Каждые сутки пользователя сжимаются в своей транзакции: прерванный запуск не откатывает
+     * уже сжатые сутки, и блокировки строк не держатся до конца всего прохода.
+     *
+     * @param now текущее время
+     * @return {@link Mono}, завершающийся после компакции
+     */
+    public Mono<Void> compact(LocalDateTime now) {
+        LocalDateTime compactBefore = now.minus(props.compactAfter()).with(LocalTime.MIN);
+        return userPlaytimeHistoryRepository.deleteByPeriodEndBefore(now.minus(props.retention()))
+                .doOnNext(deleted -> log.info("Playtime history retention: {} rows deleted", deleted))
+                .thenMany(userPlaytimeHistoryRepository.findUncompactedBefore(compactBefore))
+                .bufferUntilChanged(row -> new DayKey(row.getUserId(), row.getPeriodEnd().toLocalDate()))
+                .concatMap(rows -> transactionalOperator.transactional(compactDay(rows)))
+                .count()
+                .doOnNext(days -> log.info("Playtime history compaction: {} user-days compacted", days))
+                .then();
+    }
+
+    /**
+     * Сливает строки одного пользователя за сутки в первую из них, остальные удаляет одним запросом.
+     */
+    private Mono<Void> compactDay(List<UserPlaytimeHistory> rows) {
+        UserPlaytimeHistory merged = rows.getFirst();
+        PlaytimeDeltas total = PlaytimeDeltas.EMPTY;
+        for (UserPlaytimeHistory row : rows) {
+            total = total.plus(deltasOf(row));
+        }
+
+        merged.markAsExisting();
+        merged.setPeriodEnd(rows.getLast().getPeriodEnd());
+        merged.setCompacted(true);
+        merged.setAppidDeltas(total.encodedAppIds());
+        merged.setPlaytimeDeltas(total.boxedMinutes());
+
+        UUID[] mergedIds = rows.stream()
+                .skip(1)
+                .map(UserPlaytimeHistory::getId)
+                .toArray(UUID[]::new);
+        Mono<Long> deleteMerged = mergedIds.length == 0
+                ? Mono.just(0L)
+                : userPlaytimeHistoryRepository.deleteByIdIn(mergedIds);
+
+        return userPlaytimeHistoryRepository.save(merged)
+                .then(deleteMerged)
+                .then();
+    }
+
+    private PlaytimeDeltas deltasOf(UserPlaytimeHistory row) {
+        return PlaytimeDeltas.decode(row.getAppidDeltas(), row.getPlaytimeDeltas());
+    }
+
+    private List<Game> gamesOf(OwnedGamesSnapshot snapshot) {
+        if (snapshot.getResponse() == null || snapshot.getResponse().getGames() == null) {
+            return List.of();
+        }
+        return snapshot.getResponse().getGames();
+    }
+
+    private record DayKey(UUID userId, LocalDate day) {
+    }
+}
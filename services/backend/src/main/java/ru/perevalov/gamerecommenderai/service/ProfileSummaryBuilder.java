@@ -7,17 +7,52 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.CompactProfileSummary;
 import ru.perevalov.gamerecommenderai.dto.ProfileSummary;
 import ru.perevalov.gamerecommenderai.dto.ProfileSummary.GameEntry;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryMode;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.dto.RisingGame;
 import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
 import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+import ru.perevalov.gamerecommenderai.grpc.ProfileGameProto;
+import ru.perevalov.gamerecommenderai.grpc.ProfileSummaryProto;
+import ru.perevalov.gamerecommenderai.grpc.RisingGameProto;
+import ru.perevalov.gamerecommenderai.util.BoundedLongMinHeap;
 
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 
+/**
+ * Собирает {@link ProfileSummary} за один проход по библиотеке пользователя.
+ * <p>
+ * Вместо трёх {@code stream().sorted()} по всей библиотеке используется один цикл:
+ * top-списки набираются в ограниченные min-кучи на примитивах ({@link BoundedLongMinHeap}),
+ * недавно сыгранные игры — в отдельный буфер, который сортируется целиком (он, как правило, мал).
+ * Итоговая сложность — O(n log K) вместо O(n log n) × 3.
+ * <p>
+ * Ключ сортировки упакован в {@code long}: старшие 32 бита — время игры, младшие —
+ * инвертированный индекс игры в снапшоте. Так при равном времени раньше идёт игра
+ * с меньшим индексом, что повторяет порядок стабильной сортировки и даёт побайтно
+ * тот же JSON, что и прежняя реализация на стримах.
+ * <p>
+ * Формат задаётся {@link ProfileSummaryMode}; в режиме {@link ProfileSummaryMode#PROTO} summary
+ * собирается сразу в {@link ProfileSummaryProto} без JSON. Если настроен бюджет размера
+ * ({@code summary-budget-bytes} или {@code summary-budget-tokens}), хвосты списков отбрасываются
+ * до тех пор, пока summary не уложится в бюджет: сначала {@code allGamesPlayed},
+ * затем {@code topByPlaytime} и в последнюю очередь {@code recentlyPlayed}.
+ * <p>
+ * Если переданы игры с растущим временем игры из журнала {@code user_playtime_history},
+ * они попадают в {@code risingPlaytime} и при урезании под бюджет не отбрасываются.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -25,36 +60,76 @@ public class ProfileSummaryBuilder {
 
     private static final int MINUTES_IN_HOUR = 60;
 
+    private static final int INITIAL_RECENT_CAPACITY = 16;
+
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Грубая оценка для JSON с латиницей: около 4 байт UTF-8 на токен LLM.
+     */
+    private static final int BYTES_PER_TOKEN = 4;
+
+    /**
+     * Версия формата {@link ProfileSummary}. Повышается при любом изменении структуры JSON,
+     * чтобы сохранённые в {@code user_game_stats} summary были пересобраны.
+     */
+    private static final String SUMMARY_FORMAT_VERSION = "v1";
+
     @Value("${app.recommender.prompt.top-by-playtime-list-size:10}")
     private int topByPlaytimeListSize;
 
     @Value("${app.recommender.prompt.all-games-list-size-limit:100}")
     private int allGamesListSizeLimit;
 
+    @Value("${app.recommender.prompt.summary-mode:FULL}")
+    private ProfileSummaryMode summaryMode = ProfileSummaryMode.FULL;
+
+    @Value("${app.recommender.prompt.summary-budget-bytes:0}")
+    private int summaryBudgetBytes;
+
+    @Value("${app.recommender.prompt.summary-budget-tokens:0}")
+    private int summaryBudgetTokens;
+
+    @Value("${app.recommender.prompt.rising-playtime.window:P7D}")
+    private Duration risingWindow = Duration.ofDays(7);
+
+    @Value("${app.recommender.prompt.rising-playtime.list-size:5}")
+    private int risingListSize = 5;
+
     private final ObjectMapper objectMapper;
 
     /**
      * Строит JSON-представление профиля пользователя на основе снимка библиотеки Steam.
      * <p>
+     * Формат определяется {@link #summaryMode()}, размер ограничивается {@link #budgetBytes()}.
      *
      * @param snapshot снимок библиотеки пользователя из Steam API
      * @return Optional содержащий JSON-строку с профилем {@link ProfileSummary}.
      * В случае ошибки при сериализации в JSON возвращает пустой Optional.
      */
     public Mono<String> buildJson(OwnedGamesSnapshot snapshot, Long steamId) {
+        return buildJson(snapshot, steamId, List.of());
+    }
 
-        List<Game> games = getNotNullGameList(snapshot);
-
-        ProfileSummary profileSummary = new ProfileSummary();
-
-        profileSummary.setRecentlyPlayed(formRecentlyPlayedList(games));
-        profileSummary.setTopByPlaytime(formTopByPlaytimeListExceptRecentPlayed(games));
-        profileSummary.setAllGamesPlayed(formAllGamesPlayedList(games));
-        profileSummary.setTotalGamesOwned(games.size());
-        profileSummary.setTotalPlaytimeHours(countTotalPlaytimeHours(games));
-
+    /**
+     * Строит JSON-представление профиля вместе с играми с растущим временем игры.
+     *
+     * @param snapshot снимок библиотеки пользователя из Steam API
+     * @param steamId  steamId пользователя, для логов
+     * @param rising   игры по убыванию прироста времени игры, см. {@link #risingListSize()}
+     * @return JSON-строка с профилем либо пустой {@link Mono} при ошибке сериализации
+     */
+    public Mono<String> buildJson(OwnedGamesSnapshot snapshot, Long steamId, List<RisingGame> rising) {
         try {
-            return Mono.just(objectMapper.writeValueAsString(profileSummary));
+            ProfileSummary summary = build(snapshot, rising);
+            int budget = budgetBytes();
+            String json = render(summary);
+            if (budget > 0 && sizeInBytes(json) > budget) {
+                json = render(fitToBudget(summary, budget, this::renderedSize));
+                log.debug("Profile summary trimmed to budget steamId={}, budgetBytes={}, sizeBytes={}",
+                        steamId, budget, sizeInBytes(json));
+            }
+            return Mono.just(json);
         } catch (JsonProcessingException e) {
             log.error("Error mapping profileSummary to JSON steamId={}", steamId, e);
             return Mono.empty();
@@ -62,60 +137,361 @@ public class ProfileSummaryBuilder {
     }
 
     /**
-     * Формирует список недавно сыгранных игр.
+     * Строит summary в формате {@link #summaryMode()}: {@link ProfileSummaryProto} для
+     * {@link ProfileSummaryMode#PROTO}, JSON-строку для остальных режимов.
+     *
+     * @param snapshot снимок библиотеки пользователя из Steam API
+     * @param steamId  steamId пользователя, для логов
+     * @param rising   игры по убыванию прироста времени игры, см. {@link #risingListSize()}
+     * @return summary либо пустой {@link Mono} при ошибке сериализации
+     */
+    public Mono<ProfileSummaryPayload> buildPayload(OwnedGamesSnapshot snapshot, Long steamId, List<RisingGame> rising) {
+        if (summaryMode == ProfileSummaryMode.PROTO) {
+            return Mono.just(ProfileSummaryPayload.ofProto(buildProto(snapshot, rising)));
+        }
+        return buildJson(snapshot, steamId, rising).map(ProfileSummaryPayload::ofJson);
+    }
+
+    /**
+     * Строит {@link ProfileSummaryProto} напрямую из снапшота, без промежуточного JSON.
+     * <p>
+     * Состав списков тот же, что у {@link #build(OwnedGamesSnapshot, List)}; каждая игра попадает в
+     * {@code games} один раз, списки ссылаются на неё по индексу. Бюджет размера применяется к размеру
+     * сериализованного proto в том же порядке урезания, что и для JSON.
+     *
+     * @param snapshot снимок библиотеки пользователя
+     * @param rising   игры по убыванию прироста времени игры
+     * @return типизированный summary
+     */
+    public ProfileSummaryProto buildProto(OwnedGamesSnapshot snapshot, List<RisingGame> rising) {
+        ProfileSummary summary = build(snapshot, rising);
+        ProfileSummaryProto proto = toProto(summary);
+        int budget = budgetBytes();
+        if (budget > 0 && proto.getSerializedSize() > budget) {
+            proto = toProto(fitToBudget(summary, budget, truncated -> toProto(truncated).getSerializedSize()));
+        }
+        return proto;
+    }
+
+    /**
+     * Собирает {@link ProfileSummary} за один проход по списку игр.
+     * <ul>
+     *     <li>{@code recentlyPlayed} — все игры с {@code playtime2weeks > 0}
+     *         по убыванию {@code playtime2weeks};</li>
+     *     <li>{@code topByPlaytime} — игры с {@code playtimeForever > 0}, не попавшие в недавние,
+     *         по убыванию {@code playtimeForever}, не более {@code topByPlaytimeListSize};</li>
+     *     <li>{@code allGamesPlayed} — все игры с {@code playtimeForever > 0}
+     *         по убыванию {@code playtimeForever}, не более {@code allGamesListSizeLimit}.</li>
+     * </ul>
+     *
+     * @param snapshot снимок библиотеки пользователя
+     * @return заполненный summary
+     */
+    public ProfileSummary build(OwnedGamesSnapshot snapshot) {
+        return build(snapshot, List.of());
+    }
+
+    /**
+     * Собирает {@link ProfileSummary}, дополняя его {@code risingPlaytime}: названия игр берутся
+     * из снапшота, игры, которых в снапшоте нет, пропускаются.
+     *
+     * @param snapshot снимок библиотеки пользователя
+     * @param rising   игры по убыванию прироста времени игры
+     * @return заполненный summary
+     */
+    public ProfileSummary build(OwnedGamesSnapshot snapshot, List<RisingGame> rising) {
+        List<Game> games = getNotNullGameList(snapshot);
+        int gameCount = games.size();
+
+        BoundedLongMinHeap topByPlaytime = new BoundedLongMinHeap(Math.min(topByPlaytimeListSize, gameCount));
+        BoundedLongMinHeap allPlayed = new BoundedLongMinHeap(Math.min(allGamesListSizeLimit, gameCount));
+        long[] recent = new long[Math.min(INITIAL_RECENT_CAPACITY, gameCount)];
+        int recentSize = 0;
+        int totalMinutes = 0;
+
+        for (int index = 0; index < gameCount; index++) {
+            Game game = games.get(index);
+            Integer playtimeForever = game.getPlaytimeForever();
+            Integer playtime2weeks = game.getPlaytime2weeks();
+            if (playtimeForever != null) {
+                totalMinutes += playtimeForever;
+            }
+
+            boolean playedRecently = playtime2weeks != null && playtime2weeks > 0;
+            if (playedRecently) {
+                if (recentSize == recent.length) {
+                    recent = Arrays.copyOf(recent, recent.length * 2);
+                }
+                recent[recentSize++] = sortKey(playtime2weeks, index);
+            }
+
+            if (playtimeForever != null && playtimeForever > 0) {
+                long key = sortKey(playtimeForever, index);
+                allPlayed.offer(key);
+                if (!playedRecently) {
+                    topByPlaytime.offer(key);
+                }
+            }
+        }
+
+        Arrays.sort(recent, 0, recentSize);
+
+        ProfileSummary profileSummary = new ProfileSummary();
+        profileSummary.setRecentlyPlayed(toEntriesDescending(games, recent, recentSize));
+        profileSummary.setTopByPlaytime(toEntries(games, topByPlaytime.toSortedDescending()));
+        profileSummary.setAllGamesPlayed(toEntries(games, allPlayed.toSortedDescending()));
+        profileSummary.setTotalGamesOwned(gameCount);
+        profileSummary.setTotalPlaytimeHours(convertMinutesToHours(totalMinutes));
+        profileSummary.setRisingPlaytime(toRisingEntries(games, rising));
+        return profileSummary;
+    }
+
+    /**
+     * Возвращает версию настроек промпта, с которыми собирается summary.
+     * <p>
+     * Входит в ключ кэша и в {@code profile_summary_version}: при смене лимитов списков
+     * ранее сохранённые summary перестают считаться актуальными.
+     *
+     * @return строковая версия настроек, например {@code v1-top10-all100}
+     */
+    public String promptConfigVersion() {
+        String version = SUMMARY_FORMAT_VERSION + "-top" + topByPlaytimeListSize + "-all" + allGamesListSizeLimit
+                + "-" + summaryMode.name().toLowerCase() + "-b" + budgetBytes();
+        return risingListSize > 0 ? version + "-rising" + risingListSize + "-" + risingWindow : version;
+    }
+
+    /**
+     * Возвращает окно, за которое считается прирост времени игры для {@code risingPlaytime}.
+     *
+     * @return окно
+     */
+    public Duration risingWindow() {
+        return risingWindow;
+    }
+
+    /**
+     * Возвращает максимальный размер {@code risingPlaytime}.
+     *
+     * @return размер списка; {@code 0} — список не добавляется
+     */
+    public int risingListSize() {
+        return risingListSize;
+    }
+
+    /**
+     * Возвращает текущий формат summary.
+     *
+     * @return режим сборки summary
+     */
+    public ProfileSummaryMode summaryMode() {
+        return summaryMode;
+    }
+
+    /**
+     * Возвращает бюджет размера summary в байтах UTF-8.
      * <p>
-     * Включает все игры с {@code playtime2weeks > 0}.
-     * Сортировка по убыванию {@code playtime2weeks}.
+     * Если заданы оба ограничения, действует меньшее; токены пересчитываются в байты
+     * по {@value #BYTES_PER_TOKEN} байта на токен.
+     *
+     * @return бюджет в байтах; {@code 0} — без ограничения
+     */
+    public int budgetBytes() {
+        int fromTokens = summaryBudgetTokens > 0 ? summaryBudgetTokens * BYTES_PER_TOKEN : 0;
+        if (summaryBudgetBytes > 0 && fromTokens > 0) {
+            return Math.min(summaryBudgetBytes, fromTokens);
+        }
+        return Math.max(summaryBudgetBytes, fromTokens);
+    }
+
+    /**
+     * Сериализует summary в JSON согласно {@link #summaryMode()}.
      */
-    private List<GameEntry> formRecentlyPlayedList(List<Game> games) {
-        return games
-                .stream()
-                .filter(this::gameWasPlayedRecently)
-                .sorted(Comparator.comparing(Game::getPlaytime2weeks).reversed())
-                .map(this::mapToGameEntry)
-                .toList();
+    String render(ProfileSummary summary) throws JsonProcessingException {
+        Object value = summaryMode == ProfileSummaryMode.COMPACT ? toCompact(summary) : summary;
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private int renderedSize(ProfileSummary summary) throws JsonProcessingException {
+        return sizeInBytes(render(summary));
     }
 
     /**
-     * Формирует топ игр по {@code playtimeForever}.
+     * Подбирает наибольшие длины списков, при которых summary укладывается в бюджет.
      * <p>
-     * Исключает игры, уже попавшие в список недавно сыгранных ({@code playtime2weeks > 0}).
-     * Сортировка по убыванию {@code playtimeForever}.
+     * Списки урезаются по очереди, длина каждого ищется бинарным поиском: размер
+     * монотонно растёт с числом элементов, поэтому достаточно O(log n) сериализаций на список.
+     * Если не помещаются даже пустые списки, возвращается summary только с итоговыми счётчиками.
      */
-    private List<GameEntry> formTopByPlaytimeListExceptRecentPlayed(List<Game> games) {
-        return games
-                .stream()
-                .filter(game -> gameWasPlayed(game) && !gameWasPlayedRecently(game))
-                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
-                .limit(topByPlaytimeListSize)
-                .map(this::mapToGameEntry)
-                .toList();
+    private <E extends Exception> ProfileSummary fitToBudget(ProfileSummary summary, int budget, SummarySize<E> size)
+            throws E {
+        int recent = summary.getRecentlyPlayed().size();
+        int top = summary.getTopByPlaytime().size();
+
+        if (size.of(truncate(summary, recent, top, 0)) <= budget) {
+            int all = maxFitting(summary.getAllGamesPlayed().size(), budget, size,
+                    count -> truncate(summary, recent, top, count));
+            return truncate(summary, recent, top, all);
+        }
+
+        if (size.of(truncate(summary, recent, 0, 0)) <= budget) {
+            int fittingTop = maxFitting(top, budget, size, count -> truncate(summary, recent, count, 0));
+            return truncate(summary, recent, fittingTop, 0);
+        }
+
+        int fittingRecent = maxFitting(recent, budget, size, count -> truncate(summary, count, 0, 0));
+        return truncate(summary, fittingRecent, 0, 0);
     }
 
     /**
-     * Формирует список всех когда-либо сыгранных игр ({@code playtimeForever > 0}).
+     * Бинарный поиск наибольшего {@code count} в {@code [0, upperBound)}, при котором summary не превышает бюджет.
+     * Вызывается, когда {@code upperBound} заведомо не помещается, а {@code 0} — помещается
+     * либо уже является последним вариантом.
      */
-    private List<GameEntry> formAllGamesPlayedList(List<Game> games) {
-        return games
-                .stream()
-                .filter(this::gameWasPlayed)
-                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
-                .limit(allGamesListSizeLimit)
-                .map(this::mapToGameEntry)
-                .toList();
+    private <E extends Exception> int maxFitting(int upperBound, int budget, SummarySize<E> size,
+                                                 IntFunction<ProfileSummary> truncation) throws E {
+        int low = 0;
+        int high = upperBound - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (size.of(truncation.apply(mid)) <= budget) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private ProfileSummary truncate(ProfileSummary summary, int recent, int top, int all) {
+        ProfileSummary truncated = new ProfileSummary();
+        truncated.setRecentlyPlayed(summary.getRecentlyPlayed().subList(0, recent));
+        truncated.setTopByPlaytime(summary.getTopByPlaytime().subList(0, top));
+        truncated.setAllGamesPlayed(summary.getAllGamesPlayed().subList(0, all));
+        truncated.setTotalGamesOwned(summary.getTotalGamesOwned());
+        truncated.setTotalPlaytimeHours(summary.getTotalPlaytimeHours());
+        truncated.setRisingPlaytime(summary.getRisingPlaytime());
+        return truncated;
     }
 
     /**
-     * Подсчитывает суммарное время {@code playtimeForever} всех игр в библиотеке.
+     * Переводит summary в компактный формат. Одинаковые записи из разных списков
+     * ({@link GameEntry} сравниваются по значению) попадают в {@code games} один раз.
      */
-    private Integer countTotalPlaytimeHours(List<Game> games) {
-        int totalMinutes = games
-                .stream()
-                .map(Game::getPlaytimeForever)
-                .filter(Objects::nonNull)
-                .mapToInt(Integer::intValue)
-                .sum();
-        return convertMinutesToHours(totalMinutes);
+    private CompactProfileSummary toCompact(ProfileSummary summary) {
+        Map<GameEntry, Integer> gameIndexes = new LinkedHashMap<>();
+        CompactProfileSummary compact = new CompactProfileSummary();
+        compact.setRecentlyPlayed(toIndexes(summary.getRecentlyPlayed(), gameIndexes));
+        compact.setTopByPlaytime(toIndexes(summary.getTopByPlaytime(), gameIndexes));
+        compact.setAllGamesPlayed(toIndexes(summary.getAllGamesPlayed(), gameIndexes));
+
+        List<List<Object>> games = new ArrayList<>(gameIndexes.size());
+        for (GameEntry entry : gameIndexes.keySet()) {
+            games.add(Arrays.asList(entry.getName(), entry.getPlaytimeHours(), entry.getRecentPlaytimeHours()));
+        }
+        compact.setGames(games);
+        compact.setTotalGamesOwned(summary.getTotalGamesOwned());
+        compact.setTotalPlaytimeHours(summary.getTotalPlaytimeHours());
+        if (summary.getRisingPlaytime() != null) {
+            List<List<Object>> rising = new ArrayList<>(summary.getRisingPlaytime().size());
+            for (ProfileSummary.RisingEntry entry : summary.getRisingPlaytime()) {
+                rising.add(Arrays.asList(entry.getName(), entry.getGainedHours()));
+            }
+            compact.setRisingPlaytime(rising);
+        }
+        return compact;
+    }
+
+    private List<Integer> toIndexes(List<GameEntry> entries, Map<GameEntry, Integer> gameIndexes) {
+        List<Integer> indexes = new ArrayList<>(entries.size());
+        for (GameEntry entry : entries) {
+            indexes.add(gameIndexes.computeIfAbsent(entry, ignored -> gameIndexes.size()));
+        }
+        return indexes;
+    }
+
+    /**
+     * Переводит summary в {@link ProfileSummaryProto} с тем же устранением повторов, что и {@link #toCompact}.
+     */
+    private ProfileSummaryProto toProto(ProfileSummary summary) {
+        Map<GameEntry, Integer> gameIndexes = new LinkedHashMap<>();
+        ProfileSummaryProto.Builder builder = ProfileSummaryProto.newBuilder()
+                .addAllRecentlyPlayed(toIndexes(summary.getRecentlyPlayed(), gameIndexes))
+                .addAllTopByPlaytime(toIndexes(summary.getTopByPlaytime(), gameIndexes))
+                .addAllAllGamesPlayed(toIndexes(summary.getAllGamesPlayed(), gameIndexes))
+                .setTotalGamesOwned(summary.getTotalGamesOwned())
+                .setTotalPlaytimeHours(summary.getTotalPlaytimeHours());
+        for (GameEntry entry : gameIndexes.keySet()) {
+            builder.addGames(ProfileGameProto.newBuilder()
+                    .setName(entry.getName() != null ? entry.getName() : "")
+                    .setPlaytimeHours(entry.getPlaytimeHours())
+                    .setRecentPlaytimeHours(entry.getRecentPlaytimeHours()));
+        }
+        if (summary.getRisingPlaytime() != null) {
+            for (ProfileSummary.RisingEntry entry : summary.getRisingPlaytime()) {
+                builder.addRisingPlaytime(RisingGameProto.newBuilder()
+                        .setName(entry.getName())
+                        .setGainedHours(entry.getGainedHours()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static int sizeInBytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Упаковывает время игры и позицию в снапшоте в один ключ: больший ключ — выше в списке.
+     */
+    private static long sortKey(int playtime, int index) {
+        return ((long) playtime << 32) | (Integer.MAX_VALUE - index);
+    }
+
+    private static int indexOf(long sortKey) {
+        return Integer.MAX_VALUE - (int) (sortKey & INDEX_MASK);
+    }
+
+    private List<GameEntry> toEntries(List<Game> games, long[] keysDescending) {
+        List<GameEntry> entries = new ArrayList<>(keysDescending.length);
+        for (long key : keysDescending) {
+            entries.add(mapToGameEntry(games.get(indexOf(key))));
+        }
+        return entries;
+    }
+
+    private List<GameEntry> toEntriesDescending(List<Game> games, long[] keysAscending, int size) {
+        List<GameEntry> entries = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            entries.add(mapToGameEntry(games.get(indexOf(keysAscending[i]))));
+        }
+        return entries;
+    }
+
+    private List<ProfileSummary.RisingEntry> toRisingEntries(List<Game> games, List<RisingGame> rising) {
+        if (rising == null || rising.isEmpty()) {
+            return null;
+        }
+        Map<Long, String> names = new HashMap<>(rising.size() * 2);
+        for (RisingGame game : rising) {
+            names.put(game.appId(), null);
+        }
+        for (Game game : games) {
+            if (game.getAppId() != null && names.containsKey(game.getAppId())) {
+                names.put(game.getAppId(), game.getName());
+            }
+        }
+
+        List<ProfileSummary.RisingEntry> entries = new ArrayList<>(rising.size());
+        for (RisingGame game : rising) {
+            String name = names.get(game.appId());
+            if (name != null) {
+                ProfileSummary.RisingEntry entry = new ProfileSummary.RisingEntry();
+                entry.setName(name);
+                entry.setGainedHours(convertMinutesToHours(game.minutes()));
+                entries.add(entry);
+            }
+        }
+        return entries;
     }
 
     private GameEntry mapToGameEntry(Game game) {
@@ -126,14 +502,6 @@ public class ProfileSummaryBuilder {
         return entry;
     }
 
-    private boolean gameWasPlayedRecently(Game game) {
-        return game.getPlaytime2weeks() != null && game.getPlaytime2weeks() > 0;
-    }
-
-    private boolean gameWasPlayed(Game game) {
-        return game.getPlaytimeForever() != null && game.getPlaytimeForever() > 0;
-    }
-
     private List<Game> getNotNullGameList(OwnedGamesSnapshot snapshot) {
         if (snapshot.getResponse() == null || snapshot.getResponse().getGames() == null) {
             return List.of();
@@ -147,4 +515,12 @@ public class ProfileSummaryBuilder {
         }
         return (int) Math.ceil((double) minutes / MINUTES_IN_HOUR);
     }
+
+    /**
+     * Размер summary в байтах в том виде, в котором он уходит в ai-service.
+     */
+    @FunctionalInterface
+    private interface SummarySize<E extends Exception> {
+        int of(ProfileSummary summary) throws E;
+    }
 }
@@ -0,0 +1,222 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.dto.RisingGame;
+import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Сервис предрассчитанных profile summary.
+ * <p>
+ * Summary собирается один раз на версию снапшота библиотеки — в момент синхронизации
+ * пользователя в {@link SteamUserDataService} — и сохраняется в {@code user_game_stats}.
+ * Поверх хранимого значения работает in-memory кэш с ключом
+ * {@code (steamId, snapshotHash, promptConfigVersion, risingDay)}, поэтому на горячем пути
+ * {@code /proceed} не выполняется ни сортировка библиотеки, ни сериализация JSON.
+ * <p>
+ * Для зарегистрированных пользователей в summary добавляются игры с растущим временем игры
+ * из {@link PlaytimeHistoryService}. Их список считается по скользящему окну и меняется не только
+ * с новым снапшотом, но и когда записи журнала выходят из окна. Поэтому в ключ кэша и в хранимую
+ * версию входят сутки расчёта ({@code risingDay}): summary с растущими играми пересобирается не реже
+ * раза в сутки. Журнал сжимается до записи за сутки, так что более мелкая граница точнее не будет.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProfileSummaryService {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final ProfileSummaryBuilder profileSummaryBuilder;
+    private final ObjectMapper objectMapper;
+    private final PlaytimeHistoryService playtimeHistoryService;
+
+    @Value("${app.recommender.prompt.summary-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${app.recommender.prompt.summary-cache.ttl:PT6H}")
+    private Duration cacheTtl;
+
+    private Cache<SummaryKey, ProfileSummaryPayload> cache;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterAccess(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Рассчитывает hash снапшота и summary и записывает их в статистику перед сохранением.
+     * В БД хранится только JSON: summary в режиме {@code PROTO} остаётся в in-memory кэше
+     * и при промахе собирается из снапшота заново.
+     * <p>
+     * Ошибка расчёта не прерывает синхронизацию: поля остаются пустыми,
+     * и summary будет собран лениво при первом запросе рекомендаций.
+     *
+     * @param stats статистика пользователя со свежим снапшотом
+     * @return та же статистика с заполненными {@code snapshotHash}, {@code profileSummary}
+     * и {@code profileSummaryVersion}
+     */
+    public Mono<UserGameStats> attachSummary(UserGameStats stats) {
+        OwnedGamesSnapshot snapshot = stats.getOwnedGamesSnapshot();
+        if (snapshot == null) {
+            return Mono.just(stats);
+        }
+
+        String snapshotHash = hashOrNull(snapshot, stats.getSteamId());
+        if (snapshotHash == null) {
+            return Mono.just(stats);
+        }
+
+        SummaryKey key = keyOf(stats.getSteamId(), snapshotHash);
+        return buildAndCache(key, snapshot, stats.getUserId())
+                .map(summary -> {
+                    stats.setSnapshotHash(snapshotHash);
+                    stats.setProfileSummary(summary.proto() == null ? summary.json() : null);
+                    stats.setProfileSummaryVersion(versionOf(snapshotHash));
+                    return stats;
+                })
+                .defaultIfEmpty(stats);
+    }
+
+    /**
+     * Возвращает summary для сохранённой статистики: из кэша, из БД или, если сохранённая
+     * версия устарела, собирает заново.
+     *
+     * @param stats статистика пользователя из БД
+     * @return summary либо пустой {@link Mono}, если снапшота нет
+     */
+    public Mono<ProfileSummaryPayload> getSummary(UserGameStats stats) {
+        OwnedGamesSnapshot snapshot = stats.getOwnedGamesSnapshot();
+        if (snapshot == null) {
+            return Mono.empty();
+        }
+
+        String snapshotHash = stats.getSnapshotHash();
+        if (snapshotHash == null) {
+            // Запись создана до появления предрассчитанных summary — пересоберётся при следующей синхронизации.
+            return profileSummaryBuilder.buildPayload(snapshot, stats.getSteamId(), List.of());
+        }
+
+        SummaryKey key = keyOf(stats.getSteamId(), snapshotHash);
+        ProfileSummaryPayload cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        if (stats.getProfileSummary() != null && versionOf(snapshotHash).equals(stats.getProfileSummaryVersion())) {
+            ProfileSummaryPayload stored = ProfileSummaryPayload.ofJson(stats.getProfileSummary());
+            cache.put(key, stored);
+            return Mono.just(stored);
+        }
+
+        return buildAndCache(key, snapshot, stats.getUserId());
+    }
+
+    /**
+     * Возвращает summary для снапшота, полученного в обход БД (например, напрямую из Steam API).
+     *
+     * @param steamId steamId пользователя
+     * @param snapshot снапшот библиотеки
+     * @return summary либо пустой {@link Mono}
+     */
+    public Mono<ProfileSummaryPayload> getSummary(Long steamId, OwnedGamesSnapshot snapshot) {
+        String snapshotHash = hashOrNull(snapshot, steamId);
+        if (snapshotHash == null) {
+            return profileSummaryBuilder.buildPayload(snapshot, steamId, List.of());
+        }
+
+        SummaryKey key = keyOf(steamId, snapshotHash);
+        ProfileSummaryPayload cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return buildAndCache(key, snapshot, null);
+    }
+
+    /**
+     * Вычисляет SHA-256 сериализованного снапшота.
+     *
+     * @param snapshot снапшот библиотеки
+     * @return hex-строка hash
+     * @throws JsonProcessingException если снапшот не удалось сериализовать
+     */
+    public String hash(OwnedGamesSnapshot snapshot) throws JsonProcessingException {
+        byte[] bytes = objectMapper.writeValueAsBytes(snapshot);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private Mono<ProfileSummaryPayload> buildAndCache(SummaryKey key, OwnedGamesSnapshot snapshot, UUID userId) {
+        return risingGames(userId)
+                .flatMap(rising -> profileSummaryBuilder.buildPayload(snapshot, key.steamId(), rising))
+                .doOnNext(summary -> cache.put(key, summary));
+    }
+
+    private Mono<List<RisingGame>> risingGames(UUID userId) {
+        int listSize = profileSummaryBuilder.risingListSize();
+        if (userId == null || listSize <= 0) {
+            return Mono.just(List.of());
+        }
+        return playtimeHistoryService.findRisingGames(userId, profileSummaryBuilder.risingWindow(), listSize)
+                .onErrorResume(e -> {
+                    log.warn("Failed to load rising games for userId={}, building summary without them", userId, e);
+                    return Mono.just(List.of());
+                });
+    }
+
+    private String hashOrNull(OwnedGamesSnapshot snapshot, Long steamId) {
+        try {
+            return hash(snapshot);
+        } catch (JsonProcessingException e) {
+            log.error("Error hashing owned games snapshot steamId={}", steamId, e);
+            return null;
+        }
+    }
+
+    private String versionOf(String snapshotHash) {
+        String version = snapshotHash + ":" + profileSummaryBuilder.promptConfigVersion();
+        String risingDay = risingDay();
+        return risingDay == null ? version : version + ":" + risingDay;
+    }
+
+    private SummaryKey keyOf(Long steamId, String snapshotHash) {
+        return new SummaryKey(steamId, snapshotHash, profileSummaryBuilder.promptConfigVersion(), risingDay());
+    }
+
+    /**
+     * Сутки, на которые посчитан список растущих игр; {@code null}, если список выключен.
+     */
+    private String risingDay() {
+        return profileSummaryBuilder.risingListSize() > 0 ? LocalDate.now(clock).toString() : null;
+    }
+
+    private record SummaryKey(Long steamId, String snapshotHash, String promptConfigVersion, String risingDay) {
+    }
+}
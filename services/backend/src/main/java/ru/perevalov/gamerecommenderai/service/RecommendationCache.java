@@ -0,0 +1,280 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.config.RecommendationCacheProps;
+import ru.perevalov.gamerecommenderai.constant.RecommendationCacheMetricsConstant;
+import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendation;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationChunk;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
+import ru.perevalov.gamerecommenderai.util.ContentHash;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш результатов AI-рекомендаций.
+ * <p>
+ * Ключ — нормализованный {@code userMessage}, отсортированные теги и исключённые жанры, язык,
+ * {@code maxResults} и SHA-256 profile summary; chatId и идентификаторы запроса в ключ не входят.
+ * Запросы без profile summary попадают в общий уровень {@code guest}, остальные — в уровень
+ * {@code user}: summary пересобирается при смене библиотеки, и вместе с ним меняется ключ.
+ * <p>
+ * Одновременные одинаковые запросы схлопываются в один вызов AI: первый запрос кладёт в кэш
+ * незавершённый {@link CompletableFuture} и выполняет вызов, остальные ждут его результат.
+ * Если первый запрос завершился ошибкой или был отменён, запись удаляется; ожидающие при отмене
+ * повторяют поиск, при ошибке — получают ту же ошибку. Кэшируются только успешные ответы.
+ */
+@Component
+public class RecommendationCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}\\s]+$");
+
+    private final RecommendationCacheProps props;
+    private final MeterRegistry meterRegistry;
+    private final Ticker ticker;
+    private final Tier userTier;
+    private final Tier guestTier;
+
+    @Autowired
+    public RecommendationCache(RecommendationCacheProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Ticker.systemTicker());
+    }
+
+    RecommendationCache(RecommendationCacheProps props, MeterRegistry meterRegistry, Ticker ticker) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+        this.userTier = new Tier(RecommendationCacheMetricsConstant.TIER_USER, props.user(), ticker);
+        this.guestTier = new Tier(RecommendationCacheMetricsConstant.TIER_GUEST, props.guest(), ticker);
+    }
+
+    /**
+     * Возвращает ответ из кэша либо загружает его через {@code loader}.
+     *
+     * @param request AI-контекст, по которому строится ключ
+     * @param loader  вызов AI сервиса
+     * @return ответ; копия закэшированного либо свежезагруженный
+     */
+    public Mono<GameRecommendationResponse> get(AiContextRequest request,
+                                                Supplier<Mono<GameRecommendationResponse>> loader) {
+        return stream(request, () -> loader.get()
+                .map(response -> GameRecommendationChunk.builder().response(response).build())
+                .flux())
+                .last()
+                .map(GameRecommendationChunk::getResponse);
+    }
+
+    /**
+     * Потоковый вариант {@link #get}: при промахе части ответа отдаются по мере поступления из
+     * {@code loader}, при попадании — сразу все части закэшированного ответа.
+     *
+     * @param request AI-контекст, по которому строится ключ
+     * @param loader  потоковый вызов AI сервиса; последней частью должен быть собранный ответ
+     * @return поток частей ответа, последняя — {@code response}
+     */
+    public Flux<GameRecommendationChunk> stream(AiContextRequest request,
+                                                Supplier<Flux<GameRecommendationChunk>> loader) {
+        if (!props.enabled()) {
+            return loader.get();
+        }
+        return Flux.defer(() -> {
+            Key key = keyOf(request);
+            Tier tier = key.profileHash() == null ? guestTier : userTier;
+            if (!tier.enabled()) {
+                return loader.get();
+            }
+            return lookup(tier, key, loader);
+        });
+    }
+
+    private Flux<GameRecommendationChunk> lookup(Tier tier,
+                                                 Key key,
+                                                 Supplier<Flux<GameRecommendationChunk>> loader) {
+        CompletableFuture<Entry> promise = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = tier.cache.get(key, (k, executor) -> promise);
+        if (existing == promise) {
+            count(tier, RecommendationCacheMetricsConstant.RESULT_MISS);
+            return load(promise, loader);
+        }
+
+        boolean ready = existing.isDone();
+        count(tier, ready ? RecommendationCacheMetricsConstant.RESULT_HIT : RecommendationCacheMetricsConstant.RESULT_COALESCED);
+        long waitStarted = ticker.read();
+        return Mono.fromFuture(existing, true)
+                .doOnNext(entry -> recordSaved(tier, entry, ready ? 0 : ticker.read() - waitStarted))
+                .flatMapMany(entry -> Flux.fromIterable(chunksOf(entry.response())))
+                .onErrorResume(CancellationException.class, e -> lookup(tier, key, loader));
+    }
+
+    private Flux<GameRecommendationChunk> load(CompletableFuture<Entry> promise,
+                                               Supplier<Flux<GameRecommendationChunk>> loader) {
+        long started = ticker.read();
+        return loader.get()
+                .doOnNext(chunk -> {
+                    if (chunk.getResponse() != null) {
+                        promise.complete(new Entry(copyOf(chunk.getResponse()), ticker.read() - started));
+                    }
+                })
+                .doOnError(promise::completeExceptionally)
+                .doOnCancel(() -> promise.completeExceptionally(new CancellationException("AI call cancelled")))
+                .doOnComplete(() -> promise.completeExceptionally(
+                        new IllegalStateException("AI call completed without a response")));
+    }
+
+    private void recordSaved(Tier tier, Entry entry, long waitedNanos) {
+        long savedNanos = entry.loadNanos() - waitedNanos;
+        if (savedNanos > 0) {
+            tier.savedLatency.record(Duration.ofNanos(savedNanos));
+        }
+    }
+
+    private void count(Tier tier, String result) {
+        meterRegistry.counter(
+                RecommendationCacheMetricsConstant.RECOMMENDATION_CACHE_REQUESTS_TOTAL,
+                RecommendationCacheMetricsConstant.TAG_TIER, tier.name,
+                RecommendationCacheMetricsConstant.TAG_RESULT, result
+        ).increment();
+    }
+
+    /**
+     * Строит ключ кэша по AI-контексту.
+     *
+     * @param request AI-контекст
+     * @return ключ; {@code profileHash == null} для запросов без profile summary
+     */
+    static Key keyOf(AiContextRequest request) {
+        return new Key(
+                normalizeMessage(request.getUserMessage()),
+                normalizeList(request.getSelectedTags() != null ? Arrays.asList(request.getSelectedTags()) : null),
+                normalizeList(request.getExcludeGenres()),
+                request.getLanguage() != null ? request.getLanguage().strip().toLowerCase(Locale.ROOT) : null,
+                request.getMaxResults(),
+                profileHashOf(request)
+        );
+    }
+
+    /**
+     * Hash profile summary в том виде, в котором он уходит в ai-service: JSON-строка либо proto.
+     */
+    private static String profileHashOf(AiContextRequest request) {
+        if (request.getStructuredProfileSummary() != null) {
+            return ContentHash.sha256(request.getStructuredProfileSummary().toByteArray());
+        }
+        String summary = request.getProfileSummary();
+        return summary == null || summary.isBlank() ? null : ContentHash.sha256(summary.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String normalizeMessage(String message) {
+        if (message == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(message, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").strip();
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    private static List<String> normalizeList(Collection<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .map(value -> value.strip().toLowerCase(Locale.ROOT))
+                .filter(value -> !value.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Раскладывает ответ на части в том же порядке, в каком их отдаёт AI сервис.
+     */
+    private static List<GameRecommendationChunk> chunksOf(GameRecommendationResponse cached) {
+        GameRecommendationResponse response = copyOf(cached);
+        List<GameRecommendationChunk> chunks = new ArrayList<>();
+        if (response.getReasoning() != null && !response.getReasoning().isEmpty()) {
+            chunks.add(GameRecommendationChunk.builder().reasoning(response.getReasoning()).build());
+        }
+        for (GameRecommendation recommendation : response.getRecommendations()) {
+            chunks.add(GameRecommendationChunk.builder().recommendation(recommendation).build());
+        }
+        chunks.add(GameRecommendationChunk.builder().response(response).build());
+        return chunks;
+    }
+
+    /**
+     * Ответ изменяемый, поэтому в кэше хранится и наружу отдаётся копия с собственным списком рекомендаций.
+     */
+    private static GameRecommendationResponse copyOf(GameRecommendationResponse response) {
+        return GameRecommendationResponse.builder()
+                .recommendation(response.getRecommendation())
+                .reasoning(response.getReasoning())
+                .success(response.isSuccess())
+                .recommendations(response.getRecommendations() == null
+                        ? new ArrayList<>()
+                        : new ArrayList<>(response.getRecommendations()))
+                .build();
+    }
+
+    record Key(String message,
+               List<String> tags,
+               List<String> excludeGenres,
+               String language,
+               int maxResults,
+               String profileHash) {
+    }
+
+    private record Entry(GameRecommendationResponse response, long loadNanos) {
+    }
+
+    private final class Tier {
+        private final String name;
+        private final AsyncCache<Key, Entry> cache;
+        private final Timer savedLatency;
+        private final boolean enabled;
+
+        private Tier(String name, RecommendationCacheProps.Tier settings, Ticker ticker) {
+            this.name = name;
+            this.enabled = settings.maxSize() > 0;
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(settings.maxSize())
+                    .expireAfterWrite(settings.ttl())
+                    .ticker(ticker)
+                    .executor(Runnable::run)
+                    .buildAsync();
+            this.savedLatency = Timer.builder(RecommendationCacheMetricsConstant.RECOMMENDATION_CACHE_SAVED_LATENCY)
+                    .tag(RecommendationCacheMetricsConstant.TAG_TIER, name)
+                    .register(meterRegistry);
+            Gauge.builder(RecommendationCacheMetricsConstant.RECOMMENDATION_CACHE_SIZE, cache.synchronous(), Cache::estimatedSize)
+                    .tag(RecommendationCacheMetricsConstant.TAG_TIER, name)
+                    .register(meterRegistry);
+        }
+
+        private boolean enabled() {
+            return enabled;
+        }
+    }
+}
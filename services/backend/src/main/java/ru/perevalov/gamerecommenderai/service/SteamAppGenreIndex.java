@@ -0,0 +1,166 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
+import ru.perevalov.gamerecommenderai.repository.SteamAppRepository;
+import ru.perevalov.gamerecommenderai.repository.SteamGenreRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Индекс жанров игр в памяти: appid → битовая маска жанров из {@code steam_apps.genre_mask}.
+ * <p>
+ * Маски лежат в двух параллельных массивах примитивов, отсортированных по appid, поиск —
+ * бинарный, без боксинга и хэш-таблиц. Снимок неизменяем и целиком подменяется в {@link #refresh()},
+ * который по расписанию вызывает {@code GameScheduler}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SteamAppGenreIndex {
+
+    private final SteamAppRepository steamAppRepository;
+    private final SteamGenreRepository steamGenreRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Возвращает текущий снимок индекса.
+     *
+     * @return снимок; до первой загрузки — пустой
+     */
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Перечитывает жанры и маски игр из БД и подменяет снимок.
+     *
+     * @return {@link Mono}, завершающийся после подмены снимка
+     */
+    public Mono<Void> refresh() {
+        return Mono.zip(steamGenreRepository.findAll().collectList(),
+                        steamAppRepository.findAllWithGenreMask().collectList())
+                .map(genresAndApps -> Snapshot.of(genresAndApps.getT1(), genresAndApps.getT2()))
+                .doOnNext(loaded -> {
+                    snapshot = loaded;
+                    log.info("Genre index refreshed: {} genres, {} apps, version={}",
+                            loaded.genreCount(), loaded.appCount(), loaded.version());
+                })
+                .then();
+    }
+
+    /**
+     * Неизменяемый снимок индекса жанров.
+     * <p>
+     * {@link #version()} зависит только от таблицы жанров (разряды и названия). Маски отдельных игр
+     * в неё не входят: игры получают жанры при каждом новом {@code GetSteamAppDetails}, и версия
+     * всего индекса менялась бы почти при каждом обновлении. Изменения масок игр конкретной
+     * библиотеки учитывает {@link #versionOf(long[])}.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], new String[0]);
+
+        private final long[] appIds;
+        private final long[] masks;
+        private final String[] genreNames;
+        private final long version;
+
+        private Snapshot(long[] appIds, long[] masks, String[] genreNames) {
+            this.appIds = appIds;
+            this.masks = masks;
+            this.genreNames = genreNames;
+            this.version = Arrays.hashCode(genreNames);
+        }
+
+        /**
+         * Собирает снимок из строк {@code steam_genres} и {@code steam_apps}.
+         * <p>
+         * Разряды маски, для которых нет жанра в {@code genres} (жанр появился между двумя запросами),
+         * отбрасываются.
+         *
+         * @param genres жанры в любом порядке
+         * @param apps   игры с {@code genre_mask}, отсортированные по appid
+         * @return снимок индекса
+         */
+        static Snapshot of(List<SteamGenreEntity> genres, List<SteamAppEntity> apps) {
+            int genreCount = genres.stream().mapToInt(genre -> genre.getBit() + 1).max().orElse(0);
+            String[] genreNames = new String[genreCount];
+            genres.forEach(genre -> genreNames[genre.getBit()] = genre.getDescription());
+            long knownBits = genreCount == Long.SIZE ? -1L : (1L << genreCount) - 1;
+
+            long[] appIds = new long[apps.size()];
+            long[] masks = new long[apps.size()];
+            for (int i = 0; i < apps.size(); i++) {
+                appIds[i] = apps.get(i).getAppid();
+                masks[i] = apps.get(i).getGenreMask() & knownBits;
+            }
+            return new Snapshot(appIds, masks, genreNames);
+        }
+
+        /**
+         * Возвращает маску жанров игры.
+         *
+         * @param appId appid игры
+         * @return маска; {@code 0}, если жанры игры неизвестны
+         */
+        public long maskOf(long appId) {
+            int index = Arrays.binarySearch(appIds, appId);
+            return index >= 0 ? masks[index] : 0L;
+        }
+
+        /**
+         * Возвращает название жанра по номеру разряда.
+         *
+         * @param bit номер разряда, {@code 0 <= bit < genreCount()}
+         * @return название жанра; {@code null} для освободившегося разряда
+         */
+        public String genreName(int bit) {
+            return genreNames[bit];
+        }
+
+        /**
+         * Возвращает длину векторов по жанрам: максимальный известный разряд + 1.
+         *
+         * @return число разрядов
+         */
+        public int genreCount() {
+            return genreNames.length;
+        }
+
+        /**
+         * Версия индекса для набора игр: меняется при изменении таблицы жанров или масок именно этих игр.
+         * От порядка appid не зависит.
+         *
+         * @param appIds appid игр библиотеки
+         * @return версия жанров библиотеки
+         */
+        public long versionOf(long[] appIds) {
+            long hash = version;
+            for (long appId : appIds) {
+                hash += mix(appId * 0x9E3779B97F4A7C15L ^ maskOf(appId));
+            }
+            return hash;
+        }
+
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+            value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+            return value ^ (value >>> 31);
+        }
+
+        public int appCount() {
+            return appIds.length;
+        }
+
+        public long version() {
+            return version;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.perevalov.gamerecommenderai.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.client.SteamPlayerSummaryBatcher;
 import ru.perevalov.gamerecommenderai.client.SteamUserClient;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamOwnedGamesResponse;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
@@ -14,6 +15,8 @@ import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
  * Предоставляет методы:
  * <ul>
  *     <li>getPlayerSummaries — получить информацию о пользователях по Steam ID</li>
+ *     <li>getPlayerSummaryBatched — то же для фоновых задач, запросы объединяются в пачки
+ *         через {@link SteamPlayerSummaryBatcher}</li>
  *     <li>getOwnedGames — получить список игр пользователя с деталями</li>
  * </ul>
  * <p>
@@ -24,11 +27,16 @@ import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
 public class SteamService {
 
     private final SteamUserClient steamUserClient;
+    private final SteamPlayerSummaryBatcher steamPlayerSummaryBatcher;
 
     public Mono<SteamPlayerResponse> getPlayerSummaries(String steamId) {
         return steamUserClient.fetchPlayerSummaries(steamId);
     }
 
+    public Mono<SteamPlayerResponse> getPlayerSummaryBatched(String steamId) {
+        return steamPlayerSummaryBatcher.fetchPlayerSummary(steamId);
+    }
+
     public Mono<SteamOwnedGamesResponse> getOwnedGames(String steamId,
                                                        boolean includeAppInfo,
                                                        boolean includePlayedFreeGames) {
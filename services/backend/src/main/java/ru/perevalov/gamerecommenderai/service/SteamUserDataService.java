@@ -4,22 +4,33 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamApiRateLimiter;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamOwnedGamesResponse;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
 import ru.perevalov.gamerecommenderai.entity.SteamProfile;
 import ru.perevalov.gamerecommenderai.entity.User;
 import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
 import ru.perevalov.gamerecommenderai.mapper.OwnedGamesSnapshotMapper;
 import ru.perevalov.gamerecommenderai.repository.SteamProfileRepository;
 import ru.perevalov.gamerecommenderai.repository.UserGameStatsRepository;
+import ru.perevalov.gamerecommenderai.repository.UserOwnedGamesRepository;
+import ru.perevalov.gamerecommenderai.repository.UserRepository;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
@@ -32,6 +43,17 @@ public class SteamUserDataService {
     private final UserDataCacheService userDataCacheService;
     private final OwnedGamesSnapshotMapper ownedGamesSnapshotMapper;
     private final UserGameStatsValidator userGameStatsValidator;
+    private final ProfileSummaryService profileSummaryService;
+    private final UserRepository userRepository;
+    private final FavoriteGenreAggregator favoriteGenreAggregator;
+    private final PlaytimeHistoryService playtimeHistoryService;
+    private final UserOwnedGamesRepository userOwnedGamesRepository;
+    private final SteamApiRateLimiter steamApiRateLimiter;
+
+    /**
+     * GetOwnedGames fetches currently in flight, keyed by steamId and the rate limit lane they wait in.
+     */
+    private final Map<GameStatsFlight, Mono<UserGameStats>> inFlightGameStats = new ConcurrentHashMap<>();
 
     /**
      * Fetches user profile and game stats from Steam API and stores them in DB + Redis cache.
@@ -46,14 +68,58 @@ public class SteamUserDataService {
         Long steamId = user.getSteamId();
         UUID userId = user.getId();
 
-        Mono<Void> profile = syncSteamProfile(steamId, userId);
+        Mono<Void> profile = syncSteamProfile(steamId, userId,
+                steamService.getPlayerSummaries(String.valueOf(steamId)));
         Mono<Void> stats = syncUserGameStats(steamId, userId);
 
         return Mono.whenDelayError(profile, stats).then();
     }
 
-    private Mono<Void> syncSteamProfile(Long steamId, UUID userId) {
-        return steamService.getPlayerSummaries(String.valueOf(steamId))
+    /**
+     * Background refresh of the Steam profile only.
+     * <p>
+     * GetPlayerSummaries goes through the batching aggregator, so concurrent refreshes of many users
+     * share a single Steam API request (and a single rate-limit token) per batch.
+     */
+    public Mono<Void> refreshSteamProfile(User user) {
+        if (user == null || user.getSteamId() == null) {
+            return Mono.empty();
+        }
+        Long steamId = user.getSteamId();
+        return syncSteamProfile(steamId, user.getId(), steamService.getPlayerSummaryBatched(String.valueOf(steamId)));
+    }
+
+    /**
+     * Background refresh of the owned games stats only.
+     */
+    public Mono<Void> refreshUserGameStats(User user) {
+        if (user == null || user.getSteamId() == null) {
+            return Mono.empty();
+        }
+        return syncUserGameStats(user.getSteamId(), user.getId());
+    }
+
+    /**
+     * Fetches owned games from Steam API and writes the resulting stats through to DB + Redis cache.
+     * <p>
+     * Used as a fallback on the recommendation hot path when {@code user_game_stats} is not there yet.
+     * If the login sync or another request for the same steamId is still running, the call joins it
+     * instead of issuing a second GetOwnedGames; a fetch started by someone else is awaited no longer
+     * than the caller's Steam API token wait deadline. For a steamId without a registered user the stats
+     * are only returned.
+     *
+     * @param steamId steamId whose library is requested
+     * @return fresh stats with owned games snapshot and profile summary
+     */
+    public Mono<UserGameStats> fetchUserGameStats(Long steamId) {
+        return userRepository.findBySteamId(steamId)
+                .map(user -> Optional.ofNullable(user.getId()))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(userId -> loadUserGameStats(steamId, userId.orElse(null)));
+    }
+
+    private Mono<Void> syncSteamProfile(Long steamId, UUID userId, Mono<SteamPlayerResponse> playerSummaries) {
+        return playerSummaries
                 .flatMap(resp -> {
                     SteamPlayerResponse.Player player = firstPlayerOrNull(resp);
                     if (player == null) {
@@ -85,12 +151,7 @@ public class SteamUserDataService {
     }
 
     private Mono<Void> syncUserGameStats(Long steamId, UUID userId) {
-        return steamService.getOwnedGames(String.valueOf(steamId), true, true)
-                .map(resp -> buildStats(steamId, userId, resp))
-                .doOnNext(userGameStatsValidator::validate)
-                .flatMap(stats -> upsertUserGameStats(userId, stats))
-                .flatMap(saved -> userDataCacheService.saveUserGameStats(steamId, saved).thenReturn(saved))
-                .doOnSuccess(saved -> log.info("User game stats synced for steamId={}, userId={}", steamId, userId))
+        return loadUserGameStats(steamId, userId)
                 .then()
                 .onErrorResume(e -> {
                     log.error("Failed to sync user game stats for steamId={}, userId={}", steamId, userId, e);
@@ -98,6 +159,69 @@ public class SteamUserDataService {
                 });
     }
 
+    /**
+     * Single-flight fetch of owned games: concurrent callers for the same steamId and rate limit lane
+     * share one GetOwnedGames request and one DB/cache write. The entry is removed once the fetch
+     * terminates, so errors are not cached and the next call fetches again.
+     * <p>
+     * A shared fetch waits for a Steam API token with the lane and deadline of the caller that started it,
+     * so flights are not shared across lanes: a background sync must not run on the interactive budget.
+     * An interactive caller joins a fetch started by someone else (the post-login sync, which runs in the
+     * background lane, or another interactive request) only for its own token wait deadline; after that it
+     * fetches directly, without waiting for the slower flight.
+     */
+    private Mono<UserGameStats> loadUserGameStats(Long steamId, UUID userId) {
+        return Mono.deferContextual(context -> {
+            SteamRequestLane lane = SteamRequestLane.from(context);
+            if (lane == SteamRequestLane.BACKGROUND) {
+                return inFlight(new GameStatsFlight(steamId, lane), userId).stats();
+            }
+            Mono<UserGameStats> background = inFlightGameStats.get(new GameStatsFlight(steamId, SteamRequestLane.BACKGROUND));
+            Flight flight = background != null
+                    ? new Flight(background, false)
+                    : inFlight(new GameStatsFlight(steamId, lane), userId);
+            if (flight.started()) {
+                return flight.stats();
+            }
+            Duration maxWait = steamApiRateLimiter.maxWaitOf(context);
+            return flight.stats().timeout(maxWait, Mono.defer(() -> {
+                log.info("Shared owned games fetch for steamId={} is slower than {}, fetching directly",
+                        steamId, maxWait);
+                return fetchAndStoreUserGameStats(steamId, userId);
+            }));
+        });
+    }
+
+    private Flight inFlight(GameStatsFlight key, UUID userId) {
+        AtomicBoolean started = new AtomicBoolean();
+        Mono<UserGameStats> stats = inFlightGameStats.computeIfAbsent(key, ignored -> {
+            started.set(true);
+            AtomicReference<Mono<UserGameStats>> self = new AtomicReference<>();
+            Mono<UserGameStats> flight = fetchAndStoreUserGameStats(key.steamId(), userId)
+                    .doFinally(signal -> inFlightGameStats.remove(key, self.get()))
+                    .cache();
+            self.set(flight);
+            return flight;
+        });
+        return new Flight(stats, started.get());
+    }
+
+    private Mono<UserGameStats> fetchAndStoreUserGameStats(Long steamId, UUID userId) {
+        Mono<UserGameStats> stats = steamService.getOwnedGames(String.valueOf(steamId), true, true)
+                .map(resp -> buildStats(steamId, userId, resp))
+                .doOnNext(userGameStatsValidator::validate);
+        if (userId == null) {
+            return stats
+                    .doOnNext(built -> favoriteGenreAggregator.aggregate(built, null))
+                    .flatMap(profileSummaryService::attachSummary);
+        }
+        return stats
+                .flatMap(built -> upsertUserGameStats(userId, built))
+                .flatMap(saved -> syncOwnedGames(userId, saved).thenReturn(saved))
+                .flatMap(saved -> userDataCacheService.saveUserGameStats(steamId, saved).thenReturn(saved))
+                .doOnSuccess(saved -> log.info("User game stats synced for steamId={}, userId={}", steamId, userId));
+    }
+
     private Mono<SteamProfile> upsertSteamProfile(Long steamId, UUID userId, SteamProfile newProfile) {
         return steamProfileRepository.findByUserId(userId)
                 .flatMap(existing -> {
@@ -115,34 +239,69 @@ public class SteamUserDataService {
     private Mono<UserGameStats> upsertUserGameStats(UUID userId, UserGameStats newStats) {
         return userGameStatsRepository.findByUserId(userId)
                 .flatMap(existing -> {
-                    existing.markAsExisting();
-                    existing.setSteamId(newStats.getSteamId());
-                    existing.setUserId(userId);
+                    // Must run before the snapshot is overwritten: genre vectors and playtime history
+                    // are both derived from the difference between the stored and the fresh snapshot.
+                    favoriteGenreAggregator.aggregate(newStats, existing);
+                    return playtimeHistoryService.recordSync(userId, existing.getUpdatedAt(),
+                                    existing.getOwnedGamesSnapshot(), newStats.getOwnedGamesSnapshot())
+                            .then(Mono.defer(() -> profileSummaryService.attachSummary(newStats)))
+                            .flatMap(attached -> saveOver(userId, existing, attached));
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    favoriteGenreAggregator.aggregate(newStats, null);
+                    return profileSummaryService.attachSummary(newStats)
+                            .flatMap(userGameStatsRepository::save);
+                }))
+                .onErrorMap(e -> new GameRecommenderException(ErrorType.USER_GAME_STATS_SAVE_ERROR, newStats.getSteamId()));
+    }
 
-                    existing.setTotalGamesOwned(newStats.getTotalGamesOwned());
-                    existing.setTotalPlaytimeForever(newStats.getTotalPlaytimeForever());
-                    existing.setTotalPlaytimeLastTwoWeeks(newStats.getTotalPlaytimeLastTwoWeeks());
+    /**
+     * Mirrors the saved snapshot into the normalized user_owned_games table. Failures are logged
+     * and swallowed: the table is rewritten from the snapshot on the next sync.
+     */
+    private Mono<Void> syncOwnedGames(UUID userId, UserGameStats saved) {
+        OwnedGamesSnapshot snapshot = saved.getOwnedGamesSnapshot();
+        List<OwnedGamesSnapshot.Game> games = snapshot != null && snapshot.getResponse() != null
+                && snapshot.getResponse().getGames() != null
+                ? snapshot.getResponse().getGames()
+                : Collections.emptyList();
+        return userOwnedGamesRepository.replaceOwnedGames(userId, games)
+                .onErrorResume(e -> {
+                    log.warn("Failed to sync owned games table for userId={}", userId, e);
+                    return Mono.empty();
+                });
+    }
 
-                    existing.setMostPlayedGameId(newStats.getMostPlayedGameId());
-                    existing.setMostPlayedGameName(newStats.getMostPlayedGameName());
-                    existing.setMostPlayedGameHours(newStats.getMostPlayedGameHours());
+    private Mono<UserGameStats> saveOver(UUID userId, UserGameStats existing, UserGameStats newStats) {
+        existing.markAsExisting();
+        existing.setSteamId(newStats.getSteamId());
+        existing.setUserId(userId);
 
-                    existing.setLastPlayedGameId(newStats.getLastPlayedGameId());
-                    existing.setLastPlayedGameName(newStats.getLastPlayedGameName());
-                    existing.setLastPlaytime(newStats.getLastPlaytime());
+        existing.setTotalGamesOwned(newStats.getTotalGamesOwned());
+        existing.setTotalPlaytimeForever(newStats.getTotalPlaytimeForever());
+        existing.setTotalPlaytimeLastTwoWeeks(newStats.getTotalPlaytimeLastTwoWeeks());
 
-                    // Favorite genre fields are not reliably derivable from Steam GetOwnedGames.
-                    // They can be enriched later via Steam Store API if needed.
-                    existing.setFavoriteGenre(newStats.getFavoriteGenre());
-                    existing.setFavoriteGenreCount(newStats.getFavoriteGenreCount());
-                    existing.setFavoriteGenreHours(newStats.getFavoriteGenreHours());
+        existing.setMostPlayedGameId(newStats.getMostPlayedGameId());
+        existing.setMostPlayedGameName(newStats.getMostPlayedGameName());
+        existing.setMostPlayedGameHours(newStats.getMostPlayedGameHours());
 
-                    existing.setOwnedGamesSnapshot(newStats.getOwnedGamesSnapshot());
+        existing.setLastPlayedGameId(newStats.getLastPlayedGameId());
+        existing.setLastPlayedGameName(newStats.getLastPlayedGameName());
+        existing.setLastPlaytime(newStats.getLastPlaytime());
 
-                    return userGameStatsRepository.save(existing);
-                })
-                .switchIfEmpty(Mono.defer(() -> userGameStatsRepository.save(newStats)))
-                .onErrorMap(e -> new GameRecommenderException(ErrorType.USER_GAME_STATS_SAVE_ERROR, newStats.getSteamId()));
+        existing.setFavoriteGenre(newStats.getFavoriteGenre());
+        existing.setFavoriteGenreCount(newStats.getFavoriteGenreCount());
+        existing.setFavoriteGenreHours(newStats.getFavoriteGenreHours());
+        existing.setGenrePlaytimeMinutes(newStats.getGenrePlaytimeMinutes());
+        existing.setGenreGameCounts(newStats.getGenreGameCounts());
+        existing.setGenreIndexVersion(newStats.getGenreIndexVersion());
+
+        existing.setOwnedGamesSnapshot(newStats.getOwnedGamesSnapshot());
+        existing.setSnapshotHash(newStats.getSnapshotHash());
+        existing.setProfileSummary(newStats.getProfileSummary());
+        existing.setProfileSummaryVersion(newStats.getProfileSummaryVersion());
+
+        return userGameStatsRepository.save(existing);
     }
 
     private UserGameStats buildStats(Long steamId, UUID userId, SteamOwnedGamesResponse ownedGamesResponse) {
@@ -199,5 +358,10 @@ public class SteamUserDataService {
         }
         return players.getFirst();
     }
-}
 
+    private record GameStatsFlight(Long steamId, SteamRequestLane lane) {
+    }
+
+    private record Flight(Mono<UserGameStats> stats, boolean started) {
+    }
+}
@@ -0,0 +1,281 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
+import ru.perevalov.gamerecommenderai.config.UserSyncQueueProps;
+import ru.perevalov.gamerecommenderai.constant.UserSyncMetricsConstant;
+import ru.perevalov.gamerecommenderai.entity.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограниченная очередь фоновой синхронизации пользовательских данных со Steam.
+ * <p>
+ * Задачи выполняются не более чем по {@code app.user-sync.queue.concurrency} одновременно,
+ * в порядке приоритета, а внутри приоритета — в порядке поступления. Ожидающие задачи
+ * дедуплицируются по steamId: повторная задача сливается с уже ожидающей, а задача с более
+ * высоким приоритетом повышает приоритет ожидающей. При переполнении действует
+ * {@link UserSyncQueueProps.OverflowPolicy}. При остановке приложения очередь перестаёт
+ * принимать задачи и ждёт выполнения оставшихся не дольше {@code shutdown-timeout}.
+ */
+@Slf4j
+@Component
+public class UserSyncQueue {
+
+    /**
+     * Приоритет задачи; чем раньше в перечислении, тем выше приоритет.
+     */
+    public enum Priority {
+        /**
+         * Полная синхронизация сразу после входа через Steam.
+         */
+        LOGIN,
+        /**
+         * Плановое обновление библиотеки игр из {@code UserDataScheduler}.
+         */
+        SCHEDULED;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final SteamUserDataService steamUserDataService;
+    private final UserSyncQueueProps props;
+    private final MeterRegistry meterRegistry;
+
+    private final PriorityQueue<Job> pending = new PriorityQueue<>(
+            Comparator.comparing((Job job) -> job.priority).thenComparingLong(job -> job.sequence));
+    private final Map<Long, Job> pendingBySteamId = new HashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Sinks.Empty<Void> drained = Sinks.empty();
+
+    private long sequence;
+    private boolean accepting = true;
+
+    public UserSyncQueue(SteamUserDataService steamUserDataService,
+                         UserSyncQueueProps props,
+                         MeterRegistry meterRegistry) {
+        this.steamUserDataService = steamUserDataService;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder(UserSyncMetricsConstant.USER_SYNC_QUEUE_DEPTH, depth, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder(UserSyncMetricsConstant.USER_SYNC_QUEUE_RUNNING, running, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставит задачу синхронизации пользователя в очередь.
+     * <p>
+     * Задача ставится сразу, без подписки на результат.
+     *
+     * @param user     пользователь со steamId
+     * @param priority приоритет задачи
+     * @return {@link Mono}, завершающийся после выполнения задачи (в том числе той, с которой она
+     * слилась), либо сразу, если задача отброшена
+     */
+    public Mono<Void> submit(User user, Priority priority) {
+        if (user == null || user.getSteamId() == null) {
+            return Mono.empty();
+        }
+
+        Job job;
+        List<Job> toStart;
+        synchronized (this) {
+            if (!accepting) {
+                count(priority, UserSyncMetricsConstant.OUTCOME_DROPPED);
+                log.warn("User sync queue is shutting down, dropping job steamId={}", user.getSteamId());
+                return Mono.empty();
+            }
+
+            Job existing = pendingBySteamId.get(user.getSteamId());
+            if (existing != null) {
+                merge(existing, user, priority);
+                count(priority, UserSyncMetricsConstant.OUTCOME_MERGED);
+                return existing.done.asMono();
+            }
+
+            if (pending.size() >= props.capacity() && !evictFor(priority)) {
+                count(priority, UserSyncMetricsConstant.OUTCOME_DROPPED);
+                log.warn("User sync queue is full, dropping job steamId={}, priority={}", user.getSteamId(), priority);
+                return Mono.empty();
+            }
+
+            job = new Job(user, priority, sequence++);
+            pending.add(job);
+            pendingBySteamId.put(user.getSteamId(), job);
+            count(priority, UserSyncMetricsConstant.OUTCOME_ACCEPTED);
+            toStart = pollRunnable();
+        }
+
+        toStart.forEach(this::start);
+        return job.done.asMono();
+    }
+
+    /**
+     * Перестаёт принимать задачи и ждёт выполнения уже поставленных.
+     */
+    @PreDestroy
+    public void shutdown() {
+        int remaining;
+        synchronized (this) {
+            accepting = false;
+            remaining = pending.size() + running.get();
+            emitDrainedIfIdle();
+        }
+        if (remaining == 0) {
+            return;
+        }
+
+        log.info("Draining user sync queue: {} jobs left, timeout={}", remaining, props.shutdownTimeout());
+        try {
+            drained.asMono().block(props.shutdownTimeout());
+        } catch (IllegalStateException e) {
+            synchronized (this) {
+                log.warn("User sync queue was not drained in {}: {} pending, {} running",
+                        props.shutdownTimeout(), pending.size(), running.get());
+            }
+        }
+    }
+
+    private void merge(Job existing, User user, Priority priority) {
+        if (priority.compareTo(existing.priority) >= 0) {
+            return;
+        }
+        pending.remove(existing);
+        existing.user = user;
+        existing.priority = priority;
+        pending.add(existing);
+    }
+
+    private boolean evictFor(Priority priority) {
+        if (props.overflowPolicy() != UserSyncQueueProps.OverflowPolicy.EVICT_LOWER_PRIORITY) {
+            return false;
+        }
+
+        Job victim = null;
+        for (Job candidate : pending) {
+            if (candidate.priority.compareTo(priority) > 0
+                    && (victim == null || pending.comparator().compare(candidate, victim) > 0)) {
+                victim = candidate;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+
+        pending.remove(victim);
+        pendingBySteamId.remove(victim.user.getSteamId());
+        depth.set(pending.size());
+        count(victim.priority, UserSyncMetricsConstant.OUTCOME_EVICTED);
+        log.warn("User sync queue is full, evicting job steamId={}, priority={}",
+                victim.user.getSteamId(), victim.priority);
+        victim.done.tryEmitEmpty();
+        return true;
+    }
+
+    private List<Job> pollRunnable() {
+        List<Job> toStart = new ArrayList<>();
+        while (running.get() < props.concurrency() && !pending.isEmpty()) {
+            Job job = pending.poll();
+            pendingBySteamId.remove(job.user.getSteamId());
+            running.incrementAndGet();
+            toStart.add(job);
+        }
+        depth.set(pending.size());
+        return toStart;
+    }
+
+    private void start(Job job) {
+        long startedNanos = System.nanoTime();
+        timer(UserSyncMetricsConstant.USER_SYNC_QUEUE_WAIT, job.priority)
+                .record(startedNanos - job.enqueuedNanos, TimeUnit.NANOSECONDS);
+
+        Mono.defer(() -> task(job))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.error("User sync job failed for steamId={}, priority={}",
+                            job.user.getSteamId(), job.priority, e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> finish(job, startedNanos))
+                .subscribe();
+    }
+
+    /**
+     * Обе задачи идут в фоновой полосе Steam API: пользователь их не ждёт, а интерактивный резерв
+     * нужен запросам рекомендаций. Вход опережает плановое обновление за счёт приоритета очереди.
+     */
+    private Mono<Void> task(Job job) {
+        Mono<Void> task = job.priority == Priority.LOGIN
+                ? steamUserDataService.syncUserData(job.user)
+                : steamUserDataService.refreshUserGameStats(job.user);
+        return task.contextWrite(SteamRequestLane.background());
+    }
+
+    private void finish(Job job, long startedNanos) {
+        timer(UserSyncMetricsConstant.USER_SYNC_JOB_DURATION, job.priority)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+
+        List<Job> toStart;
+        synchronized (this) {
+            running.decrementAndGet();
+            toStart = pollRunnable();
+            emitDrainedIfIdle();
+        }
+        job.done.tryEmitEmpty();
+        toStart.forEach(this::start);
+    }
+
+    private void emitDrainedIfIdle() {
+        if (!accepting && pending.isEmpty() && running.get() == 0) {
+            drained.tryEmitEmpty();
+        }
+    }
+
+    private Timer timer(String name, Priority priority) {
+        return Timer.builder(name)
+                .tag(UserSyncMetricsConstant.TAG_PRIORITY, priority.tag())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void count(Priority priority, String outcome) {
+        meterRegistry.counter(UserSyncMetricsConstant.USER_SYNC_QUEUE_JOBS_TOTAL,
+                UserSyncMetricsConstant.TAG_PRIORITY, priority.tag(),
+                UserSyncMetricsConstant.TAG_OUTCOME, outcome).increment();
+    }
+
+    private static final class Job {
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        private User user;
+        private Priority priority;
+
+        private Job(User user, Priority priority, long sequence) {
+            this.user = user;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
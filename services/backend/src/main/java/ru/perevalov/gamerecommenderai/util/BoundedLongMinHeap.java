@@ -0,0 +1,102 @@
+package ru.perevalov.gamerecommenderai.util;
+
+import java.util.Arrays;
+
+/**
+ * Ограниченная min-куча на примитивных {@code long} для отбора top-K без боксинга.
+ * <p>
+ * Хранит не более {@code capacity} наибольших значений: новый элемент вытесняет текущий минимум,
+ * только если он больше него. Вставка — O(log K), память — один массив {@code long[K]}.
+ * Не потокобезопасна.
+ */
+public final class BoundedLongMinHeap {
+
+    private final long[] heap;
+    private int size;
+
+    /**
+     * Создает кучу заданной вместимости.
+     *
+     * @param capacity максимальное количество хранимых значений; {@code 0} допустим
+     */
+    public BoundedLongMinHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be non-negative: " + capacity);
+        }
+        this.heap = new long[capacity];
+    }
+
+    /**
+     * Предлагает значение куче.
+     *
+     * @param value значение-кандидат
+     */
+    public void offer(long value) {
+        if (heap.length == 0) {
+            return;
+        }
+        if (size < heap.length) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (value > heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Возвращает количество хранимых значений.
+     *
+     * @return текущий размер кучи
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает хранимые значения по убыванию. Состояние кучи не меняется.
+     *
+     * @return новый массив значений, отсортированный по убыванию
+     */
+    public long[] toSortedDescending() {
+        long[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result);
+        for (int left = 0, right = result.length - 1; left < right; left++, right--) {
+            long tmp = result[left];
+            result[left] = result[right];
+            result[right] = tmp;
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private void siftDown(int index) {
+        long value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right] < heap[child]) {
+                child = right;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.perevalov.gamerecommenderai.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Хэш содержимого для адресации по контенту: ключи кэшей и дедупликация profile summary.
+ */
+@UtilityClass
+public class ContentHash {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * SHA-256 в виде hex-строки.
+     *
+     * @param value байты содержимого
+     * @return 64 hex-символа в нижнем регистре
+     */
+    public String sha256(byte[] value) {
+        try {
+            byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(value);
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+}
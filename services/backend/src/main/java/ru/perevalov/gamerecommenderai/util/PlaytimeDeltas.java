@@ -0,0 +1,194 @@
+package ru.perevalov.gamerecommenderai.util;
+
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Прирост времени игры по играм: параллельные массивы appid (по возрастанию) и минут.
+ * <p>
+ * Для хранения appid кодируются дельтами ({@link #encodedAppIds()}): первый элемент — сам appid,
+ * каждый следующий — разность с предыдущим. Разности малы, поэтому так массив лучше сжимается
+ * TOAST-ом Postgres. Сложение ({@link #plus(PlaytimeDeltas)}) — слияние двух отсортированных массивов за
+ * O(n + m). Экземпляры неизменяемы.
+ */
+public final class PlaytimeDeltas {
+
+    public static final PlaytimeDeltas EMPTY = new PlaytimeDeltas(new long[0], new int[0]);
+
+    private final long[] appIds;
+    private final int[] minutes;
+
+    private PlaytimeDeltas(long[] appIds, int[] minutes) {
+        this.appIds = appIds;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Считает прирост {@code playtime_forever} между двумя снапшотами библиотеки.
+     * <p>
+     * Учитываются только игры с положительным приростом; новая игра в библиотеке
+     * даёт прирост, равный всему её времени игры.
+     *
+     * @param previous игры из предыдущего снапшота
+     * @param current  игры из нового снапшота
+     * @return прирост по играм
+     */
+    public static PlaytimeDeltas between(List<Game> previous, List<Game> current) {
+        long[] previousAppIds = new long[previous.size()];
+        int[] previousPlaytime = new int[previous.size()];
+        int previousSize = sortedByAppId(previous, previousAppIds, previousPlaytime);
+
+        long[] currentAppIds = new long[current.size()];
+        int[] currentPlaytime = new int[current.size()];
+        int currentSize = sortedByAppId(current, currentAppIds, currentPlaytime);
+
+        long[] appIds = new long[currentSize];
+        int[] minutes = new int[currentSize];
+        int size = 0;
+        int previousIndex = 0;
+        for (int i = 0; i < currentSize; i++) {
+            while (previousIndex < previousSize && previousAppIds[previousIndex] < currentAppIds[i]) {
+                previousIndex++;
+            }
+            int before = previousIndex < previousSize && previousAppIds[previousIndex] == currentAppIds[i]
+                    ? previousPlaytime[previousIndex]
+                    : 0;
+            int delta = currentPlaytime[i] - before;
+            if (delta > 0) {
+                appIds[size] = currentAppIds[i];
+                minutes[size++] = delta;
+            }
+        }
+        return new PlaytimeDeltas(Arrays.copyOf(appIds, size), Arrays.copyOf(minutes, size));
+    }
+
+    /**
+     * Восстанавливает прирост из хранимого представления.
+     *
+     * @param encodedAppIds appid в дельта-кодировке
+     * @param minutes       прирост в минутах, по одному на appid
+     * @return прирост по играм
+     */
+    public static PlaytimeDeltas decode(Long[] encodedAppIds, Integer[] minutes) {
+        if (encodedAppIds.length != minutes.length) {
+            throw new IllegalArgumentException("appid and playtime arrays differ in length: "
+                    + encodedAppIds.length + " != " + minutes.length);
+        }
+        long[] appIds = new long[encodedAppIds.length];
+        int[] values = new int[minutes.length];
+        long appId = 0;
+        for (int i = 0; i < appIds.length; i++) {
+            appId += encodedAppIds[i];
+            appIds[i] = appId;
+            values[i] = minutes[i];
+        }
+        return new PlaytimeDeltas(appIds, values);
+    }
+
+    /**
+     * Возвращает appid в дельта-кодировке для хранения.
+     */
+    public Long[] encodedAppIds() {
+        Long[] encoded = new Long[appIds.length];
+        long previous = 0;
+        for (int i = 0; i < appIds.length; i++) {
+            encoded[i] = appIds[i] - previous;
+            previous = appIds[i];
+        }
+        return encoded;
+    }
+
+    /**
+     * Возвращает прирост в минутах в порядке {@link #appIds()}.
+     */
+    public Integer[] boxedMinutes() {
+        return Arrays.stream(minutes).boxed().toArray(Integer[]::new);
+    }
+
+    /**
+     * Складывает два прироста.
+     *
+     * @param other другой прирост
+     * @return сумма; приросты одной игры складываются
+     */
+    public PlaytimeDeltas plus(PlaytimeDeltas other) {
+        long[] mergedAppIds = new long[appIds.length + other.appIds.length];
+        int[] mergedMinutes = new int[mergedAppIds.length];
+        int size = 0;
+        int left = 0;
+        int right = 0;
+        while (left < appIds.length || right < other.appIds.length) {
+            if (right == other.appIds.length
+                    || left < appIds.length && appIds[left] < other.appIds[right]) {
+                mergedAppIds[size] = appIds[left];
+                mergedMinutes[size++] = minutes[left++];
+            } else if (left == appIds.length || other.appIds[right] < appIds[left]) {
+                mergedAppIds[size] = other.appIds[right];
+                mergedMinutes[size++] = other.minutes[right++];
+            } else {
+                mergedAppIds[size] = appIds[left];
+                mergedMinutes[size++] = minutes[left++] + other.minutes[right++];
+            }
+        }
+        return new PlaytimeDeltas(Arrays.copyOf(mergedAppIds, size), Arrays.copyOf(mergedMinutes, size));
+    }
+
+    /**
+     * Отбирает игры с наибольшим приростом.
+     *
+     * @param limit максимальное количество игр
+     * @return индексы в {@link #appIds()} по убыванию прироста; при равенстве — по возрастанию appid
+     */
+    public int[] topIndexes(int limit) {
+        BoundedLongMinHeap heap = new BoundedLongMinHeap(Math.min(limit, appIds.length));
+        for (int i = 0; i < appIds.length; i++) {
+            heap.offer(((long) minutes[i] << 32) | (Integer.MAX_VALUE - i));
+        }
+        long[] keys = heap.toSortedDescending();
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = Integer.MAX_VALUE - (int) (keys[i] & 0xFFFFFFFFL);
+        }
+        return indexes;
+    }
+
+    public long[] appIds() {
+        return appIds.clone();
+    }
+
+    public long appIdAt(int index) {
+        return appIds[index];
+    }
+
+    public int minutesAt(int index) {
+        return minutes[index];
+    }
+
+    public int size() {
+        return appIds.length;
+    }
+
+    public boolean isEmpty() {
+        return appIds.length == 0;
+    }
+
+    /**
+     * Сортирует игры с известным appid по appid в переданные массивы.
+     *
+     * @return количество записанных игр
+     */
+    private static int sortedByAppId(List<Game> games, long[] appIds, int[] playtime) {
+        Game[] sorted = games.stream()
+                .filter(game -> game.getAppId() != null)
+                .sorted(Comparator.comparingLong(Game::getAppId))
+                .toArray(Game[]::new);
+        for (int i = 0; i < sorted.length; i++) {
+            appIds[i] = sorted[i].getAppId();
+            playtime[i] = sorted[i].getPlaytimeForever() != null ? sorted[i].getPlaytimeForever() : 0;
+        }
+        return sorted.length;
+    }
+}
@@ -0,0 +1,7 @@
+-- Предрассчитанный profile summary для AI-промпта хранится рядом со снапшотом библиотеки.
+-- snapshot_hash — SHA-256 сериализованного owned_games_snapshot,
+-- profile_summary_version — snapshot_hash + версия настроек промпта, с которыми собран summary.
+ALTER TABLE game_recommender.user_game_stats
+    ADD COLUMN IF NOT EXISTS snapshot_hash VARCHAR(64),
+    ADD COLUMN IF NOT EXISTS profile_summary TEXT,
+    ADD COLUMN IF NOT EXISTS profile_summary_version VARCHAR(128);
@@ -0,0 +1,18 @@
+-- Жанры Steam из ответов Store API appdetails. bit — номер разряда в steam_apps.genre_mask,
+-- выдаётся по порядку появления жанра; Steam публикует около 30 жанров, поэтому хватает BIGINT.
+CREATE TABLE IF NOT EXISTS game_recommender.steam_genres
+(
+    bit            SMALLINT PRIMARY KEY CHECK (bit BETWEEN 0 AND 63),
+    steam_genre_id VARCHAR(16)  NOT NULL UNIQUE,
+    description    VARCHAR(100) NOT NULL
+);
+
+ALTER TABLE game_recommender.steam_apps
+    ADD COLUMN IF NOT EXISTS genre_mask BIGINT;
+
+-- Векторы минут и числа игр по жанрам (индекс элемента — steam_genres.bit) для инкрементального
+-- пересчёта любимого жанра; genre_index_version — версия индекса жанров, по которому они посчитаны.
+ALTER TABLE game_recommender.user_game_stats
+    ADD COLUMN IF NOT EXISTS genre_playtime_minutes INTEGER[],
+    ADD COLUMN IF NOT EXISTS genre_game_counts INTEGER[],
+    ADD COLUMN IF NOT EXISTS genre_index_version BIGINT;
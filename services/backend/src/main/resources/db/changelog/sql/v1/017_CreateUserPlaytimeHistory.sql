@@ -0,0 +1,31 @@
+-- Журнал прироста времени игры, только на добавление: одна строка на синхронизацию,
+-- после компакции — одна строка на пользователя за сутки.
+-- appid_deltas — appid по возрастанию в дельта-кодировке: первый элемент — сам appid,
+-- следующие — разность с предыдущим; playtime_deltas[i] — прирост playtime_forever (минуты)
+-- i-й игры за период (period_start, period_end].
+CREATE TABLE IF NOT EXISTS game_recommender.user_playtime_history
+(
+    id              UUID PRIMARY KEY,
+    user_id         UUID         NOT NULL,
+    period_start    TIMESTAMP(6) NOT NULL,
+    period_end      TIMESTAMP(6) NOT NULL,
+    compacted       BOOLEAN      NOT NULL DEFAULT FALSE,
+    appid_deltas    BIGINT[]     NOT NULL,
+    playtime_deltas INTEGER[]    NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL
+);
+
+ALTER TABLE game_recommender.user_playtime_history
+    ADD CONSTRAINT fk_user_playtime_history_users_id
+        FOREIGN KEY (user_id)
+            REFERENCES game_recommender.users (id)
+            ON DELETE CASCADE;
+
+CREATE INDEX IF NOT EXISTS idx_user_playtime_history_user_period_end
+    ON game_recommender.user_playtime_history (user_id, period_end DESC);
+
+-- Для задачи компакции: несжатые строки старше порога.
+CREATE INDEX IF NOT EXISTS idx_user_playtime_history_uncompacted
+    ON game_recommender.user_playtime_history (period_end)
+    WHERE compacted = FALSE;
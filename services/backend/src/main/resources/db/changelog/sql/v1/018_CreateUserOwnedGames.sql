@@ -0,0 +1,36 @@
+-- Нормализованная библиотека пользователя: одна строка на пару (пользователь, игра).
+-- Дублирует user_game_stats.owned_games_snapshot для set-based запросов по appid
+-- («кто владеет игрой», «что ещё есть у владельцев игры») без разбора JSONB.
+CREATE TABLE IF NOT EXISTS game_recommender.user_owned_games
+(
+    user_id          UUID    NOT NULL,
+    appid            BIGINT  NOT NULL,
+    playtime_forever INTEGER NOT NULL DEFAULT 0,
+    playtime_2weeks  INTEGER NOT NULL DEFAULT 0,
+    last_played      INTEGER,
+    PRIMARY KEY (user_id, appid)
+);
+
+ALTER TABLE game_recommender.user_owned_games
+    ADD CONSTRAINT fk_user_owned_games_users_id
+        FOREIGN KEY (user_id)
+            REFERENCES game_recommender.users (id)
+            ON DELETE CASCADE;
+
+-- Покрывающий индекс для запросов от appid: владельцы игры и их время игры читаются index-only scan.
+CREATE INDEX IF NOT EXISTS idx_user_owned_games_appid
+    ON game_recommender.user_owned_games (appid) INCLUDE (user_id, playtime_forever);
+
+-- Перенос уже сохранённых снапшотов.
+INSERT INTO game_recommender.user_owned_games (user_id, appid, playtime_forever, playtime_2weeks, last_played)
+SELECT ugs.user_id,
+       (game ->> 'appId')::BIGINT,
+       COALESCE((game ->> 'playtimeForever')::INTEGER, 0),
+       COALESCE((game ->> 'playtime2weeks')::INTEGER, 0),
+       (game ->> 'rtimeLastPlayed')::INTEGER
+FROM game_recommender.user_game_stats ugs,
+     jsonb_array_elements(ugs.owned_games_snapshot -> 'response' -> 'games') AS game
+WHERE ugs.user_id IS NOT NULL
+  AND jsonb_typeof(ugs.owned_games_snapshot -> 'response' -> 'games') = 'array'
+  AND game ->> 'appId' IS NOT NULL
+ON CONFLICT (user_id, appid) DO NOTHING;
@@ -0,0 +1,128 @@
+package ru.perevalov.gamerecommenderai.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummary;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+import ru.perevalov.gamerecommenderai.service.ProfileSummaryBuilder;
+
+/**
+ * JMH-бенчмарк сборки profile summary для библиотек разного размера.
+ * <p>
+ * {@code singlePass} — текущая реализация {@link ProfileSummaryBuilder#build},
+ * {@code threeSortedStreams} — прежняя реализация на трёх {@code sorted()} для сравнения.
+ * Запуск: {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=ru.perevalov.gamerecommenderai.benchmark.ProfileSummaryBuilderBenchmark}
+ * или из IDE через {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileSummaryBuilderBenchmark {
+
+    private static final int TOP_BY_PLAYTIME_LIST_SIZE = 10;
+    private static final int ALL_GAMES_LIST_SIZE_LIMIT = 100;
+
+    @Param({"10", "1000", "10000"})
+    private int librarySize;
+
+    private ProfileSummaryBuilder builder;
+    private OwnedGamesSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        builder = new ProfileSummaryBuilder(new ObjectMapper());
+        ReflectionTestUtils.setField(builder, "topByPlaytimeListSize", TOP_BY_PLAYTIME_LIST_SIZE);
+        ReflectionTestUtils.setField(builder, "allGamesListSizeLimit", ALL_GAMES_LIST_SIZE_LIMIT);
+        snapshot = randomSnapshot(librarySize, new Random(librarySize));
+    }
+
+    @Benchmark
+    public ProfileSummary singlePass() {
+        return builder.build(snapshot);
+    }
+
+    @Benchmark
+    public ProfileSummary threeSortedStreams() {
+        List<Game> games = snapshot.getResponse().getGames();
+        ProfileSummary summary = new ProfileSummary();
+        summary.setRecentlyPlayed(games.stream()
+                .filter(game -> game.getPlaytime2weeks() != null && game.getPlaytime2weeks() > 0)
+                .sorted(Comparator.comparing(Game::getPlaytime2weeks).reversed())
+                .map(this::toEntry)
+                .toList());
+        summary.setTopByPlaytime(games.stream()
+                .filter(game -> game.getPlaytimeForever() != null && game.getPlaytimeForever() > 0
+                        && (game.getPlaytime2weeks() == null || game.getPlaytime2weeks() <= 0))
+                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
+                .limit(TOP_BY_PLAYTIME_LIST_SIZE)
+                .map(this::toEntry)
+                .toList());
+        summary.setAllGamesPlayed(games.stream()
+                .filter(game -> game.getPlaytimeForever() != null && game.getPlaytimeForever() > 0)
+                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
+                .limit(ALL_GAMES_LIST_SIZE_LIMIT)
+                .map(this::toEntry)
+                .toList());
+        summary.setTotalGamesOwned(games.size());
+        return summary;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProfileSummaryBuilderBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private ProfileSummary.GameEntry toEntry(Game game) {
+        ProfileSummary.GameEntry entry = new ProfileSummary.GameEntry();
+        entry.setName(game.getName());
+        entry.setPlaytimeHours((int) Math.ceil(game.getPlaytimeForever() / 60.0));
+        entry.setRecentPlaytimeHours((int) Math.ceil(game.getPlaytime2weeks() / 60.0));
+        return entry;
+    }
+
+    private static OwnedGamesSnapshot randomSnapshot(int size, Random random) {
+        List<Game> games = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Game game = new Game();
+            game.setAppId((long) i);
+            game.setName("Game " + i);
+            // Примерно как в реальных библиотеках: треть игр не запускалась, единицы — в последние 2 недели.
+            game.setPlaytimeForever(random.nextInt(3) == 0 ? 0 : random.nextInt(50_000));
+            game.setPlaytime2weeks(random.nextInt(50) == 0 ? random.nextInt(1_200) : 0);
+            games.add(game);
+        }
+        OwnedGamesSnapshot.Response response = new OwnedGamesSnapshot.Response();
+        response.setGameCount(size);
+        response.setGames(games);
+
+        OwnedGamesSnapshot result = new OwnedGamesSnapshot();
+        result.setResponse(response);
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import ru.perevalov.gamerecommenderai.client.props.AiConcurrencyLimiterProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.mapper.GrpcErrorMapper;
+import ru.perevalov.gamerecommenderai.security.RequestIdentity;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+
+class AiConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicLong clock = new AtomicLong();
+    private final GrpcErrorMapper grpcErrorMapper = new GrpcErrorMapper();
+
+    @Test
+    void limit_whenBelowLimit_thenRunsCallImmediately() {
+        AiConcurrencyLimiter limiter = limiter(props(10, 10, 0));
+
+        StepVerifier.create(limiter.limit(Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertThat(gauge(GrpcAiMetricsConstant.AI_LIMITER_IN_FLIGHT)).isZero();
+    }
+
+    @Test
+    void limit_whenAtLimit_thenQueuesUntilPermitReleased() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 1));
+        Sinks.One<String> first = Sinks.one();
+
+        Disposable running = limiter.limit(first.asMono()).subscribe();
+        StepVerifier.create(limiter.limit(Mono.just("second")))
+                .then(() -> {
+                    assertThat(queueSize("guest")).isEqualTo(1.0);
+                    first.tryEmitValue("first");
+                })
+                .expectNext("second")
+                .verifyComplete();
+
+        assertThat(running.isDisposed()).isTrue();
+        assertThat(queueSize("guest")).isZero();
+        assertThat(gauge(GrpcAiMetricsConstant.AI_LIMITER_IN_FLIGHT)).isZero();
+        assertThat(meterRegistry.get(GrpcAiMetricsConstant.AI_LIMITER_QUEUE_WAIT)
+                .tag(GrpcAiMetricsConstant.TAG_ROLE, "guest").timer().count()).isEqualTo(1L);
+    }
+
+    @Test
+    void limit_whenQueueFull_thenRejectsWithOverloaded() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 0));
+        limiter.limit(Sinks.<String>one().asMono()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("second")))
+                .expectErrorSatisfies(error -> assertOverloaded(error))
+                .verify();
+
+        assertThat(rejected(GrpcAiMetricsConstant.REASON_QUEUE_FULL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void limit_whenQueueTimeoutExpires_thenRejectsWithOverloaded() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 1));
+        limiter.limit(Sinks.<String>one().asMono()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("second")))
+                .then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(5)))
+                .expectErrorSatisfies(error -> assertOverloaded(error))
+                .verify();
+
+        assertThat(rejected(GrpcAiMetricsConstant.REASON_QUEUE_TIMEOUT)).isEqualTo(1.0);
+        assertThat(queueSize("guest")).isZero();
+    }
+
+    @Test
+    void limit_whenQueuedCallCancelled_thenLeavesQueueAndDoesNotLeakPermit() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 1));
+        Sinks.One<String> first = Sinks.one();
+        limiter.limit(first.asMono()).subscribe();
+
+        Disposable queued = limiter.limit(Mono.just("second")).subscribe();
+        queued.dispose();
+        first.tryEmitValue("first");
+
+        assertThat(queueSize("guest")).isZero();
+        assertThat(gauge(GrpcAiMetricsConstant.AI_LIMITER_IN_FLIGHT)).isZero();
+        StepVerifier.create(limiter.limit(Mono.just("third")))
+                .expectNext("third")
+                .verifyComplete();
+    }
+
+    @Test
+    void limit_whenBothRolesQueued_thenSharesFreedPermitsByWeight() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 3));
+        Sinks.One<String> first = Sinks.one();
+        limiter.limit(first.asMono()).subscribe();
+
+        List<String> granted = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            limiter.limit(Mono.fromRunnable(() -> granted.add("guest"))).subscribe();
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.limit(Mono.fromRunnable(() -> granted.add("user")))
+                    .contextWrite(ctx -> ctx.put(RequestIdentity.class, user()))
+                    .subscribe();
+        }
+        assertThat(queueSize("guest")).isEqualTo(3.0);
+        assertThat(queueSize("user")).isEqualTo(3.0);
+
+        first.tryEmitValue("first");
+
+        assertThat(granted).containsExactly("user", "guest", "user", "user", "guest", "guest");
+    }
+
+    @Test
+    void limit_whenGuestQueueFull_thenStillQueuesUsers() {
+        AiConcurrencyLimiter limiter = limiter(props(1, 1, 1));
+        limiter.limit(Sinks.<String>one().asMono()).subscribe();
+        limiter.limit(Mono.just("guest")).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("guest")))
+                .expectErrorSatisfies(error -> assertOverloaded(error))
+                .verify();
+        limiter.limit(Mono.just("user"))
+                .contextWrite(ctx -> ctx.put(RequestIdentity.class, user()))
+                .subscribe();
+
+        assertThat(queueSize("user")).isEqualTo(1.0);
+        assertThat(meterRegistry.counter(GrpcAiMetricsConstant.AI_LIMITER_REJECTED_TOTAL,
+                GrpcAiMetricsConstant.TAG_REASON, GrpcAiMetricsConstant.REASON_QUEUE_FULL,
+                GrpcAiMetricsConstant.TAG_ROLE, "guest").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void limit_whenAiServiceUnavailable_thenBacksOff() {
+        AiConcurrencyLimiter limiter = limiter(props(10, 64, 0));
+
+        StepVerifier.create(limiter.limit(Mono.error(
+                        grpcErrorMapper.mapGrpcError(new StatusRuntimeException(Status.DEADLINE_EXCEEDED)))))
+                .expectError(GameRecommenderException.class)
+                .verify();
+
+        assertThat(limiter.currentLimit()).isEqualTo(9);
+    }
+
+    @Test
+    void limit_whenCircuitBreakerOpen_thenKeepsLimit() {
+        AiConcurrencyLimiter limiter = limiter(props(10, 64, 0));
+        CircuitBreaker breaker = CircuitBreaker.ofDefaults("open");
+        breaker.transitionToOpenState();
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(limiter.limit(Mono.error(grpcErrorMapper.mapGrpcError(
+                            CallNotPermittedException.createCallNotPermittedException(breaker)))))
+                    .expectErrorSatisfies(error -> assertThat(((GameRecommenderException) error).getErrorType())
+                            .isEqualTo(ErrorType.AI_SERVICE_UNAVAILABLE))
+                    .verify();
+        }
+
+        assertThat(limiter.currentLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void limit_whenRttStableUnderLoad_thenGrowsLimit() {
+        AiConcurrencyLimiter limiter = limiter(props(4, 64, 0));
+
+        for (int round = 0; round < 5; round++) {
+            runConcurrently(limiter, limiter.currentLimit(), Duration.ofMillis(100));
+        }
+
+        assertThat(limiter.currentLimit()).isGreaterThan(4);
+    }
+
+    @Test
+    void limit_whenRttGrows_thenShrinksLimit() {
+        AiConcurrencyLimiter limiter = limiter(props(10, 64, 0));
+        runConcurrently(limiter, 1, Duration.ofMillis(100));
+
+        runConcurrently(limiter, 1, Duration.ofSeconds(1));
+
+        assertThat(limiter.currentLimit()).isEqualTo(9);
+    }
+
+    private void runConcurrently(AiConcurrencyLimiter limiter, int calls, Duration rtt) {
+        Sinks.One<String> done = Sinks.one();
+        for (int i = 0; i < calls; i++) {
+            limiter.limit(done.asMono()).subscribe();
+        }
+        clock.addAndGet(rtt.toNanos());
+        done.tryEmitValue("done");
+    }
+
+    private AiConcurrencyLimiter limiter(AiConcurrencyLimiterProps props) {
+        return new AiConcurrencyLimiter(props, meterRegistry, scheduler, clock::get);
+    }
+
+    private AiConcurrencyLimiterProps props(int initialLimit, int maxLimit, int maxQueueSize) {
+        return new AiConcurrencyLimiterProps(
+                true, initialLimit, 1, maxLimit, 2.0, 0.2, 0.9, 100,
+                new AiConcurrencyLimiterProps.RoleQueue(2, maxQueueSize, Duration.ofSeconds(5)),
+                new AiConcurrencyLimiterProps.RoleQueue(1, maxQueueSize, Duration.ofSeconds(5)));
+    }
+
+    private RequestIdentity user() {
+        return new RequestIdentity("session", UserRole.USER, 76561198000000001L);
+    }
+
+    private double queueSize(String role) {
+        return meterRegistry.get(GrpcAiMetricsConstant.AI_LIMITER_QUEUE_SIZE)
+                .tag(GrpcAiMetricsConstant.TAG_ROLE, role).gauge().value();
+    }
+
+    private void assertOverloaded(Throwable error) {
+        assertThat(error).isInstanceOf(GameRecommenderException.class);
+        assertThat(((GameRecommenderException) error).getErrorType()).isEqualTo(ErrorType.AI_SERVICE_OVERLOADED);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get(GrpcAiMetricsConstant.AI_LIMITER_REJECTED_TOTAL)
+                .tag(GrpcAiMetricsConstant.TAG_REASON, reason).counter().count();
+    }
+}
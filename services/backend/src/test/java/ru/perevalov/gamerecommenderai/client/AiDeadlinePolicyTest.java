@@ -0,0 +1,139 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.client.props.AiDeadlineProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.filter.RequestBudget;
+
+class AiDeadlinePolicyTest {
+
+    private static final Duration MIN_DEADLINE = Duration.ofSeconds(5);
+    private static final Duration MAX_DEADLINE = Duration.ofSeconds(60);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final AiDeadlinePolicy policy = new AiDeadlinePolicy(
+            new AiDeadlineProps(true, 0.99, 1.5, 200, 3, MIN_DEADLINE, MAX_DEADLINE, Duration.ofSeconds(1)),
+            meterRegistry,
+            clock::get
+    );
+
+    @Test
+    void next_beforeEnoughSamples_thenUsesMaxDeadline() {
+        call("deepseek", Duration.ofSeconds(8));
+
+        StepVerifier.create(policy.next())
+                .expectNext(new AiDeadlinePolicy.Deadline(MAX_DEADLINE, false))
+                .verifyComplete();
+    }
+
+    @Test
+    void next_afterEnoughSamples_thenFollowsProviderLatencyWithHeadroom() {
+        call("deepseek", Duration.ofSeconds(6));
+        call("deepseek", Duration.ofSeconds(8));
+        call("deepseek", Duration.ofSeconds(10));
+
+        assertThat(policy.currentDeadline()).isEqualTo(Duration.ofSeconds(15));
+        assertThat(meterRegistry.get(GrpcAiMetricsConstant.AI_DEADLINE)
+                .tag(GrpcAiMetricsConstant.TAG_PROVIDER, "deepseek").gauge().value()).isEqualTo(15.0);
+    }
+
+    @Test
+    void next_whenLatencyIsTiny_thenClampsToMinDeadline() {
+        for (int i = 0; i < 3; i++) {
+            call("deepseek", Duration.ofMillis(200));
+        }
+
+        assertThat(policy.currentDeadline()).isEqualTo(MIN_DEADLINE);
+    }
+
+    @Test
+    void next_whenProviderSwitches_thenStartsFromMaxDeadlineForNewProvider() {
+        for (int i = 0; i < 3; i++) {
+            call("deepseek", Duration.ofSeconds(4));
+        }
+        call("gigachat", Duration.ofSeconds(4));
+
+        assertThat(policy.currentDeadline()).isEqualTo(MAX_DEADLINE);
+    }
+
+    @Test
+    void next_whenRequestBudgetIsShorter_thenDeadlineIsBoundByBudget() {
+        RequestBudget budget = new RequestBudget(Duration.ofSeconds(20).toNanos());
+        clock.set(Duration.ofSeconds(8).toNanos());
+
+        StepVerifier.create(policy.next().contextWrite(budget.asContext()))
+                .expectNext(new AiDeadlinePolicy.Deadline(Duration.ofSeconds(12), true))
+                .verifyComplete();
+    }
+
+    @Test
+    void next_whenRequestBudgetIsSpent_thenFailsWithoutCalling() {
+        RequestBudget budget = new RequestBudget(Duration.ofSeconds(20).toNanos());
+        clock.set(Duration.ofMillis(19_500).toNanos());
+
+        StepVerifier.create(policy.next().contextWrite(budget.asContext()))
+                .expectErrorSatisfies(error -> assertThat(((GameRecommenderException) error).getErrorType())
+                        .isEqualTo(ErrorType.AI_REQUEST_BUDGET_EXHAUSTED))
+                .verify();
+
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_BUDGET_EXHAUSTED)).isEqualTo(1.0);
+    }
+
+    @Test
+    void track_whenAdaptiveDeadlineExpires_thenKeepsGrpcErrorAndCountsDeadlineExceeded() {
+        AiDeadlinePolicy.Deadline deadline = new AiDeadlinePolicy.Deadline(MAX_DEADLINE, false);
+
+        StepVerifier.create(policy.track(deadline, expire(), value -> value))
+                .expectErrorSatisfies(error -> assertThat(Status.fromThrowable(error).getCode())
+                        .isEqualTo(Status.Code.DEADLINE_EXCEEDED))
+                .verify();
+
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_DEADLINE_EXCEEDED)).isEqualTo(1.0);
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_BUDGET_EXHAUSTED)).isZero();
+    }
+
+    @Test
+    void track_whenBudgetBoundDeadlineExpires_thenReportsBudgetExhausted() {
+        AiDeadlinePolicy.Deadline deadline = new AiDeadlinePolicy.Deadline(Duration.ofSeconds(3), true);
+
+        StepVerifier.create(policy.track(deadline, expire(), value -> value))
+                .expectErrorSatisfies(error -> assertThat(((GameRecommenderException) error).getErrorType())
+                        .isEqualTo(ErrorType.AI_REQUEST_BUDGET_EXHAUSTED))
+                .verify();
+
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_BUDGET_EXHAUSTED)).isEqualTo(1.0);
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_DEADLINE_EXCEEDED)).isZero();
+    }
+
+    private void call(String provider, Duration latency) {
+        AiDeadlinePolicy.Deadline deadline = new AiDeadlinePolicy.Deadline(MAX_DEADLINE, false);
+        Mono<String> response = Mono.fromSupplier(() -> {
+            clock.addAndGet(latency.toNanos());
+            return provider;
+        });
+        StepVerifier.create(policy.track(deadline, response, value -> value))
+                .expectNext(provider)
+                .verifyComplete();
+    }
+
+    private Mono<String> expire() {
+        return Mono.error(new StatusRuntimeException(Status.DEADLINE_EXCEEDED));
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter(GrpcAiMetricsConstant.AI_DEADLINE_OUTCOME_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME, outcome).count();
+    }
+}
@@ -0,0 +1,176 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.client.props.AiProfileSummaryDedupProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+import ru.perevalov.gamerecommenderai.grpc.FullAiContextRequestProto;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationChunk;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationResponse;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationSummary;
+
+class AiProfileSummaryDedupTest {
+
+    private static final String SUMMARY = "{\"totalGamesOwned\":3,\"allGamesPlayed\":[\"Hades\"]}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ticker = new AtomicLong();
+    private final List<FullAiContextRequestProto> sent = new ArrayList<>();
+    private AiProfileSummaryDedup dedup = newDedup(true);
+
+    @Test
+    void send_beforeAcknowledge_thenSendsBodyWithHash() {
+        StepVerifier.create(dedup.send(request(), this::answer, RecommendationResponse::getProfileSummaryCached))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(sent).singleElement().satisfies(request -> {
+            assertThat(request.getProfileSummary()).isEqualTo(SUMMARY);
+            assertThat(request.getProfileSummaryHash()).hasSize(64);
+        });
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_FULL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void send_afterAcknowledge_thenSendsOnlyHash() {
+        send(request());
+        send(request());
+
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1).getProfileSummary()).isEmpty();
+        assertThat(sent.get(1).getProfileSummaryHash()).isEqualTo(sent.get(0).getProfileSummaryHash());
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_HASH_ONLY)).isEqualTo(1.0);
+        assertThat(meterRegistry.counter(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_BYTES_SAVED_TOTAL).count())
+                .isEqualTo(SUMMARY.length());
+    }
+
+    @Test
+    void send_whenServerDoesNotAcknowledge_thenKeepsSendingBody() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(dedup.send(request(), r -> {
+                        sent.add(r);
+                        return Mono.just(RecommendationResponse.newBuilder().setSuccess(true).build());
+                    }, RecommendationResponse::getProfileSummaryCached))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        assertThat(sent).extracting(FullAiContextRequestProto::getProfileSummary).containsOnly(SUMMARY);
+    }
+
+    @Test
+    void send_whenServerMissesHash_thenResendsBodyInSameCall() {
+        send(request());
+        List<FullAiContextRequestProto> attempts = new ArrayList<>();
+
+        StepVerifier.create(dedup.send(request(), r -> {
+                    attempts.add(r);
+                    return r.getProfileSummary().isEmpty() ? Mono.error(miss(r.getProfileSummaryHash())) : answer(r);
+                }, RecommendationResponse::getProfileSummaryCached))
+                .assertNext(response -> assertThat(response.getSuccess()).isTrue())
+                .verifyComplete();
+
+        assertThat(attempts).extracting(FullAiContextRequestProto::getProfileSummary).containsExactly("", SUMMARY);
+        assertThat(outcome(GrpcAiMetricsConstant.OUTCOME_MISS)).isEqualTo(1.0);
+    }
+
+    @Test
+    void send_whenOtherFailedPrecondition_thenPropagatesWithoutResend() {
+        send(request());
+        List<FullAiContextRequestProto> attempts = new ArrayList<>();
+
+        StepVerifier.create(dedup.send(request(), r -> {
+                    attempts.add(r);
+                    return Mono.<RecommendationResponse>error(new StatusRuntimeException(Status.FAILED_PRECONDITION));
+                }, RecommendationResponse::getProfileSummaryCached))
+                .expectErrorSatisfies(error -> assertThat(Status.fromThrowable(error).getCode())
+                        .isEqualTo(Status.Code.FAILED_PRECONDITION))
+                .verify();
+
+        assertThat(attempts).hasSize(1);
+    }
+
+    @Test
+    void sendStream_whenSummaryChunkAcknowledges_thenNextStreamSendsOnlyHash() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(dedup.sendStream(request(), r -> {
+                        sent.add(r);
+                        return Flux.just(
+                                RecommendationChunk.newBuilder().setReasoning("because").build(),
+                                RecommendationChunk.newBuilder().setSummary(
+                                        RecommendationSummary.newBuilder().setSuccess(true).setProfileSummaryCached(true)).build());
+                    }, chunk -> chunk.hasSummary() && chunk.getSummary().getProfileSummaryCached()))
+                    .expectNextCount(2)
+                    .verifyComplete();
+        }
+
+        assertThat(sent).extracting(FullAiContextRequestProto::getProfileSummary).containsExactly(SUMMARY, "");
+    }
+
+    @Test
+    void send_afterTtl_thenSendsBodyAgain() {
+        send(request());
+        ticker.addAndGet(Duration.ofMinutes(31).toNanos());
+        send(request());
+
+        assertThat(sent).extracting(FullAiContextRequestProto::getProfileSummary).containsExactly(SUMMARY, SUMMARY);
+    }
+
+    @Test
+    void send_whenDisabledOrNoSummary_thenLeavesRequestUntouched() {
+        dedup = newDedup(false);
+        send(request());
+        send(request());
+        dedup = newDedup(true);
+        send(FullAiContextRequestProto.newBuilder().setUserMessage("hi").build());
+
+        assertThat(sent).extracting(FullAiContextRequestProto::getProfileSummaryHash).containsOnly("");
+        assertThat(sent.get(1).getProfileSummary()).isEqualTo(SUMMARY);
+    }
+
+    private void send(FullAiContextRequestProto request) {
+        StepVerifier.create(dedup.send(request, this::answer, RecommendationResponse::getProfileSummaryCached))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    private Mono<RecommendationResponse> answer(FullAiContextRequestProto request) {
+        sent.add(request);
+        return Mono.just(RecommendationResponse.newBuilder()
+                .setSuccess(true)
+                .setProfileSummaryCached(!request.getProfileSummaryHash().isEmpty())
+                .build());
+    }
+
+    private AiProfileSummaryDedup newDedup(boolean enabled) {
+        return new AiProfileSummaryDedup(new AiProfileSummaryDedupProps(enabled, 100, Duration.ofMinutes(30)),
+                meterRegistry, ticker::get);
+    }
+
+    private static FullAiContextRequestProto request() {
+        return FullAiContextRequestProto.newBuilder().setUserMessage("hi").setProfileSummary(SUMMARY).build();
+    }
+
+    private static StatusRuntimeException miss(String hash) {
+        Metadata trailers = new Metadata();
+        trailers.put(AiProfileSummaryDedup.MISS_TRAILER, hash);
+        return new StatusRuntimeException(Status.FAILED_PRECONDITION, trailers);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_DEDUP_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME, outcome).count();
+    }
+}
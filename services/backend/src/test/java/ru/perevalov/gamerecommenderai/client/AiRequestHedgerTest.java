@@ -0,0 +1,132 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import ru.perevalov.gamerecommenderai.client.props.AiHedgingProps;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+
+class AiRequestHedgerTest {
+
+    private static final Duration INITIAL_DELAY = Duration.ofSeconds(10);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Sinks.One<String>> attempts = new ArrayList<>();
+    private final List<Boolean> cancelled = new ArrayList<>();
+
+    @Test
+    void hedge_whenPrimaryAnswersInTime_thenDoesNotHedge() {
+        AiRequestHedger hedger = hedger(1.0);
+
+        StepVerifier.create(hedger.hedge(this::attempt))
+                .then(() -> attempts.get(0).tryEmitValue("primary"))
+                .expectNext("primary")
+                .verifyComplete();
+
+        scheduler.advanceTimeBy(INITIAL_DELAY);
+        assertThat(attempts).hasSize(1);
+        assertThat(counter(GrpcAiMetricsConstant.AI_HEDGE_FIRED_TOTAL)).isZero();
+    }
+
+    @Test
+    void hedge_whenPrimaryIsSlow_thenSecondAttemptWinsAndPrimaryIsCancelled() {
+        AiRequestHedger hedger = hedger(1.0);
+
+        StepVerifier.create(hedger.hedge(this::attempt))
+                .then(() -> scheduler.advanceTimeBy(INITIAL_DELAY))
+                .then(() -> attempts.get(1).tryEmitValue("hedge"))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertThat(cancelled).containsExactly(true, false);
+        assertThat(counter(GrpcAiMetricsConstant.AI_HEDGE_FIRED_TOTAL)).isEqualTo(1.0);
+        assertThat(counter(GrpcAiMetricsConstant.AI_HEDGE_WON_TOTAL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void hedge_whenBudgetIsSpent_thenWaitsForPrimaryOnly() {
+        AiRequestHedger hedger = hedger(0.5);
+
+        StepVerifier.create(hedger.hedge(this::attempt))
+                .then(() -> scheduler.advanceTimeBy(INITIAL_DELAY))
+                .then(() -> attempts.get(0).tryEmitValue("primary"))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(attempts).hasSize(1);
+        assertThat(counter(GrpcAiMetricsConstant.AI_HEDGE_BUDGET_EXHAUSTED_TOTAL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void hedge_whenPrimaryFailsBeforeHedge_thenFailsImmediately() {
+        AiRequestHedger hedger = hedger(1.0);
+
+        StepVerifier.create(hedger.hedge(this::attempt))
+                .then(() -> attempts.get(0).tryEmitError(new StatusRuntimeException(Status.UNAVAILABLE)))
+                .expectErrorSatisfies(error -> assertThat(Status.fromThrowable(error).getCode())
+                        .isEqualTo(Status.Code.UNAVAILABLE))
+                .verify();
+
+        assertThat(attempts).hasSize(1);
+    }
+
+    @Test
+    void hedge_whenBothAttemptsFail_thenPropagatesGrpcError() {
+        AiRequestHedger hedger = hedger(1.0);
+
+        StepVerifier.create(hedger.hedge(this::attempt))
+                .then(() -> scheduler.advanceTimeBy(INITIAL_DELAY))
+                .then(() -> attempts.get(0).tryEmitError(new StatusRuntimeException(Status.DEADLINE_EXCEEDED)))
+                .then(() -> attempts.get(1).tryEmitError(new StatusRuntimeException(Status.UNAVAILABLE)))
+                .expectErrorSatisfies(error -> assertThat(error).isInstanceOf(StatusRuntimeException.class))
+                .verify();
+    }
+
+    @Test
+    void hedge_afterEnoughSamples_thenDelayFollowsLatencyPercentile() {
+        AiRequestHedger hedger = hedger(1.0);
+
+        for (long seconds : new long[]{2, 3, 4}) {
+            StepVerifier.create(hedger.hedge(this::attempt))
+                    .then(() -> {
+                        clock.addAndGet(Duration.ofSeconds(seconds).toNanos());
+                        attempts.get(attempts.size() - 1).tryEmitValue("ok");
+                    })
+                    .expectNext("ok")
+                    .verifyComplete();
+        }
+
+        assertThat(hedger.currentDelay()).isEqualTo(Duration.ofSeconds(4));
+    }
+
+    private Mono<String> attempt() {
+        Sinks.One<String> sink = Sinks.one();
+        int index = attempts.size();
+        attempts.add(sink);
+        cancelled.add(false);
+        return sink.asMono().doOnCancel(() -> cancelled.set(index, true));
+    }
+
+    private AiRequestHedger hedger(double budgetRatio) {
+        AiHedgingProps props = new AiHedgingProps(
+                true, 0.95, 200, 3, INITIAL_DELAY, Duration.ofSeconds(1), budgetRatio, 3);
+        return new AiRequestHedger(props, meterRegistry, scheduler, clock::get);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+}
@@ -3,10 +3,12 @@ package ru.perevalov.gamerecommenderai.client;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.grpc.Status;
@@ -22,18 +24,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryMode;
 import ru.perevalov.gamerecommenderai.exception.ErrorType;
 import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.filter.RequestBudget;
 import ru.perevalov.gamerecommenderai.grpc.FullAiContextRequestProto;
 import ru.perevalov.gamerecommenderai.grpc.ReactorGameRecommenderServiceGrpc;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationChunk;
 import ru.perevalov.gamerecommenderai.grpc.RecommendationResponse;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationSummary;
+import ru.perevalov.gamerecommenderai.client.props.AiConcurrencyLimiterProps;
+import ru.perevalov.gamerecommenderai.client.props.AiDeadlineProps;
 import ru.perevalov.gamerecommenderai.client.props.AiGrpcClientProps;
+import ru.perevalov.gamerecommenderai.client.props.AiHedgingProps;
+import ru.perevalov.gamerecommenderai.client.props.AiProfileSummaryDedupProps;
 import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
 import ru.perevalov.gamerecommenderai.mapper.GrpcErrorMapper;
 import ru.perevalov.gamerecommenderai.mapper.GrpcMapper;
+import ru.perevalov.gamerecommenderai.service.ProfileSummaryBuilder;
 
 @ExtendWith(MockitoExtension.class)
 class GameRecommenderGrpcClientTest {
@@ -47,6 +59,7 @@ class GameRecommenderGrpcClientTest {
     private final GrpcErrorMapper grpcErrorMapper = new GrpcErrorMapper();
     private SimpleMeterRegistry meterRegistry;
     private AiGrpcClientProps aiGrpcClientProps;
+    private ProfileSummaryBuilder profileSummaryBuilder;
 
     @BeforeEach
     void setUp() {
@@ -54,7 +67,8 @@ class GameRecommenderGrpcClientTest {
                 .thenReturn(FullAiContextRequestProto.getDefaultInstance());
         when(grpcStub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(grpcStub);
         meterRegistry = new SimpleMeterRegistry();
-        aiGrpcClientProps = new AiGrpcClientProps(1, 1, 0);
+        aiGrpcClientProps = new AiGrpcClientProps(1, 0);
+        profileSummaryBuilder = new ProfileSummaryBuilder(new ObjectMapper());
     }
 
     @Test
@@ -80,6 +94,29 @@ class GameRecommenderGrpcClientTest {
         assertThat(timerCount(GrpcAiMetricsConstant.AI_SERVICE_LATENCY, GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_SUCCESS)).isEqualTo(1L);
     }
 
+    @Test
+    void getGameRecommendations_recordsProfileSummarySizeAndLatencyBySummaryMode() {
+        when(grpcStub.recommendGames(any(FullAiContextRequestProto.class))).thenReturn(Mono.just(successResponse()));
+
+        GameRecommenderGrpcClient client = buildClient(CircuitBreaker.ofDefaults("summary-mode"));
+        ReflectionTestUtils.setField(profileSummaryBuilder, "summaryMode", ProfileSummaryMode.COMPACT);
+
+        StepVerifier.create(client.getGameRecommendations(requestMono()))
+                .assertNext(response -> assertThat(response.getSuccess()).isTrue())
+                .verifyComplete();
+
+        var summarySize = meterRegistry.find(GrpcAiMetricsConstant.AI_PROFILE_SUMMARY_BYTES)
+                .tags(GrpcAiMetricsConstant.TAG_SUMMARY_MODE, "compact")
+                .summary();
+        assertThat(summarySize).isNotNull();
+        assertThat(summarySize.count()).isEqualTo(1L);
+        assertThat(timerCount(
+                GrpcAiMetricsConstant.AI_SERVICE_LATENCY,
+                GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_SUCCESS,
+                GrpcAiMetricsConstant.TAG_SUMMARY_MODE, "compact"
+        )).isEqualTo(1L);
+    }
+
     @Test
     void getGameRecommendations_whenDeadlineExceeded_thenRetriesExactlyOnce() {
         AtomicInteger attempts = new AtomicInteger();
@@ -102,6 +139,36 @@ class GameRecommenderGrpcClientTest {
         assertThat(counterValue(GrpcAiMetricsConstant.AI_RETRY_TOTAL)).isEqualTo(1.0);
     }
 
+    @Test
+    void getGameRecommendations_whenDeadlineBoundByRequestBudgetExpires_thenBudgetExhaustedWithoutRetry() {
+        when(grpcStub.recommendGames(any(FullAiContextRequestProto.class)))
+                .thenReturn(Mono.error(new StatusRuntimeException(Status.DEADLINE_EXCEEDED)));
+
+        GameRecommenderGrpcClient client = buildClient(CircuitBreaker.ofDefaults("budget-exhausted"));
+        RequestBudget budget = RequestBudget.startingNow(Duration.ofSeconds(5));
+
+        StepVerifier.create(client.getGameRecommendations(requestMono()).contextWrite(budget.asContext()))
+                .expectErrorSatisfies(throwable -> {
+                    GameRecommenderException ex = assertGameRecommenderException(throwable);
+                    assertThat(ex.getErrorType()).isEqualTo(ErrorType.AI_REQUEST_BUDGET_EXHAUSTED);
+                })
+                .verify();
+
+        verify(grpcStub, times(1)).recommendGames(any(FullAiContextRequestProto.class));
+        verify(grpcStub).withDeadlineAfter(longThat(millis -> millis <= 5000),
+                any(TimeUnit.class));
+        assertThat(counterValue(
+                GrpcAiMetricsConstant.AI_DEADLINE_OUTCOME_TOTAL,
+                GrpcAiMetricsConstant.TAG_OUTCOME,
+                GrpcAiMetricsConstant.OUTCOME_BUDGET_EXHAUSTED
+        )).isEqualTo(1.0);
+        assertThat(counterValue(
+                GrpcAiMetricsConstant.AI_FAILURES_TOTAL,
+                GrpcAiMetricsConstant.TAG_REASON,
+                ErrorType.AI_REQUEST_BUDGET_EXHAUSTED.name()
+        )).isEqualTo(1.0);
+    }
+
     @Test
     void getGameRecommendations_whenStatusIsNotRetryable_thenNoRetry() {
         when(grpcStub.recommendGames(any(FullAiContextRequestProto.class)))
@@ -271,18 +338,85 @@ class GameRecommenderGrpcClientTest {
         )).isEqualTo(1.0);
     }
 
+    @Test
+    void streamGameRecommendations_emitsChunksAndRecordsFirstChunkAndTotalLatency() {
+        when(grpcStub.streamRecommendGames(any(FullAiContextRequestProto.class)))
+                .thenReturn(Flux.just(reasoningChunk(), summaryChunk()));
+
+        GameRecommenderGrpcClient client = buildClient(CircuitBreaker.ofDefaults("stream-success"));
+
+        StepVerifier.create(client.streamGameRecommendations(requestMono()))
+                .assertNext(chunk -> assertThat(chunk.getReasoning()).isEqualTo("because"))
+                .assertNext(chunk -> assertThat(chunk.getSummary().getSuccess()).isTrue())
+                .verifyComplete();
+
+        assertThat(timerCount(GrpcAiMetricsConstant.AI_SERVICE_FIRST_CHUNK_LATENCY)).isEqualTo(1L);
+        assertThat(timerCount(GrpcAiMetricsConstant.AI_SERVICE_LATENCY, GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_SUCCESS)).isEqualTo(1L);
+    }
+
+    @Test
+    void streamGameRecommendations_whenUnavailableBeforeFirstChunk_thenRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(grpcStub.streamRecommendGames(any(FullAiContextRequestProto.class)))
+                .thenAnswer(invocation -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        return Flux.error(new StatusRuntimeException(Status.UNAVAILABLE));
+                    }
+                    return Flux.just(summaryChunk());
+                });
+
+        GameRecommenderGrpcClient client = buildClient(CircuitBreaker.ofDefaults("stream-retry"));
+
+        StepVerifier.create(client.streamGameRecommendations(requestMono()))
+                .assertNext(chunk -> assertThat(chunk.hasSummary()).isTrue())
+                .verifyComplete();
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(counterValue(GrpcAiMetricsConstant.AI_RETRY_TOTAL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void streamGameRecommendations_whenUnavailableAfterFirstChunk_thenFailsWithoutRetry() {
+        when(grpcStub.streamRecommendGames(any(FullAiContextRequestProto.class)))
+                .thenReturn(Flux.just(reasoningChunk())
+                        .concatWith(Flux.error(new StatusRuntimeException(Status.UNAVAILABLE))));
+
+        GameRecommenderGrpcClient client = buildClient(CircuitBreaker.ofDefaults("stream-no-retry"));
+
+        StepVerifier.create(client.streamGameRecommendations(requestMono()))
+                .assertNext(chunk -> assertThat(chunk.getReasoning()).isEqualTo("because"))
+                .expectError(GameRecommenderException.class)
+                .verify();
+
+        verify(grpcStub, times(1)).streamRecommendGames(any(FullAiContextRequestProto.class));
+        assertThat(counterValue(GrpcAiMetricsConstant.AI_RETRY_TOTAL)).isEqualTo(0.0);
+        assertThat(timerCount(GrpcAiMetricsConstant.AI_SERVICE_LATENCY, GrpcAiMetricsConstant.TAG_OUTCOME, GrpcAiMetricsConstant.OUTCOME_ERROR)).isEqualTo(1L);
+    }
+
     private GameRecommenderGrpcClient buildClient(CircuitBreaker circuitBreaker) {
         GameRecommenderGrpcClient client = new GameRecommenderGrpcClient(
                 grpcMapper,
                 grpcErrorMapper,
                 circuitBreaker,
                 meterRegistry,
-                aiGrpcClientProps
+                aiGrpcClientProps,
+                new AiConcurrencyLimiter(limiterProps(), meterRegistry),
+                new AiRequestHedger(new AiHedgingProps(false, 0.95, 200, 20, Duration.ofSeconds(10),
+                        Duration.ofSeconds(1), 0.05, 3), meterRegistry),
+                new AiDeadlinePolicy(new AiDeadlineProps(true, 0.99, 1.5, 200, 20, Duration.ofSeconds(5),
+                        Duration.ofSeconds(60), Duration.ofSeconds(1)), meterRegistry),
+                new AiProfileSummaryDedup(new AiProfileSummaryDedupProps(true, 100, Duration.ofMinutes(30)), meterRegistry),
+                profileSummaryBuilder
         );
         ReflectionTestUtils.setField(client, "gameRecommenderServiceStub", grpcStub);
         return client;
     }
 
+    private AiConcurrencyLimiterProps limiterProps() {
+        AiConcurrencyLimiterProps.RoleQueue queue = new AiConcurrencyLimiterProps.RoleQueue(1, 50, Duration.ofSeconds(5));
+        return new AiConcurrencyLimiterProps(true, 10, 2, 64, 2.0, 0.2, 0.9, 100, queue, queue);
+    }
+
     private Mono<AiContextRequest> requestMono() {
         return Mono.just(AiContextRequest.builder().userMessage("find me game").build());
     }
@@ -291,6 +425,16 @@ class GameRecommenderGrpcClientTest {
         return RecommendationResponse.newBuilder().setSuccess(true).setMessage("ok").build();
     }
 
+    private RecommendationChunk reasoningChunk() {
+        return RecommendationChunk.newBuilder().setReasoning("because").build();
+    }
+
+    private RecommendationChunk summaryChunk() {
+        return RecommendationChunk.newBuilder()
+                .setSummary(RecommendationSummary.newBuilder().setSuccess(true).setMessage("ok"))
+                .build();
+    }
+
     private GameRecommenderException assertGameRecommenderException(Throwable throwable) {
         assertThat(throwable).isInstanceOf(GameRecommenderException.class);
         return (GameRecommenderException) throwable;
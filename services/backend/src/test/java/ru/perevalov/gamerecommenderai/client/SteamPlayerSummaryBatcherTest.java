@@ -0,0 +1,116 @@
+package ru.perevalov.gamerecommenderai.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.perevalov.gamerecommenderai.dto.steam.SteamPlayerResponse;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+
+class SteamPlayerSummaryBatcherTest {
+
+    private SteamUserClient steamUserClient;
+    private SteamPlayerSummaryBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        steamUserClient = mock(SteamUserClient.class);
+        batcher = startBatcher(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void fetchPlayerSummary_concurrentCallers_thenSingleRequestAndOwnPlayerForEach() {
+        when(steamUserClient.fetchPlayerSummaries(anyCollection()))
+                .thenReturn(Mono.just(response(player("2"), player("1"))));
+
+        List<SteamPlayerResponse> responses = Flux.just("1", "2", "3")
+                .flatMap(batcher::fetchPlayerSummary)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(responses).hasSize(3);
+        assertThat(responses)
+                .extracting(response -> response.getResponse().getPlayers().size())
+                .containsExactlyInAnyOrder(1, 1, 0);
+        assertThat(requestedSteamIds(1).getFirst()).containsExactlyInAnyOrder("1", "2", "3");
+    }
+
+    @Test
+    void fetchPlayerSummary_whenMoreThanMaxSize_thenSplitsIntoBatches() {
+        batcher.shutdown();
+        batcher = startBatcher(2);
+        when(steamUserClient.fetchPlayerSummaries(anyCollection())).thenReturn(Mono.just(response()));
+
+        Flux.fromStream(IntStream.range(0, 5).mapToObj(String::valueOf))
+                .flatMap(batcher::fetchPlayerSummary)
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(requestedSteamIds(3)).allSatisfy(ids -> assertThat(ids).hasSizeLessThanOrEqualTo(2));
+    }
+
+    @Test
+    void fetchPlayerSummary_whenBatchFails_thenErrorDeliveredToEachCaller() {
+        GameRecommenderException error =
+                new GameRecommenderException(ErrorType.STEAM_API_PLAYER_SUMMARY_ERROR, "1,2");
+        when(steamUserClient.fetchPlayerSummaries(anyCollection())).thenReturn(Mono.error(error));
+
+        List<Throwable> errors = Flux.just("1", "2")
+                .flatMap(steamId -> batcher.fetchPlayerSummary(steamId)
+                        .<Throwable>map(response -> new AssertionError("unexpected response"))
+                        .onErrorResume(Mono::just))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(errors).containsExactly(error, error);
+        requestedSteamIds(1);
+    }
+
+    private SteamPlayerSummaryBatcher startBatcher(int maxSize) {
+        SteamPlayerSummaryBatcher started = new SteamPlayerSummaryBatcher(steamUserClient);
+        ReflectionTestUtils.setField(started, "batchWindow", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(started, "batchMaxSize", maxSize);
+        started.init();
+        return started;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<String>> requestedSteamIds(int expectedCalls) {
+        ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(steamUserClient, times(expectedCalls)).fetchPlayerSummaries(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private SteamPlayerResponse.Player player(String steamId) {
+        SteamPlayerResponse.Player player = new SteamPlayerResponse.Player();
+        player.setSteamId(steamId);
+        return player;
+    }
+
+    private SteamPlayerResponse response(SteamPlayerResponse.Player... players) {
+        SteamPlayerResponse.Response inner = new SteamPlayerResponse.Response();
+        inner.setPlayers(List.of(players));
+        SteamPlayerResponse response = new SteamPlayerResponse();
+        response.setResponse(inner);
+        return response;
+    }
+}
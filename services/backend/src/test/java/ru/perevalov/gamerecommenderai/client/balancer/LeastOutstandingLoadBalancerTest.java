@@ -0,0 +1,152 @@
+package ru.perevalov.gamerecommenderai.client.balancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.perevalov.gamerecommenderai.constant.GrpcAiMetricsConstant;
+
+class LeastOutstandingLoadBalancerTest {
+
+    private static final String FIRST = "ai-1:9090";
+    private static final String SECOND = "ai-2:9090";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoadBalancer.Helper helper = mock(LoadBalancer.Helper.class);
+    private final Map<String, LoadBalancer.Subchannel> subchannels = new HashMap<>();
+    private final Map<String, LoadBalancer.SubchannelStateListener> listeners = new HashMap<>();
+    private LeastOutstandingLoadBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        when(helper.createSubchannel(any())).thenAnswer(invocation -> {
+            LoadBalancer.CreateSubchannelArgs args = invocation.getArgument(0);
+            InetSocketAddress address = (InetSocketAddress) args.getAddresses().get(0).getAddresses().get(0);
+            String name = address.getHostString() + ":" + address.getPort();
+            LoadBalancer.Subchannel subchannel = mock(LoadBalancer.Subchannel.class);
+            doAnswer(start -> listeners.put(name, start.getArgument(0))).when(subchannel).start(any());
+            subchannels.put(name, subchannel);
+            return subchannel;
+        });
+        balancer = new LeastOutstandingLoadBalancer(helper, meterRegistry);
+    }
+
+    @Test
+    void pick_prefersEndpointWithFewerOutstandingCalls() {
+        resolve(FIRST, SECOND);
+        ready(FIRST);
+        ready(SECOND);
+
+        ClientStreamTracer busy = startCallOn(FIRST);
+        for (int i = 0; i < 20; i++) {
+            assertThat(pick().getSubchannel()).isSameAs(subchannels.get(SECOND));
+        }
+        assertThat(inFlight(FIRST)).isEqualTo(1.0);
+
+        busy.streamClosed(Status.OK);
+
+        assertThat(inFlight(FIRST)).isZero();
+        assertThat(meterRegistry.get(GrpcAiMetricsConstant.AI_ENDPOINT_LATENCY)
+                .tags(GrpcAiMetricsConstant.TAG_ENDPOINT, FIRST, GrpcAiMetricsConstant.TAG_STATUS, "OK")
+                .timer().count()).isEqualTo(1L);
+    }
+
+    @Test
+    void pick_whenEndpointReportsNotServing_thenRoutesAroundIt() {
+        resolve(FIRST, SECOND);
+        ready(FIRST);
+        ready(SECOND);
+
+        listeners.get(FIRST).onSubchannelState(ConnectivityStateInfo.forTransientFailure(
+                Status.UNAVAILABLE.withDescription("Health-check service responded NOT_SERVING")));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(pick().getSubchannel()).isSameAs(subchannels.get(SECOND));
+        }
+        verify(helper, atLeastOnce()).refreshNameResolution();
+    }
+
+    @Test
+    void pick_whenNoEndpointIsReady_thenFailsWithUnavailable() {
+        resolve(FIRST, SECOND);
+        ready(FIRST);
+
+        listeners.get(FIRST).onSubchannelState(ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE));
+        listeners.get(SECOND).onSubchannelState(ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE));
+
+        ArgumentCaptor<LoadBalancer.SubchannelPicker> picker = ArgumentCaptor.forClass(LoadBalancer.SubchannelPicker.class);
+        verify(helper, atLeastOnce()).updateBalancingState(eq(ConnectivityState.TRANSIENT_FAILURE), picker.capture());
+        LoadBalancer.PickResult result = picker.getValue().pickSubchannel(mock(LoadBalancer.PickSubchannelArgs.class));
+        assertThat(result.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+    }
+
+    @Test
+    void acceptResolvedAddresses_whenEndpointRemoved_thenShutsItDown() {
+        resolve(FIRST, SECOND);
+        ready(FIRST);
+        ready(SECOND);
+
+        resolve(SECOND);
+
+        verify(subchannels.get(FIRST)).shutdown();
+        assertThat(meterRegistry.find(GrpcAiMetricsConstant.AI_ENDPOINT_IN_FLIGHT)
+                .tag(GrpcAiMetricsConstant.TAG_ENDPOINT, FIRST).gauge()).isNull();
+        assertThat(pick().getSubchannel()).isSameAs(subchannels.get(SECOND));
+    }
+
+    private void resolve(String... endpoints) {
+        List<EquivalentAddressGroup> addresses = Arrays.stream(endpoints)
+                .map(endpoint -> endpoint.split(":"))
+                .map(parts -> new EquivalentAddressGroup(
+                        InetSocketAddress.createUnresolved(parts[0], Integer.parseInt(parts[1]))))
+                .toList();
+        balancer.acceptResolvedAddresses(LoadBalancer.ResolvedAddresses.newBuilder().setAddresses(addresses).build());
+    }
+
+    private void ready(String endpoint) {
+        listeners.get(endpoint).onSubchannelState(ConnectivityStateInfo.forNonError(ConnectivityState.READY));
+    }
+
+    private LoadBalancer.PickResult pick() {
+        ArgumentCaptor<LoadBalancer.SubchannelPicker> picker = ArgumentCaptor.forClass(LoadBalancer.SubchannelPicker.class);
+        verify(helper, atLeastOnce()).updateBalancingState(eq(ConnectivityState.READY), picker.capture());
+        return picker.getValue().pickSubchannel(mock(LoadBalancer.PickSubchannelArgs.class));
+    }
+
+    private ClientStreamTracer startCallOn(String endpoint) {
+        for (int i = 0; i < 100; i++) {
+            LoadBalancer.PickResult result = pick();
+            if (result.getSubchannel() == subchannels.get(endpoint)) {
+                return result.getStreamTracerFactory()
+                        .newClientStreamTracer(ClientStreamTracer.StreamInfo.newBuilder().build(), new Metadata());
+            }
+        }
+        throw new AssertionError("Endpoint " + endpoint + " was never picked");
+    }
+
+    private double inFlight(String endpoint) {
+        return meterRegistry.get(GrpcAiMetricsConstant.AI_ENDPOINT_IN_FLIGHT)
+                .tag(GrpcAiMetricsConstant.TAG_ENDPOINT, endpoint).gauge().value();
+    }
+}
@@ -0,0 +1,179 @@
+package ru.perevalov.gamerecommenderai.client.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.AsyncBucketProxyAdapter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.client.props.SteamRateLimitProps;
+import ru.perevalov.gamerecommenderai.constant.SteamRateLimitMetricsConstant;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+
+class SteamApiRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void acquire_interactiveWhenDeadlineCannotBeMet_thenFailsWithoutWaiting() {
+        SteamApiRateLimiter limiter = limiter(bucket(1, Duration.ofHours(1)), bucket(1, Duration.ofHours(1)),
+                Duration.ofSeconds(1));
+
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+        StepVerifier.create(limiter.acquire())
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOfSatisfying(GameRecommenderException.class, ex ->
+                                assertThat(ex.getErrorType()).isEqualTo(ErrorType.STEAM_API_RATE_LIMIT_EXCEEDED)))
+                .verify(Duration.ofMillis(500));
+
+        assertThat(counter(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_ADMITTED_TOTAL, "interactive")).isEqualTo(1.0);
+        assertThat(counter(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_REJECTED_TOTAL, "interactive")).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_interactiveWithinDeadline_thenScheduledAfterRefill() {
+        SteamApiRateLimiter limiter = limiter(bucket(1, Duration.ofMillis(100)), bucket(1, Duration.ofHours(1)),
+                Duration.ofSeconds(1));
+
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+        long startNanos = System.nanoTime();
+        StepVerifier.create(limiter.acquire().contextWrite(SteamApiRateLimiter.maxWait(Duration.ofSeconds(1))))
+                .verifyComplete();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        Timer wait = meterRegistry.get(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_WAIT)
+                .tag(SteamRateLimitMetricsConstant.TAG_LANE, "interactive")
+                .timer();
+        assertThat(wait.count()).isEqualTo(2L);
+        assertThat(wait.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50.0);
+    }
+
+    @Test
+    void acquire_interactiveWithZeroMaxWait_thenFailsFast() {
+        SteamApiRateLimiter limiter = limiter(bucket(1, Duration.ofMillis(500)), bucket(1, Duration.ofHours(1)),
+                Duration.ofSeconds(1));
+
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+        StepVerifier.create(limiter.acquire().contextWrite(SteamApiRateLimiter.maxWait(Duration.ZERO)))
+                .expectError(GameRecommenderException.class)
+                .verify(Duration.ofMillis(50));
+    }
+
+    @Test
+    void acquire_backgroundBurst_doesNotConsumeReservedInteractiveShare() {
+        SteamApiRateLimiter limiter = limiter(bucket(10, Duration.ofHours(1)), bucket(7, Duration.ofHours(1)),
+                Duration.ofMillis(50));
+
+        long admittedBackground = Flux.range(0, 20)
+                .concatMap(i -> limiter.acquire()
+                        .thenReturn(true)
+                        .onErrorReturn(false)
+                        .contextWrite(SteamRequestLane.background()))
+                .filter(Boolean::booleanValue)
+                .count()
+                .block();
+
+        assertThat(admittedBackground).isEqualTo(7L);
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(limiter.acquire()).verifyComplete();
+        }
+        assertThat(counter(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_REJECTED_TOTAL, "background")).isEqualTo(13.0);
+    }
+
+    @Test
+    void acquire_backgroundWhenBucketEmpty_thenWaitsForRefillInQueue() {
+        AsyncBucketProxy backgroundBucket = bucket(1, Duration.ofMillis(100));
+        SteamApiRateLimiter limiter = limiter(bucket(10, Duration.ofHours(1)), backgroundBucket, Duration.ofSeconds(5));
+
+        long startNanos = System.nanoTime();
+        StepVerifier.create(Flux.merge(
+                                limiter.acquire().contextWrite(SteamRequestLane.background()),
+                                limiter.acquire().contextWrite(SteamRequestLane.background()),
+                                limiter.acquire().contextWrite(SteamRequestLane.background()))
+                        .then())
+                .verifyComplete();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        assertThat(counter(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_ADMITTED_TOTAL, "background")).isEqualTo(3.0);
+        assertThat(meterRegistry.get(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_QUEUE_DEPTH)
+                .tag(SteamRateLimitMetricsConstant.TAG_LANE, "background")
+                .gauge()
+                .value()).isZero();
+    }
+
+    @Test
+    void acquire_backgroundWhenSharedBucketTimesOut_thenReturnsBackgroundToken() {
+        AsyncBucketProxy backgroundBucket = bucket(5, Duration.ofHours(1));
+        SteamApiRateLimiter limiter = limiter(bucket(1, Duration.ofHours(1)), backgroundBucket, Duration.ofMillis(50));
+
+        StepVerifier.create(limiter.acquire().contextWrite(SteamRequestLane.background())).verifyComplete();
+        StepVerifier.create(limiter.acquire().contextWrite(SteamRequestLane.background()))
+                .expectError(GameRecommenderException.class)
+                .verify(Duration.ofMillis(500));
+
+        assertThat(backgroundBucket.getAvailableTokens().join()).isEqualTo(4L);
+    }
+
+    @Test
+    void acquire_whenLaneHasNoWaiters_thenDoesNotWaitForConcurrentBucketCall() {
+        AsyncBucketProxy apiBucket = mock(AsyncBucketProxy.class);
+        CompletableFuture<ConsumptionProbe> slowRedisCall = new CompletableFuture<>();
+        when(apiBucket.tryConsumeAndReturnRemaining(1))
+                .thenReturn(slowRedisCall)
+                .thenReturn(CompletableFuture.completedFuture(ConsumptionProbe.consumed(5, 0)));
+        SteamApiRateLimiter limiter = limiter(apiBucket, bucket(1, Duration.ofHours(1)), Duration.ofSeconds(1));
+
+        Disposable stuck = limiter.acquire().subscribe();
+        StepVerifier.create(limiter.acquire()).expectComplete().verify(Duration.ofMillis(200));
+
+        stuck.dispose();
+        assertThat(counter(SteamRateLimitMetricsConstant.STEAM_RATE_LIMIT_ADMITTED_TOTAL, "interactive")).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_whenAdmitted_thenContinuesOffBucketThread() {
+        SteamApiRateLimiter limiter = limiter(bucket(1, Duration.ofHours(1)), bucket(1, Duration.ofHours(1)),
+                Duration.ofSeconds(1));
+
+        StepVerifier.create(limiter.acquire().then(Mono.fromCallable(() -> Thread.currentThread().getName())))
+                .assertNext(thread -> assertThat(thread).startsWith("parallel-"))
+                .verifyComplete();
+    }
+
+    private SteamApiRateLimiter limiter(AsyncBucketProxy apiBucket,
+                                        AsyncBucketProxy backgroundBucket,
+                                        Duration backgroundMaxWait) {
+        return new SteamApiRateLimiter(apiBucket, backgroundBucket,
+                new SteamRateLimitProps(0.3, Duration.ofSeconds(3), backgroundMaxWait), meterRegistry);
+    }
+
+    private AsyncBucketProxy bucket(long capacity, Duration refillPeriod) {
+        return AsyncBucketProxyAdapter.fromSync(Bucket.builder()
+                .addLimit(limit -> limit.capacity(capacity).refillGreedy(capacity, refillPeriod))
+                .build());
+    }
+
+    private double counter(String name, String lane) {
+        var counter = meterRegistry.find(name).tag(SteamRateLimitMetricsConstant.TAG_LANE, lane).counter();
+        return counter != null ? counter.count() : 0.0d;
+    }
+}
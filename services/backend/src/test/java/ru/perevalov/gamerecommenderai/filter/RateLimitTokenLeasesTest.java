@@ -0,0 +1,122 @@
+package ru.perevalov.gamerecommenderai.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.AsyncBucketProxyAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import ru.perevalov.gamerecommenderai.config.redis.RateLimitLeaseProps;
+
+class RateLimitTokenLeasesTest {
+
+    private static final String KEY = "rl:USER:1";
+    private static final Duration LEASE_TTL = Duration.ofSeconds(5);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void tryConsume_servesLeasedTokensWithoutRedis() {
+        Bucket redis = bucket(100);
+        RateLimitTokenLeases leases = leases(true);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(consume(leases, redis).isConsumed()).isTrue();
+        }
+        assertThat(redis.getAvailableTokens()).isEqualTo(90);
+
+        ConsumptionProbe probe = consume(leases, redis);
+
+        assertThat(probe.isConsumed()).isTrue();
+        assertThat(probe.getRemainingTokens()).isEqualTo(89);
+        assertThat(redis.getAvailableTokens()).isEqualTo(80);
+    }
+
+    @Test
+    void tryConsume_whenDisabled_thenEveryCheckGoesToRedis() {
+        Bucket redis = bucket(100);
+        RateLimitTokenLeases leases = leases(false);
+
+        consume(leases, redis);
+        consume(leases, redis);
+
+        assertThat(redis.getAvailableTokens()).isEqualTo(98);
+    }
+
+    @Test
+    void tryConsume_whenLeaseExpires_thenUnusedTokensReturnToRedis() {
+        Bucket redis = bucket(100);
+        RateLimitTokenLeases leases = leases(true);
+        consume(leases, redis);
+        consume(leases, redis);
+
+        nanos.addAndGet(LEASE_TTL.plusMillis(1).toNanos());
+        consume(leases, redis);
+
+        assertThat(redis.getAvailableTokens()).isEqualTo(100 - 2 - 10);
+    }
+
+    @Test
+    void releaseAll_returnsUnusedTokens() {
+        Bucket redis = bucket(100);
+        RateLimitTokenLeases leases = leases(true);
+        consume(leases, redis);
+        consume(leases, redis);
+        consume(leases, redis);
+
+        leases.releaseAll();
+
+        assertThat(redis.getAvailableTokens()).isEqualTo(97);
+    }
+
+    @Test
+    void tryConsume_acrossNodes_neverAdmitsMoreThanGlobalCapacity() {
+        Bucket redis = bucket(100);
+        List<RateLimitTokenLeases> nodes = List.of(leases(true), leases(true), leases(true));
+
+        long admitted = 0;
+        ConsumptionProbe lastRejected = null;
+        for (int i = 0; i < 150; i++) {
+            ConsumptionProbe probe = consume(nodes.get(i % nodes.size()), redis);
+            if (probe.isConsumed()) {
+                admitted++;
+            } else {
+                lastRejected = probe;
+            }
+        }
+
+        assertThat(admitted).isEqualTo(100);
+        assertThat(lastRejected).isNotNull();
+        assertThat(lastRejected.getNanosToWaitForRefill()).isPositive();
+    }
+
+    @Test
+    void leases_whenShareGivesLessThanTwoTokens_thenFalse() {
+        RateLimitTokenLeases leases = leases(true);
+
+        assertThat(leases.leases(10)).isFalse();
+        assertThat(leases.leases(20)).isTrue();
+        assertThat(leases(false).leases(100)).isFalse();
+    }
+
+    private ConsumptionProbe consume(RateLimitTokenLeases leases, Bucket redis) {
+        AsyncBucketProxy proxy = AsyncBucketProxyAdapter.fromSync(redis);
+        return leases.tryConsume(KEY, proxy, 100).block();
+    }
+
+    private RateLimitTokenLeases leases(boolean enabled) {
+        return new RateLimitTokenLeases(new RateLimitLeaseProps(enabled, 0.1, 10, LEASE_TTL, 1_000),
+                new SimpleMeterRegistry(), nanos::get);
+    }
+
+    private Bucket bucket(long capacity) {
+        return Bucket.builder()
+                .addLimit(limit -> limit.capacity(capacity).refillGreedy(capacity, Duration.ofHours(1)))
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package ru.perevalov.gamerecommenderai.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.AsyncBucketProxyAdapter;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteAsyncBucketBuilder;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.config.redis.RateLimitLeaseProps;
+import ru.perevalov.gamerecommenderai.security.RequestIdentity;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+
+class RateLimitWebFilterTest {
+
+    private final Map<String, AsyncBucketProxy> buckets = new HashMap<>();
+    private final Set<BucketConfiguration> usedConfigurations = new HashSet<>();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final WebFilterChain chain = exchange -> Mono.fromRunnable(passed::incrementAndGet);
+
+    private RemoteAsyncBucketBuilder<byte[]> bucketBuilder;
+    private RateLimitWebFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LettuceBasedProxyManager<byte[]> proxyManager = mock(LettuceBasedProxyManager.class);
+        AsyncProxyManager<byte[]> asyncProxyManager = mock(AsyncProxyManager.class);
+        bucketBuilder = mock(RemoteAsyncBucketBuilder.class);
+        when(proxyManager.asAsync()).thenReturn(asyncProxyManager);
+        when(asyncProxyManager.builder()).thenReturn(bucketBuilder);
+        when(bucketBuilder.build(any(), any(BucketConfiguration.class))).thenAnswer(invocation -> {
+            String key = new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8);
+            BucketConfiguration configuration = invocation.getArgument(1);
+            usedConfigurations.add(configuration);
+            return buckets.computeIfAbsent(key, ignored -> AsyncBucketProxyAdapter.fromSync(
+                    Bucket.builder().addLimit(configuration.getBandwidths()[0]).build()));
+        });
+
+        RateLimitTokenLeases tokenLeases = new RateLimitTokenLeases(
+                new RateLimitLeaseProps(false, 0.1, 10, Duration.ofSeconds(5), 1_000), new SimpleMeterRegistry());
+        filter = new RateLimitWebFilter(proxyManager, new ObjectMapper().findAndRegisterModules(), tokenLeases);
+        ReflectionTestUtils.setField(filter, "guestLimitPerHour", 2L);
+        ReflectionTestUtils.setField(filter, "userLimitPerHour", 3L);
+        filter.init();
+    }
+
+    @Test
+    void filter_whenTokensAvailable_thenPassesAndSetsRemainingHeader() {
+        MockServerWebExchange exchange = exchange(RequestIdentity.guest("session"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(passed).hasValue(1);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Rate-Limit-Remaining")).isEqualTo("1");
+    }
+
+    @Test
+    void filter_whenLimitExhausted_thenRespondsTooManyRequests() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(filter.filter(exchange(RequestIdentity.guest("session")), chain)).verifyComplete();
+        }
+        MockServerWebExchange rejected = exchange(RequestIdentity.guest("session"));
+
+        StepVerifier.create(filter.filter(rejected, chain)).verifyComplete();
+
+        assertThat(passed).hasValue(2);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotBlank();
+    }
+
+    @Test
+    void filter_reusesOneConfigurationPerRole() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(filter.filter(exchange(RequestIdentity.guest("guest-" + i)), chain)).verifyComplete();
+            StepVerifier.create(filter.filter(exchange(new RequestIdentity("user-" + i, UserRole.USER, (long) i)), chain))
+                    .verifyComplete();
+        }
+
+        assertThat(usedConfigurations).hasSize(2);
+        assertThat(buckets).containsKeys("rl:GUEST:guest-0", "rl:USER:0");
+    }
+
+    @Test
+    void filter_whenRedisFails_thenFailsOpen() {
+        when(bucketBuilder.build(any(), any(BucketConfiguration.class)))
+                .thenThrow(new IllegalStateException("redis is down"));
+
+        StepVerifier.create(filter.filter(exchange(RequestIdentity.guest("session")), chain)).verifyComplete();
+
+        assertThat(passed).hasValue(1);
+    }
+
+    private MockServerWebExchange exchange(RequestIdentity identity) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/games"));
+        exchange.getAttributes().put(RequestIdentity.EXCHANGE_ATTRIBUTE, identity);
+        return exchange;
+    }
+}
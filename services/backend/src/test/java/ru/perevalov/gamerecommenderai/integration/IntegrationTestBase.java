@@ -57,6 +57,9 @@ public abstract class IntegrationTestBase {
         registry.add("performance.rate-limiter.role.limit.of-hour.GUEST_USER", () -> "1000");
         registry.add("performance.rate-limiter.role.limit.of-hour.USER", () -> "1000");
 
+        // Кэш ответов AI общий для контекста Spring: тесты с моками gRPC не должны видеть ответы друг друга.
+        registry.add("app.recommender.recommendation-cache.enabled", () -> "false");
+
         // Redis
         registry.add("redis.redis-uri", () -> String.format("redis://%s:%d",
                 REDIS_CONTAINER.getHost(), REDIS_CONTAINER.getMappedPort(6379)));
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,6 +24,7 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.perevalov.gamerecommenderai.client.GameRecommenderGrpcClient;
 import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
@@ -30,7 +32,9 @@ import ru.perevalov.gamerecommenderai.dto.steam.SteamOwnedGamesResponse;
 import ru.perevalov.gamerecommenderai.entity.ChatMessage;
 import ru.perevalov.gamerecommenderai.entity.enums.MessageRole;
 import ru.perevalov.gamerecommenderai.grpc.GameRecommendation;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationChunk;
 import ru.perevalov.gamerecommenderai.grpc.RecommendationResponse;
+import ru.perevalov.gamerecommenderai.grpc.RecommendationSummary;
 import ru.perevalov.gamerecommenderai.repository.ChatMessageRepository;
 import ru.perevalov.gamerecommenderai.security.jwt.JwtUtil;
 import ru.perevalov.gamerecommenderai.security.model.UserRole;
@@ -76,8 +80,8 @@ class PipelineIT extends IntegrationTestBase {
         long steamId = 76561198000000010L;
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(successResponse()));
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(successResponse()));
 
         GameRecommendationRequest request = GameRecommendationRequest.builder()
                 .content("Recommend me an open-world game")
@@ -163,8 +167,8 @@ class PipelineIT extends IntegrationTestBase {
     void pipeline_happyPath_persistsUserAndAssistant() throws Exception {
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(successResponse()));
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(successResponse()));
 
         GameRecommendationRequest request = GameRecommendationRequest.builder()
                 .content("Recommend me an RPG")
@@ -221,8 +225,8 @@ class PipelineIT extends IntegrationTestBase {
     void pipeline_aiError_returnsSoftFailureAndPersistsOnlyUser() throws Exception {
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(RecommendationResponse.newBuilder()
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(RecommendationResponse.newBuilder()
                         .setSuccess(false)
                         .setMessage("AI unavailable")
                         .build()));
@@ -277,8 +281,8 @@ class PipelineIT extends IntegrationTestBase {
     void pipeline_idempotency_clientRequestId_doesNotDuplicateUserMessages() throws Exception {
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(successResponse()));
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(successResponse()));
 
         String clientRequestId = UUID.randomUUID().toString();
         GameRecommendationRequest request = GameRecommendationRequest.builder()
@@ -378,12 +382,35 @@ class PipelineIT extends IntegrationTestBase {
                 .build();
     }
 
+    /**
+     * Раскладывает mock-ответ на части {@code StreamRecommendGames} в том же порядке,
+     * в каком их отдаёт AI сервис.
+     *
+     * @param response ответ recommendation service
+     * @return поток частей ответа
+     */
+    private Flux<RecommendationChunk> chunks(RecommendationResponse response) {
+        List<RecommendationChunk> chunks = new ArrayList<>();
+        if (!response.getReasoning().isEmpty()) {
+            chunks.add(RecommendationChunk.newBuilder().setReasoning(response.getReasoning()).build());
+        }
+        response.getRecommendationsList().forEach(rec ->
+                chunks.add(RecommendationChunk.newBuilder().setRecommendation(rec).build()));
+        chunks.add(RecommendationChunk.newBuilder()
+                .setSummary(RecommendationSummary.newBuilder()
+                        .setSuccess(response.getSuccess())
+                        .setMessage(response.getMessage())
+                        .setProvider(response.getProvider()))
+                .build());
+        return Flux.fromIterable(chunks);
+    }
+
     @Test
     void pipeline_idempotency_clientRequestIdFromHeader_isFallback() throws Exception {
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(successResponse()));
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(successResponse()));
 
         String clientRequestId = UUID.randomUUID().toString();
         GameRecommendationRequest request = GameRecommendationRequest.builder()
@@ -419,8 +446,8 @@ class PipelineIT extends IntegrationTestBase {
     void pipeline_whenClientRequestIdMissing_generatesItOnBackend() throws Exception {
         when(steamService.getOwnedGames(anyString(), anyBoolean(), anyBoolean()))
                 .thenReturn(Mono.just(new SteamOwnedGamesResponse()));
-        when(grpcClient.getGameRecommendations(any()))
-                .thenReturn(Mono.just(successResponse()));
+        when(grpcClient.streamGameRecommendations(any()))
+                .thenReturn(chunks(successResponse()));
 
         GameRecommendationRequest request = GameRecommendationRequest.builder()
                 .content("Generated request id")
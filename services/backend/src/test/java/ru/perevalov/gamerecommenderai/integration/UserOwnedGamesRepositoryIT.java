@@ -0,0 +1,115 @@
+package ru.perevalov.gamerecommenderai.integration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.dto.CoOwnedGame;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.repository.UserOwnedGamesRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционные тесты на {@link ru.perevalov.gamerecommenderai.repository.UserOwnedGamesRepositoryImpl}:
+ * убеждаются, что запись библиотеки добавляет, обновляет и удаляет только изменившиеся строки,
+ * а выборки по appid считают владельцев и совместно принадлежащие игры.
+ */
+@Tag("integration")
+class UserOwnedGamesRepositoryIT extends IntegrationTestBase {
+
+    @Autowired
+    private UserOwnedGamesRepository userOwnedGamesRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void replaceOwnedGames_insertsUpdatesAndDeletesRows() {
+        UUID userId = createUser();
+        long first = randomAppId();
+        long second = first + 1;
+        long third = first + 2;
+
+        userOwnedGamesRepository.replaceOwnedGames(userId, List.of(game(first, 10), game(second, 20), game(first, 10)))
+                .block();
+        userOwnedGamesRepository.replaceOwnedGames(userId, List.of(game(second, 25), game(third, 0))).block();
+
+        StepVerifier.create(databaseClient.sql("""
+                                SELECT appid, playtime_forever FROM game_recommender.user_owned_games
+                                WHERE user_id = :userId ORDER BY appid
+                                """)
+                        .bind("userId", userId)
+                        .map(row -> row.get("appid", Long.class) + ":" + row.get("playtime_forever", Integer.class))
+                        .all()
+                        .collectList())
+                .assertNext(rows -> assertThat(rows).containsExactly(second + ":25", third + ":0"))
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceOwnedGames_withEmptyLibrary_thenDeletesAllRows() {
+        UUID userId = createUser();
+        long appId = randomAppId();
+        userOwnedGamesRepository.replaceOwnedGames(userId, List.of(game(appId, 10))).block();
+
+        userOwnedGamesRepository.replaceOwnedGames(userId, List.of()).block();
+
+        StepVerifier.create(userOwnedGamesRepository.countOwners(appId))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void countOwnersAndFindCoOwned_aggregateAcrossUsers() {
+        long target = randomAppId();
+        long popular = target + 1;
+        long rare = target + 2;
+        userOwnedGamesRepository.replaceOwnedGames(createUser(), List.of(game(target, 1), game(popular, 1), game(rare, 1)))
+                .block();
+        userOwnedGamesRepository.replaceOwnedGames(createUser(), List.of(game(target, 1), game(popular, 1))).block();
+        userOwnedGamesRepository.replaceOwnedGames(createUser(), List.of(game(popular, 1))).block();
+
+        StepVerifier.create(userOwnedGamesRepository.countOwners(target))
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(userOwnedGamesRepository.findCoOwned(target, 10).collectList())
+                .assertNext(rows -> assertThat(rows)
+                        .containsExactly(new CoOwnedGame(popular, 2), new CoOwnedGame(rare, 1)))
+                .verifyComplete();
+    }
+
+    private OwnedGamesSnapshot.Game game(long appId, int playtimeForever) {
+        OwnedGamesSnapshot.Game game = new OwnedGamesSnapshot.Game();
+        game.setAppId(appId);
+        game.setPlaytimeForever(playtimeForever);
+        return game;
+    }
+
+    private long randomAppId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000_000L, 2_000_000_000L);
+    }
+
+    private UUID createUser() {
+        UUID userId = UUID.randomUUID();
+        long steamId = Math.abs(UUID.randomUUID().getMostSignificantBits());
+
+        databaseClient.sql("""
+                        INSERT INTO game_recommender.users
+                            (id, steam_id, is_active, created_at, updated_at, role)
+                        VALUES
+                            (:id, :steamId, true, NOW(), NOW(), 'USER'::game_recommender.role_enum)
+                        """)
+                .bind("id", userId)
+                .bind("steamId", steamId)
+                .fetch()
+                .rowsUpdated()
+                .block();
+        return userId;
+    }
+}
@@ -2,9 +2,13 @@ package ru.perevalov.gamerecommenderai.mapper;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamGameDetailsResponseDto;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamGameDetailsResponseDto.SteamGameDataResponseDto;
 import ru.perevalov.gamerecommenderai.dto.steam.SteamGameDetailsResponseDto.SteamGenreResponseDto;
+import ru.perevalov.gamerecommenderai.grpc.FullAiContextRequestProto;
+import ru.perevalov.gamerecommenderai.grpc.ProfileGameProto;
+import ru.perevalov.gamerecommenderai.grpc.ProfileSummaryProto;
 import ru.perevalov.gamerecommenderai.grpc.SimilarGamesResponse;
 import ru.perevalov.gamerecommenderai.grpc.SteamAppResponse;
 
@@ -152,6 +156,27 @@ class GrpcMapperTest {
         assertThat(response.getGamesList()).containsExactly(first, second);
     }
 
+    @Test
+    @DisplayName("toProto(AiContextRequest) → структурированная сводка профиля передаётся как есть")
+    void shouldCopyStructuredProfileSummary() {
+        ProfileSummaryProto summary = ProfileSummaryProto.newBuilder()
+                .addGames(ProfileGameProto.newBuilder().setName("Hades").setPlaytimeHours(50))
+                .addAllGamesPlayed(0)
+                .setTotalGamesOwned(1)
+                .build();
+
+        FullAiContextRequestProto withSummary = mapper.toProto(AiContextRequest.builder()
+                .userMessage("hi")
+                .structuredProfileSummary(summary)
+                .build());
+        FullAiContextRequestProto withoutSummary = mapper.toProto(AiContextRequest.builder()
+                .userMessage("hi")
+                .build());
+
+        assertThat(withSummary.getStructuredProfileSummary()).isEqualTo(summary);
+        assertThat(withoutSummary.hasStructuredProfileSummary()).isFalse();
+    }
+
     private static SteamGameDetailsResponseDto dtoWith(int appId,
                                                        String name,
                                                        String shortDescription,
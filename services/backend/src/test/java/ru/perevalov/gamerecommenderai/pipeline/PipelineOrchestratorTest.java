@@ -0,0 +1,311 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.config.PipelineMetricsProps;
+import ru.perevalov.gamerecommenderai.constant.PipelineMetricsConstant;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
+import ru.perevalov.gamerecommenderai.mapper.ChatMapper;
+import ru.perevalov.gamerecommenderai.message.MessageMetaFactory;
+import ru.perevalov.gamerecommenderai.pipeline.step.AiCallStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.ChatResolverStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.ContextResolverStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.PersistAssistantStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.PersistUserMessageStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.ProfileSummaryStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.ResponseStep;
+import ru.perevalov.gamerecommenderai.pipeline.step.TouchChatStep;
+import ru.perevalov.gamerecommenderai.service.ChatMessageService;
+import ru.perevalov.gamerecommenderai.service.ChatsService;
+import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
+import ru.perevalov.gamerecommenderai.service.UserService;
+
+class PipelineOrchestratorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final PipelineMetricsProps PROPS =
+            new PipelineMetricsProps(List.of(Duration.ofSeconds(1)), Duration.ofSeconds(30), false);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    @Test
+    void handle_runsIndependentStepsConcurrently() {
+        Sinks.Empty<Void> summaryStarted = Sinks.empty();
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("context", 100, Set.of(), Set.of(PipelineSlot.REQUEST_CONTEXT)),
+                // Шаг чата ждёт старта шага summary: при последовательном выполнении pipeline бы завис.
+                step("chat", 200, Set.of(PipelineSlot.REQUEST_CONTEXT), Set.of(PipelineSlot.CHAT),
+                        context -> summaryStarted.asMono().thenReturn(context)),
+                step("summary", 250, Set.of(PipelineSlot.REQUEST_CONTEXT), Set.of(PipelineSlot.PROFILE_SUMMARY),
+                        context -> {
+                            summaryStarted.tryEmitEmpty();
+                            return Mono.just(context);
+                        }),
+                step("ai", 400, Set.of(PipelineSlot.CHAT, PipelineSlot.PROFILE_SUMMARY),
+                        Set.of(PipelineSlot.AI_RESPONSE)),
+                responseStep(Set.of(PipelineSlot.AI_RESPONSE)));
+
+        StepVerifier.create(orchestrator.handle(context()))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertThat(executed).startsWith("context").endsWith("ai", "response");
+        assertThat(executed).containsExactlyInAnyOrder("context", "chat", "summary", "ai", "response");
+    }
+
+    @Test
+    void handle_afterSoftFailure_runsOnlyResponseStep() {
+        PipelineContext context = context();
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("ai", 400, Set.of(), Set.of(PipelineSlot.AI_RESPONSE), current -> {
+                    current.setErrorMessage("AI is unavailable");
+                    return Mono.just(current);
+                }),
+                step("persist", 500, Set.of(PipelineSlot.AI_RESPONSE), Set.of(PipelineSlot.ASSISTANT_MESSAGE)),
+                responseStep(Set.of(PipelineSlot.ASSISTANT_MESSAGE)));
+
+        StepVerifier.create(orchestrator.handle(context))
+                .assertNext(response -> assertThat(response.getMessages()).hasSize(1))
+                .verifyComplete();
+
+        assertThat(executed).containsExactly("ai", "response");
+        assertThat(context.getTimings().describeCriticalPath()).contains("persist=skipped");
+        assertThat(stepCount("persist", PipelineMetricsConstant.OUTCOME_SKIPPED)).isEqualTo(1);
+        assertThat(stepCount("response", PipelineMetricsConstant.OUTCOME_SUCCESS)).isEqualTo(1);
+        assertThat(meterRegistry.get(PipelineMetricsConstant.PIPELINE_DURATION)
+                .tag(PipelineMetricsConstant.TAG_OUTCOME, PipelineMetricsConstant.OUTCOME_SUCCESS)
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void handle_whenStepReturnsEmpty_thenCompletesEmptyWithoutDependents() {
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("chat", 200, Set.of(), Set.of(PipelineSlot.CHAT), context -> Mono.empty()),
+                responseStep(Set.of(PipelineSlot.CHAT)));
+
+        StepVerifier.create(orchestrator.handle(context()))
+                .verifyComplete();
+
+        assertThat(executed).containsExactly("chat");
+    }
+
+    @Test
+    void handle_whenStepFails_thenPropagatesError() {
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("chat", 200, Set.of(), Set.of(PipelineSlot.CHAT), context -> {
+                    throw new IllegalStateException("db is down");
+                }),
+                responseStep(Set.of(PipelineSlot.CHAT)));
+
+        StepVerifier.create(orchestrator.handle(context()))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(executed).containsExactly("chat");
+    }
+
+    @Test
+    void handle_reportsLongestBranchAsCriticalPath() {
+        PipelineContext context = context();
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("context", 100, Set.of(), Set.of(PipelineSlot.REQUEST_CONTEXT)),
+                step("chat", 200, Set.of(PipelineSlot.REQUEST_CONTEXT), Set.of(PipelineSlot.CHAT)),
+                step("summary", 250, Set.of(PipelineSlot.REQUEST_CONTEXT), Set.of(PipelineSlot.PROFILE_SUMMARY),
+                        current -> Mono.delay(Duration.ofMillis(50)).thenReturn(current)),
+                responseStep(Set.of(PipelineSlot.CHAT, PipelineSlot.PROFILE_SUMMARY)));
+
+        orchestrator.handle(context).block(TIMEOUT);
+
+        assertThat(context.getTimings().criticalPath())
+                .extracting(PipelineTimings.StepTiming::step)
+                .containsExactly("context", "summary", "response");
+        assertThat(context.getTimings().totalNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+        assertThat(context.getTimings().serverTiming())
+                .startsWith("context;dur=")
+                .contains(", summary;dur=")
+                .containsPattern(", total;dur=\\d+\\.\\d$");
+    }
+
+    @Test
+    void handle_whenCancelled_thenCancelsRunningSteps() {
+        AtomicBoolean aiCancelled = new AtomicBoolean();
+        PipelineOrchestrator orchestrator = orchestrator(
+                step("chat", 200, Set.of(), Set.of(PipelineSlot.CHAT)),
+                step("ai", 400, Set.of(PipelineSlot.CHAT), Set.of(PipelineSlot.AI_RESPONSE),
+                        context -> Mono.<PipelineContext>never().doOnCancel(() -> aiCancelled.set(true))),
+                responseStep(Set.of(PipelineSlot.AI_RESPONSE)));
+
+        orchestrator.handle(context()).subscribe().dispose();
+
+        assertThat(aiCancelled).isTrue();
+        assertThat(executed).containsExactly("chat", "ai");
+        assertThat(stepCount("ai", PipelineMetricsConstant.OUTCOME_CANCELLED)).isEqualTo(1);
+    }
+
+    @Test
+    void init_whenRequiredSlotIsNotProduced_thenFails() {
+        assertThatThrownBy(() -> orchestrator(
+                step("ai", 400, Set.of(PipelineSlot.PROFILE_SUMMARY), Set.of(PipelineSlot.AI_RESPONSE))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("PROFILE_SUMMARY");
+    }
+
+    @Test
+    void init_whenSlotHasTwoProducers_thenFails() {
+        assertThatThrownBy(() -> orchestrator(
+                step("chat", 200, Set.of(), Set.of(PipelineSlot.CHAT)),
+                step("otherChat", 300, Set.of(), Set.of(PipelineSlot.CHAT))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("chat and otherChat");
+    }
+
+    @Test
+    void init_whenDependenciesAreCyclic_thenFails() {
+        assertThatThrownBy(() -> orchestrator(
+                step("chat", 200, Set.of(PipelineSlot.USER_MESSAGE), Set.of(PipelineSlot.CHAT)),
+                step("persist", 300, Set.of(PipelineSlot.CHAT), Set.of(PipelineSlot.USER_MESSAGE))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cyclic");
+    }
+
+    @Test
+    void build_withApplicationSteps_loadsProfileSummaryAfterChatResolver() {
+        ChatMessageService chatMessageService = mock(ChatMessageService.class);
+        ChatsService chatsService = mock(ChatsService.class);
+        GameRecommenderService gameRecommenderService = mock(GameRecommenderService.class);
+        PipelineSupport support = new PipelineSupport();
+        List<PipelineStep> steps = new ArrayList<>(List.of(
+                new ResponseStep(mock(ChatMapper.class), mock(MessageMetaFactory.class)),
+                new TouchChatStep(chatsService),
+                new PersistAssistantStep(chatMessageService, support),
+                new AiCallStep(gameRecommenderService, chatMessageService, support),
+                new PersistUserMessageStep(chatMessageService),
+                new ProfileSummaryStep(gameRecommenderService),
+                new ChatResolverStep(chatsService, chatMessageService),
+                new ContextResolverStep(mock(UserService.class), support)));
+        PipelineOrchestrator orchestrator = new PipelineOrchestrator(steps, meterRegistry, PROPS);
+
+        orchestrator.init();
+
+        assertThat(steps).extracting(PipelineStep::name).containsExactly(
+                "ContextResolverStep", "ChatResolverStep", "ProfileSummaryStep", "PersistUserMessageStep",
+                "AiCallStep", "PersistAssistantStep", "TouchChatStep", "ResponseStep");
+    }
+
+    private long stepCount(String step, String outcome) {
+        return meterRegistry.get(PipelineMetricsConstant.PIPELINE_STEP_DURATION)
+                .tag(PipelineMetricsConstant.TAG_STEP, step)
+                .tag(PipelineMetricsConstant.TAG_OUTCOME, outcome)
+                .timer()
+                .count();
+    }
+
+    private PipelineOrchestrator orchestrator(PipelineStep... steps) {
+        PipelineOrchestrator orchestrator = new PipelineOrchestrator(new ArrayList<>(List.of(steps)), meterRegistry, PROPS);
+        orchestrator.init();
+        return orchestrator;
+    }
+
+    private PipelineContext context() {
+        return new PipelineContext(new GameRecommendationRequest(), null);
+    }
+
+    private PipelineStep step(String name, int order, Set<PipelineSlot> requires, Set<PipelineSlot> produces) {
+        return step(name, order, requires, produces, Mono::just);
+    }
+
+    private PipelineStep step(String name,
+                              int order,
+                              Set<PipelineSlot> requires,
+                              Set<PipelineSlot> produces,
+                              Function<PipelineContext, Mono<PipelineContext>> handler) {
+        return new TestStep(name, order, requires, produces, handler);
+    }
+
+    private PipelineStep responseStep(Set<PipelineSlot> requires) {
+        return new ResponseStep(mock(ChatMapper.class), mock(MessageMetaFactory.class)) {
+            @Override
+            public Mono<PipelineContext> handle(PipelineContext context) {
+                executed.add(name());
+                return super.handle(context);
+            }
+
+            @Override
+            public Set<PipelineSlot> requires() {
+                return requires;
+            }
+
+            @Override
+            public String name() {
+                return "response";
+            }
+        };
+    }
+
+    private final class TestStep implements PipelineStep, Ordered {
+        private final String name;
+        private final int order;
+        private final Set<PipelineSlot> requires;
+        private final Set<PipelineSlot> produces;
+        private final Function<PipelineContext, Mono<PipelineContext>> handler;
+
+        private TestStep(String name,
+                         int order,
+                         Set<PipelineSlot> requires,
+                         Set<PipelineSlot> produces,
+                         Function<PipelineContext, Mono<PipelineContext>> handler) {
+            this.name = name;
+            this.order = order;
+            this.requires = requires;
+            this.produces = produces;
+            this.handler = handler;
+        }
+
+        @Override
+        public Mono<PipelineContext> handle(PipelineContext context) {
+            executed.add(name);
+            return handler.apply(context);
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public Set<PipelineSlot> requires() {
+            return requires;
+        }
+
+        @Override
+        public Set<PipelineSlot> produces() {
+            return produces;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.perevalov.gamerecommenderai.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
+import ru.perevalov.gamerecommenderai.dto.chat.ProceedResponse;
+import ru.perevalov.gamerecommenderai.dto.chat.ProceedStreamEvent;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.message.MessageMetaFactory;
+import ru.perevalov.gamerecommenderai.message.dto.MessageCardDto;
+import ru.perevalov.gamerecommenderai.message.dto.MessageReasoningItemDto;
+
+class PipelineStreamerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final UUID CHAT_ID = UUID.randomUUID();
+
+    private final PipelineOrchestrator orchestrator = mock(PipelineOrchestrator.class);
+    private final PipelineStreamer streamer =
+            new PipelineStreamer(orchestrator, new MessageMetaFactory(new ObjectMapper()));
+
+    @Test
+    void stream_emitsAcceptedBeforePipelineThenProgressThenResponse() {
+        Sinks.Empty<Void> aiDone = Sinks.empty();
+        ProceedResponse response = ProceedResponse.builder().chatId(CHAT_ID).messages(List.of()).build();
+        when(orchestrator.handle(any())).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            context.setChatId(CHAT_ID);
+            context.getProgress().status("searching");
+            return aiDone.asMono().then(Mono.fromCallable(() -> {
+                context.getProgress().item(MessageReasoningItemDto.builder().text("why").build());
+                context.getProgress().item(MessageCardDto.builder().title("Hades").build());
+                return response;
+            }));
+        });
+
+        StepVerifier.create(streamer.stream(context()))
+                .assertNext(event -> assertStatus(event, null, "accepted"))
+                .assertNext(event -> assertStatus(event, CHAT_ID, "searching"))
+                .then(aiDone::tryEmitEmpty)
+                .assertNext(event -> {
+                    assertThat(event.getEvent()).isEqualTo(ProceedStreamEvent.ITEM);
+                    assertThat(event.getItem()).isInstanceOf(MessageReasoningItemDto.class);
+                })
+                .assertNext(event -> assertThat(event.getItem()).isInstanceOf(MessageCardDto.class))
+                .assertNext(event -> {
+                    assertThat(event.getEvent()).isEqualTo(ProceedStreamEvent.RESPONSE);
+                    assertThat(event.getResponse()).isSameAs(response);
+                })
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void stream_whenPipelineFails_thenEndsWithErrorEvent() {
+        when(orchestrator.handle(any())).thenReturn(
+                Mono.error(new GameRecommenderException(ErrorType.CHAT_NOT_FOUND, CHAT_ID)));
+
+        StepVerifier.create(streamer.stream(context()))
+                .assertNext(event -> assertStatus(event, null, "accepted"))
+                .assertNext(event -> {
+                    assertThat(event.getEvent()).isEqualTo(ProceedStreamEvent.ERROR);
+                    assertThat(event.getMeta().at("/payload/code").asText()).isEqualTo("CHAT_NOT_FOUND");
+                    assertThat(event.getMeta().at("/payload/retryable").asBoolean()).isFalse();
+                })
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void stream_whenClientCancels_thenCancelsPipeline() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(orchestrator.handle(any())).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            context.getProgress().status("searching");
+            return Mono.<ProceedResponse>never().doOnCancel(() -> cancelled.set(true));
+        });
+
+        StepVerifier.create(streamer.stream(context()))
+                .assertNext(event -> assertStatus(event, null, "accepted"))
+                .assertNext(event -> assertStatus(event, null, "searching"))
+                .thenCancel()
+                .verify(TIMEOUT);
+
+        assertThat(cancelled).isTrue();
+    }
+
+    private void assertStatus(ProceedStreamEvent event, UUID chatId, String state) {
+        assertThat(event.getEvent()).isEqualTo(ProceedStreamEvent.STATUS);
+        assertThat(event.getChatId()).isEqualTo(chatId);
+        assertThat(event.getMeta().at("/type").asText()).isEqualTo("status");
+        assertThat(event.getMeta().at("/payload/state").asText()).isEqualTo(state);
+    }
+
+    private PipelineContext context() {
+        return new PipelineContext(new GameRecommendationRequest(), null);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.perevalov.gamerecommenderai.pipeline.step;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendation;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+import ru.perevalov.gamerecommenderai.message.dto.MessageItemDto;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineProgress;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSupport;
+import ru.perevalov.gamerecommenderai.service.ChatMessageService;
+import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
+
+class AiCallStepTest {
+
+    private final GameRecommenderService gameRecommenderService = mock(GameRecommenderService.class);
+    private final AiCallStep step = new AiCallStep(gameRecommenderService, mock(ChatMessageService.class),
+            new PipelineSupport());
+
+    private final List<MessageItemDto> items = new ArrayList<>();
+    private PipelineContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new PipelineContext(new GameRecommendationRequest(), null);
+        context.setChatId(UUID.randomUUID());
+        context.setProfileSummary(ProfileSummaryPayload.ofJson("{}"));
+        context.setProgress(new PipelineProgress() {
+            @Override
+            public void status(String state) {
+            }
+
+            @Override
+            public void item(MessageItemDto item) {
+                items.add(item);
+            }
+        });
+    }
+
+    @Test
+    void handle_whenStreamingUnimplemented_thenFallsBackToUnaryCall() {
+        GameRecommendationResponse response = GameRecommendationResponse.builder()
+                .success(true)
+                .reasoning("because")
+                .recommendations(List.of(GameRecommendation.builder().title("Hades").build()))
+                .build();
+        when(gameRecommenderService.streamGameRecommendationsWithContext(any(), anyString(), any()))
+                .thenReturn(Flux.error(new GameRecommenderException(ErrorType.AI_STREAMING_UNSUPPORTED)));
+        when(gameRecommenderService.getGameRecommendationsWithContext(any(GameRecommendationRequest.class),
+                anyString(), any(ProfileSummaryPayload.class)))
+                .thenReturn(Mono.just(response));
+
+        StepVerifier.create(step.handle(context))
+                .expectNext(context)
+                .verifyComplete();
+
+        assertThat(context.getResponse()).isSameAs(response);
+        assertThat(context.getErrorMessage()).isNull();
+        assertThat(items).hasSize(2);
+    }
+
+    @Test
+    void handle_whenStreamFailsWithAiError_thenDoesNotRetryUnary() {
+        when(gameRecommenderService.streamGameRecommendationsWithContext(any(), anyString(), any()))
+                .thenReturn(Flux.error(new GameRecommenderException(ErrorType.GRPC_AI_ERROR, "provider down")));
+
+        StepVerifier.create(step.handle(context))
+                .expectNext(context)
+                .verifyComplete();
+
+        assertThat(context.getResponse().isSuccess()).isFalse();
+        verify(gameRecommenderService, never()).getGameRecommendationsWithContext(
+                any(GameRecommendationRequest.class), anyString(), any(ProfileSummaryPayload.class));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.perevalov.gamerecommenderai.pipeline.step;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationRequest;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineContext;
+import ru.perevalov.gamerecommenderai.pipeline.PipelineSlot;
+import ru.perevalov.gamerecommenderai.service.GameRecommenderService;
+
+class ProfileSummaryStepTest {
+
+    private final GameRecommenderService gameRecommenderService = mock(GameRecommenderService.class);
+    private final ProfileSummaryStep step = new ProfileSummaryStep(gameRecommenderService);
+
+    @Test
+    void requires_chat_soThatSummaryIsNotLoadedBeforeChatIsValidated() {
+        assertThat(step.requires()).contains(PipelineSlot.CHAT);
+    }
+
+    @Test
+    void handle_whenDuplicate_thenSkipsSummaryLoad() {
+        PipelineContext context = new PipelineContext(new GameRecommendationRequest(), null);
+        context.setDuplicate(true);
+
+        StepVerifier.create(step.handle(context))
+                .expectNext(context)
+                .verifyComplete();
+
+        verifyNoInteractions(gameRecommenderService);
+        assertThat(context.getProfileSummary()).isNull();
+    }
+
+    @Test
+    void handle_whenNewRequest_thenLoadsSummary() {
+        PipelineContext context = new PipelineContext(new GameRecommendationRequest(), null);
+        ProfileSummaryPayload payload = ProfileSummaryPayload.ofJson("{}");
+        when(gameRecommenderService.getProfileSummary(any())).thenReturn(Mono.just(payload));
+
+        StepVerifier.create(step.handle(context))
+                .expectNext(context)
+                .verifyComplete();
+
+        verify(gameRecommenderService).getProfileSummary(context.getRequest());
+        assertThat(context.getProfileSummary()).isEqualTo(payload);
+    }
+}
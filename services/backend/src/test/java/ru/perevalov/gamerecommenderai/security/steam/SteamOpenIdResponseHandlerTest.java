@@ -32,8 +32,8 @@ import ru.perevalov.gamerecommenderai.security.CookieService;
 import ru.perevalov.gamerecommenderai.security.TokenService;
 import ru.perevalov.gamerecommenderai.security.model.UserRole;
 import ru.perevalov.gamerecommenderai.service.ChatsService;
-import ru.perevalov.gamerecommenderai.service.SteamUserDataService;
 import ru.perevalov.gamerecommenderai.service.UserService;
+import ru.perevalov.gamerecommenderai.service.UserSyncQueue;
 
 @ExtendWith(MockitoExtension.class)
 class SteamOpenIdResponseHandlerTest {
@@ -47,7 +47,7 @@ class SteamOpenIdResponseHandlerTest {
     @Mock
     private CookieService cookieService;
     @Mock
-    private SteamUserDataService steamUserDataService;
+    private UserSyncQueue userSyncQueue;
     @Mock
     private ChatsService chatsService;
 
@@ -62,7 +62,7 @@ class SteamOpenIdResponseHandlerTest {
                 userService,
                 tokenService,
                 cookieService,
-                steamUserDataService,
+                userSyncQueue,
                 chatsService,
                 meterRegistry
         );
@@ -104,7 +104,7 @@ class SteamOpenIdResponseHandlerTest {
 
         verify(tokenService, times(1)).linkSteamIdToToken(eq("refresh-token"), eq(steamId), any());
         verify(chatsService, times(1)).bindGuestChatsToUser("session-id", user.getId());
-        verify(steamUserDataService, times(1)).syncUserData(user);
+        verify(userSyncQueue, times(1)).submit(user, UserSyncQueue.Priority.LOGIN);
     }
 
     @Test
@@ -210,6 +210,6 @@ class SteamOpenIdResponseHandlerTest {
 
         verify(tokenService, never()).linkSteamIdToToken(any(), anyLong(), any());
         verify(chatsService, never()).bindGuestChatsToUser(any(), any());
-        verify(steamUserDataService, never()).syncUserData(any());
+        verify(userSyncQueue, never()).submit(any(), any());
     }
 }
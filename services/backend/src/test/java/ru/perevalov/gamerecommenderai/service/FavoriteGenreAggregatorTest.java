@@ -0,0 +1,177 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.perevalov.gamerecommenderai.entity.SteamAppEntity;
+import ru.perevalov.gamerecommenderai.entity.SteamGenreEntity;
+import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+
+class FavoriteGenreAggregatorTest {
+
+    private static final long ACTION = 1L;
+    private static final long INDIE = 1L << 1;
+    private static final long RPG = 1L << 2;
+
+    private final SteamAppGenreIndex genreIndex = mock(SteamAppGenreIndex.class);
+    private final FavoriteGenreAggregator aggregator = new FavoriteGenreAggregator(genreIndex);
+
+    @BeforeEach
+    void setUp() {
+        when(genreIndex.current()).thenReturn(SteamAppGenreIndex.Snapshot.of(
+                List.of(genre(0, "1", "Action"), genre(1, "23", "Indie"), genre(2, "3", "RPG")),
+                List.of(app(10L, ACTION | INDIE), app(20L, INDIE), app(30L, RPG))));
+    }
+
+    @Test
+    void aggregate_picksGenreWithMostPlaytime() {
+        UserGameStats stats = stats(game(10L, 120), game(20L, 300), game(30L, 200), game(40L, 1_000));
+
+        aggregator.aggregate(stats, null);
+
+        assertThat(stats.getFavoriteGenre()).isEqualTo("Indie");
+        assertThat(stats.getFavoriteGenreCount()).isEqualTo(2);
+        assertThat(stats.getFavoriteGenreHours()).isEqualTo(7);
+        assertThat(stats.getGenrePlaytimeMinutes()).containsExactly(120, 420, 200);
+        assertThat(stats.getGenreGameCounts()).containsExactly(1, 2, 1);
+        assertThat(stats.getGenreIndexVersion())
+                .isEqualTo(genreIndex.current().versionOf(new long[]{10L, 20L, 30L, 40L}));
+    }
+
+    @Test
+    void aggregate_whenPlaytimeTied_thenPrefersGenreWithMoreGames() {
+        UserGameStats stats = stats(game(10L, 0), game(20L, 0), game(30L, 0));
+
+        aggregator.aggregate(stats, null);
+
+        assertThat(stats.getFavoriteGenre()).isEqualTo("Indie");
+        assertThat(stats.getFavoriteGenreHours()).isZero();
+    }
+
+    @Test
+    void aggregate_whenOnlyPlaytimeChanged_thenDeltasMatchFullPass() {
+        UserGameStats previous = stats(game(10L, 120), game(20L, 300), game(30L, 200));
+        aggregator.aggregate(previous, null);
+
+        UserGameStats incremental = stats(game(30L, 900), game(10L, 180), game(20L, 300));
+        aggregator.aggregate(incremental, previous);
+        UserGameStats full = stats(game(30L, 900), game(10L, 180), game(20L, 300));
+        aggregator.aggregate(full, null);
+
+        assertThat(incremental.getGenrePlaytimeMinutes()).containsExactly(full.getGenrePlaytimeMinutes());
+        assertThat(incremental.getGenreGameCounts()).containsExactly(full.getGenreGameCounts());
+        assertThat(incremental.getFavoriteGenre()).isEqualTo("RPG").isEqualTo(full.getFavoriteGenre());
+        assertThat(incremental.getFavoriteGenreHours()).isEqualTo(15);
+    }
+
+    @Test
+    void aggregate_whenPreviousVectorsAreReusable_thenDoesNotRecountGames() {
+        UserGameStats previous = stats(game(10L, 120), game(20L, 300));
+        previous.setGenrePlaytimeMinutes(new Integer[]{1_000, 0, 0});
+        previous.setGenreGameCounts(new Integer[]{5, 0, 0});
+        previous.setGenreIndexVersion(genreIndex.current().versionOf(new long[]{20L, 10L}));
+
+        UserGameStats stats = stats(game(10L, 180), game(20L, 300));
+        aggregator.aggregate(stats, previous);
+
+        assertThat(stats.getGenrePlaytimeMinutes()).containsExactly(1_060, 60, 0);
+        assertThat(stats.getGenreGameCounts()).containsExactly(5, 0, 0);
+    }
+
+    @Test
+    void aggregate_whenLibraryOrIndexChanged_thenRecountsFromScratch() {
+        UserGameStats previous = stats(game(10L, 120), game(20L, 300));
+        previous.setGenrePlaytimeMinutes(new Integer[]{1_000, 0, 0});
+        previous.setGenreGameCounts(new Integer[]{5, 0, 0});
+        previous.setGenreIndexVersion(genreIndex.current().versionOf(new long[]{20L, 10L}));
+
+        UserGameStats newGame = stats(game(10L, 120), game(20L, 300), game(30L, 60));
+        aggregator.aggregate(newGame, previous);
+        previous.setGenreIndexVersion(previous.getGenreIndexVersion() + 1);
+        UserGameStats newIndex = stats(game(10L, 120), game(20L, 300));
+        aggregator.aggregate(newIndex, previous);
+
+        assertThat(newGame.getGenreGameCounts()).containsExactly(1, 2, 1);
+        assertThat(newIndex.getGenreGameCounts()).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void aggregate_whenOnlyOtherAppsGainedGenres_thenReusesVectors() {
+        UserGameStats previous = stats(game(10L, 120), game(20L, 300));
+        aggregator.aggregate(previous, null);
+        previous.setGenrePlaytimeMinutes(new Integer[]{1_000, 0, 0});
+        previous.setGenreGameCounts(new Integer[]{5, 0, 0});
+        when(genreIndex.current()).thenReturn(SteamAppGenreIndex.Snapshot.of(
+                List.of(genre(0, "1", "Action"), genre(1, "23", "Indie"), genre(2, "3", "RPG")),
+                List.of(app(10L, ACTION | INDIE), app(20L, INDIE), app(30L, RPG), app(50L, ACTION | RPG))));
+
+        UserGameStats stats = stats(game(10L, 120), game(20L, 300));
+        aggregator.aggregate(stats, previous);
+
+        assertThat(stats.getGenreGameCounts()).containsExactly(5, 0, 0);
+        assertThat(stats.getGenreIndexVersion()).isEqualTo(previous.getGenreIndexVersion());
+    }
+
+    @Test
+    void aggregate_whenOwnAppGainedGenres_thenRecountsFromScratch() {
+        UserGameStats previous = stats(game(10L, 120), game(20L, 300), game(60L, 30));
+        aggregator.aggregate(previous, null);
+        previous.setGenrePlaytimeMinutes(new Integer[]{1_000, 0, 0});
+        previous.setGenreGameCounts(new Integer[]{5, 0, 0});
+        when(genreIndex.current()).thenReturn(SteamAppGenreIndex.Snapshot.of(
+                List.of(genre(0, "1", "Action"), genre(1, "23", "Indie"), genre(2, "3", "RPG")),
+                List.of(app(10L, ACTION | INDIE), app(20L, INDIE), app(30L, RPG), app(60L, RPG))));
+
+        UserGameStats stats = stats(game(10L, 120), game(20L, 300), game(60L, 30));
+        aggregator.aggregate(stats, previous);
+
+        assertThat(stats.getGenreGameCounts()).containsExactly(1, 2, 1);
+        assertThat(stats.getGenreIndexVersion()).isNotEqualTo(previous.getGenreIndexVersion());
+    }
+
+    @Test
+    void aggregate_whenIndexIsEmpty_thenLeavesGenreFieldsEmpty() {
+        when(genreIndex.current()).thenReturn(SteamAppGenreIndex.Snapshot.EMPTY);
+        UserGameStats stats = stats(game(10L, 120));
+
+        aggregator.aggregate(stats, null);
+
+        assertThat(stats.getFavoriteGenre()).isNull();
+        assertThat(stats.getGenrePlaytimeMinutes()).isNull();
+        assertThat(stats.getGenreIndexVersion()).isNull();
+    }
+
+    private UserGameStats stats(OwnedGamesSnapshot.Game... games) {
+        OwnedGamesSnapshot.Response response = new OwnedGamesSnapshot.Response();
+        response.setGameCount(games.length);
+        response.setGames(new ArrayList<>(List.of(games)));
+        OwnedGamesSnapshot snapshot = new OwnedGamesSnapshot();
+        snapshot.setResponse(response);
+
+        UserGameStats stats = new UserGameStats();
+        stats.setSteamId(76561198000000001L);
+        stats.setOwnedGamesSnapshot(snapshot);
+        return stats;
+    }
+
+    private OwnedGamesSnapshot.Game game(long appId, int playtimeForever) {
+        OwnedGamesSnapshot.Game game = new OwnedGamesSnapshot.Game();
+        game.setAppId(appId);
+        game.setPlaytimeForever(playtimeForever);
+        return game;
+    }
+
+    private SteamGenreEntity genre(int bit, String steamGenreId, String description) {
+        return new SteamGenreEntity((short) bit, steamGenreId, description);
+    }
+
+    private SteamAppEntity app(long appId, long genreMask) {
+        return SteamAppEntity.builder().appid(appId).genreMask(genreMask).build();
+    }
+}
@@ -0,0 +1,136 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.config.PlaytimeHistoryProps;
+import ru.perevalov.gamerecommenderai.dto.RisingGame;
+import ru.perevalov.gamerecommenderai.entity.UserPlaytimeHistory;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.repository.UserPlaytimeHistoryRepository;
+import ru.perevalov.gamerecommenderai.util.PlaytimeDeltas;
+
+class PlaytimeHistoryServiceTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 5, 20, 3, 30);
+
+    private final UserPlaytimeHistoryRepository repository = mock(UserPlaytimeHistoryRepository.class);
+    private final TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+    private final PlaytimeHistoryService service = new PlaytimeHistoryService(repository,
+            new PlaytimeHistoryProps(Duration.ofDays(90), Duration.ofDays(7)), transactionalOperator);
+
+    @Test
+    void recordSync_storesDeltaEncodedGrowth() {
+        when(repository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        LocalDateTime previousSyncAt = NOW.minusHours(6);
+
+        StepVerifier.create(service.recordSync(USER_ID, previousSyncAt,
+                        snapshot(game(620L, 100), game(1145360L, 300)),
+                        snapshot(game(620L, 160), game(1145360L, 300), game(730L, 30))))
+                .verifyComplete();
+
+        ArgumentCaptor<UserPlaytimeHistory> saved = ArgumentCaptor.forClass(UserPlaytimeHistory.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getUserId()).isEqualTo(USER_ID);
+        assertThat(saved.getValue().getPeriodStart()).isEqualTo(previousSyncAt);
+        assertThat(saved.getValue().getAppidDeltas()).containsExactly(620L, 110L);
+        assertThat(saved.getValue().getPlaytimeDeltas()).containsExactly(60, 30);
+    }
+
+    @Test
+    void recordSync_whenNothingGrewOrFirstSync_thenWritesNothing() {
+        OwnedGamesSnapshot snapshot = snapshot(game(620L, 100));
+
+        StepVerifier.create(service.recordSync(USER_ID, NOW, snapshot, snapshot(game(620L, 100)))).verifyComplete();
+        StepVerifier.create(service.recordSync(USER_ID, null, null, snapshot)).verifyComplete();
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void findRisingGames_sumsRowsInWindowAndKeepsTop() {
+        when(repository.findByUserIdAndPeriodEndAfter(any(), any())).thenReturn(Flux.just(
+                row(NOW.minusDays(1), game(620L, 60), game(730L, 30)),
+                row(NOW.minusDays(2), game(730L, 45), game(1145360L, 10))));
+
+        StepVerifier.create(service.findRisingGames(USER_ID, Duration.ofDays(7), 2))
+                .expectNext(List.of(new RisingGame(730L, 75), new RisingGame(620L, 60)))
+                .verifyComplete();
+    }
+
+    @Test
+    void compact_mergesRowsOfOneUserDayAndDeletesTheRest() {
+        LocalDateTime day = NOW.minusDays(10);
+        UserPlaytimeHistory morning = row(day.withHour(6), game(620L, 60));
+        UserPlaytimeHistory noon = row(day.withHour(12), game(620L, 30), game(730L, 15));
+        UserPlaytimeHistory nextDay = row(day.plusDays(1), game(730L, 5));
+        List<UserPlaytimeHistory> saved = new ArrayList<>();
+        when(repository.deleteByPeriodEndBefore(NOW.minusDays(90))).thenReturn(Mono.just(3L));
+        when(repository.findUncompactedBefore(NOW.minusDays(7).with(LocalTime.MIN)))
+                .thenReturn(Flux.just(morning, noon, nextDay));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return Mono.just(invocation.getArgument(0));
+        });
+        when(repository.deleteByIdIn(any())).thenReturn(Mono.just(1L));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(service.compact(NOW)).verifyComplete();
+
+        assertThat(saved).containsExactly(morning, nextDay);
+        assertThat(morning.isCompacted()).isTrue();
+        assertThat(morning.isNew()).isFalse();
+        assertThat(morning.getPeriodEnd()).isEqualTo(noon.getPeriodEnd());
+        PlaytimeDeltas merged = PlaytimeDeltas.decode(morning.getAppidDeltas(), morning.getPlaytimeDeltas());
+        assertThat(merged.appIds()).containsExactly(620L, 730L);
+        assertThat(merged.boxedMinutes()).containsExactly(90, 15);
+        verify(repository).deleteByIdIn(new UUID[]{noon.getId()});
+        verify(repository, times(1)).deleteByIdIn(any());
+        verify(transactionalOperator, times(2)).transactional(any(Mono.class));
+    }
+
+    private UserPlaytimeHistory row(LocalDateTime periodEnd, OwnedGamesSnapshot.Game... grown) {
+        PlaytimeDeltas deltas = PlaytimeDeltas.between(List.of(), List.of(grown));
+        UserPlaytimeHistory row = new UserPlaytimeHistory();
+        row.setUserId(USER_ID);
+        row.setPeriodStart(periodEnd.minusHours(6));
+        row.setPeriodEnd(periodEnd);
+        row.setAppidDeltas(deltas.encodedAppIds());
+        row.setPlaytimeDeltas(deltas.boxedMinutes());
+        return row;
+    }
+
+    private OwnedGamesSnapshot snapshot(OwnedGamesSnapshot.Game... games) {
+        OwnedGamesSnapshot.Response response = new OwnedGamesSnapshot.Response();
+        response.setGameCount(games.length);
+        response.setGames(List.of(games));
+        OwnedGamesSnapshot snapshot = new OwnedGamesSnapshot();
+        snapshot.setResponse(response);
+        return snapshot;
+    }
+
+    private OwnedGamesSnapshot.Game game(long appId, int playtimeForever) {
+        OwnedGamesSnapshot.Game game = new OwnedGamesSnapshot.Game();
+        game.setAppId(appId);
+        game.setPlaytimeForever(playtimeForever);
+        return game;
+    }
+}
@@ -0,0 +1,311 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummary;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummary.GameEntry;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryMode;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+import ru.perevalov.gamerecommenderai.grpc.ProfileGameProto;
+import ru.perevalov.gamerecommenderai.grpc.ProfileSummaryProto;
+
+class ProfileSummaryBuilderTest {
+
+    private static final int TOP_BY_PLAYTIME_LIST_SIZE = 10;
+    private static final int ALL_GAMES_LIST_SIZE_LIMIT = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProfileSummaryBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        builder = new ProfileSummaryBuilder(objectMapper);
+        ReflectionTestUtils.setField(builder, "topByPlaytimeListSize", TOP_BY_PLAYTIME_LIST_SIZE);
+        ReflectionTestUtils.setField(builder, "allGamesListSizeLimit", ALL_GAMES_LIST_SIZE_LIMIT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 7, 10, 11, 150, 1_000, 10_000})
+    void buildJson_isByteIdenticalToStreamImplementation(int librarySize) throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            OwnedGamesSnapshot snapshot = randomSnapshot(librarySize, new Random(seed));
+
+            String actual = builder.buildJson(snapshot, 1L).block();
+            String expected = objectMapper.writeValueAsString(referenceSummary(snapshot));
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3})
+    void buildJson_withSmallListLimits_isByteIdenticalToStreamImplementation(int limit) throws Exception {
+        ReflectionTestUtils.setField(builder, "topByPlaytimeListSize", limit);
+        ReflectionTestUtils.setField(builder, "allGamesListSizeLimit", limit);
+        OwnedGamesSnapshot snapshot = randomSnapshot(50, new Random(42));
+
+        String actual = builder.buildJson(snapshot, 1L).block();
+        String expected = objectMapper.writeValueAsString(referenceSummary(snapshot, limit, limit));
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void buildJson_whenResponseIsMissing_thenEmptySummary() throws Exception {
+        OwnedGamesSnapshot snapshot = new OwnedGamesSnapshot();
+
+        String actual = builder.buildJson(snapshot, 1L).block();
+
+        assertThat(actual).isEqualTo(objectMapper.writeValueAsString(referenceSummary(snapshot)));
+    }
+
+    @Test
+    void buildJson_inCompactMode_storesEachGameOnce() throws Exception {
+        ReflectionTestUtils.setField(builder, "summaryMode", ProfileSummaryMode.COMPACT);
+        OwnedGamesSnapshot snapshot = randomSnapshot(150, new Random(7));
+        ProfileSummary full = referenceSummary(snapshot);
+
+        JsonNode compact = objectMapper.readTree(builder.buildJson(snapshot, 1L).block());
+
+        assertThat(compact.get("format").asText()).isEqualTo("compact-v1");
+        assertThat(compact.get("games").size())
+                .isLessThan(full.getRecentlyPlayed().size() + full.getTopByPlaytime().size()
+                        + full.getAllGamesPlayed().size());
+        assertThat(expand(compact, "recentlyPlayed")).isEqualTo(full.getRecentlyPlayed());
+        assertThat(expand(compact, "topByPlaytime")).isEqualTo(full.getTopByPlaytime());
+        assertThat(expand(compact, "allGamesPlayed")).isEqualTo(full.getAllGamesPlayed());
+        assertThat(compact.get("totalGamesOwned").asInt()).isEqualTo(full.getTotalGamesOwned());
+        assertThat(compact.get("totalPlaytimeHours").asInt()).isEqualTo(full.getTotalPlaytimeHours());
+    }
+
+    @Test
+    void buildProto_matchesReferenceSummaryAndIsSmallerThanJson() throws Exception {
+        OwnedGamesSnapshot snapshot = randomSnapshot(150, new Random(7));
+        ProfileSummary full = referenceSummary(snapshot);
+
+        ProfileSummaryProto proto = builder.buildProto(snapshot, List.of());
+
+        assertThat(expand(proto, proto.getRecentlyPlayedList())).isEqualTo(full.getRecentlyPlayed());
+        assertThat(expand(proto, proto.getTopByPlaytimeList())).isEqualTo(full.getTopByPlaytime());
+        assertThat(expand(proto, proto.getAllGamesPlayedList())).isEqualTo(full.getAllGamesPlayed());
+        assertThat(proto.getTotalGamesOwned()).isEqualTo(full.getTotalGamesOwned());
+        assertThat(proto.getTotalPlaytimeHours()).isEqualTo(full.getTotalPlaytimeHours());
+        ReflectionTestUtils.setField(builder, "summaryMode", ProfileSummaryMode.COMPACT);
+        assertThat(proto.getSerializedSize()).isLessThan(sizeInBytes(builder.buildJson(snapshot, 1L).block()));
+    }
+
+    @Test
+    void buildProto_withByteBudget_fitsBudgetAndDropsLongTailFirst() {
+        OwnedGamesSnapshot snapshot = librarySnapshot(1_000, new Random(3));
+        ProfileSummaryProto unbounded = builder.buildProto(snapshot, List.of());
+        int budget = unbounded.getSerializedSize() / 2;
+        ReflectionTestUtils.setField(builder, "summaryBudgetBytes", budget);
+
+        ProfileSummaryProto trimmed = builder.buildProto(snapshot, List.of());
+
+        assertThat(trimmed.getSerializedSize()).isLessThanOrEqualTo(budget);
+        assertThat(trimmed.getRecentlyPlayedCount()).isEqualTo(unbounded.getRecentlyPlayedCount());
+        assertThat(trimmed.getTopByPlaytimeCount()).isEqualTo(unbounded.getTopByPlaytimeCount());
+        assertThat(trimmed.getAllGamesPlayedCount())
+                .isPositive()
+                .isLessThan(unbounded.getAllGamesPlayedCount());
+    }
+
+    @Test
+    void buildPayload_inProtoMode_thenSkipsJson() {
+        ReflectionTestUtils.setField(builder, "summaryMode", ProfileSummaryMode.PROTO);
+        OwnedGamesSnapshot snapshot = randomSnapshot(20, new Random(1));
+
+        ProfileSummaryPayload payload = builder.buildPayload(snapshot, 1L, List.of()).block();
+
+        assertThat(payload.json()).isEmpty();
+        assertThat(payload.proto()).isEqualTo(builder.buildProto(snapshot, List.of()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"FULL", "COMPACT"})
+    void buildJson_withByteBudget_fitsBudgetAndDropsLongTailFirst(ProfileSummaryMode mode) throws Exception {
+        ReflectionTestUtils.setField(builder, "summaryMode", mode);
+        OwnedGamesSnapshot snapshot = librarySnapshot(1_000, new Random(3));
+        String unbounded = builder.buildJson(snapshot, 1L).block();
+        int budget = sizeInBytes(unbounded) / 2;
+        ReflectionTestUtils.setField(builder, "summaryBudgetBytes", budget);
+
+        String trimmed = builder.buildJson(snapshot, 1L).block();
+
+        JsonNode full = objectMapper.readTree(unbounded);
+        JsonNode node = objectMapper.readTree(trimmed);
+        assertThat(sizeInBytes(trimmed)).isLessThanOrEqualTo(budget);
+        assertThat(node.get("recentlyPlayed")).isEqualTo(full.get("recentlyPlayed"));
+        assertThat(node.get("topByPlaytime")).isEqualTo(full.get("topByPlaytime"));
+        assertThat(node.get("allGamesPlayed").size())
+                .isPositive()
+                .isLessThan(full.get("allGamesPlayed").size());
+    }
+
+    @Test
+    void buildJson_withTokenBudgetSmallerThanTotals_thenOnlyTotalsRemain() throws Exception {
+        ReflectionTestUtils.setField(builder, "summaryBudgetTokens", 1);
+        OwnedGamesSnapshot snapshot = randomSnapshot(100, new Random(5));
+
+        JsonNode node = objectMapper.readTree(builder.buildJson(snapshot, 1L).block());
+
+        assertThat(builder.budgetBytes()).isEqualTo(4);
+        assertThat(node.get("recentlyPlayed")).isEmpty();
+        assertThat(node.get("topByPlaytime")).isEmpty();
+        assertThat(node.get("allGamesPlayed")).isEmpty();
+        assertThat(node.get("totalGamesOwned").asInt()).isEqualTo(100);
+    }
+
+    @Test
+    void promptConfigVersion_dependsOnModeAndBudget() {
+        String full = builder.promptConfigVersion();
+        ReflectionTestUtils.setField(builder, "summaryMode", ProfileSummaryMode.COMPACT);
+        String compact = builder.promptConfigVersion();
+        ReflectionTestUtils.setField(builder, "summaryBudgetBytes", 2048);
+
+        assertThat(full).isEqualTo("v1-top10-all100-full-b0-rising5-PT168H");
+        assertThat(compact).isEqualTo("v1-top10-all100-compact-b0-rising5-PT168H");
+        assertThat(builder.promptConfigVersion()).isEqualTo("v1-top10-all100-compact-b2048-rising5-PT168H");
+    }
+
+    private List<GameEntry> expand(JsonNode compact, String list) {
+        List<GameEntry> entries = new ArrayList<>();
+        for (JsonNode index : compact.get(list)) {
+            JsonNode game = compact.get("games").get(index.asInt());
+            GameEntry entry = new GameEntry();
+            entry.setName(game.get(0).asText());
+            entry.setPlaytimeHours(game.get(1).asInt());
+            entry.setRecentPlaytimeHours(game.get(2).asInt());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private List<GameEntry> expand(ProfileSummaryProto proto, List<Integer> indexes) {
+        List<GameEntry> entries = new ArrayList<>();
+        for (int index : indexes) {
+            ProfileGameProto game = proto.getGames(index);
+            GameEntry entry = new GameEntry();
+            entry.setName(game.getName());
+            entry.setPlaytimeHours(game.getPlaytimeHours());
+            entry.setRecentPlaytimeHours(game.getRecentPlaytimeHours());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Библиотека с реалистичным распределением: недавно сыгранных игр единицы,
+     * поэтому основной объём summary приходится на {@code allGamesPlayed}.
+     */
+    private OwnedGamesSnapshot librarySnapshot(int size, Random random) {
+        OwnedGamesSnapshot snapshot = randomSnapshot(size, random);
+        for (Game game : snapshot.getResponse().getGames()) {
+            game.setPlaytimeForever(random.nextInt(50_000));
+            game.setPlaytime2weeks(random.nextInt(100) == 0 ? random.nextInt(1_200) : 0);
+        }
+        return snapshot;
+    }
+
+    private int sizeInBytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Намеренно узкий диапазон времени игры, чтобы в выборке было много равных значений
+     * и проверялся порядок при совпадении ключей сортировки.
+     */
+    private OwnedGamesSnapshot randomSnapshot(int size, Random random) {
+        List<Game> games = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Game game = new Game();
+            game.setAppId((long) i);
+            game.setName("Game " + i);
+            game.setPlaytimeForever(random.nextInt(10) == 0 ? null : random.nextInt(40));
+            game.setPlaytime2weeks(random.nextInt(10) == 0 ? null : Math.max(0, random.nextInt(12) - 8));
+            games.add(game);
+        }
+        OwnedGamesSnapshot.Response response = new OwnedGamesSnapshot.Response();
+        response.setGameCount(size);
+        response.setGames(games);
+
+        OwnedGamesSnapshot snapshot = new OwnedGamesSnapshot();
+        snapshot.setResponse(response);
+        return snapshot;
+    }
+
+    private ProfileSummary referenceSummary(OwnedGamesSnapshot snapshot) {
+        return referenceSummary(snapshot, TOP_BY_PLAYTIME_LIST_SIZE, ALL_GAMES_LIST_SIZE_LIMIT);
+    }
+
+    /**
+     * Прежняя реализация на трёх отсортированных стримах — эталон для сравнения.
+     */
+    private ProfileSummary referenceSummary(OwnedGamesSnapshot snapshot, int topLimit, int allLimit) {
+        List<Game> games = snapshot.getResponse() == null || snapshot.getResponse().getGames() == null
+                ? List.of()
+                : snapshot.getResponse().getGames();
+
+        ProfileSummary summary = new ProfileSummary();
+        summary.setRecentlyPlayed(games.stream()
+                .filter(this::playedRecently)
+                .sorted(Comparator.comparing(Game::getPlaytime2weeks).reversed())
+                .map(this::toEntry)
+                .toList());
+        summary.setTopByPlaytime(games.stream()
+                .filter(game -> played(game) && !playedRecently(game))
+                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
+                .limit(topLimit)
+                .map(this::toEntry)
+                .toList());
+        summary.setAllGamesPlayed(games.stream()
+                .filter(this::played)
+                .sorted(Comparator.comparing(Game::getPlaytimeForever).reversed())
+                .limit(allLimit)
+                .map(this::toEntry)
+                .toList());
+        summary.setTotalGamesOwned(games.size());
+        summary.setTotalPlaytimeHours(hours(games.stream()
+                .map(Game::getPlaytimeForever)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sum()));
+        return summary;
+    }
+
+    private GameEntry toEntry(Game game) {
+        GameEntry entry = new GameEntry();
+        entry.setName(game.getName());
+        entry.setPlaytimeHours(hours(game.getPlaytimeForever()));
+        entry.setRecentPlaytimeHours(hours(game.getPlaytime2weeks()));
+        return entry;
+    }
+
+    private boolean playedRecently(Game game) {
+        return game.getPlaytime2weeks() != null && game.getPlaytime2weeks() > 0;
+    }
+
+    private boolean played(Game game) {
+        return game.getPlaytimeForever() != null && game.getPlaytimeForever() > 0;
+    }
+
+    private int hours(Integer minutes) {
+        return minutes == null ? 0 : (int) Math.ceil((double) minutes / 60);
+    }
+}
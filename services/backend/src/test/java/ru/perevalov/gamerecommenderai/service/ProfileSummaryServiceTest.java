@@ -0,0 +1,197 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryMode;
+import ru.perevalov.gamerecommenderai.dto.ProfileSummaryPayload;
+import ru.perevalov.gamerecommenderai.dto.RisingGame;
+import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.grpc.ProfileGameProto;
+
+class ProfileSummaryServiceTest {
+
+    private static final long STEAM_ID = 76561198000000001L;
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PlaytimeHistoryService playtimeHistoryService = mock(PlaytimeHistoryService.class);
+    private ProfileSummaryBuilder builder;
+    private ProfileSummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        builder = spy(new ProfileSummaryBuilder(objectMapper));
+        ReflectionTestUtils.setField(builder, "topByPlaytimeListSize", 10);
+        ReflectionTestUtils.setField(builder, "allGamesListSizeLimit", 100);
+
+        service = new ProfileSummaryService(builder, objectMapper, playtimeHistoryService);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(service, "cacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        service.init();
+    }
+
+    @Test
+    void attachSummary_setsHashSummaryAndVersion() {
+        UserGameStats stats = stats(snapshot());
+
+        StepVerifier.create(service.attachSummary(stats))
+                .assertNext(result -> {
+                    assertThat(result.getSnapshotHash()).hasSize(64);
+                    assertThat(result.getProfileSummary()).contains("\"name\":\"Hades\"");
+                    assertThat(result.getProfileSummaryVersion())
+                            .isEqualTo(result.getSnapshotHash() + ":" + builder.promptConfigVersion() + ":2026-10-19");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void attachSummary_forRegisteredUser_addsRisingGamesFromHistory() {
+        ReflectionTestUtils.setField(builder, "risingListSize", 3);
+        UserGameStats stats = stats(snapshot());
+        stats.setUserId(UUID.randomUUID());
+        when(playtimeHistoryService.findRisingGames(eq(stats.getUserId()), eq(Duration.ofDays(7)), eq(3)))
+                .thenReturn(Mono.just(List.of(new RisingGame(620L, 150), new RisingGame(1L, 60))));
+
+        StepVerifier.create(service.attachSummary(stats))
+                .assertNext(result -> assertThat(result.getProfileSummary())
+                        .endsWith("\"risingPlaytime\":[{\"name\":\"Portal 2\",\"gainedHours\":3}]}"))
+                .verifyComplete();
+    }
+
+    @Test
+    void getSummary_whenStoredVersionMatches_thenDoesNotRebuild() {
+        UserGameStats stats = stats(snapshot());
+        service.attachSummary(stats).block();
+        ProfileSummaryService freshService = new ProfileSummaryService(builder, objectMapper, playtimeHistoryService);
+        ReflectionTestUtils.setField(freshService, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(freshService, "cacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(freshService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        freshService.init();
+
+        StepVerifier.create(freshService.getSummary(stats))
+                .expectNext(ProfileSummaryPayload.ofJson(stats.getProfileSummary()))
+                .verifyComplete();
+
+        verify(builder, times(1)).buildJson(any(), any(), any());
+    }
+
+    @Test
+    void getSummary_onNextDay_thenRebuildsRisingGamesForShiftedWindow() {
+        UserGameStats stats = stats(snapshot());
+        stats.setUserId(UUID.randomUUID());
+        when(playtimeHistoryService.findRisingGames(eq(stats.getUserId()), any(), eq(5)))
+                .thenReturn(Mono.just(List.of(new RisingGame(620L, 150))), Mono.just(List.of()));
+        service.attachSummary(stats).block();
+        assertThat(stats.getProfileSummary()).contains("Portal 2\",\"gainedHours\"");
+
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(NOW.plus(Duration.ofDays(1)), ZoneOffset.UTC));
+
+        StepVerifier.create(service.getSummary(stats))
+                .assertNext(summary -> assertThat(summary.json()).doesNotContain("gainedHours"))
+                .verifyComplete();
+        verify(playtimeHistoryService, times(2)).findRisingGames(any(), any(), eq(5));
+    }
+
+    @Test
+    void getSummary_whenPromptConfigChanged_thenRebuilds() {
+        UserGameStats stats = stats(snapshot());
+        service.attachSummary(stats).block();
+        ReflectionTestUtils.setField(builder, "topByPlaytimeListSize", 5);
+
+        StepVerifier.create(service.getSummary(stats))
+                .assertNext(summary -> assertThat(summary.json()).isNotBlank())
+                .verifyComplete();
+
+        verify(builder, times(2)).buildJson(any(), any(), any());
+    }
+
+    @Test
+    void getSummary_forSameSnapshot_thenServedFromCache() throws Exception {
+        OwnedGamesSnapshot snapshot = snapshot();
+
+        ProfileSummaryPayload first = service.getSummary(STEAM_ID, snapshot).block();
+        ProfileSummaryPayload second = service.getSummary(STEAM_ID, snapshot).block();
+
+        assertThat(second).isEqualTo(first);
+        verify(builder, times(1)).buildJson(any(), any(), any());
+        assertThat(service.hash(snapshot)).isEqualTo(service.hash(snapshot()));
+    }
+
+    @Test
+    void attachSummary_inProtoMode_thenKeepsProtoInCacheAndNothingInDb() {
+        ReflectionTestUtils.setField(builder, "summaryMode", ProfileSummaryMode.PROTO);
+        UserGameStats stats = stats(snapshot());
+
+        service.attachSummary(stats).block();
+
+        assertThat(stats.getProfileSummary()).isNull();
+        StepVerifier.create(service.getSummary(stats))
+                .assertNext(summary -> {
+                    assertThat(summary.json()).isEmpty();
+                    assertThat(summary.proto().getGamesList()).extracting(ProfileGameProto::getName)
+                            .containsExactly("Hades", "Portal 2");
+                })
+                .verifyComplete();
+        verify(builder, times(1)).buildProto(any(), any());
+        verify(builder, never()).buildJson(any(), any(), any());
+    }
+
+    @Test
+    void getSummary_whenSnapshotMissing_thenEmpty() {
+        StepVerifier.create(service.getSummary(stats(null)))
+                .verifyComplete();
+
+        verify(builder, never()).buildJson(any(), any(), any());
+    }
+
+    private UserGameStats stats(OwnedGamesSnapshot snapshot) {
+        UserGameStats stats = new UserGameStats();
+        stats.setSteamId(STEAM_ID);
+        stats.setOwnedGamesSnapshot(snapshot);
+        return stats;
+    }
+
+    private OwnedGamesSnapshot snapshot() {
+        OwnedGamesSnapshot.Game hades = new OwnedGamesSnapshot.Game();
+        hades.setAppId(1145360L);
+        hades.setName("Hades");
+        hades.setPlaytimeForever(3000);
+        hades.setPlaytime2weeks(120);
+
+        OwnedGamesSnapshot.Game portal = new OwnedGamesSnapshot.Game();
+        portal.setAppId(620L);
+        portal.setName("Portal 2");
+        portal.setPlaytimeForever(900);
+        portal.setPlaytime2weeks(0);
+
+        OwnedGamesSnapshot.Response response = new OwnedGamesSnapshot.Response();
+        response.setGameCount(2);
+        response.setGames(List.of(hades, portal));
+
+        OwnedGamesSnapshot snapshot = new OwnedGamesSnapshot();
+        snapshot.setResponse(response);
+        return snapshot;
+    }
+}
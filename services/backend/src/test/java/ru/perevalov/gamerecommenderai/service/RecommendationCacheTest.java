@@ -0,0 +1,173 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.config.RecommendationCacheProps;
+import ru.perevalov.gamerecommenderai.constant.RecommendationCacheMetricsConstant;
+import ru.perevalov.gamerecommenderai.dto.AiContextRequest;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendation;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationChunk;
+import ru.perevalov.gamerecommenderai.dto.GameRecommendationResponse;
+import ru.perevalov.gamerecommenderai.exception.ErrorType;
+import ru.perevalov.gamerecommenderai.exception.GameRecommenderException;
+
+class RecommendationCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger aiCalls = new AtomicInteger();
+    private final RecommendationCache cache = new RecommendationCache(
+            new RecommendationCacheProps(true,
+                    new RecommendationCacheProps.Tier(100, TTL),
+                    new RecommendationCacheProps.Tier(100, TTL)),
+            meterRegistry,
+            nanos::get);
+
+    @Test
+    void keyOf_normalizesMessageTagsAndLanguage() {
+        AiContextRequest first = request("  Something like   HADES! ", "Roguelike", "Action");
+        AiContextRequest second = request("something like hades", "action", "roguelike", "Action");
+        second.setLanguage(" English");
+        first.setLanguage("english");
+
+        assertThat(RecommendationCache.keyOf(first)).isEqualTo(RecommendationCache.keyOf(second));
+        assertThat(RecommendationCache.keyOf(first).profileHash()).isNull();
+
+        second.setProfileSummary("{\"games\":[]}");
+        assertThat(RecommendationCache.keyOf(second)).isNotEqualTo(RecommendationCache.keyOf(first));
+        second.setMaxResults(3);
+        first.setProfileSummary("{\"games\":[]}");
+        assertThat(RecommendationCache.keyOf(second)).isNotEqualTo(RecommendationCache.keyOf(first));
+    }
+
+    @Test
+    void get_whenRepeated_thenServesCopyFromCacheUntilTtl() {
+        AiContextRequest request = request("something like hades");
+
+        GameRecommendationResponse first = cache.get(request, this::aiCall).block(TIMEOUT);
+        first.getRecommendations().clear();
+        GameRecommendationResponse second = cache.get(request, this::aiCall).block(TIMEOUT);
+
+        assertThat(aiCalls).hasValue(1);
+        assertThat(second.getRecommendations()).hasSize(1);
+        assertThat(requests(RecommendationCacheMetricsConstant.TIER_GUEST, RecommendationCacheMetricsConstant.RESULT_HIT))
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(RecommendationCacheMetricsConstant.RECOMMENDATION_CACHE_SAVED_LATENCY)
+                .tag(RecommendationCacheMetricsConstant.TAG_TIER, RecommendationCacheMetricsConstant.TIER_GUEST)
+                .timer()
+                .totalTime(TimeUnit.SECONDS)).isEqualTo(3.0);
+
+        nanos.addAndGet(TTL.plusSeconds(1).toNanos());
+        cache.get(request, this::aiCall).block(TIMEOUT);
+        assertThat(aiCalls).hasValue(2);
+    }
+
+    @Test
+    void stream_whenConcurrentIdenticalRequests_thenCollapsesIntoOneAiCall() {
+        AiContextRequest request = request("something like hades");
+        request.setProfileSummary("{\"games\":[]}");
+        Sinks.Empty<Void> aiDone = Sinks.empty();
+        GameRecommendationResponse response = response();
+
+        Flux<GameRecommendationChunk> leader = cache.stream(request, () -> {
+            aiCalls.incrementAndGet();
+            return Flux.just(GameRecommendationChunk.builder().reasoning("because").build())
+                    .concatWith(aiDone.asMono().thenReturn(GameRecommendationChunk.builder().response(response).build()));
+        });
+        List<GameRecommendationChunk> leaderChunks = new CopyOnWriteArrayList<>();
+        leader.subscribe(leaderChunks::add);
+        Mono<List<GameRecommendationChunk>> follower = cache.stream(request, () -> {
+            aiCalls.incrementAndGet();
+            return Flux.empty();
+        }).collectList().cache();
+        follower.subscribe();
+
+        assertThat(leaderChunks).hasSize(1);
+        aiDone.tryEmitEmpty();
+
+        assertThat(follower.block(TIMEOUT))
+                .extracting(chunk -> chunk.getReasoning() != null ? "reasoning"
+                        : chunk.getRecommendation() != null ? "recommendation" : "response")
+                .containsExactly("reasoning", "recommendation", "response");
+        assertThat(aiCalls).hasValue(1);
+        assertThat(requests(RecommendationCacheMetricsConstant.TIER_USER, RecommendationCacheMetricsConstant.RESULT_COALESCED))
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void get_whenAiFails_thenErrorIsNotCached() {
+        AiContextRequest request = request("something like hades");
+        GameRecommenderException failure = new GameRecommenderException(ErrorType.GRPC_AI_ERROR, "down");
+
+        assertThatThrownBy(() -> cache.get(request, () -> Mono.error(failure)).block(TIMEOUT)).isSameAs(failure);
+        cache.get(request, this::aiCall).block(TIMEOUT);
+
+        assertThat(aiCalls).hasValue(1);
+        assertThat(requests(RecommendationCacheMetricsConstant.TIER_GUEST, RecommendationCacheMetricsConstant.RESULT_MISS))
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void stream_whenLeaderCancels_thenFollowerLoadsItself() {
+        AiContextRequest request = request("something like hades");
+
+        StepVerifier.create(cache.stream(request, Flux::never))
+                .thenCancel()
+                .verify(TIMEOUT);
+        StepVerifier.create(cache.get(request, this::aiCall))
+                .assertNext(response -> assertThat(response.getRecommendations()).hasSize(1))
+                .verifyComplete();
+
+        assertThat(aiCalls).hasValue(1);
+    }
+
+    private Mono<GameRecommendationResponse> aiCall() {
+        return Mono.fromCallable(() -> {
+            aiCalls.incrementAndGet();
+            nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+            return response();
+        });
+    }
+
+    private GameRecommendationResponse response() {
+        return GameRecommendationResponse.builder()
+                .success(true)
+                .reasoning("because")
+                .recommendations(new ArrayList<>(List.of(GameRecommendation.builder().title("Dead Cells").build())))
+                .build();
+    }
+
+    private AiContextRequest request(String message, String... tags) {
+        return AiContextRequest.builder()
+                .userMessage(message)
+                .selectedTags(tags)
+                .chatId("chat")
+                .maxResults(5)
+                .build();
+    }
+
+    private double requests(String tier, String result) {
+        var counter = meterRegistry.find(RecommendationCacheMetricsConstant.RECOMMENDATION_CACHE_REQUESTS_TOTAL)
+                .tags(RecommendationCacheMetricsConstant.TAG_TIER, tier, RecommendationCacheMetricsConstant.TAG_RESULT, result)
+                .counter();
+        return counter != null ? counter.count() : 0.0d;
+    }
+}
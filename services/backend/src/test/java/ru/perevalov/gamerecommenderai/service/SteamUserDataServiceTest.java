@@ -0,0 +1,255 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamApiRateLimiter;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
+import ru.perevalov.gamerecommenderai.dto.steam.SteamOwnedGamesResponse;
+import ru.perevalov.gamerecommenderai.entity.User;
+import ru.perevalov.gamerecommenderai.entity.UserGameStats;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot;
+import ru.perevalov.gamerecommenderai.mapper.OwnedGamesSnapshotMapper;
+import ru.perevalov.gamerecommenderai.repository.SteamProfileRepository;
+import ru.perevalov.gamerecommenderai.repository.UserGameStatsRepository;
+import ru.perevalov.gamerecommenderai.repository.UserOwnedGamesRepository;
+import ru.perevalov.gamerecommenderai.repository.UserRepository;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+
+@ExtendWith(MockitoExtension.class)
+class SteamUserDataServiceTest {
+
+    private static final long STEAM_ID = 76561198000000001L;
+
+    @Mock
+    private SteamService steamService;
+    @Mock
+    private SteamProfileRepository steamProfileRepository;
+    @Mock
+    private UserGameStatsRepository userGameStatsRepository;
+    @Mock
+    private UserDataCacheService userDataCacheService;
+    @Mock
+    private OwnedGamesSnapshotMapper ownedGamesSnapshotMapper;
+    @Mock
+    private UserGameStatsValidator userGameStatsValidator;
+    @Mock
+    private ProfileSummaryService profileSummaryService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private FavoriteGenreAggregator favoriteGenreAggregator;
+    @Mock
+    private PlaytimeHistoryService playtimeHistoryService;
+    @Mock
+    private UserOwnedGamesRepository userOwnedGamesRepository;
+    @Mock
+    private SteamApiRateLimiter steamApiRateLimiter;
+
+    @InjectMocks
+    private SteamUserDataService service;
+
+    private final AtomicInteger ownedGamesRequests = new AtomicInteger();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User(STEAM_ID, UserRole.USER);
+        user.setId(UUID.randomUUID());
+
+        lenient().when(ownedGamesSnapshotMapper.toSnapshot(any())).thenReturn(new OwnedGamesSnapshot());
+        lenient().when(profileSummaryService.attachSummary(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        lenient().when(userGameStatsRepository.findByUserId(any())).thenReturn(Mono.empty());
+        lenient().when(userGameStatsRepository.save(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        lenient().when(userDataCacheService.saveUserGameStats(eq(STEAM_ID), any())).thenReturn(Mono.empty());
+        lenient().when(userOwnedGamesRepository.replaceOwnedGames(any(), any())).thenReturn(Mono.empty());
+        lenient().when(steamApiRateLimiter.maxWaitOf(any())).thenReturn(Duration.ofMillis(100));
+    }
+
+    @Test
+    void syncUserDataAndFallbackFetch_shareOneGetOwnedGamesAndOneWrite() {
+        Sinks.One<SteamOwnedGamesResponse> response = Sinks.one();
+        stubOwnedGames(response.asMono());
+        when(steamService.getPlayerSummaries(anyString())).thenReturn(Mono.empty());
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        CompletableFuture<Void> loginSync = service.syncUserData(user)
+                .contextWrite(SteamRequestLane.background())
+                .toFuture();
+        CompletableFuture<UserGameStats> fallback = service.fetchUserGameStats(STEAM_ID).toFuture();
+        response.tryEmitValue(ownedGames());
+
+        assertThat(loginSync).isCompleted();
+        assertThat(fallback.join().getUserId()).isEqualTo(user.getId());
+        assertThat(ownedGamesRequests).hasValue(1);
+        verify(userGameStatsRepository, times(1)).save(any());
+        verify(userDataCacheService, times(1)).saveUserGameStats(eq(STEAM_ID), any());
+        verify(userOwnedGamesRepository, times(1)).replaceOwnedGames(eq(user.getId()), any());
+    }
+
+    @Test
+    void fetchUserGameStats_whileBackgroundSyncIsFast_thenJoinsIt() {
+        Sinks.One<SteamOwnedGamesResponse> response = Sinks.one();
+        stubOwnedGames(response.asMono());
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        CompletableFuture<Void> backgroundSync = service.refreshUserGameStats(user)
+                .contextWrite(SteamRequestLane.background())
+                .toFuture();
+        CompletableFuture<UserGameStats> fallback = service.fetchUserGameStats(STEAM_ID).toFuture();
+        response.tryEmitValue(ownedGames());
+
+        assertThat(backgroundSync).isCompleted();
+        assertThat(fallback.join().getUserId()).isEqualTo(user.getId());
+        assertThat(ownedGamesRequests).hasValue(1);
+    }
+
+    @Test
+    void fetchUserGameStats_whileBackgroundSyncIsStuck_thenFetchesOnInteractiveLaneAfterOwnDeadline() {
+        Sinks.One<SteamOwnedGamesResponse> stuck = Sinks.one();
+        stubOwnedGames(stuck.asMono(), Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        CompletableFuture<Void> backgroundSync = service.refreshUserGameStats(user)
+                .contextWrite(SteamRequestLane.background())
+                .toFuture();
+
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .assertNext(stats -> assertThat(stats.getUserId()).isEqualTo(user.getId()))
+                .verifyComplete();
+
+        assertThat(ownedGamesRequests).hasValue(2);
+        assertThat(backgroundSync).isNotDone();
+        stuck.tryEmitValue(ownedGames());
+        assertThat(backgroundSync).isCompleted();
+    }
+
+    @Test
+    void fetchUserGameStats_whileOtherInteractiveFetchIsStuck_thenFetchesAfterOwnDeadline() {
+        Sinks.One<SteamOwnedGamesResponse> stuck = Sinks.one();
+        stubOwnedGames(stuck.asMono(), Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        CompletableFuture<UserGameStats> first = service.fetchUserGameStats(STEAM_ID).toFuture();
+
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .assertNext(stats -> assertThat(stats.getUserId()).isEqualTo(user.getId()))
+                .verifyComplete();
+
+        assertThat(ownedGamesRequests).hasValue(2);
+        assertThat(first).isNotDone();
+        stuck.tryEmitValue(ownedGames());
+        assertThat(first).isCompleted();
+    }
+
+    @Test
+    void refreshUserGameStats_onBackgroundLane_thenDoesNotJoinInteractiveFetch() {
+        Sinks.One<SteamOwnedGamesResponse> interactive = Sinks.one();
+        stubOwnedGames(interactive.asMono(), Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        CompletableFuture<UserGameStats> fallback = service.fetchUserGameStats(STEAM_ID).toFuture();
+        StepVerifier.create(service.refreshUserGameStats(user).contextWrite(SteamRequestLane.background()))
+                .verifyComplete();
+        interactive.tryEmitValue(ownedGames());
+
+        assertThat(fallback).isCompleted();
+        assertThat(ownedGamesRequests).hasValue(2);
+    }
+
+    @Test
+    void fetchUserGameStats_whenOwnedGamesTableWriteFails_thenStillReturnsStats() {
+        stubOwnedGames(Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+        when(userOwnedGamesRepository.replaceOwnedGames(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("db is down")));
+
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .assertNext(stats -> assertThat(stats.getUserId()).isEqualTo(user.getId()))
+                .verifyComplete();
+
+        verify(userDataCacheService).saveUserGameStats(eq(STEAM_ID), any());
+    }
+
+    @Test
+    void fetchUserGameStats_afterFailedFetch_thenFetchesAgain() {
+        stubOwnedGames(Mono.error(new IllegalStateException("steam is down")), Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.just(user));
+
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(ownedGamesRequests).hasValue(2);
+    }
+
+    @Test
+    void fetchUserGameStats_forUnregisteredSteamId_thenReturnsStatsWithoutWrite() {
+        stubOwnedGames(Mono.just(ownedGames()));
+        when(userRepository.findBySteamId(STEAM_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.fetchUserGameStats(STEAM_ID))
+                .assertNext(stats -> {
+                    assertThat(stats.getSteamId()).isEqualTo(STEAM_ID);
+                    assertThat(stats.getUserId()).isNull();
+                    assertThat(stats.getTotalGamesOwned()).isEqualTo(1);
+                })
+                .verifyComplete();
+
+        verify(userGameStatsRepository, never()).save(any());
+        verify(userDataCacheService, never()).saveUserGameStats(any(), any());
+        verify(userOwnedGamesRepository, never()).replaceOwnedGames(any(), any());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stubOwnedGames(Mono<SteamOwnedGamesResponse> first, Mono<SteamOwnedGamesResponse>... next) {
+        Mono<SteamOwnedGamesResponse>[] counted = new Mono[next.length];
+        for (int i = 0; i < next.length; i++) {
+            counted[i] = next[i].doOnSubscribe(ignored -> ownedGamesRequests.incrementAndGet());
+        }
+        when(steamService.getOwnedGames(eq(String.valueOf(STEAM_ID)), anyBoolean(), anyBoolean()))
+                .thenReturn(first.doOnSubscribe(ignored -> ownedGamesRequests.incrementAndGet()), counted);
+    }
+
+    private SteamOwnedGamesResponse ownedGames() {
+        SteamOwnedGamesResponse.Game game = new SteamOwnedGamesResponse.Game();
+        game.setAppId(1145360L);
+        game.setName("Hades");
+        game.setPlaytimeForever(600);
+
+        SteamOwnedGamesResponse.Response response = new SteamOwnedGamesResponse.Response();
+        response.setGameCount(1);
+        response.setGames(List.of(game));
+
+        SteamOwnedGamesResponse result = new SteamOwnedGamesResponse();
+        result.setResponse(response);
+        return result;
+    }
+}
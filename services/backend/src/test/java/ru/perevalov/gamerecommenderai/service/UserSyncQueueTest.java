@@ -0,0 +1,186 @@
+package ru.perevalov.gamerecommenderai.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.perevalov.gamerecommenderai.client.ratelimit.SteamRequestLane;
+import ru.perevalov.gamerecommenderai.config.UserSyncQueueProps;
+import ru.perevalov.gamerecommenderai.config.UserSyncQueueProps.OverflowPolicy;
+import ru.perevalov.gamerecommenderai.constant.UserSyncMetricsConstant;
+import ru.perevalov.gamerecommenderai.entity.User;
+import ru.perevalov.gamerecommenderai.security.model.UserRole;
+import ru.perevalov.gamerecommenderai.service.UserSyncQueue.Priority;
+
+class UserSyncQueueTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SteamUserDataService steamUserDataService = mock(SteamUserDataService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> started = new CopyOnWriteArrayList<>();
+    private final Map<Long, Sinks.Empty<Void>> gates = new ConcurrentHashMap<>();
+    private final Map<Long, CountDownLatch> startLatches = new ConcurrentHashMap<>();
+    private final Map<Long, SteamRequestLane> lanes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(steamUserDataService.syncUserData(any()))
+                .thenAnswer(invocation -> task(invocation.getArgument(0)));
+        when(steamUserDataService.refreshUserGameStats(any()))
+                .thenAnswer(invocation -> task(invocation.getArgument(0)));
+    }
+
+    @Test
+    void submit_runsUpToConcurrencyAndLetsLoginOvertakeScheduled() throws Exception {
+        UserSyncQueue queue = queue(1, 10, OverflowPolicy.DROP_NEW);
+        User first = user(1L);
+        User scheduled = user(2L);
+        User login = user(3L);
+        gate(first);
+
+        queue.submit(first, Priority.SCHEDULED);
+        Mono<Void> scheduledDone = queue.submit(scheduled, Priority.SCHEDULED);
+        queue.submit(login, Priority.LOGIN);
+        awaitStarted(first);
+        assertThat(started).containsExactly(1L);
+
+        gates.get(1L).tryEmitEmpty();
+        scheduledDone.block(TIMEOUT);
+
+        assertThat(started).containsExactly(1L, 3L, 2L);
+        verify(steamUserDataService).syncUserData(login);
+        verify(steamUserDataService).refreshUserGameStats(scheduled);
+    }
+
+    @Test
+    void submit_runsLoginAndScheduledJobsInBackgroundSteamLane() {
+        UserSyncQueue queue = queue(2, 10, OverflowPolicy.DROP_NEW);
+
+        queue.submit(user(1L), Priority.LOGIN).block(TIMEOUT);
+        queue.submit(user(2L), Priority.SCHEDULED).block(TIMEOUT);
+
+        assertThat(lanes).containsEntry(1L, SteamRequestLane.BACKGROUND)
+                .containsEntry(2L, SteamRequestLane.BACKGROUND);
+    }
+
+    @Test
+    void submit_forPendingSteamId_mergesAndUpgradesPriority() throws Exception {
+        UserSyncQueue queue = queue(1, 10, OverflowPolicy.DROP_NEW);
+        User first = user(1L);
+        User second = user(2L);
+        gate(first);
+        queue.submit(first, Priority.SCHEDULED);
+        awaitStarted(first);
+
+        Mono<Void> scheduledDone = queue.submit(second, Priority.SCHEDULED);
+        queue.submit(second, Priority.LOGIN);
+        gates.get(1L).tryEmitEmpty();
+        scheduledDone.block(TIMEOUT);
+
+        assertThat(started).containsExactly(1L, 2L);
+        verify(steamUserDataService).syncUserData(second);
+        verify(steamUserDataService, never()).refreshUserGameStats(second);
+        assertThat(jobs(Priority.LOGIN, UserSyncMetricsConstant.OUTCOME_MERGED)).isEqualTo(1.0);
+    }
+
+    @Test
+    void submit_whenFull_thenDropsSamePriorityAndEvictsLowerPriority() throws Exception {
+        UserSyncQueue queue = queue(1, 1, OverflowPolicy.EVICT_LOWER_PRIORITY);
+        User running = user(1L);
+        gate(running);
+        queue.submit(running, Priority.SCHEDULED);
+        awaitStarted(running);
+
+        Mono<Void> evicted = queue.submit(user(2L), Priority.SCHEDULED);
+        queue.submit(user(3L), Priority.SCHEDULED);
+        Mono<Void> login = queue.submit(user(4L), Priority.LOGIN);
+
+        evicted.block(TIMEOUT);
+        gates.get(1L).tryEmitEmpty();
+        login.block(TIMEOUT);
+
+        assertThat(started).containsExactly(1L, 4L);
+        assertThat(jobs(Priority.SCHEDULED, UserSyncMetricsConstant.OUTCOME_DROPPED)).isEqualTo(1.0);
+        assertThat(jobs(Priority.SCHEDULED, UserSyncMetricsConstant.OUTCOME_EVICTED)).isEqualTo(1.0);
+        assertThat(meterRegistry.get(UserSyncMetricsConstant.USER_SYNC_QUEUE_WAIT).timers()).isNotEmpty();
+    }
+
+    @Test
+    void shutdown_drainsPendingJobsAndRejectsNewOnes() throws Exception {
+        UserSyncQueue queue = queue(1, 10, OverflowPolicy.DROP_NEW);
+        User running = user(1L);
+        gate(running);
+        queue.submit(running, Priority.LOGIN);
+        queue.submit(user(2L), Priority.SCHEDULED);
+        awaitStarted(running);
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(queue::shutdown);
+        assertThat(shutdown).isNotDone();
+        gates.get(1L).tryEmitEmpty();
+        shutdown.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        queue.submit(user(3L), Priority.LOGIN).block(TIMEOUT);
+
+        assertThat(started).containsExactly(1L, 2L);
+        assertThat(jobs(Priority.LOGIN, UserSyncMetricsConstant.OUTCOME_DROPPED)).isEqualTo(1.0);
+        assertThat(meterRegistry.get(UserSyncMetricsConstant.USER_SYNC_QUEUE_DEPTH).gauge().value()).isZero();
+    }
+
+    private UserSyncQueue queue(int concurrency, int capacity, OverflowPolicy overflowPolicy) {
+        return new UserSyncQueue(steamUserDataService,
+                new UserSyncQueueProps(concurrency, capacity, overflowPolicy, TIMEOUT),
+                meterRegistry);
+    }
+
+    private Mono<Void> task(User user) {
+        return Mono.deferContextual(context -> {
+            lanes.put(user.getSteamId(), SteamRequestLane.from(context));
+            started.add(user.getSteamId());
+            startLatches.computeIfAbsent(user.getSteamId(), ignored -> new CountDownLatch(1)).countDown();
+            Sinks.Empty<Void> gate = gates.get(user.getSteamId());
+            return gate == null ? Mono.empty() : gate.asMono();
+        });
+    }
+
+    private void gate(User user) {
+        gates.put(user.getSteamId(), Sinks.empty());
+    }
+
+    private void awaitStarted(User user) throws InterruptedException {
+        assertThat(startLatches.computeIfAbsent(user.getSteamId(), ignored -> new CountDownLatch(1))
+                .await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                .isTrue();
+    }
+
+    private double jobs(Priority priority, String outcome) {
+        return meterRegistry.get(UserSyncMetricsConstant.USER_SYNC_QUEUE_JOBS_TOTAL)
+                .tag(UserSyncMetricsConstant.TAG_PRIORITY, priority.name().toLowerCase())
+                .tag(UserSyncMetricsConstant.TAG_OUTCOME, outcome)
+                .counter()
+                .count();
+    }
+
+    private User user(long steamId) {
+        User user = new User(steamId, UserRole.USER);
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.perevalov.gamerecommenderai.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ru.perevalov.gamerecommenderai.entity.embedded.OwnedGamesSnapshot.Game;
+
+class PlaytimeDeltasTest {
+
+    @Test
+    void between_keepsOnlyGrownAndNewGamesSortedByAppId() {
+        PlaytimeDeltas deltas = PlaytimeDeltas.between(
+                List.of(game(620L, 100), game(440L, 50), game(1145360L, 300)),
+                List.of(game(1145360L, 420), game(440L, 50), game(620L, 90), game(730L, 15)));
+
+        assertThat(deltas.appIds()).containsExactly(730L, 1145360L);
+        assertThat(deltas.boxedMinutes()).containsExactly(15, 120);
+    }
+
+    @Test
+    void encodedAppIds_roundTripThroughDecode() {
+        PlaytimeDeltas deltas = PlaytimeDeltas.between(List.of(),
+                List.of(game(1145360L, 5), game(620L, 7), game(730L, 9)));
+
+        Long[] encoded = deltas.encodedAppIds();
+        PlaytimeDeltas decoded = PlaytimeDeltas.decode(encoded, deltas.boxedMinutes());
+
+        assertThat(encoded).containsExactly(620L, 110L, 1144630L);
+        assertThat(decoded.appIds()).containsExactly(620L, 730L, 1145360L);
+        assertThat(decoded.boxedMinutes()).containsExactly(7, 9, 5);
+    }
+
+    @Test
+    void plus_mergesAndSumsSameGames() {
+        PlaytimeDeltas left = PlaytimeDeltas.between(List.of(), List.of(game(10L, 1), game(30L, 3)));
+        PlaytimeDeltas right = PlaytimeDeltas.between(List.of(), List.of(game(20L, 2), game(30L, 4), game(40L, 5)));
+
+        PlaytimeDeltas sum = left.plus(right);
+
+        assertThat(sum.appIds()).containsExactly(10L, 20L, 30L, 40L);
+        assertThat(sum.boxedMinutes()).containsExactly(1, 2, 7, 5);
+        assertThat(PlaytimeDeltas.EMPTY.plus(sum).appIds()).containsExactly(sum.appIds());
+    }
+
+    @Test
+    void topIndexes_ordersByMinutesThenAppId() {
+        PlaytimeDeltas deltas = PlaytimeDeltas.between(List.of(),
+                List.of(game(10L, 5), game(20L, 50), game(30L, 5), game(40L, 20)));
+
+        int[] top = deltas.topIndexes(3);
+
+        assertThat(top).hasSize(3);
+        assertThat(deltas.appIdAt(top[0])).isEqualTo(20L);
+        assertThat(deltas.appIdAt(top[1])).isEqualTo(40L);
+        assertThat(deltas.appIdAt(top[2])).isEqualTo(10L);
+    }
+
+    private Game game(long appId, int playtimeForever) {
+        Game game = new Game();
+        game.setAppId(appId);
+        game.setPlaytimeForever(playtimeForever);
+        return game;
+    }
+}